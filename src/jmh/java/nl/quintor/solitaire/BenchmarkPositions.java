@@ -0,0 +1,118 @@
+package nl.quintor.solitaire;
+
+import nl.quintor.solitaire.game.GameStateController;
+import nl.quintor.solitaire.game.moves.CycleStock;
+import nl.quintor.solitaire.game.moves.MoveCard;
+import nl.quintor.solitaire.game.moves.ex.MoveException;
+import nl.quintor.solitaire.models.state.GameState;
+import nl.quintor.solitaire.models.state.VirtualClock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reproducible positions for the JMH benchmarks: seeded deals that are played for a number of moves by a player who
+ * picks a random legal card move, or cycles the stock if there is none. The positions have cards on the stack piles,
+ * long columns with face-down cards and a partly cycled stock, like real games halfway through. The class is not
+ * instantiable, all constructors are private and all methods are static.
+ */
+public class BenchmarkPositions {
+    private BenchmarkPositions(){}
+
+    /**
+     * Returns positions of consecutive deals that have at least one legal card move.
+     *
+     * @param count number of positions
+     * @param moves number of moves played in every position
+     * @return positions of the deals starting at deal 1
+     */
+    public static List<GameState> positions(int count, int moves){
+        return positions(count, moves, 1);
+    }
+
+    /**
+     * Returns positions of consecutive deals of games with the provided number of decks that have at least one legal
+     * card move, see {@link GameStateController#init(nl.quintor.solitaire.models.state.GameClock, long, int)}.
+     *
+     * @param count number of positions
+     * @param moves number of moves played in every position
+     * @param decks number of decks of the games
+     * @return positions of the deals starting at deal 1
+     */
+    public static List<GameState> positions(int count, int moves, int decks){
+        List<GameState> positions = new ArrayList<>(count);
+        for (long dealId = 1; positions.size() < count; dealId++) {
+            GameState gameState = play(dealId, moves, decks);
+            if (!legalCardMoves(gameState).isEmpty()) positions.add(gameState);
+        }
+        return positions;
+    }
+
+    /**
+     * Deals a game and plays it for a number of moves. The same deal and number of moves always give the same position.
+     *
+     * @param dealId deal, also the seed of the moves
+     * @param moves number of moves to play, fewer if the game ends
+     * @return position after the moves
+     */
+    public static GameState play(long dealId, int moves){
+        return play(dealId, moves, 1);
+    }
+
+    /**
+     * Deals a game of the provided number of decks and plays it for a number of moves, like {@link #play(long, int)}.
+     *
+     * @param dealId deal, also the seed of the moves
+     * @param moves number of moves to play, fewer if the game ends
+     * @param decks number of decks of the game
+     * @return position after the moves
+     */
+    public static GameState play(long dealId, int moves, int decks){
+        GameState gameState = GameStateController.init(new VirtualClock(), dealId, decks);
+        Random random = new Random(dealId);
+        for (int i = 0; i < moves && !gameState.isGameOver(); i++) {
+            List<String> legal = legalCardMoves(gameState);
+            try {
+                if (legal.isEmpty() || random.nextInt(4) == 0) new CycleStock().apply(gameState);
+                else new MoveCard(legal.get(random.nextInt(legal.size()))).apply(gameState);
+            } catch (MoveException e) {
+                // the stock and waste are empty and no card can be moved
+                break;
+            }
+        }
+        return gameState;
+    }
+
+    /**
+     * Returns the player inputs of all legal card moves in a position, found by applying and reverting every candidate.
+     *
+     * @param gameState position; unchanged when this method returns
+     * @return player inputs, for example "M B1 A"
+     */
+    public static List<String> legalCardMoves(GameState gameState){
+        List<String> sources = new ArrayList<>();
+        sources.add("O");
+        sources.addAll(gameState.getStackPiles().keySet());
+        List<String> destinations = new ArrayList<>(gameState.getStackPiles().keySet());
+        destinations.addAll(gameState.getColumns().keySet());
+        gameState.getColumns().forEach((header, column) -> {
+            for (int row = column.getInvisibleCards(); row < column.size(); row++) sources.add(header + row);
+        });
+        List<String> legal = new ArrayList<>();
+        for (String source : sources) {
+            for (String destination : destinations) {
+                String input = "M " + source + " " + destination;
+                MoveCard move = new MoveCard(input);
+                try {
+                    move.apply(gameState);
+                } catch (MoveException e) {
+                    continue;
+                }
+                move.revert(gameState);
+                legal.add(input);
+            }
+        }
+        return legal;
+    }
+}
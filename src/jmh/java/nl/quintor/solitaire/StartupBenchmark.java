@@ -0,0 +1,135 @@
+package nl.quintor.solitaire;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * JMH benchmark of the cold start of the command line game: every invocation starts the shaded jar in a new JVM and
+ * measures the time until the first screen has been written; quitting the game afterwards is not measured. The JVM is
+ * started with the default class-data sharing of the JDK ("default"), without class-data sharing ("off") or with the
+ * archive of the "appcds" profile next to the jar ("appcds"). Build the jar and the archive and run with:
+ *
+ * <pre>{@code
+ * mvn -Pappcds package -DskipTests
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="StartupBenchmark"
+ * }</pre>
+ *
+ * The jar is by default the shaded jar in "target", pass another one with {@code -p jar=...}, for example to compare two
+ * builds. The java executable is by default the one of the JVM that runs the benchmark. The archive requires JDK 13 or
+ * later, so to benchmark it from a JDK 8 build, pass the java executable of a later JDK with {@code -p java=...}, or
+ * leave the archive out with {@code -p share=default,off}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 20)
+@Fork(1)
+@State(Scope.Thread)
+public class StartupBenchmark {
+    private final static byte[] PROMPT = "What would you like to do?".getBytes(StandardCharsets.UTF_8);
+    @Param({"default", "off", "appcds"})
+    public String share;
+    @Param({""})
+    public String jar;
+    @Param({""})
+    public String java;
+    private List<String> command;
+    private Path directory;
+    private Process process;
+
+    @Setup
+    public void setUp() throws IOException {
+        Path jarFile = (jar.isEmpty() ? shadedJar() : Paths.get(jar)).toAbsolutePath();
+        command = new ArrayList<>();
+        command.add(java.isEmpty() ? Paths.get(System.getProperty("java.home"), "bin", "java").toString() : java);
+        if ("off".equals(share)) command.add("-Xshare:off");
+        else if ("appcds".equals(share)) {
+            Path archive = Paths.get(jarFile.toString().replaceAll("\\.jar$", ".jsa"));
+            if (!Files.exists(archive)) throw new IllegalStateException("No archive " + archive + ", run mvn -Pappcds package first");
+            command.add("-XX:SharedArchiveFile=" + archive);
+        }
+        command.addAll(Arrays.asList("-jar", jarFile.toString()));
+        directory = Files.createTempDirectory("solitaire-startup");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        for (File file : directory.toFile().listFiles()) Files.delete(file.toPath());
+        Files.delete(directory);
+    }
+
+    /**
+     * Starts the game and waits for the prompt of the first screen.
+     */
+    @Benchmark
+    public void timeToFirstFrame() throws IOException {
+        // the leaderboard and the statistics are written to the working directory
+        process = new ProcessBuilder(command).directory(directory.toFile()).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        if (!awaitPrompt(process.getInputStream())) throw new IllegalStateException("The game exited before showing its first screen: " + command);
+    }
+
+    /**
+     * Quits the game.
+     */
+    @TearDown(Level.Invocation)
+    public void quit() throws IOException, InterruptedException {
+        try (InputStream out = process.getInputStream(); OutputStream in = process.getOutputStream()) {
+            in.write("Q\n".getBytes(StandardCharsets.UTF_8));
+            in.flush();
+            while (out.read() != -1) ; // drain the last screen
+            if (!process.waitFor(1, TimeUnit.MINUTES)) throw new IllegalStateException("The game did not quit: " + command);
+        } finally {
+            process.destroy();
+        }
+    }
+
+    /**
+     * Reads the output of the game until it contains the prompt of the first screen.
+     *
+     * @return true if the prompt has been read, false if the output ended first
+     */
+    private static boolean awaitPrompt(InputStream out) throws IOException {
+        int matched = 0;
+        int b;
+        while ((b = out.read()) != -1) {
+            if (b == PROMPT[matched]) matched++;
+            else matched = b == PROMPT[0] ? 1 : 0;
+            if (matched == PROMPT.length) return true;
+        }
+        return false;
+    }
+
+    private static Path shadedJar() throws IOException {
+        try (Stream<Path> files = Files.list(Paths.get("target"))) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".jar"))
+                .filter(file -> !file.getFileName().toString().startsWith("original-"))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No jar in target, run mvn package first"));
+        }
+    }
+}
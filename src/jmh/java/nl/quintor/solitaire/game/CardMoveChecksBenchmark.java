@@ -0,0 +1,105 @@
+package nl.quintor.solitaire.game;
+
+import nl.quintor.solitaire.BenchmarkPositions;
+import nl.quintor.solitaire.game.moves.ex.MoveException;
+import nl.quintor.solitaire.models.card.Card;
+import nl.quintor.solitaire.models.deck.Deck;
+import nl.quintor.solitaire.models.state.GameState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the three levels of {@link CardMoveChecks}, on the legal card moves of 16 positions of
+ * {@link BenchmarkPositions}. Every invocation checks the next move, so the branches see a realistic mix of moves to
+ * columns and stack piles. The positions are taken from games of one, two or three decks, see the decks parameter;
+ * the checks only look at the decks and cards of the move, so the number of decks should not change the results. Run
+ * with:
+ *
+ * <pre>{@code
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="CardMoveChecksBenchmark -prof gc"
+ * }</pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CardMoveChecksBenchmark {
+    @Param({"1", "2", "3"})
+    public int decks;
+    private String[][] inputs;
+    private Deck[] sourceDecks;
+    private int[] sourceCardIndexes;
+    private Deck[] destinationDecks;
+    private Card[] sourceCards;
+    private int next;
+
+    @Setup
+    public void setUp(){
+        List<String> moves = new ArrayList<>();
+        List<GameState> positions = new ArrayList<>();
+        for (GameState gameState : BenchmarkPositions.positions(16, 40, decks)) {
+            for (String move : BenchmarkPositions.legalCardMoves(gameState)) {
+                moves.add(move);
+                positions.add(gameState);
+            }
+        }
+        int size = moves.size();
+        inputs = new String[size][];
+        sourceDecks = new Deck[size];
+        sourceCardIndexes = new int[size];
+        destinationDecks = new Deck[size];
+        sourceCards = new Card[size];
+        for (int i = 0; i < size; i++) {
+            inputs[i] = moves.get(i).split(" ");
+            sourceDecks[i] = getDeck(positions.get(i), inputs[i][1]);
+            destinationDecks[i] = getDeck(positions.get(i), inputs[i][2]);
+            boolean column = !"O".equals(inputs[i][1]) && !inputs[i][1].startsWith("S");
+            sourceCardIndexes[i] = column ? Integer.parseInt(inputs[i][1].substring(1)) : sourceDecks[i].size() - 1;
+            sourceCards[i] = sourceDecks[i].get(sourceCardIndexes[i]);
+        }
+    }
+
+    @Benchmark
+    public void checkPlayerInput() throws MoveException{
+        CardMoveChecks.checkPlayerInput(inputs[nextMove()]);
+    }
+
+    @Benchmark
+    public void deckLevelChecks() throws MoveException{
+        int move = nextMove();
+        CardMoveChecks.deckLevelChecks(sourceDecks[move], sourceCardIndexes[move], destinationDecks[move]);
+    }
+
+    @Benchmark
+    public void cardLevelChecks() throws MoveException{
+        int move = nextMove();
+        CardMoveChecks.cardLevelChecks(destinationDecks[move], sourceCards[move]);
+    }
+
+    private int nextMove(){
+        int move = next;
+        next = move + 1 == inputs.length ? 0 : move + 1;
+        return move;
+    }
+
+    private static Deck getDeck(GameState gameState, String locationToken){
+        if ("O".equals(locationToken)) return gameState.getStock();
+        if (locationToken.startsWith("S")) return gameState.getStackPiles().get(locationToken);
+        return gameState.getColumns().get(locationToken.substring(0, 1));
+    }
+}
@@ -0,0 +1,63 @@
+package nl.quintor.solitaire.game;
+
+import nl.quintor.solitaire.BenchmarkPositions;
+import nl.quintor.solitaire.models.state.GameState;
+import nl.quintor.solitaire.models.state.VirtualClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of dealing a game with {@link GameStateController#init(nl.quintor.solitaire.models.state.GameClock, long, int)}
+ * and of {@link GameStateController#detectGameWin(GameState)}, which runs after every move, on the positions of
+ * {@link BenchmarkPositions}, for games of one, two and three decks. Dealing grows with the number of cards; detecting
+ * a win uses the card counters of the game, so it does not. Run with:
+ *
+ * <pre>{@code
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="GameStateControllerBenchmark -prof gc"
+ * }</pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameStateControllerBenchmark {
+    @Param({"1", "2", "3"})
+    public int decks;
+    private final VirtualClock clock = new VirtualClock();
+    private GameState[] positions;
+    private long dealId;
+    private int next;
+
+    @Setup
+    public void setUp(){
+        List<GameState> states = BenchmarkPositions.positions(16, 40, decks);
+        positions = states.toArray(new GameState[0]);
+    }
+
+    @Benchmark
+    public GameState init(){
+        return GameStateController.init(clock, dealId++, decks);
+    }
+
+    @Benchmark
+    public boolean detectGameWin(){
+        GameState gameState = positions[next];
+        next = next + 1 == positions.length ? 0 : next + 1;
+        GameStateController.detectGameWin(gameState);
+        return gameState.isGameWon();
+    }
+}
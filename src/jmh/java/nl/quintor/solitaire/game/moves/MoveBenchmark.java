@@ -0,0 +1,76 @@
+package nl.quintor.solitaire.game.moves;
+
+import nl.quintor.solitaire.BenchmarkPositions;
+import nl.quintor.solitaire.game.moves.ex.MoveException;
+import nl.quintor.solitaire.models.state.GameState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of applying and reverting {@link MoveCard} and {@link CycleStock} on the positions of
+ * {@link BenchmarkPositions}. Every invocation applies a move and reverts it, which leaves the position unchanged, so
+ * the positions stay realistic however long the benchmark runs. Timing apply and revert separately would need a setup
+ * per invocation, which JMH advises against for operations this short. The decks parameter runs the benchmarks on
+ * games of one, two and three decks: a move touches two decks whatever the size of the game, so the results should be
+ * the same. Run with:
+ *
+ * <pre>{@code
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="MoveBenchmark -prof gc"
+ * }</pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoveBenchmark {
+    @Param({"1", "2", "3"})
+    public int decks;
+    private GameState[] positions;
+    private String[] cardMoves;
+    private int next;
+
+    @Setup
+    public void setUp(){
+        List<GameState> states = BenchmarkPositions.positions(16, 40, decks);
+        positions = states.toArray(new GameState[0]);
+        cardMoves = new String[positions.length];
+        for (int i = 0; i < positions.length; i++) cardMoves[i] = BenchmarkPositions.legalCardMoves(positions[i]).get(0);
+    }
+
+    @Benchmark
+    public String moveCardApplyAndRevert() throws MoveException{
+        int position = nextPosition();
+        GameState gameState = positions[position];
+        MoveCard move = new MoveCard(cardMoves[position]);
+        move.apply(gameState);
+        return move.revert(gameState);
+    }
+
+    @Benchmark
+    public String cycleStockApplyAndRevert() throws MoveException{
+        GameState gameState = positions[nextPosition()];
+        CycleStock move = new CycleStock();
+        move.apply(gameState);
+        return move.revert(gameState);
+    }
+
+    private int nextPosition(){
+        int position = next;
+        next = position + 1 == positions.length ? 0 : position + 1;
+        return position;
+    }
+}
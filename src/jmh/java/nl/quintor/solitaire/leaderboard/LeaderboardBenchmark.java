@@ -0,0 +1,94 @@
+package nl.quintor.solitaire.leaderboard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the {@link Leaderboard}: the setup records a million games into a file and reopens it. The
+ * benchmarks record more games from several threads, reload the file, and query the top entries and the ranks of
+ * players. Run with:
+ *
+ * <pre>{@code
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="LeaderboardBenchmark"
+ * }</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LeaderboardBenchmark {
+    private final static int THREADS = 8;
+    @Param({"1000000"})
+    public int entries;
+    @Param({"50000"})
+    public int players;
+    private Path file;
+    private Leaderboard leaderboard;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("leaderboard", ".bin");
+        Files.delete(file);
+        try (Leaderboard filled = Leaderboard.open(file)) {
+            Random random = new Random(1);
+            for (int i = 0; i < entries; i++) record(filled, random);
+        }
+        leaderboard = Leaderboard.open(file);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        leaderboard.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    @Threads(THREADS)
+    public LeaderboardEntry record(){
+        return record(leaderboard, ThreadLocalRandom.current());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int reload() throws IOException {
+        try (Leaderboard reloaded = Leaderboard.open(file)) {
+            return reloaded.size();
+        }
+    }
+
+    @Benchmark
+    public List<LeaderboardEntry> top10(){
+        return leaderboard.top(10);
+    }
+
+    @Benchmark
+    public int rankOf(){
+        return leaderboard.rankOf("player" + ThreadLocalRandom.current().nextInt(players));
+    }
+
+    private LeaderboardEntry record(Leaderboard target, Random random){
+        return target.record("player" + random.nextInt(players), random.nextLong(), random.nextInt(5000),
+            random.nextInt(3_600_000), random.nextInt(300), random.nextBoolean());
+    }
+}
@@ -0,0 +1,65 @@
+package nl.quintor.solitaire.metrics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the overhead of the {@link Metrics}: timing an empty operation with {@link Metrics#start()} and
+ * {@link LatencyHistogram#stop(long)}, which only times one in {@link Metrics#SAMPLING} operations, on one thread and on
+ * all processors at once; recording every operation, which costs two calls to {@link System#nanoTime()}; and the
+ * overhead of a Flight Recorder event at a call site when no recording has been started, see {@link FlightEvents}.
+ * Run with:
+ *
+ * <pre>{@code
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="MetricsBenchmark"
+ * }</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+    private final LatencyHistogram histogram = Metrics.newHistogram("benchmark");
+
+    @Benchmark
+    public long nanoTimeTwice(){
+        return System.nanoTime() - System.nanoTime();
+    }
+
+    @Benchmark
+    public void timedEvent(){
+        long start = Metrics.start();
+        histogram.stop(start);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void timedEventAllThreads(){
+        long start = Metrics.start();
+        histogram.stop(start);
+    }
+
+    @Benchmark
+    public void recordEveryEvent(){
+        long start = System.nanoTime();
+        histogram.record(System.nanoTime() - start);
+    }
+
+    @Benchmark
+    public void flightEventNotRecording(){
+        MoveEvent event = FlightEvents.beginMove();
+        if (event != null) event.complete("apply", MoveEvent.class, "M B1 A", "", false);
+    }
+}
@@ -0,0 +1,57 @@
+package nl.quintor.solitaire.models.deck;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the factory methods of {@link Deck} and of copying a deck, which every card move does with the
+ * moved cards. Run with:
+ *
+ * <pre>{@code
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="DeckBenchmark -prof gc"
+ * }</pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DeckBenchmark {
+    private Deck defaultDeck;
+
+    @Setup
+    public void setUp(){
+        defaultDeck = Deck.createDefaultDeck();
+    }
+
+    @Benchmark
+    public Deck createDefaultDeck(){
+        return Deck.createDefaultDeck();
+    }
+
+    @Benchmark
+    public Deck createDefaultDeckWithJokers(){
+        return Deck.createDefaultDeckWithJokers();
+    }
+
+    @Benchmark
+    public Deck createPiquetDeck(){
+        return Deck.createPiquetDeck();
+    }
+
+    @Benchmark
+    public Deck copy(){
+        return new Deck(defaultDeck);
+    }
+}
@@ -0,0 +1,81 @@
+package nl.quintor.solitaire.models.state;
+
+import nl.quintor.solitaire.BenchmarkPositions;
+import nl.quintor.solitaire.game.moves.MoveCard;
+import nl.quintor.solitaire.game.moves.ex.MoveException;
+import nl.quintor.solitaire.models.deck.DeckType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of trying a move without changing the position it is tried from: with a {@link Position}, which shares
+ * the untouched decks, and with a copy of the {@link GameState} that the move is applied to. Uses a legal card move in
+ * each of the positions of {@link BenchmarkPositions}; the position gets the move as deck numbers, like a search would,
+ * the copy gets the player input that {@link MoveCard} parses. Run with:
+ *
+ * <pre>{@code
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="PositionBenchmark -prof gc"
+ * }</pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PositionBenchmark {
+    private final VirtualClock clock = new VirtualClock();
+    private Position[] positions;
+    private String[] inputs;
+    private int[][] moves;
+    private int next;
+
+    @Setup
+    public void setUp(){
+        List<GameState> states = BenchmarkPositions.positions(16, 40);
+        positions = new Position[states.size()];
+        inputs = new String[states.size()];
+        moves = new int[states.size()][];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = Position.of(states.get(i));
+            inputs[i] = BenchmarkPositions.legalCardMoves(states.get(i)).get(0);
+            String[] input = inputs[i].split(" ");
+            int source = positions[i].getDeckIndex(input[1]);
+            int sourceCardIndex = positions[i].getDeckType(source) == DeckType.COLUMN
+                ? Integer.parseInt(input[1].substring(1)) : positions[i].getDeckSize(source) - 1;
+            moves[i] = new int[]{source, sourceCardIndex, positions[i].getDeckIndex(input[2])};
+        }
+    }
+
+    @Benchmark
+    public Position branchPosition(){
+        int index = advance();
+        int[] move = moves[index];
+        return positions[index].moveCards(move[0], move[1], move[2]);
+    }
+
+    @Benchmark
+    public GameState copyGameState() throws MoveException {
+        int index = advance();
+        GameState copy = positions[index].toGameState(clock);
+        new MoveCard(inputs[index]).apply(copy);
+        return copy;
+    }
+
+    private int advance(){
+        int index = next;
+        next = next + 1 == positions.length ? 0 : next + 1;
+        return index;
+    }
+}
@@ -0,0 +1,74 @@
+package nl.quintor.solitaire.server;
+
+import nl.quintor.solitaire.game.GameStateController;
+import nl.quintor.solitaire.models.state.GameState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * JMH benchmark of the latency of starting a new game: dealing it with {@link GameStateController#init()} on the
+ * request path, or taking it from a {@link DealPool}. Games are requested at a steady pace, one every few hundred
+ * microseconds, which gives the background thread of the pool time to deal the next games; the pause between requests
+ * is not measured. The hits and misses of the pool are printed after every trial. Run with:
+ *
+ * <pre>{@code
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="DealPoolBenchmark"
+ * }</pre>
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DealPoolBenchmark {
+    private final static long PACE_NANOS = 200_000;
+
+    /**
+     * The pool of the {@link #dealPool(Pool)} benchmark, so the other benchmarks don't share the processors with its
+     * background thread.
+     */
+    @State(Scope.Thread)
+    public static class Pool {
+        private DealPool pool;
+
+        @Setup
+        public void setUp(){
+            pool = new DealPool(64);
+        }
+
+        @TearDown
+        public void tearDown(){
+            System.out.printf("%ndeal pool: %,d hits, %,d misses%n", pool.getHits(), pool.getMisses());
+            pool.close();
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void pace(){
+        LockSupport.parkNanos(PACE_NANOS);
+    }
+
+    @Benchmark
+    public GameState init(){
+        return GameStateController.init();
+    }
+
+    @Benchmark
+    public GameState dealPool(Pool pool){
+        return pool.pool.get();
+    }
+}
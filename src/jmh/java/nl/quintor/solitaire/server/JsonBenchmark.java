@@ -0,0 +1,103 @@
+package nl.quintor.solitaire.server;
+
+import nl.quintor.solitaire.game.GameStateController;
+import nl.quintor.solitaire.models.card.Card;
+import nl.quintor.solitaire.models.deck.Deck;
+import nl.quintor.solitaire.models.deck.DeckType;
+import nl.quintor.solitaire.models.state.GameState;
+import nl.quintor.solitaire.ui.cli.FrameBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark comparing {@link GameStateJson}, which streams the document into a reused buffer, with a naive
+ * serializer that concatenates Strings and encodes the result, producing the same document. The setup checks that both
+ * serializers produce the same document. Run with:
+ *
+ * <pre>{@code
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="JsonBenchmark -prof gc"
+ * }</pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonBenchmark {
+    private final JsonWriter writer = new JsonWriter(new FrameBuffer(4096));
+    private GameState gameState;
+
+    @Setup
+    public void setUp(){
+        gameState = GameStateController.init();
+        GameStateJson.writeGameState(writer, gameState);
+        String streamed = new String(writer.getBuffer().array(), 0, writer.getBuffer().size(), StandardCharsets.UTF_8);
+        if (!streamed.equals(naiveGameState(gameState))) throw new IllegalStateException("The serializers differ:\n" +
+            streamed + "\n" + naiveGameState(gameState));
+    }
+
+    @Benchmark
+    public byte[] stringConcatenation(){
+        return naiveGameState(gameState).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int jsonWriter(){
+        writer.clear();
+        GameStateJson.writeGameState(writer, gameState);
+        return writer.getBuffer().size();
+    }
+
+    // naive serializer, the way it would be written without a streaming writer
+
+    private static String naiveGameState(GameState gameState){
+        String json = "{\"moves\":" + gameState.getMoves().size() +
+            ",\"playingSeconds\":" + gameState.getPlayingSeconds() +
+            ",\"score\":" + gameState.getScore() +
+            ",\"stockCycles\":" + gameState.getStockCycles() +
+            ",\"gameWon\":" + gameState.isGameWon() +
+            ",\"gameLost\":" + gameState.isGameLost() +
+            ",\"stock\":" + naiveDeck(gameState.getStock()) +
+            ",\"waste\":" + naiveDeck(gameState.getWaste()) +
+            ",\"stackPiles\":" + naiveDecks(gameState.getStackPiles()) +
+            ",\"columns\":" + naiveDecks(gameState.getColumns());
+        return json + "}";
+    }
+
+    private static String naiveDecks(Map<String, Deck> decks){
+        String json = "{";
+        for (Map.Entry<String, Deck> entry : decks.entrySet()) {
+            if (json.length() > 1) json += ",";
+            json += "\"" + entry.getKey() + "\":" + naiveDeck(entry.getValue());
+        }
+        return json + "}";
+    }
+
+    private static String naiveDeck(Deck deck){
+        int faceDown = deck.getDeckType() == DeckType.WASTE ? deck.size() : Math.min(deck.getInvisibleCards(), deck.size());
+        String json = "{\"size\":" + deck.size() + ",\"faceDown\":" + faceDown + ",\"cards\":[";
+        for (int i = faceDown; i < deck.size(); i++) {
+            if (i > faceDown) json += ",";
+            json += naiveCard(deck.get(i));
+        }
+        return json + "]}";
+    }
+
+    private static String naiveCard(Card card){
+        return "{\"suit\":\"" + card.getSuit().name() + "\",\"rank\":\"" + card.getRank().name() +
+            "\",\"symbol\":\"" + card.toShortString() + "\"}";
+    }
+}
@@ -0,0 +1,154 @@
+package nl.quintor.solitaire.statistics;
+
+import nl.quintor.solitaire.agent.AgentUI;
+import nl.quintor.solitaire.agent.GreedyAgent;
+import nl.quintor.solitaire.game.GameStateController;
+import nl.quintor.solitaire.models.state.GameState;
+import nl.quintor.solitaire.models.state.VirtualClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * JMH benchmark of the {@link GameArchive}: appending games, reading games at random, scanning the archive
+ * sequentially and in parallel, and scanning it without the moves. The setup archives a million finished games and
+ * prints the size of the archive per game and per move next to the size of the same games as text.
+ *
+ * <p>The moves come from games played by the {@link GreedyAgent} on the first deals, 10,000 by default. The archived
+ * games repeat these games with consecutive deal ids and random playing times, which keeps the size of the archive
+ * realistic without playing a million games first. Run with:
+ *
+ * <pre>{@code
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="GameArchiveBenchmark"
+ * }</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GameArchiveBenchmark {
+    @Param({"1000000"})
+    public int games;
+    @Param({"10000"})
+    public int played;
+    private List<ArchivedGame> playedGames;
+    private Path file;
+    private GameArchive archive;
+    private final Random random = new Random(1);
+    private Path writerFile;
+    private GameArchiveWriter writer;
+    private long nextDealId;
+
+    @Setup
+    public void setUp() throws IOException {
+        playedGames = LongStream.rangeClosed(1, played).parallel().mapToObj(dealId -> {
+            GameState gameState = GameStateController.init(new VirtualClock(), dealId);
+            AgentUI.play(new GreedyAgent(), gameState, 1000);
+            return ArchivedGame.of(gameState);
+        }).collect(Collectors.toList());
+
+        // the same games as lines of comma separated values, with the moves separated by semicolons; the length of a
+        // line without the deal id and the playing time, which differ per archived game
+        long[] lineLengths = new long[played];
+        for (int i = 0; i < played; i++) {
+            ArchivedGame game = playedGames.get(i);
+            lineLengths[i] = (",1," + game.isWon() + "," + game.isLost() + "," + game.getScore() + ",,"
+                + String.join(";", game.getMoves()) + "\n").length();
+        }
+        long moves = 0;
+        long textBytes = 0;
+        file = Files.createTempFile("archive", ".bin");
+        try (GameArchiveWriter archiveWriter = GameArchiveWriter.create(file)) {
+            for (int i = 0; i < games; i++) {
+                ArchivedGame archived = nextGame(i);
+                archiveWriter.append(archived);
+                moves += archived.getMoveCount();
+                textBytes += lineLengths[i % played] + digits(archived.getDealId()) + digits(archived.getDurationMillis());
+            }
+        }
+        long size = Files.size(file);
+        System.out.printf("%n%-20s %,12d bytes, %.1f bytes/game, %.2f bytes/move (%,d moves)%n", "archive", size,
+            (double) size / games, (double) size / moves, moves);
+        System.out.printf("%-20s %,12d bytes, %.1f times the archive%n", "same games as text", textBytes, (double) textBytes / size);
+        archive = GameArchive.open(file);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        archive.close();
+        Files.delete(file);
+    }
+
+    @Setup(Level.Iteration)
+    public void openWriter() throws IOException {
+        writerFile = Files.createTempFile("archive", ".bin");
+        writer = GameArchiveWriter.create(writerFile);
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeWriter() throws IOException {
+        writer.close();
+        Files.delete(writerFile);
+    }
+
+    @Benchmark
+    public void append() throws IOException {
+        writer.append(nextGame(nextDealId++));
+    }
+
+    @Benchmark
+    public int randomRead() throws IOException {
+        return archive.get(random.nextInt(games)).getMoveCount();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long sequentialScan(){
+        return archive.stream().mapToLong(game -> game.getMoves().size()).sum();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long parallelScan(){
+        return archive.stream().parallel().mapToLong(game -> game.getMoves().size()).sum();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long parallelScanWithoutMoves(){
+        return archive.streamWithoutMoves().parallel().filter(ArchivedGame::isWon).count();
+    }
+
+    private ArchivedGame nextGame(long index){
+        ArchivedGame game = playedGames.get((int) (index % played));
+        return new ArchivedGame(1_000_000 + index, game.getDecks(), game.isWon(), game.isLost(), game.getScore(),
+            30_000 + random.nextInt(1_800_000), game.getMoves());
+    }
+
+    private static int digits(long value){
+        int digits = 1;
+        while ((value /= 10) != 0) digits++;
+        return digits;
+    }
+}
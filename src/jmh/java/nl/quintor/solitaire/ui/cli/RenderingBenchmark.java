@@ -0,0 +1,74 @@
+package nl.quintor.solitaire.ui.cli;
+
+import nl.quintor.solitaire.BenchmarkPositions;
+import nl.quintor.solitaire.models.state.GameState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of rendering the positions of {@link BenchmarkPositions}: {@link GameStateParser#parseGameState(GameState)}
+ * builds the board as a String, which System.out.println then encodes to bytes, while
+ * {@link FrameEncoder#appendGameState(GameState)} encodes it into the reusable frame buffer of the command line UI. The
+ * decks parameter selects games of one, two or three decks, which have 7, 9 and 13 columns; the cost of a frame grows
+ * with the size of the board. Run with:
+ *
+ * <pre>{@code
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="RenderingBenchmark -prof gc"
+ * }</pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RenderingBenchmark {
+    @Param({"1", "2", "3"})
+    public int decks;
+    private final FrameBuffer buffer = new FrameBuffer(4096);
+    private final FrameEncoder encoder = new FrameEncoder(buffer);
+    private GameState[] positions;
+    private int next;
+
+    @Setup
+    public void setUp(){
+        List<GameState> states = BenchmarkPositions.positions(16, 40, decks);
+        positions = states.toArray(new GameState[0]);
+    }
+
+    @Benchmark
+    public String parseGameState(){
+        return GameStateParser.parseGameState(nextPosition());
+    }
+
+    @Benchmark
+    public byte[] parseGameStateBytes(){
+        return GameStateParser.parseGameState(nextPosition()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int encodeFrame(){
+        buffer.clear();
+        encoder.appendGameState(nextPosition());
+        return buffer.size();
+    }
+
+    private GameState nextPosition(){
+        GameState gameState = positions[next];
+        next = next + 1 == positions.length ? 0 : next + 1;
+        return gameState;
+    }
+}
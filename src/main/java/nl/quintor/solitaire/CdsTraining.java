@@ -0,0 +1,40 @@
+package nl.quintor.solitaire;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Training run for the class-data sharing archive of the application, see the "appcds" profile of the pom. Plays a
+ * short scripted game through {@link Main}, so the JVM loads the classes that a real game loads before and after its
+ * first screen: the UI, the moves including the rejected ones, the leaderboard and the statistics. The JVM writes the
+ * loaded classes to the archive when the training run exits; later runs map them from the archive instead of loading
+ * and verifying them again.
+ *
+ * <p>The leaderboard and the statistics of the training game are written to a temporary directory, which is deleted
+ * afterwards.
+ */
+public class CdsTraining {
+    private final static String SCRIPT = "M B1 A\nM O SA\nX\nC\n\nR\nS\nH\nQ\n";
+
+    public static void main(String... args) throws IOException {
+        Path directory = Files.createTempDirectory("solitaire-cds");
+        Path leaderboard = directory.resolve("leaderboard.bin");
+        Path statistics = directory.resolve("statistics.bin");
+        System.setProperty("solitaire.leaderboard", leaderboard.toString());
+        System.setProperty("solitaire.statistics", statistics.toString());
+        InputStream in = System.in;
+        System.setIn(new ByteArrayInputStream(SCRIPT.getBytes(StandardCharsets.UTF_8)));
+        try {
+            Main.main();
+        } finally {
+            System.setIn(in);
+            Files.deleteIfExists(leaderboard);
+            Files.deleteIfExists(statistics);
+            Files.deleteIfExists(directory);
+        }
+    }
+}
@@ -1,15 +1,14 @@
 package nl.quintor.solitaire;
 
+import nl.quintor.solitaire.game.GameSession;
 import nl.quintor.solitaire.game.GameStateController;
-import nl.quintor.solitaire.game.moves.*;
-import nl.quintor.solitaire.game.moves.ex.MoveException;
-import nl.quintor.solitaire.models.state.GameState;
-import nl.quintor.solitaire.ui.UI;
+import nl.quintor.solitaire.leaderboard.Leaderboard;
+import nl.quintor.solitaire.metrics.Metrics;
+import nl.quintor.solitaire.statistics.GameStatistics;
 import nl.quintor.solitaire.ui.cli.CommandLineUI;
 
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.List;
+import java.io.IOException;
+import java.nio.file.Paths;
 
 
 /**
@@ -17,60 +16,29 @@ import java.util.List;
  */
 public class Main {
     /**
-     * Application entry point. Consists of three phases: initialization, game loop and game shutdown. During the
-     * initialization phase, the UI, game state and possible moves are created. The game loop is entered, which runs as
-     * long as the game is not over. The game loop essentially consists of:
+     * Application entry point. Creates a command line UI and a new game, and plays the game in a {@link GameSession},
+     * which contains the game loop. To host many games over the network, see
+     * {@link nl.quintor.solitaire.server.GameServer}.
      *
-     * <ul>
-     *     <li>visualize GameState object
-     *     <li>request input
-     *     <li>translate input into a Move
-     *     <li>apply the Move to the GameState object
-     *     <li>communicate the result to the player
-     * </ul>
+     * <p>The result is recorded on the {@link Leaderboard} in the file named by the system property
+     * "solitaire.leaderboard", "solitaire-leaderboard.bin" by default, under the name of the user. Likewise, the
+     * {@link GameStatistics} are kept in the file named by "solitaire.statistics", "solitaire-statistics.bin" by default.
      *
-     * When the game loop exits, the result of the game is communicated to the player and the UI is refreshed one final
-     * time.
+     * <p>The {@link Metrics} can be viewed with a JMX client while playing; the MBean is registered in the background, so
+     * it does not delay the first screen. If the system property "solitaire.metrics.dump" is "true", the metrics are also
+     * printed when the application exits.
      */
-    public static void main(String... args){
-        // initialize the GameState, UI and all possible moves
-        UI ui = new CommandLineUI();
-        GameState gameState = GameStateController.init();
-        List<String> keys = Arrays.asList("C", "M", "R", "H", "Q");
-        List<Move> moves = Arrays.asList(new CycleStock(), new MoveCard(), new Revert(), new Help(), new Quit());
-        HashMap<String, Move> possibleMoves = new HashMap<>();
-        for (int i = 0; i<keys.size(); i++) possibleMoves.put(keys.get(i), moves.get(i));
-
-        // start the game by displaying the help info
-        ui.setMessage(new Help().apply(gameState));
-        String previousInput = "H";
-
-        // game loop
-        while (!gameState.isGameOver()) {
-            // show gamestate to the player and ask for next move
-            String playerInput = ui.refreshAndRequestMove(gameState, moves).toUpperCase();
-
-            // default to the previous input if this input is empty (if the player hits <Return>)
-            playerInput = playerInput.length() == 0 ? previousInput : playerInput;
-            Move move = possibleMoves
-                .getOrDefault(playerInput.substring(0,1), new Dummy()) // default to dummy if the player enters nonsense
-                .createInstance(playerInput);
-            previousInput = playerInput;
-
-            try{
-                ui.setMessage(move.apply(gameState));
-                GameStateController.detectGameWin(gameState);
-                GameStateController.applyTimePenalty(gameState);
-            } catch (MoveException e){
-                ui.setErrorMessage(e.getMessage());
-            }
-        }
-
-        // if the game is over, add the time bonus and refresh one final time but don't show any possible moves
-        if (gameState.isGameWon()){
-            GameStateController.applyBonusScore(gameState);
-            ui.setMessage("Congratulations, you beat the game!!! " + gameState.toString());
+    public static void main(String... args) throws IOException {
+        Metrics.registerMBeanInBackground();
+        if (Boolean.getBoolean("solitaire.metrics.dump")) Metrics.dumpOnExit(System.err);
+        try (Leaderboard leaderboard = Leaderboard.open(Paths.get(System.getProperty("solitaire.leaderboard", "solitaire-leaderboard.bin")));
+             GameStatistics statistics = GameStatistics.open(Paths.get(System.getProperty("solitaire.statistics", "solitaire-statistics.bin")))) {
+            GameSession session = new GameSession(new CommandLineUI(), GameStateController.init());
+            session.recordTo(leaderboard, System.getProperty("user.name"));
+            session.recordTo(statistics, System.getProperty("user.name"));
+            session.run();
+            System.out.println("Your rank on the leaderboard: " + leaderboard.rankOf(System.getProperty("user.name")) +
+                " of " + leaderboard.size());
         }
-        ui.refresh(gameState);
     }
 }
@@ -0,0 +1,40 @@
+package nl.quintor.solitaire;
+
+/**
+ * Library class with the properties of the platform that the application runs on, detected once when the class is
+ * initialized. The class is not instantiable, all constructors are private and all methods are static.
+ *
+ * <p>Terminals on Windows do not support ANSI escape codes and cannot show all Unicode symbols, so the card symbols,
+ * the names of the moves and the command line UI depend on {@link #WINDOWS}.
+ */
+public class Platform {
+    private Platform(){}
+
+    /**
+     * True if the application runs on Windows, according to the system property "os.name".
+     */
+    public final static boolean WINDOWS = System.getProperty("os.name", "").contains("Windows");
+    private final static char COMBINING_LOW_LINE = '\u0332';
+
+    /**
+     * Returns the symbol that the terminal of this platform can show.
+     *
+     * @param competentSymbol Unicode symbol, shown on non-Windows terminals
+     * @param windowsSymbol replacement, shown on Windows terminals
+     * @return symbol for this platform
+     */
+    public static String symbol(String competentSymbol, String windowsSymbol){
+        return WINDOWS ? windowsSymbol : competentSymbol;
+    }
+
+    /**
+     * Returns the name of a command with its first letter, the letter that the player types, underlined. On Windows
+     * terminals, which cannot show the combining underline, the name is returned as is.
+     *
+     * @param name name of the command, for example "Quit"
+     * @return name with the first letter underlined, for example "Q̲uit"
+     */
+    public static String shortcut(String name){
+        return WINDOWS ? name : name.charAt(0) + String.valueOf(COMBINING_LOW_LINE) + name.substring(1);
+    }
+}
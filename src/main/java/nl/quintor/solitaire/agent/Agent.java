@@ -0,0 +1,22 @@
+package nl.quintor.solitaire.agent;
+
+import nl.quintor.solitaire.models.state.GameSnapshot;
+
+/**
+ * A program that plays solitaire. The agent is shown the game as the player sees it, without the face-down cards, and
+ * answers with the player input of its next move, exactly as a human player would type it, for example "M B1 A" or
+ * "C". Agents are played by an {@link AgentUI}.
+ *
+ * <p>An agent plays one game at a time; a {@link Tournament} creates a new agent for every game, so agents may keep
+ * state between the moves of a game.
+ */
+@FunctionalInterface
+public interface Agent {
+    /**
+     * Returns the next move.
+     *
+     * @param game read-only view of the game, taken after the previous move
+     * @return player input of the next move; "Q" or null to give up
+     */
+    String nextMove(GameSnapshot game);
+}
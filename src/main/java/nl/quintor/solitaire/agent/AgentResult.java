@@ -0,0 +1,99 @@
+package nl.quintor.solitaire.agent;
+
+import java.util.Locale;
+
+/**
+ * Result of one agent in a {@link Tournament}.
+ */
+public final class AgentResult {
+    private final String name;
+    private final int games;
+    private final int wins;
+    private final long totalScore;
+    private final long totalMoves;
+    private final long nanos;
+
+    AgentResult(String name, int games, int wins, long totalScore, long totalMoves, long nanos){
+        this.name = name;
+        this.games = games;
+        this.wins = wins;
+        this.totalScore = totalScore;
+        this.totalMoves = totalMoves;
+        this.nanos = nanos;
+    }
+
+    /**
+     * Getter for name.
+     *
+     * @return name of the agent
+     */
+    public String getName(){
+        return name;
+    }
+
+    /**
+     * Getter for games.
+     *
+     * @return number of games played
+     */
+    public int getGames(){
+        return games;
+    }
+
+    /**
+     * Getter for wins.
+     *
+     * @return number of games won
+     */
+    public int getWins(){
+        return wins;
+    }
+
+    /**
+     * Returns the fraction of the games that the agent won.
+     *
+     * @return win rate between 0 and 1
+     */
+    public double getWinRate(){
+        return games == 0 ? 0 : (double) wins / games;
+    }
+
+    /**
+     * Returns the average score of the games.
+     *
+     * @return mean score
+     */
+    public double getMeanScore(){
+        return games == 0 ? 0 : (double) totalScore / games;
+    }
+
+    /**
+     * Returns the average number of moves of the games, not counting rejected moves.
+     *
+     * @return mean number of moves
+     */
+    public double getMeanMoves(){
+        return games == 0 ? 0 : (double) totalMoves / games;
+    }
+
+    /**
+     * Returns the number of games the agent played per second, on all threads together.
+     *
+     * @return games per second
+     */
+    public double getGamesPerSecond(){
+        return games * 1e9 / Math.max(1, nanos);
+    }
+
+    /**
+     * String representation of this result, for example
+     * "GreedyAgent      1000 games,  11.2% won, mean score  251.3,  84.1 moves,  5230 games/s".
+     *
+     * @return String representation of this result
+     */
+    @Override
+    public String toString(){
+        return String.format(Locale.ROOT, "%-14s %6d games, %5.1f%% won, mean score %6.1f, %5.1f moves, %6.0f games/s", name,
+            games, getWinRate() * 100, getMeanScore(), getMeanMoves(), getGamesPerSecond());
+    }
+}
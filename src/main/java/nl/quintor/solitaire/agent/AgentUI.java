@@ -0,0 +1,96 @@
+package nl.quintor.solitaire.agent;
+
+import nl.quintor.solitaire.game.GameSession;
+import nl.quintor.solitaire.game.moves.Move;
+import nl.quintor.solitaire.models.state.GameSnapshot;
+import nl.quintor.solitaire.models.state.GameState;
+import nl.quintor.solitaire.ui.UI;
+
+import java.util.Collection;
+
+/**
+ * {@link UI} that lets an {@link Agent} play a {@link GameSession}, so the agent's moves are checked and applied by the
+ * same {@link Move} instances as the moves of human players, without rendering anything. Every move request shows the
+ * agent a {@link GameSnapshot} of the game. An agent that keeps playing after the maximum number of turns is made to
+ * quit, so agents that move cards back and forth can't play forever.
+ */
+public final class AgentUI implements UI {
+    private final Agent agent;
+    private final int maxTurns;
+    private int turns;
+    private int rejectedMoves;
+    private String message = "";
+
+    /**
+     * Constructs a UI for the provided agent.
+     *
+     * @param agent agent that chooses the moves
+     * @param maxTurns maximum number of moves, including the rejected ones, after which the agent quits
+     */
+    public AgentUI(Agent agent, int maxTurns){
+        this.agent = agent;
+        this.maxTurns = maxTurns;
+    }
+
+    /**
+     * Lets an agent play a game until it is over.
+     *
+     * @param agent agent that plays the game
+     * @param gameState game to play
+     * @param maxTurns maximum number of moves, including the rejected ones, after which the agent quits
+     * @return the UI, with the number of turns and rejected moves of the game
+     */
+    public static AgentUI play(Agent agent, GameState gameState, int maxTurns){
+        AgentUI ui = new AgentUI(agent, maxTurns);
+        new GameSession(ui, gameState).run();
+        return ui;
+    }
+
+    @Override
+    public void setMessage(String message){
+        this.message = message;
+    }
+
+    @Override
+    public void setErrorMessage(String message){
+        this.message = message;
+        rejectedMoves++;
+    }
+
+    @Override
+    public void refresh(GameState gameState){}
+
+    @Override
+    public String refreshAndRequestMove(GameState gameState, Collection<Move> moves){
+        if (turns == maxTurns) return "Q";
+        String input = agent.nextMove(GameSnapshot.of(gameState, ++turns));
+        return input == null || input.isEmpty() ? "Q" : input;
+    }
+
+    /**
+     * Getter for turns.
+     *
+     * @return number of moves requested from the agent
+     */
+    public int getTurns(){
+        return turns;
+    }
+
+    /**
+     * Returns the number of rejected moves, including the moves requested after the game is over.
+     *
+     * @return number of rejected moves
+     */
+    public int getRejectedMoves(){
+        return rejectedMoves;
+    }
+
+    /**
+     * Getter for message.
+     *
+     * @return the last message of the game
+     */
+    public String getMessage(){
+        return message;
+    }
+}
@@ -0,0 +1,37 @@
+package nl.quintor.solitaire.agent;
+
+import nl.quintor.solitaire.models.deck.DeckType;
+import nl.quintor.solitaire.models.state.GameSnapshot;
+
+import java.util.List;
+
+/**
+ * Agent that plays the first move of the following kinds that is legal, in this order: a card to a stack pile, a column
+ * move that uncovers a face-down card, a card from the stock to a column, and cycling the stock. It never moves a card
+ * from a stack pile and never moves cards between columns without uncovering a card, so it never undoes its own moves
+ * and every game ends, at the latest when a cycle of the stock changes nothing.
+ */
+public class GreedyAgent implements Agent {
+    @Override
+    public String nextMove(GameSnapshot game){
+        List<String> moves = LegalMoves.cardMoves(game);
+        String uncovering = null;
+        String fromStock = null;
+        for (String move : moves) {
+            int source = LegalMoves.sourceDeck(game, move);
+            DeckType sourceType = game.getDeckType(source);
+            DeckType destinationType = game.getDeckType(LegalMoves.destinationDeck(game, move));
+            if (sourceType == DeckType.STACK) continue;
+            if (destinationType == DeckType.STACK) return move;
+            int index = LegalMoves.sourceIndex(game, move);
+            if (sourceType == DeckType.COLUMN && index > 0 && index == game.getFaceDownCards(source)) {
+                if (uncovering == null) uncovering = move;
+            } else if (sourceType == DeckType.STOCK && fromStock == null) {
+                fromStock = move;
+            }
+        }
+        if (uncovering != null) return uncovering;
+        if (fromStock != null) return fromStock;
+        return LegalMoves.canCycleStock(game) ? "C" : "Q";
+    }
+}
@@ -0,0 +1,111 @@
+package nl.quintor.solitaire.agent;
+
+import nl.quintor.solitaire.game.CardMoveChecks;
+import nl.quintor.solitaire.models.card.Card;
+import nl.quintor.solitaire.models.deck.DeckType;
+import nl.quintor.solitaire.models.state.GameSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Library class that finds the legal moves in a {@link GameSnapshot}, for agents. It applies the rules of
+ * {@link CardMoveChecks} without creating exceptions. The class is not instantiable, all constructors are private and
+ * all methods are static.
+ */
+public class LegalMoves {
+    private LegalMoves(){}
+
+    /**
+     * Returns the legal card moves. A card move is returned as the player input of the move, for example "M B1 A";
+     * column cards are identified by their row, stock and stack pile cards by the header of their deck.
+     *
+     * @param game game to find the moves in
+     * @return player inputs of the legal card moves
+     */
+    public static List<String> cardMoves(GameSnapshot game){
+        List<String> moves = new ArrayList<>();
+        for (int source = 0; source < game.getDeckCount(); source++) {
+            DeckType type = game.getDeckType(source);
+            int size = game.getDeckSize(source);
+            if (type == DeckType.COLUMN) {
+                for (int row = game.getFaceDownCards(source); row < size; row++) addMoves(game, source, row, moves);
+            } else if (type == DeckType.STOCK || type == DeckType.STACK) {
+                if (size > 0) addMoves(game, source, size - 1, moves);
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Returns true if the stock can be cycled, that is, if the stock or the waste has cards.
+     *
+     * @param game game to check
+     * @return true if "C" is a legal move
+     */
+    public static boolean canCycleStock(GameSnapshot game){
+        for (int deck = 0; deck < game.getDeckCount(); deck++) {
+            DeckType type = game.getDeckType(deck);
+            if ((type == DeckType.STOCK || type == DeckType.WASTE) && game.getDeckSize(deck) > 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the deck of a card move's source, see {@link #cardMoves(GameSnapshot)}.
+     *
+     * @param game game of the move
+     * @param move player input of a card move
+     * @return number of the source deck
+     */
+    public static int sourceDeck(GameSnapshot game, String move){
+        String source = move.substring(2, move.indexOf(' ', 2));
+        return deckOf(game, source.startsWith("S") || "O".equals(source) ? source : source.substring(0, 1));
+    }
+
+    /**
+     * Returns the index of the card of a card move's source, see {@link #cardMoves(GameSnapshot)}.
+     *
+     * @param game game of the move
+     * @param move player input of a card move
+     * @return index of the first moved card in its deck
+     */
+    public static int sourceIndex(GameSnapshot game, String move){
+        String source = move.substring(2, move.indexOf(' ', 2));
+        if (source.startsWith("S") || "O".equals(source)) return game.getDeckSize(deckOf(game, source)) - 1;
+        return Integer.parseInt(source.substring(1));
+    }
+
+    /**
+     * Returns the deck of a card move's destination, see {@link #cardMoves(GameSnapshot)}.
+     *
+     * @param game game of the move
+     * @param move player input of a card move
+     * @return number of the destination deck
+     */
+    public static int destinationDeck(GameSnapshot game, String move){
+        return deckOf(game, move.substring(move.lastIndexOf(' ') + 1));
+    }
+
+    private static int deckOf(GameSnapshot game, String header){
+        for (int deck = 0; deck < game.getDeckCount(); deck++) {
+            if (game.getDeckHeader(deck).equals(header)) return deck;
+        }
+        throw new IllegalArgumentException("No deck " + header);
+    }
+
+    private static void addMoves(GameSnapshot game, int source, int index, List<String> moves){
+        Card card = game.getCard(source, index);
+        String token = game.getDeckType(source) == DeckType.COLUMN ? game.getDeckHeader(source) + index : game.getDeckHeader(source);
+        boolean last = index == game.getDeckSize(source) - 1;
+        for (int destination = 0; destination < game.getDeckCount(); destination++) {
+            if (destination == source) continue;
+            DeckType type = game.getDeckType(destination);
+            int size = game.getDeckSize(destination);
+            Card target = size == 0 ? null : game.getCard(destination, size - 1);
+            boolean legal = type == DeckType.STACK ? last && CardMoveChecks.isLegalStackMove(target, card)
+                : type == DeckType.COLUMN && CardMoveChecks.isLegalColumnMove(target, card);
+            if (legal) moves.add("M " + token + " " + game.getDeckHeader(destination));
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package nl.quintor.solitaire.agent;
+
+import nl.quintor.solitaire.models.state.GameSnapshot;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Agent that plays a random legal card move, or cycles the stock one time in four. A baseline for other agents.
+ */
+public class RandomAgent implements Agent {
+    private final Random random;
+
+    /**
+     * Constructs an agent that plays the moves chosen by a random number generator with the provided seed.
+     *
+     * @param seed seed of the moves
+     */
+    public RandomAgent(long seed){
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public String nextMove(GameSnapshot game){
+        List<String> moves = LegalMoves.cardMoves(game);
+        boolean canCycle = LegalMoves.canCycleStock(game);
+        if (!moves.isEmpty() && (!canCycle || random.nextInt(4) != 0)) return moves.get(random.nextInt(moves.size()));
+        return canCycle ? "C" : "Q";
+    }
+}
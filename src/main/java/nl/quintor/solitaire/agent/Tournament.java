@@ -0,0 +1,121 @@
+package nl.quintor.solitaire.agent;
+
+import nl.quintor.solitaire.game.GameStateController;
+import nl.quintor.solitaire.models.state.GameState;
+import nl.quintor.solitaire.models.state.VirtualClock;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+
+/**
+ * Plays a number of {@link Agent agents} on the same seeded deals and compares their results. The agents play one after
+ * the other; the games of an agent are played concurrently on a pool of threads. Games use a {@link VirtualClock} that
+ * does not advance, so the scores don't depend on the speed of the agents or the machine, and a tournament gives the
+ * same results on any number of threads.
+ *
+ * <p>Run the tournament of the built-in agents with:
+ *
+ * <pre>{@code
+ * mvn compile exec:java -Dexec.mainClass=nl.quintor.solitaire.agent.Tournament -Dexec.args="<deals>"
+ * }</pre>
+ */
+public class Tournament {
+    private final long firstDeal;
+    private final int deals;
+    private final int maxTurns;
+    private final Map<String, LongFunction<Agent>> agents = new LinkedHashMap<>();
+
+    /**
+     * Constructs a tournament without agents.
+     *
+     * @param firstDeal id of the first deal; the deals are consecutive
+     * @param deals number of deals every agent plays
+     * @param maxTurns maximum number of moves per game, after which the agent quits, see {@link AgentUI}
+     */
+    public Tournament(long firstDeal, int deals, int maxTurns){
+        this.firstDeal = firstDeal;
+        this.deals = deals;
+        this.maxTurns = maxTurns;
+    }
+
+    public static void main(String... args) throws InterruptedException {
+        int deals = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        Tournament tournament = new Tournament(1, deals, 1000)
+            .add("RandomAgent", RandomAgent::new)
+            .add("GreedyAgent", dealId -> new GreedyAgent());
+        for (AgentResult result : tournament.run(Runtime.getRuntime().availableProcessors())) System.out.println(result);
+    }
+
+    /**
+     * Adds an agent to this tournament.
+     *
+     * @param name name of the agent, unique in this tournament
+     * @param agent creates the agent for a game, given the id of the deal
+     * @return this tournament
+     */
+    public Tournament add(String name, LongFunction<Agent> agent){
+        if (agents.putIfAbsent(name, agent) != null) throw new IllegalArgumentException("Agent " + name + " already added");
+        return this;
+    }
+
+    /**
+     * Plays all deals with every agent.
+     *
+     * @param threads number of threads that play the games of an agent
+     * @return result per agent, in the order the agents were added
+     * @throws InterruptedException if the thread is interrupted while waiting for the games
+     */
+    public List<AgentResult> run(int threads) throws InterruptedException {
+        List<AgentResult> results = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (Map.Entry<String, LongFunction<Agent>> agent : agents.entrySet()) {
+                results.add(play(executor, threads, agent.getKey(), agent.getValue()));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return results;
+    }
+
+    private AgentResult play(ExecutorService executor, int threads, String name, LongFunction<Agent> agent) throws InterruptedException {
+        AtomicLong nextDeal = new AtomicLong(firstDeal);
+        LongAdder wins = new LongAdder();
+        LongAdder totalScore = new LongAdder();
+        LongAdder totalMoves = new LongAdder();
+        List<Callable<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            workers.add(() -> {
+                long dealId;
+                while ((dealId = nextDeal.getAndIncrement()) < firstDeal + deals) {
+                    GameState gameState = GameStateController.init(new VirtualClock(), dealId);
+                    AgentUI.play(agent.apply(dealId), gameState, maxTurns);
+                    if (gameState.isGameWon()) wins.increment();
+                    totalScore.add(gameState.getScore());
+                    totalMoves.add(gameState.getMoves().size());
+                }
+                return null;
+            });
+        }
+        long start = System.nanoTime();
+        for (Future<Void> worker : executor.invokeAll(workers)) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Agent " + name + " failed", e.getCause());
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        return new AgentResult(name, deals, wins.intValue(), totalScore.sum(), totalMoves.sum(), nanos);
+    }
+}
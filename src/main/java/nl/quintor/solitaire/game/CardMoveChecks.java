@@ -16,7 +16,9 @@ import nl.quintor.solitaire.models.deck.DeckType;
  */
 public class CardMoveChecks {
     private CardMoveChecks(){}
-    private final static String helpInstructions = new Help().toString();
+    // the stack piles and columns of games of up to three decks, see GameStateController.init(GameClock, long, int)
+    private final static String SOURCE_PATTERN = "O|S[A-L]|[A-M]\\d{1,2}";
+    private final static String DESTINATION_PATTERN = "O|S[A-L]|[A-M]";
 
     /**
      * Verifies that the player input for a CardMove is syntactically legal. Legal input consists of three parts:
@@ -24,13 +26,16 @@ public class CardMoveChecks {
      * The source location has to be the stock header, a stack header or a column coordinate.
      * The destination location has to be the stock header, a stack header or a column header (the column row is not
      * relevant because cards can only be added at the end of a column). The method verifies the syntax using regular
-     * expressions.
+     * expressions, which accept the headers of games of up to three decks; whether the game has the deck is checked
+     * when the move is applied.
      *
      * @param input the user input, split on the space character, cast to uppercase
      * @throws MoveException on syntax error
      */
     public static void checkPlayerInput(String[] input) throws MoveException{
-        // TODO: Write implementation
+        if (input.length != 3) throw new MoveException("Invalid Move syntax. A Move requires a source and a destination.\nSee " + new Help() + " for instructions.");
+        if (!input[1].matches(SOURCE_PATTERN)) throw new MoveException("Invalid Move syntax. \"" + input[1] + "\" is not a valid source location.\nSee " + new Help() + " for instructions.");
+        if (!input[2].matches(DESTINATION_PATTERN)) throw new MoveException("Invalid Move syntax. \"" + input[2] + "\" is not a valid destination location.\nSee " + new Help() + " for instructions.");
     }
 
     /**
@@ -45,7 +50,12 @@ public class CardMoveChecks {
      * @throws MoveException on illegal move
      */
     public static void deckLevelChecks(Deck sourceDeck, int sourceCardIndex, Deck destinationDeck) throws MoveException {
-        // TODO: Write implementation
+        if (sourceDeck == destinationDeck) throw new MoveException("Move source and destination can't be the same");
+        if (sourceDeck.isEmpty()) throw new MoveException("You can't move a card from an empty deck");
+        if (destinationDeck.getDeckType() == DeckType.STOCK) throw new MoveException("You can't move cards to the stock");
+        if (sourceCardIndex < sourceDeck.getInvisibleCards()) throw new MoveException("You can't move an invisible card");
+        if (destinationDeck.getDeckType() == DeckType.STACK && sourceCardIndex != sourceDeck.size() - 1)
+            throw new MoveException("You can't move more than 1 card at a time to a Stack Pile");
     }
 
     /**
@@ -59,7 +69,37 @@ public class CardMoveChecks {
      * @throws MoveException on illegal move
      */
     public static void cardLevelChecks(Deck targetDeck, Card cardToAdd) throws MoveException {
-        // TODO: Write implementation
+        Card targetCard = targetDeck.isEmpty() ? null : targetDeck.get(targetDeck.size() - 1);
+        if (targetDeck.getDeckType() == DeckType.STACK) checkStackMove(targetCard, cardToAdd);
+        else if (targetDeck.getDeckType() == DeckType.COLUMN) checkColumnMove(targetCard, cardToAdd);
+        else throw new MoveException("Target deck is neither Stack nor Column.");
+    }
+
+    /**
+     * Returns true if the card can be added to the stack pile with the provided top card. Equivalent to
+     * {@link #checkStackMove(Card, Card)} without creating an exception, for callers that check many moves.
+     *
+     * @param targetCard top card of a stack or null if the stack is empty
+     * @param cardToAdd card to add to the stack
+     * @return true if the move is legal
+     */
+    public static boolean isLegalStackMove(Card targetCard, Card cardToAdd){
+        if (targetCard == null) return cardToAdd.getRank() == Rank.ACE;
+        return targetCard.getSuit() == cardToAdd.getSuit() && cardToAdd.getRank() == nextStackRank(targetCard.getRank());
+    }
+
+    /**
+     * Returns true if the card can be added to the column with the provided last card. Equivalent to
+     * {@link #checkColumnMove(Card, Card)} without creating an exception, for callers that check many moves.
+     *
+     * @param targetCard last card of a column or null if the column is empty
+     * @param cardToAdd card to add to the column
+     * @return true if the move is legal
+     */
+    public static boolean isLegalColumnMove(Card targetCard, Card cardToAdd){
+        if (targetCard == null) return cardToAdd.getRank() == Rank.KING;
+        return opposingColor(targetCard, cardToAdd) && targetCard.getRank() != Rank.ACE
+            && cardToAdd.getRank().ordinal() == targetCard.getRank().ordinal() - 1;
     }
 
     // Helper methods
@@ -72,7 +112,12 @@ public class CardMoveChecks {
      * @throws MoveException on illegal move
      */
     static void checkStackMove(Card targetCard, Card cardToAdd) throws MoveException {
-        // TODO: Write implementation
+        if (targetCard == null) {
+            if (cardToAdd.getRank() != Rank.ACE) throw new MoveException("An Ace has to be the first card of a Stack Pile");
+            return;
+        }
+        if (targetCard.getSuit() != cardToAdd.getSuit()) throw new MoveException("Stack Piles can only contain same-suit cards");
+        if (cardToAdd.getRank() != nextStackRank(targetCard.getRank())) throw new MoveException("Stack Piles hold same-suit cards of increasing Rank from Ace to King");
     }
 
     /**
@@ -83,7 +128,24 @@ public class CardMoveChecks {
      * @throws MoveException on illegal move
      */
     static void checkColumnMove(Card targetCard, Card cardToAdd) throws MoveException {
-        /// TODO: Write implementation
+        if (targetCard == null) {
+            if (cardToAdd.getRank() != Rank.KING) throw new MoveException("A King has to be the first card of a Column");
+            return;
+        }
+        if (!opposingColor(targetCard, cardToAdd)) throw new MoveException("Column cards have te alternate colors (red and black)");
+        if (cardToAdd.getRank().ordinal() != targetCard.getRank().ordinal() - 1 || targetCard.getRank() == Rank.ACE)
+            throw new MoveException("Columns hold alternating-color cards of decreasing rank from King to Two");
+    }
+
+    /**
+     * Helper method to determine which rank follows the provided rank on a stack pile.
+     *
+     * @param rank rank of the top card of a stack pile
+     * @return rank of the next card, or null if the stack pile is complete
+     */
+    private static Rank nextStackRank(Rank rank){
+        if (rank == Rank.KING) return null;
+        return rank == Rank.ACE ? Rank.TWO : Rank.values()[rank.ordinal() + 1];
     }
 
     /**
@@ -94,8 +156,7 @@ public class CardMoveChecks {
      * @return true if the cards are of different colors
      */
     static boolean opposingColor(Card card1, Card card2){
-        // TODO: Write implementation
-        return true;
+        return redSuit(card1) != redSuit(card2);
     }
 
     /**
@@ -104,7 +165,7 @@ public class CardMoveChecks {
      *
      * @param card card to be tested for red color
      * @return true if card is either of suit Diamonds or Hearts
-     * @Throws Runtime exception when Joker card is checked with message 'Method redSuit() should not be used with Jokers'
+     * @throws RuntimeException when a Joker card is checked, with message 'Method redSuit() should not be used with Jokers'
      */
     static boolean redSuit(Card card){
         if (card.getSuit() == Suit.JOKER) throw new RuntimeException("Method redSuit() should not be used with Jokers");
@@ -0,0 +1,275 @@
+package nl.quintor.solitaire.game;
+
+import nl.quintor.solitaire.game.moves.*;
+import nl.quintor.solitaire.game.moves.ex.MoveException;
+import nl.quintor.solitaire.leaderboard.Leaderboard;
+import nl.quintor.solitaire.metrics.FlightEvents;
+import nl.quintor.solitaire.metrics.LatencyHistogram;
+import nl.quintor.solitaire.metrics.Metrics;
+import nl.quintor.solitaire.metrics.MoveEvent;
+import nl.quintor.solitaire.metrics.TurnEvent;
+import nl.quintor.solitaire.models.state.GameSnapshot;
+import nl.quintor.solitaire.models.state.GameState;
+import nl.quintor.solitaire.statistics.GameStatistics;
+import nl.quintor.solitaire.ui.Display;
+import nl.quintor.solitaire.ui.UI;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A single game, played by one player through a {@link UI}. Runs the game loop for one {@link GameState}, so one
+ * application can host many games, each with its own UI.
+ *
+ * <p>The session either drives the UI itself, see {@link #run()}, or is driven by the player requests that are
+ * received elsewhere, see {@link #start()} and {@link #play(String)}. A session that is driven by requests only needs a
+ * {@link Display} to show its messages, and can't run the game loop.
+ *
+ * <p>A GameSession and its GameState are not thread safe. They are confined to the thread that runs the session, or,
+ * for sessions driven through {@link #play(String)}, must be used by one thread at a time. Other threads, such as
+ * spectators, watch the game through {@link #getSnapshot()}, which never blocks the player.
+ */
+public class GameSession implements Runnable {
+    private final static ClassValue<LatencyHistogram> APPLY = Metrics.histogramPerClass("move.apply.");
+    private final Display display;
+    private final UI ui; // null for sessions that are driven by requests
+    private final GameState gameState;
+    private final List<Move> moves = new ArrayList<>(Arrays.asList(new CycleStock(), new MoveCard(), new Revert(), new Help(), new Quit()));
+    private final Map<String, Move> possibleMoves = new HashMap<>();
+    private String previousInput;
+    private long snapshotSequence;
+    private Leaderboard leaderboard;
+    private GameStatistics statistics;
+    private String player;
+    private volatile GameSnapshot snapshot;
+
+    /**
+     * Constructs a session that plays the provided game through the provided UI.
+     *
+     * @param ui UI that shows the game and requests the moves
+     * @param gameState game to be played
+     */
+    public GameSession(UI ui, GameState gameState){
+        this(ui, gameState, "H", 0);
+    }
+
+    /**
+     * Constructs a session that continues a game played in a previous session, for example a game that has been saved
+     * with {@link GameStateCodec} while the player was away.
+     *
+     * @param ui UI that shows the game and requests the moves
+     * @param gameState game to be played
+     * @param previousInput last input of the previous session, repeated when the player enters an empty request
+     * @param snapshotSequence sequence number of the first snapshot, one more than the last snapshot of the previous
+     *                         session
+     */
+    public GameSession(UI ui, GameState gameState, String previousInput, long snapshotSequence){
+        this(ui, ui, gameState, previousInput, snapshotSequence);
+    }
+
+    /**
+     * Constructs a session that is driven by requests, see {@link #play(String)}, and shows its messages on the provided
+     * display.
+     *
+     * @param display display that shows the game and the messages
+     * @param gameState game to be played
+     */
+    public GameSession(Display display, GameState gameState){
+        this(display, null, gameState, "H", 0);
+    }
+
+    /**
+     * Constructs a session that is driven by requests and continues a game played in a previous session, see
+     * {@link #GameSession(UI, GameState, String, long)}.
+     *
+     * @param display display that shows the game and the messages
+     * @param gameState game to be played
+     * @param previousInput last input of the previous session, repeated when the player enters an empty request
+     * @param snapshotSequence sequence number of the first snapshot, one more than the last snapshot of the previous
+     *                         session
+     */
+    public GameSession(Display display, GameState gameState, String previousInput, long snapshotSequence){
+        this(display, null, gameState, previousInput, snapshotSequence);
+    }
+
+    private GameSession(Display display, UI ui, GameState gameState, String previousInput, long snapshotSequence){
+        this.display = display;
+        this.ui = ui;
+        this.gameState = gameState;
+        this.previousInput = previousInput;
+        this.snapshotSequence = snapshotSequence;
+        List<String> keys = Arrays.asList("C", "M", "R", "H", "Q");
+        for (int i = 0; i<keys.size(); i++) possibleMoves.put(keys.get(i), moves.get(i));
+        publishSnapshot();
+    }
+
+    /**
+     * Plays the game. Starts by showing the help info, then enters the game loop, which runs as long as the game is not
+     * over. The game loop essentially consists of:
+     *
+     * <ul>
+     *     <li>visualize GameState object
+     *     <li>request input
+     *     <li>translate input into a Move
+     *     <li>apply the Move to the GameState object
+     *     <li>communicate the result to the player
+     * </ul>
+     *
+     * When the game loop exits, the result of the game is communicated to the player and the UI is refreshed one final
+     * time.
+     *
+     * @throws IllegalStateException if the session is driven by requests, and has no UI to request the moves from
+     */
+    @Override
+    public void run(){
+        if (ui == null) throw new IllegalStateException("The session is driven by requests, see play(String)");
+        start();
+        while (!gameState.isGameOver()) {
+            TurnEvent turn = FlightEvents.beginTurn();
+            String input = ui.refreshAndRequestMove(gameState, moves);
+            play(input);
+            if (turn != null) turn.complete(input, gameState.getMoves().size(), gameState.getScore(), gameState.isGameOver());
+        }
+
+        // if the game is over, refresh one final time but don't show any possible moves
+        ui.refresh(gameState);
+    }
+
+    /**
+     * Starts the game by setting the help info as the message of the UI. Sessions that are driven by requests call
+     * this method once, followed by {@link #play(String)} for every player request.
+     */
+    public void start(){
+        display.setMessage(new Help().apply(gameState));
+    }
+
+    /**
+     * Plays a single player request: translates the input into a Move, applies it, detects if the game is won or lost
+     * and communicates the result to the player through the UI. If the game is won, the time bonus is added.
+     *
+     * @param input player request, for example "M O SA"; an empty request repeats the previous request
+     */
+    public void play(String input){
+        if (gameState.isGameOver()) {
+            display.setErrorMessage("The game is over.");
+            return;
+        }
+
+        // default to the previous input if this input is empty (if the player hits <Return>)
+        String playerInput = input.length() == 0 ? previousInput : input.toUpperCase();
+        Move prototype = possibleMoves.get(playerInput.substring(0,1));
+        if (prototype == null) prototype = new Dummy(); // default to dummy if the player enters nonsense
+        Move move = prototype.createInstance(playerInput);
+        previousInput = playerInput;
+
+        MoveEvent event = FlightEvents.beginMove();
+        long start = Metrics.start();
+        try{
+            String message = move.apply(gameState);
+            APPLY.get(move.getClass()).stop(start);
+            if (event != null) event.complete("apply", move.getClass(), playerInput, message, false);
+            display.setMessage(message);
+            GameStateController.detectGameWin(gameState);
+            if (!gameState.isGameOver()) {
+                GameStateController.detectGameLoss(gameState);
+                if (gameState.isGameLost() && gameState.getStockCards() == 0) {
+                    display.setMessage("No face-down card can be turned up anymore, the game is lost.");
+                } else if (gameState.isGameLost()) {
+                    display.setMessage("The stock was cycled through without any change, the game is lost.");
+                }
+            }
+            GameStateController.applyTimePenalty(gameState);
+        } catch (MoveException e){
+            APPLY.get(move.getClass()).stop(start);
+            if (event != null) event.complete("apply", move.getClass(), playerInput, e.getMessage(), true);
+            Metrics.countError("move.error." + move.getClass().getSimpleName() + "." + e.getClass().getSimpleName());
+            display.setErrorMessage(e.getMessage());
+        }
+
+        if (gameState.isGameWon()){
+            GameStateController.applyBonusScore(gameState);
+            display.setMessage("Congratulations, you beat the game!!! " + gameState.toString());
+        }
+        if (gameState.isGameOver()) {
+            if (leaderboard != null) leaderboard.record(player, gameState);
+            if (statistics != null) statistics.record(player, gameState);
+        }
+        publishSnapshot();
+    }
+
+    /**
+     * Records the result of the game on the provided leaderboard as soon as the game is over. A game that the player
+     * quits is recorded as lost.
+     *
+     * @param leaderboard leaderboard to record the game on
+     * @param player name of the player
+     */
+    public void recordTo(Leaderboard leaderboard, String player){
+        this.leaderboard = leaderboard;
+        this.player = player;
+    }
+
+    /**
+     * Records the result of the game in the provided statistics as soon as the game is over, and adds the
+     * {@link Stats} move, so the player can view the statistics during the game.
+     *
+     * @param statistics statistics to record the game in
+     * @param player name of the player
+     */
+    public void recordTo(GameStatistics statistics, String player){
+        this.statistics = statistics;
+        this.player = player;
+        Stats stats = new Stats(statistics, player);
+        Move previous = possibleMoves.put("S", stats);
+        if (previous != null) moves.set(moves.indexOf(previous), stats);
+        else moves.add(moves.size() - 2, stats);
+    }
+
+    /**
+     * Returns the snapshot of the game after the last move. Can be called by any thread, any number of times; the
+     * snapshot is immutable and replaced after every move.
+     *
+     * @return snapshot of the game
+     */
+    public GameSnapshot getSnapshot(){
+        return snapshot;
+    }
+
+    /**
+     * Getter for moves.
+     *
+     * @return the moves that can be played in this session
+     */
+    public List<Move> getMoves(){
+        return moves;
+    }
+
+    /**
+     * Getter for previousInput.
+     *
+     * @return last input of the player, repeated when the player enters an empty request
+     */
+    public String getPreviousInput(){
+        return previousInput;
+    }
+
+    /**
+     * Getter for gameState.
+     *
+     * @return game played in this session
+     */
+    public GameState getGameState(){
+        return gameState;
+    }
+
+    /**
+     * Replaces the snapshot. The snapshot is written to a volatile field, so spectators that read the new snapshot see
+     * it completely; they are never blocked and never block the player.
+     */
+    private void publishSnapshot(){
+        snapshot = GameSnapshot.of(gameState, snapshotSequence++);
+    }
+}
@@ -0,0 +1,172 @@
+package nl.quintor.solitaire.game;
+
+import nl.quintor.solitaire.game.moves.CycleStock;
+import nl.quintor.solitaire.game.moves.MoveCard;
+import nl.quintor.solitaire.game.moves.RevertibleMove;
+import nl.quintor.solitaire.game.moves.ex.MoveException;
+import nl.quintor.solitaire.models.card.Card;
+import nl.quintor.solitaire.models.deck.Deck;
+import nl.quintor.solitaire.models.deck.DeckType;
+import nl.quintor.solitaire.models.state.GameClock;
+import nl.quintor.solitaire.models.state.GameState;
+import nl.quintor.solitaire.models.state.Position;
+import nl.quintor.solitaire.ui.cli.FrameBuffer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Library class that saves a {@link GameState} in a compact binary form and restores it, for example to move idle
+ * games out of the heap. The class is not instantiable, all constructors are private and all methods are static.
+ *
+ * <p>A game is saved as its deal, see {@link GameState#getDeal()}, followed by the player input of every move that has
+ * not been reverted, instead of the decks and the move objects that remember how to revert themselves. Restoring the
+ * game replays the moves on the deal, so the restored game can be reverted just like the original. A game with a few
+ * dozen moves takes a few hundred bytes. The remaining fields, such as the time score and the playing time, are saved
+ * as they are, together with the tick of the clock of the game when it was saved.
+ *
+ * <p>Cards are saved as one byte, their id (see {@link Card#getId()}), so games of up to four decks can be saved. The
+ * ids of the cards of the first deck are their ordinals, so games saved before multi-deck games existed still restore.
+ */
+public class GameStateCodec {
+    private GameStateCodec(){}
+    private final static byte VERSION = 2;
+    private final static byte VERSION_WITHOUT_CLOCK = 1;
+    private final static byte WON = 1;
+    private final static byte LOST = 2;
+
+    /**
+     * Appends the provided game to the buffer: the deal that the game recorded when it was dealt, see
+     * {@link GameState#getDeal()}, and the player input of its moves. The game is not changed, and its listeners are not
+     * notified. A game without moves that did not record its deal is saved with its current decks as the deal.
+     *
+     * @param gameState game to save
+     * @param out buffer to append the saved game to
+     * @throws IllegalArgumentException if the game has moves but did not record its deal, or is played with more than
+     * four decks
+     */
+    public static void write(GameState gameState, FrameBuffer out){
+        List<RevertibleMove> moves = gameState.getMoves();
+        Position deal = gameState.getDeal();
+        if (deal == null) {
+            if (!moves.isEmpty()) throw new IllegalArgumentException("The deal of the game is not known, so its moves can't be saved");
+            deal = Position.of(gameState);
+        }
+
+        out.put(VERSION);
+        putLong(out, deal.getDealId());
+        out.put((byte) deal.getDeckCount());
+        for (int deckIndex = 0; deckIndex < deal.getDeckCount(); deckIndex++) putDeck(out, deal, deckIndex);
+        putLong(out, deal.getBaseScore());
+        putInt(out, deal.getStockCycles());
+        putLong(out, gameState.getTimeScore());
+        putLong(out, gameState.getPlayingNanos());
+        putLong(out, gameState.getClock().nanoTime());
+        out.put((byte) ((gameState.isGameWon() ? WON : 0) | (gameState.isGameLost() ? LOST : 0)));
+        putLong(out, gameState.getCycleFingerprint());
+        putInt(out, gameState.getFingerprintCycle());
+        putInt(out, moves.size());
+        for (RevertibleMove move : moves) {
+            byte[] bytes = move.getPlayerInput().getBytes(StandardCharsets.US_ASCII);
+            out.put((byte) bytes.length).put(bytes);
+        }
+    }
+
+    /**
+     * Reads a game saved by {@link #write(GameState, FrameBuffer)} and replays its moves. The playing time of a game
+     * that is not over includes the time between saving and restoring it, as if the game had not been saved, so
+     * the time score doesn't depend on whether the game was saved. That time is measured with the provided clock,
+     * which therefore has to be the clock of the saved game or one with the same origin, such as
+     * {@link GameClock#SYSTEM} within the same JVM.
+     *
+     * @param in buffer positioned at the start of a saved game
+     * @param clock clock of the restored game
+     * @return restored game
+     * @throws IllegalArgumentException if the buffer does not contain a saved game
+     */
+    public static GameState read(ByteBuffer in, GameClock clock){
+        byte version = in.get();
+        if (version != VERSION && version != VERSION_WITHOUT_CLOCK) throw new IllegalArgumentException("Unknown saved game version");
+        GameState gameState = new GameState(clock);
+        gameState.setDealId(in.getLong());
+        int deckCount = in.get() & 0xFF;
+        for (int i = 0; i < deckCount; i++) readDeck(in, gameState);
+        gameState.setBaseScore(in.getLong());
+        gameState.setStockCycles(in.getInt());
+        gameState.setDeal(Position.of(gameState));
+        long timeScore = in.getLong();
+        long playingNanos = in.getLong();
+        // games saved without the clock tick continue from the saved playing time
+        long savedNanos = version == VERSION_WITHOUT_CLOCK ? 0 : Math.max(0, clock.nanoTime() - in.getLong());
+        byte status = in.get();
+        long cycleFingerprint = in.getLong();
+        int fingerprintCycle = in.getInt();
+        String[] inputs = new String[in.getInt()];
+        for (int i = 0; i < inputs.length; i++) {
+            byte[] bytes = new byte[in.get() & 0xFF];
+            in.get(bytes);
+            inputs[i] = new String(bytes, StandardCharsets.US_ASCII);
+        }
+
+        replay(gameState, inputs);
+        gameState.setTimeScore(timeScore);
+        gameState.setCycleFingerprint(cycleFingerprint);
+        gameState.setFingerprintCycle(fingerprintCycle);
+        gameState.setGameWon((status & WON) != 0);
+        gameState.setGameLost((status & LOST) != 0);
+        gameState.setPlayingNanos(gameState.isGameOver() ? playingNanos : playingNanos + savedNanos);
+        return gameState;
+    }
+
+    private static void replay(GameState gameState, String[] inputs){
+        for (String input : inputs) {
+            try {
+                if ("C".equals(input)) new CycleStock().apply(gameState);
+                else new MoveCard(input).apply(gameState);
+            } catch (MoveException e) {
+                throw new IllegalStateException("Saved move \"" + input + "\" can't be replayed: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static void putDeck(FrameBuffer out, Position position, int deckIndex){
+        byte[] header = position.getDeckHeader(deckIndex).getBytes(StandardCharsets.US_ASCII);
+        int size = position.getDeckSize(deckIndex);
+        // all cards of the waste count as face-down in a position, the waste deck itself has no invisible cards
+        int faceDown = position.getDeckType(deckIndex) == DeckType.WASTE ? 0 : position.getFaceDownCards(deckIndex);
+        out.put((byte) position.getDeckType(deckIndex).ordinal()).put((byte) header.length).put(header);
+        out.put((byte) size).put((byte) faceDown);
+        for (int cardIndex = 0; cardIndex < size; cardIndex++) out.put((byte) position.getCard(deckIndex, cardIndex).getId());
+    }
+
+    private static void readDeck(ByteBuffer in, GameState gameState){
+        DeckType deckType = DeckType.values()[in.get()];
+        byte[] header = new byte[in.get() & 0xFF];
+        in.get(header);
+        Deck deck;
+        if (deckType == DeckType.STOCK) deck = gameState.getStock();
+        else if (deckType == DeckType.WASTE) deck = gameState.getWaste();
+        else {
+            deck = new Deck(deckType);
+            Map<String, Deck> target = deckType == DeckType.STACK ? gameState.getStackPiles() : gameState.getColumns();
+            target.put(new String(header, StandardCharsets.US_ASCII), deck);
+        }
+        int size = in.get() & 0xFF;
+        deck.setInvisibleCards(in.get() & 0xFF);
+        List<Card> cards = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) cards.add(Card.of(in.get() & 0xFF));
+        deck.addAll(cards);
+    }
+
+    private static void putInt(FrameBuffer out, int value){
+        out.put((byte) (value >>> 24)).put((byte) (value >>> 16)).put((byte) (value >>> 8)).put((byte) value);
+    }
+
+    private static void putLong(FrameBuffer out, long value){
+        putInt(out, (int) (value >>> 32));
+        putInt(out, (int) value);
+    }
+}
@@ -1,13 +1,21 @@
 package nl.quintor.solitaire.game;
 
+import nl.quintor.solitaire.metrics.LatencyHistogram;
+import nl.quintor.solitaire.metrics.Metrics;
+import nl.quintor.solitaire.models.card.Card;
 import nl.quintor.solitaire.models.deck.Deck;
 import nl.quintor.solitaire.models.deck.DeckType;
+import nl.quintor.solitaire.models.state.GameClock;
 import nl.quintor.solitaire.models.state.GameState;
+import nl.quintor.solitaire.models.state.Position;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.Arrays;
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Library class for GameState initiation and status checks that are called from {@link nl.quintor.solitaire.Main}.
@@ -15,6 +23,20 @@ import java.util.Collections;
  */
 public class GameStateController {
     private GameStateController(){}
+    /**
+     * Largest number of decks that a game can be dealt from, see {@link #init(GameClock, long, int)}.
+     */
+    public final static int MAX_DECKS = 3;
+    private final static int[] COLUMNS = {7, 9, 13};
+    private final static long NO_FINGERPRINT = 0;
+    private final static long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private final static long FNV_PRIME = 0x100000001b3L;
+    private final static int DECK_SEPARATOR = 0x100;
+    private final static int STALEMATE_SEARCH_LIMIT = 5_000;
+    private final static LatencyHistogram SCORE = Metrics.histogram("controller.score");
+    private final static LatencyHistogram DETECT_WIN = Metrics.histogram("controller.detectGameWin");
+    private final static LatencyHistogram DETECT_LOSS = Metrics.histogram("controller.detectGameLoss");
+    private final static LatencyHistogram STALEMATE_SEARCH = Metrics.histogram("controller.stalemateSearch");
 
     /**
      * Creates and initializes a new GameState object. The newly created GameState is populated with shuffled cards. The
@@ -24,8 +46,67 @@ public class GameStateController {
      * @return a new GameState object, ready to go
      */
     public static GameState init(){
-        // TODO: Write implementation
-        return new GameState();
+        return init(GameClock.SYSTEM);
+    }
+
+    /**
+     * Creates and initializes a new GameState object like {@link #init()}, that measures the playing time with the
+     * provided clock. Simulations pass a {@link nl.quintor.solitaire.models.state.VirtualClock} to get deterministic
+     * time scores.
+     *
+     * @param clock clock used for the playing time of the new game
+     * @return a new GameState object, ready to go
+     */
+    public static GameState init(GameClock clock){
+        return init(clock, ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates and initializes a new GameState object like {@link #init(GameClock)}, with the deal identified by the
+     * provided number: the cards are shuffled with a random generator seeded with the deal id, so the same deal id
+     * always deals the same game. Players can compare their results on the same deal, see
+     * {@link nl.quintor.solitaire.leaderboard.Leaderboard}.
+     *
+     * @param clock clock used for the playing time of the new game
+     * @param dealId number that identifies the deal
+     * @return a new GameState object, ready to go
+     */
+    public static GameState init(GameClock clock, long dealId){
+        return init(clock, dealId, 1);
+    }
+
+    /**
+     * Creates and initializes a new GameState object like {@link #init(GameClock, long)}, dealt from a shoe of the
+     * provided number of decks, see {@link Deck#createShoe(int)}. Every deck adds four stack piles; one deck is dealt
+     * to seven columns, two decks to nine columns and three decks to thirteen columns. The columns are dealt like the
+     * seven columns of a single deck: the first column gets one card, every next column one card more, and only the
+     * last card of a column is visible.
+     *
+     * @param clock clock used for the playing time of the new game
+     * @param dealId number that identifies the deal
+     * @param decks number of decks, 1 to {@link #MAX_DECKS}
+     * @return a new GameState object, ready to go
+     */
+    public static GameState init(GameClock clock, long dealId, int decks){
+        if (decks < 1 || decks > MAX_DECKS) throw new IllegalArgumentException("1 <= decks <= " + MAX_DECKS);
+        GameState gameState = new GameState(clock);
+        gameState.setDealId(dealId);
+        Deck cards = Deck.createShoe(decks);
+        Collections.shuffle(cards, new Random(dealId));
+
+        for (int stackPile = 0; stackPile < 4 * decks; stackPile++) {
+            gameState.getStackPiles().put("S" + (char) ('A' + stackPile), new Deck(DeckType.STACK));
+        }
+        for (int columnSize = 1; columnSize <= COLUMNS[decks - 1]; columnSize++) {
+            Deck column = new Deck(DeckType.COLUMN);
+            for (int i = 0; i < columnSize; i++) column.add(cards.remove(cards.size() - 1));
+            column.setInvisibleCards(columnSize - 1);
+            gameState.getColumns().put(String.valueOf((char) ('A' + columnSize - 1)), column);
+        }
+        gameState.getStock().add(cards.remove(cards.size() - 1));
+        gameState.getWaste().addAll(cards);
+        gameState.setDeal(Position.of(gameState));
+        return gameState;
     }
 
     /**
@@ -35,7 +116,9 @@ public class GameStateController {
      * @param gameState GameState object that the score penalty is applied to
      */
     public static void applyTimePenalty(GameState gameState){
-        // TODO: Write implementation
+        long start = Metrics.start();
+        gameState.setTimeScore(gameState.getPlayingSeconds() / 10 * -2);
+        SCORE.stop(start);
     }
 
     /**
@@ -45,17 +128,147 @@ public class GameStateController {
      * @param gameState GameState object that the score penalty is applied to
      */
     public static void applyBonusScore(GameState gameState){
-        // TODO: Write implementation
+        long start = Metrics.start();
+        long seconds = gameState.getPlayingSeconds();
+        if (seconds > 30) gameState.setTimeScore(gameState.getTimeScore() + 700000 / seconds);
+        SCORE.stop(start);
     }
 
     /**
      * Detects if the game has been won, and if so, sets the gameWon flag in the GameState object.
      * The game is considered won if there are no invisible cards left in the GameState object's columns and the stock
-     * is empty.
+     * is empty. Uses the card counters of the GameState, so the decks are not scanned.
      *
      * @param gameState GameState object of which it is determined if the game has been won
      */
     public static void detectGameWin(GameState gameState){
-        // TODO: Write implementation
+        long start = Metrics.start();
+        if (gameState.getFaceDownCards() == 0 && gameState.getStockCards() == 0) gameState.setGameWon(true);
+        DETECT_WIN.stop(start);
+    }
+
+    /**
+     * Detects if the game can no longer be won, and if so, sets the gameLost flag in the GameState object, so
+     * unwinnable games end instead of idling. The game is considered lost in two situations:
+     *
+     * <ul>
+     *     <li>the stock and waste are empty and no sequence of moves turns up a face-down card, see
+     *     {@link #hasProductiveMove(GameState)}. The fingerprints of the positions in which a card can be turned up are
+     *     remembered by the game, so a player who doesn't make progress doesn't pay for a search on every request
+     *     <li>the stock has been cycled through completely without any change to the position. Whenever the stock is
+     *     turned over, a fingerprint of the position is compared with the fingerprint of the previous turn-over.
+     * </ul>
+     *
+     * Should be called after {@link #detectGameWin(GameState)}; a won game is never marked as lost.
+     *
+     * @param gameState GameState object of which it is determined if the game has been lost
+     */
+    public static void detectGameLoss(GameState gameState){
+        long start = Metrics.start();
+        try {
+            detectGameLossUntimed(gameState);
+        } finally {
+            DETECT_LOSS.stop(start);
+        }
+    }
+
+    private static void detectGameLossUntimed(GameState gameState){
+        if (gameState.isGameOver()) return;
+        if (gameState.getStockCards() == 0) {
+            // the search is only run for positions that have not been searched before
+            long fingerprint = fingerprint(gameState);
+            if (gameState.isProductivePosition(fingerprint)) return;
+            long start = Metrics.start();
+            boolean productive = hasProductiveMove(gameState);
+            STALEMATE_SEARCH.stop(start);
+            if (productive) gameState.rememberProductivePosition(fingerprint);
+            else gameState.setGameLost(true);
+            return;
+        }
+
+        int cycles = gameState.getStockCycles();
+        if (cycles < gameState.getFingerprintCycle()) {
+            // a turn-over was reverted, the recorded fingerprint belongs to a cycle that no longer exists
+            gameState.setFingerprintCycle(cycles);
+            gameState.setCycleFingerprint(NO_FINGERPRINT);
+        } else if (cycles > gameState.getFingerprintCycle()) {
+            long fingerprint = fingerprint(gameState);
+            if (fingerprint == gameState.getCycleFingerprint()) {
+                gameState.setGameLost(true);
+                return;
+            }
+            gameState.setFingerprintCycle(cycles);
+            gameState.setCycleFingerprint(fingerprint);
+        }
+    }
+
+    /**
+     * Returns a 64-bit fingerprint (FNV-1a) of the position: the order of the cards in all decks and the number of
+     * invisible cards in every column. Equal positions have equal fingerprints; different positions have different
+     * fingerprints with overwhelming probability. Never returns {@link #NO_FINGERPRINT}.
+     *
+     * @param gameState GameState object of which the position is fingerprinted
+     * @return fingerprint of the position
+     */
+    static long fingerprint(GameState gameState){
+        long hash = FNV_OFFSET_BASIS;
+        hash = fingerprint(hash, gameState.getStock());
+        hash = fingerprint(hash, gameState.getWaste());
+        for (Deck stackPile : gameState.getStackPiles().values()) hash = fingerprint(hash, stackPile);
+        for (Deck column : gameState.getColumns().values()) hash = fingerprint(hash, column);
+        return hash == NO_FINGERPRINT ? 1 : hash;
+    }
+
+    private static long fingerprint(long hash, Deck deck){
+        for (Card card : deck) hash = (hash ^ card.getOrdinal()) * FNV_PRIME;
+        // deck separator, which cannot be confused with a card ordinal
+        return (hash ^ (DECK_SEPARATOR + deck.getInvisibleCards())) * FNV_PRIME;
+    }
+
+    /**
+     * Determines if a face-down card can still be turned up, assuming the stock and waste are empty. A game can only be
+     * won by turning up all face-down cards, so a game in which no sequence of moves turns up a face-down card can no
+     * longer be won. The positions that can be reached with card moves are searched breadth-first, see
+     * {@link Position}, until a position with fewer face-down cards is found. The search gives up after
+     * {@link #STALEMATE_SEARCH_LIMIT} positions, in which case the game is not proven to be lost and a move is assumed
+     * to be left.
+     *
+     * @param gameState GameState object without stock and waste cards
+     * @return false if it has been proven that no face-down card can be turned up anymore
+     */
+    static boolean hasProductiveMove(GameState gameState){
+        Position start = Position.of(gameState);
+        int faceDownCards = faceDownCards(start);
+        Set<Position> seen = new HashSet<>();
+        Deque<Position> queue = new ArrayDeque<>();
+        seen.add(start);
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            Position position = queue.poll();
+            for (int source = 0; source < position.getDeckCount(); source++) {
+                DeckType sourceType = position.getDeckType(source);
+                if (sourceType != DeckType.COLUMN && sourceType != DeckType.STACK) continue;
+                int size = position.getDeckSize(source);
+                int first = sourceType == DeckType.COLUMN ? position.getFaceDownCards(source) : size - 1;
+                for (int cardIndex = Math.max(first, 0); cardIndex < size; cardIndex++) {
+                    for (int destination = 0; destination < position.getDeckCount(); destination++) {
+                        Position next = position.moveCards(source, cardIndex, destination);
+                        if (next == null || !seen.add(next)) continue;
+                        if (faceDownCards(next) < faceDownCards) return true;
+                        if (seen.size() >= STALEMATE_SEARCH_LIMIT) return true;
+                        queue.add(next);
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int faceDownCards(Position position){
+        int faceDownCards = 0;
+        for (int deck = 0; deck < position.getDeckCount(); deck++) {
+            if (position.getDeckType(deck) == DeckType.COLUMN) faceDownCards += position.getFaceDownCards(deck);
+        }
+        return faceDownCards;
     }
 }
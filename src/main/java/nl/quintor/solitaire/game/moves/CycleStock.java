@@ -1,5 +1,6 @@
 package nl.quintor.solitaire.game.moves;
 
+import nl.quintor.solitaire.Platform;
 import nl.quintor.solitaire.game.moves.ex.MoveException;
 import nl.quintor.solitaire.models.deck.Deck;
 import nl.quintor.solitaire.models.state.GameState;
@@ -9,8 +10,9 @@ import nl.quintor.solitaire.models.state.GameState;
  * revertible and influences the {@link GameState#baseScore}. It stores the previous score in case this move is reverted.
  */
 public class CycleStock implements RevertibleMove {
-    private final static String name = System.getProperty("os.name").contains("Windows") ? "Cycle stock" : "C̲ycle stock";
+    private final static String name = Platform.shortcut("Cycle stock");
     private long previousScore = 0;
+    private boolean recycledWaste = false;
 
     @Override
     public Move createInstance(String playerInput) {
@@ -32,14 +34,51 @@ public class CycleStock implements RevertibleMove {
      */
     @Override
     public String apply(GameState gameState) throws MoveException{
-        // TODO: Write implementation
-        return null;
+        Deck stock = gameState.getStock();
+        Deck waste = gameState.getWaste();
+        if (stock.isEmpty() && waste.isEmpty()) throw new MoveException("Stock is empty");
+
+        // all cards have been shown, turn the stock face-down again
+        if (waste.isEmpty()){
+            waste.addAll(stock);
+            stock.clear();
+            gameState.setStockCycles(gameState.getStockCycles() + 1);
+            addScore(gameState);
+            recycledWaste = true;
+        }
+        stock.add(waste.remove(0));
+        gameState.notifyStockCycled();
+        gameState.remember(this);
+        return "Stock card " + stock.size() + " out of " + (stock.size() + waste.size()) + ", cycle " + gameState.getStockCycles();
     }
 
+    /**
+     * Reverts this move: the last face-up card is turned face-down again. If this move started a new cycle, the
+     * previous cycle is restored together with the previous score.
+     *
+     * @param gameState GameState object to which this move has been applied
+     * @return message with the result of reverting this move
+     */
     @Override
     public String revert(GameState gameState){
-        // TODO: Write implementation
-        return "";
+        Deck stock = gameState.getStock();
+        Deck waste = gameState.getWaste();
+        waste.add(0, stock.remove(stock.size() - 1));
+        if (recycledWaste){
+            stock.addAll(waste);
+            waste.clear();
+            gameState.setStockCycles(gameState.getStockCycles() - 1);
+            gameState.setBaseScore(previousScore);
+            recycledWaste = false;
+        }
+        gameState.notifyStockCycled();
+        gameState.forget(this);
+        return "Stock card " + stock.size() + " out of " + (stock.size() + waste.size()) + ", cycle " + gameState.getStockCycles();
+    }
+
+    @Override
+    public String getPlayerInput() {
+        return "C";
     }
 
     @Override
@@ -1,11 +1,19 @@
 package nl.quintor.solitaire.game.moves;
 
+import nl.quintor.solitaire.Platform;
 import nl.quintor.solitaire.game.CardMoveChecks;
 import nl.quintor.solitaire.game.moves.ex.MoveException;
+import nl.quintor.solitaire.metrics.CheckRejectedEvent;
+import nl.quintor.solitaire.metrics.FlightEvents;
+import nl.quintor.solitaire.metrics.LatencyHistogram;
+import nl.quintor.solitaire.metrics.Metrics;
+import nl.quintor.solitaire.models.card.Card;
 import nl.quintor.solitaire.models.deck.Deck;
 import nl.quintor.solitaire.models.deck.DeckType;
 import nl.quintor.solitaire.models.state.GameState;
 
+import java.util.List;
+
 /**
  * Class that represents a player action to move a card or multiple cards. This is an action that influences the
  * {@link GameState}, is revertible and influences the {@link GameState#baseScore}. It contains several helper methods
@@ -16,11 +24,14 @@ import nl.quintor.solitaire.models.state.GameState;
  * the stock was cycled because the first card was removed from it, and finally the previous score.
  */
 public class MoveCard implements RevertibleMove {
-    private final static String name = System.getProperty("os.name").contains("Windows") ? "Move" : "M̲ove";
+    private final static String name = Platform.shortcut("Move");
+    private final static LatencyHistogram CHECKS = Metrics.histogram("move.checks");
     private String playerInput;
     private Deck sourceDeck;
     private Deck movedCards;
     private Deck destinationDeck;
+    private String sourceDeckId;
+    private String destinationDeckId;
     private boolean showedInvisible = false;
     private boolean cycledStock = false;
     private long previousScore = 0;
@@ -50,14 +61,89 @@ public class MoveCard implements RevertibleMove {
      */
     @Override
     public String apply(GameState gameState) throws MoveException {
-        // TODO: Write implementation
-        return null;
+        String[] input = playerInput.toUpperCase().split(" ");
+        int sourceCardIndex;
+        // the check that is running, to count the rejected moves per check
+        String check = "playerInput";
+        CheckRejectedEvent event = FlightEvents.beginCheck();
+        long start = Metrics.start();
+        try {
+            CardMoveChecks.checkPlayerInput(input);
+            check = "deck";
+            sourceDeck = getDeck(gameState, input[1]);
+            destinationDeck = getDeck(gameState, input[2]);
+            sourceCardIndex = getCardIndex(sourceDeck, input[1]);
+            CardMoveChecks.deckLevelChecks(sourceDeck, sourceCardIndex, destinationDeck);
+            check = "card";
+            CardMoveChecks.cardLevelChecks(destinationDeck, sourceDeck.get(sourceCardIndex));
+        } catch (MoveException e) {
+            Metrics.countError("checks.rejected." + check);
+            if (event != null) event.complete(check, playerInput, e.getMessage());
+            throw e;
+        } finally {
+            CHECKS.stop(start);
+        }
+
+        // move the cards
+        List<Card> sourceCards = sourceDeck.subList(sourceCardIndex, sourceDeck.size());
+        movedCards = new Deck(sourceCards);
+        sourceCards.clear();
+        destinationDeck.addAll(movedCards);
+        sourceDeckId = getDeckId(input[1]);
+        destinationDeckId = input[2];
+        gameState.notifyCardsMoved(sourceDeckId, destinationDeckId, movedCards.size());
+
+        // turn an exposed column card face-upwards
+        if (sourceDeck.getDeckType() == DeckType.COLUMN && !sourceDeck.isEmpty()
+            && sourceDeck.getInvisibleCards() == sourceDeck.size()){
+            sourceDeck.setInvisibleCards(sourceDeck.getInvisibleCards() - 1);
+            showedInvisible = true;
+            gameState.notifyCardFlipped(sourceDeckId, sourceDeck.size() - 1, true);
+        }
+
+        // show the next stock card if the last face-up card was taken
+        Deck waste = gameState.getWaste();
+        if (sourceDeck.getDeckType() == DeckType.STOCK && sourceDeck.isEmpty() && !waste.isEmpty()){
+            sourceDeck.add(waste.remove(0));
+            cycledStock = true;
+            gameState.notifyStockCycled();
+        }
+
+        addScore(gameState);
+        gameState.remember(this);
+        return "Moved " + movedCards + " from " + input[1] + " to " + input[2];
     }
 
+    /**
+     * Reverts this move: the moved cards are returned to the source deck, the exposed column card is turned face-down
+     * again, the stock cycle is undone and the previous score is restored.
+     *
+     * @param gameState GameState object to which this move has been applied
+     * @return message with the result of reverting this move
+     */
     @Override
     public String revert(GameState gameState){
-        // TODO: Write implementation
-        return null;
+        if (cycledStock){
+            gameState.getWaste().add(0, sourceDeck.remove(sourceDeck.size() - 1));
+            cycledStock = false;
+            gameState.notifyStockCycled();
+        }
+        if (showedInvisible){
+            sourceDeck.setInvisibleCards(sourceDeck.getInvisibleCards() + 1);
+            showedInvisible = false;
+            gameState.notifyCardFlipped(sourceDeckId, sourceDeck.size() - 1, false);
+        }
+        destinationDeck.subList(destinationDeck.size() - movedCards.size(), destinationDeck.size()).clear();
+        sourceDeck.addAll(movedCards);
+        gameState.notifyCardsMoved(destinationDeckId, sourceDeckId, movedCards.size());
+        gameState.setBaseScore(previousScore);
+        gameState.forget(this);
+        return "Moved " + movedCards + " back from " + destinationDeckId + " to " + sourceDeckId;
+    }
+
+    @Override
+    public String getPlayerInput() {
+        return playerInput;
     }
 
     @Override
@@ -103,6 +189,17 @@ public class MoveCard implements RevertibleMove {
         throw new MoveException("Deck for token \n" + locationToken + "\n could not be determined.");
     }
 
+    /**
+     * Returns the id of the deck that the provided locationToken refers to, which is the token without the row number
+     * for column coordinates. Assumes the locationToken is syntactically correct and cast to uppercase.
+     *
+     * @param locationToken syntactically correct String representation of a card location
+     * @return deck id as used in {@link nl.quintor.solitaire.models.state.GameStateListener} events
+     */
+    private String getDeckId(String locationToken){
+        return "O".equals(locationToken) || locationToken.startsWith("S") ? locationToken : locationToken.substring(0, 1);
+    }
+
     /**
      * Calculates a new {@link GameState#baseScore} based on the type of card move this instance represents and stores
      * the previous value.
@@ -1,6 +1,11 @@
 package nl.quintor.solitaire.game.moves;
 
+import nl.quintor.solitaire.Platform;
 import nl.quintor.solitaire.game.moves.ex.MoveException;
+import nl.quintor.solitaire.metrics.FlightEvents;
+import nl.quintor.solitaire.metrics.LatencyHistogram;
+import nl.quintor.solitaire.metrics.Metrics;
+import nl.quintor.solitaire.metrics.MoveEvent;
 import nl.quintor.solitaire.models.state.GameState;
 
 import java.util.List;
@@ -9,7 +14,8 @@ import java.util.List;
  * Class that represents a player action to revert another move that implements {@link RevertibleMove}.
  */
 public class Revert implements Move {
-    private final static String name = System.getProperty("os.name").contains("Windows") ? "Revert" : "R̲evert";
+    private final static String name = Platform.shortcut("Revert");
+    private final static ClassValue<LatencyHistogram> REVERT = Metrics.histogramPerClass("move.revert.");
 
     /**
      * Applies the {@link RevertibleMove#revert(GameState)}-method of the previous RevertibleMove contained in the
@@ -21,8 +27,15 @@ public class Revert implements Move {
      */
     @Override
     public String apply(GameState gameState) throws MoveException{
-        // TODO: Write implementation
-        return null;
+        List<RevertibleMove> moves = gameState.getMoves();
+        if (moves.isEmpty()) throw new MoveException("Cannot revert; no moves have been played.");
+        RevertibleMove move = moves.get(moves.size() - 1);
+        MoveEvent event = FlightEvents.beginMove();
+        long start = Metrics.start();
+        String message = move.revert(gameState);
+        REVERT.get(move.getClass()).stop(start);
+        if (event != null) event.complete("revert", move.getClass(), move.getPlayerInput(), message, false);
+        return message;
     }
 
     @Override
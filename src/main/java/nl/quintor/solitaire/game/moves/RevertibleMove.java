@@ -15,4 +15,13 @@ public interface RevertibleMove extends Move{
      * @return message with the result of reverting this move
      */
     String revert(GameState gameState);
+
+    /**
+     * Returns the player input this move was created with, see {@link #createInstance(String)}. Creating a new instance
+     * with this input and applying it to the same GameState has the same effect as applying this move, which is used to
+     * restore a saved game by replaying its moves.
+     *
+     * @return player input of this move, for example "M O SA"
+     */
+    String getPlayerInput();
 }
@@ -0,0 +1,49 @@
+package nl.quintor.solitaire.game.moves;
+
+import nl.quintor.solitaire.Platform;
+import nl.quintor.solitaire.models.state.GameState;
+import nl.quintor.solitaire.statistics.GameStatistics;
+
+/**
+ * Class that represents a player action to view the statistics of the player and of the deal that is being played.
+ */
+public class Stats implements Move{
+    private final static String name = Platform.shortcut("Stats");
+    private final GameStatistics statistics;
+    private final String player;
+
+    /**
+     * Constructs a move that shows the statistics of the provided player.
+     *
+     * @param statistics statistics of the finished games
+     * @param player name of the player
+     */
+    public Stats(GameStatistics statistics, String player){
+        this.statistics = statistics;
+        this.player = player;
+    }
+
+    /**
+     * Returns the statistics of the player and of the deal of the provided GameState, for the UI to show the player.
+     * Does not influence the {@link GameState}.
+     *
+     * @param gameState GameState object of which the deal is looked up
+     * @return statistics of the player and of the deal
+     */
+    @Override
+    public String apply(GameState gameState){
+        return "\n" +
+            "Your games: " + statistics.ofPlayer(player) + "\n" +
+            "This deal: " + statistics.ofDeal(gameState.getDealId()) + "\n";
+    }
+
+    @Override
+    public Move createInstance(String playerInput){
+        return new Stats(statistics, player);
+    }
+
+    @Override
+    public String toString(){
+        return name;
+    }
+}
@@ -0,0 +1,359 @@
+package nl.quintor.solitaire.leaderboard;
+
+import nl.quintor.solitaire.models.state.GameState;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Ranking of finished games, best result first (see {@link LeaderboardEntry#BEST_FIRST}). Games of any number of
+ * sessions can be recorded concurrently; the best K entries and the rank of a player are found in logarithmic time,
+ * however many entries the leaderboard holds. All methods are thread safe: queries share a read lock, recording a game
+ * takes the write lock.
+ *
+ * <p>A leaderboard is either kept in memory only, see {@link #inMemory()}, or backed by a file, see {@link #open(Path)}.
+ * The file is append-only: every recorded game is written to the end of the file as a small fixed layout record
+ * followed by the name of the player, so recording never rewrites earlier entries. Opening the file reads all records
+ * at once, sorts them and builds the ranking in linear time, so a file with millions of entries loads in well under a
+ * second. A record that was only partly written, because the application stopped while writing it, is discarded.
+ */
+public final class Leaderboard implements Closeable {
+    private final static int MAGIC = 0x534C4231; // "SLB1"
+    private final static int HEADER_BYTES = 4;
+    private final static int FIXED_RECORD_BYTES = 8 + 8 + 8 + 4 + 1 + 8 + 1;
+    private final static int MAX_NAME_BYTES = 255;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final RankedSkipList<LeaderboardEntry> ranking;
+    private final Map<String, LeaderboardEntry> bestByPlayer;
+    private final FileChannel channel;
+    private long nextSequence;
+
+    private Leaderboard(RankedSkipList<LeaderboardEntry> ranking, Map<String, LeaderboardEntry> bestByPlayer, FileChannel channel){
+        this.ranking = ranking;
+        this.bestByPlayer = bestByPlayer;
+        this.channel = channel;
+        this.nextSequence = ranking.size();
+    }
+
+    /**
+     * Creates an empty leaderboard that is not saved.
+     *
+     * @return new leaderboard
+     */
+    public static Leaderboard inMemory(){
+        return new Leaderboard(new RankedSkipList<>(LeaderboardEntry.BEST_FIRST), new HashMap<>(), null);
+    }
+
+    /**
+     * Opens a leaderboard file, creating it if it does not exist, and loads its entries. Games recorded afterwards are
+     * appended to the file.
+     *
+     * @param file leaderboard file
+     * @return leaderboard with the entries of the file
+     * @throws IOException if the file could not be read, or is not a leaderboard file
+     */
+    public static Leaderboard open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < HEADER_BYTES) {
+                channel.truncate(0);
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(0, MAGIC);
+                while (header.hasRemaining()) channel.write(header, header.position());
+                return new Leaderboard(new RankedSkipList<>(LeaderboardEntry.BEST_FIRST), new HashMap<>(), channel);
+            }
+            return load(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static Leaderboard load(FileChannel channel) throws IOException {
+        MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (in.getInt() != MAGIC) throw new IOException("Not a leaderboard file");
+
+        List<LeaderboardEntry> entries = new ArrayList<>((in.remaining() - HEADER_BYTES) / (FIXED_RECORD_BYTES + 8));
+        PlayerTable players = new PlayerTable();
+        while (in.remaining() >= FIXED_RECORD_BYTES) {
+            int start = in.position();
+            long score = in.getLong();
+            long durationMillis = in.getLong();
+            long dealId = in.getLong();
+            int moves = in.getInt();
+            boolean won = in.get() != 0;
+            long finishedAt = in.getLong();
+            int nameLength = in.get() & 0xFF;
+            if (in.remaining() < nameLength) {
+                ((Buffer) in).position(start);
+                break;
+            }
+            int slot = players.find(in, nameLength);
+            LeaderboardEntry entry = new LeaderboardEntry(entries.size(), players.names[slot], dealId, score, durationMillis, moves, won, finishedAt);
+            entries.add(entry);
+            players.best[slot] = players.best[slot] == null ? entry : better(players.best[slot], entry);
+        }
+        // discard a record that was only partly written
+        if (in.hasRemaining()) channel.truncate(in.position());
+
+        LeaderboardEntry[] sorted = sortBestFirst(entries.toArray(new LeaderboardEntry[0]));
+        return new Leaderboard(RankedSkipList.ofSorted(LeaderboardEntry.BEST_FIRST, sorted), players.toMap(), channel);
+    }
+
+    /**
+     * Sorts entries that are in the order of recording. Sorting a million objects with a comparator is the slowest part
+     * of loading a file, so the entries are first sorted by score through an array of primitive keys, each key holding
+     * the score and the position of an entry; only entries with the same score are then sorted with the comparator.
+     */
+    private static LeaderboardEntry[] sortBestFirst(LeaderboardEntry[] entries){
+        int count = entries.length;
+        if (count == 0) return entries;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (LeaderboardEntry entry : entries) {
+            min = Math.min(min, entry.getScore());
+            max = Math.max(max, entry.getScore());
+        }
+        // the keys hold (max - score) * count + position, which only fits a long if the scores are close enough
+        if (max - min < 0 || max - min >= Long.MAX_VALUE / count - 1) {
+            Arrays.parallelSort(entries, LeaderboardEntry.BEST_FIRST);
+            return entries;
+        }
+
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) keys[i] = (max - entries[i].getScore()) * count + i;
+        Arrays.sort(keys);
+        LeaderboardEntry[] sorted = new LeaderboardEntry[count];
+        for (int i = 0; i < count; i++) sorted[i] = entries[(int) (keys[i] % count)];
+        for (int from = 0, to; from < count; from = to) {
+            for (to = from + 1; to < count && sorted[to].getScore() == sorted[from].getScore(); to++);
+            if (to - from > 1) Arrays.sort(sorted, from, to, LeaderboardEntry.BEST_FIRST);
+        }
+        return sorted;
+    }
+
+    /**
+     * Records a finished game.
+     *
+     * @param player name of the player
+     * @param gameState finished game
+     * @return the new entry
+     * @throws IllegalArgumentException if the name is empty or longer than 255 bytes in UTF-8
+     * @throws UncheckedIOException if the entry could not be written to the leaderboard file
+     */
+    public LeaderboardEntry record(String player, GameState gameState){
+        return record(player, gameState.getDealId(), gameState.getScore(), gameState.getPlayingNanos() / 1_000_000,
+            gameState.getMoves().size(), gameState.isGameWon());
+    }
+
+    /**
+     * Records the result of a game.
+     *
+     * @param player name of the player
+     * @param dealId number that identifies the deal that was played
+     * @param score final score
+     * @param durationMillis playing time in milliseconds
+     * @param moves number of moves
+     * @param won true if the game was won
+     * @return the new entry
+     * @throws IllegalArgumentException if the name is empty or longer than 255 bytes in UTF-8
+     * @throws UncheckedIOException if the entry could not be written to the leaderboard file
+     */
+    public LeaderboardEntry record(String player, long dealId, long score, long durationMillis, int moves, boolean won){
+        byte[] name = player.getBytes(StandardCharsets.UTF_8);
+        if (name.length == 0 || name.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("The name of the player should be 1 to " + MAX_NAME_BYTES + " bytes long");
+        }
+        long finishedAt = System.currentTimeMillis();
+
+        lock.writeLock().lock();
+        try {
+            LeaderboardEntry entry = new LeaderboardEntry(nextSequence, player, dealId, score, durationMillis, moves, won, finishedAt);
+            if (channel != null) append(entry, name);
+            nextSequence++;
+            ranking.add(entry);
+            bestByPlayer.merge(player, entry, Leaderboard::better);
+            return entry;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the best entries.
+     *
+     * @param k maximum number of entries
+     * @return up to k entries, best first
+     */
+    public List<LeaderboardEntry> top(int k){
+        lock.readLock().lock();
+        try {
+            return ranking.range(0, k);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the rank of the best entry of a player.
+     *
+     * @param player name of the player
+     * @return rank of the best entry of the player, starting at 1 for the best entry of the leaderboard, or -1 if the
+     *         player has no entries
+     */
+    public int rankOf(String player){
+        lock.readLock().lock();
+        try {
+            LeaderboardEntry best = bestByPlayer.get(player);
+            return best == null ? -1 : ranking.rankOf(best) + 1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the best entry of a player.
+     *
+     * @param player name of the player
+     * @return best entry of the player, or null if the player has no entries
+     */
+    public LeaderboardEntry bestOf(String player){
+        lock.readLock().lock();
+        try {
+            return bestByPlayer.get(player);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return number of recorded games
+     */
+    public int size(){
+        lock.readLock().lock();
+        try {
+            return ranking.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Closes the leaderboard file, if any. Entries that have been recorded are in the file; the leaderboard can no
+     * longer record games afterwards.
+     *
+     * @throws IOException if the file could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) channel.close();
+    }
+
+    private void append(LeaderboardEntry entry, byte[] name){
+        ByteBuffer out = ByteBuffer.allocate(FIXED_RECORD_BYTES + name.length);
+        out.putLong(entry.getScore()).putLong(entry.getDurationMillis()).putLong(entry.getDealId()).putInt(entry.getMoves())
+            .put((byte) (entry.isWon() ? 1 : 0)).putLong(entry.getFinishedAt()).put((byte) name.length).put(name);
+        ((Buffer) out).flip();
+        long start = -1;
+        try {
+            start = channel.size();
+            long position = start;
+            while (out.hasRemaining()) position += channel.write(out, position);
+        } catch (IOException e) {
+            // don't leave a partly written record in front of the records that follow
+            if (start >= 0) try { channel.truncate(start); } catch (IOException suppressed) { e.addSuppressed(suppressed); }
+            throw new UncheckedIOException("The game could not be written to the leaderboard", e);
+        }
+    }
+
+    private static LeaderboardEntry better(LeaderboardEntry a, LeaderboardEntry b){
+        return LeaderboardEntry.BEST_FIRST.compare(a, b) <= 0 ? a : b;
+    }
+
+    /**
+     * Open addressing hash table of the players in a leaderboard file, used while loading the file. Looks up names by
+     * their UTF-8 bytes, so the name of a player is only decoded the first time it is read, and keeps the best entry of
+     * every player.
+     */
+    private static final class PlayerTable {
+        private byte[][] keys = new byte[1024][];
+        private String[] names = new String[1024];
+        private LeaderboardEntry[] best = new LeaderboardEntry[1024];
+        private int size = 0;
+
+        /**
+         * Reads a name from the buffer and returns its slot, adding the name if it is new.
+         */
+        private int find(ByteBuffer in, int length){
+            int start = in.position();
+            int hash = length;
+            for (int i = 0; i < length; i++) hash = 31 * hash + in.get(start + i);
+            int slot = (hash ^ hash >>> 16) & keys.length - 1;
+            while (keys[slot] != null) {
+                if (matches(keys[slot], in, start, length)) {
+                    ((Buffer) in).position(start + length);
+                    return slot;
+                }
+                slot = slot + 1 & keys.length - 1;
+            }
+
+            byte[] key = new byte[length];
+            in.get(key);
+            keys[slot] = key;
+            names[slot] = new String(key, StandardCharsets.UTF_8);
+            if (++size * 2 > keys.length) {
+                grow();
+                ((Buffer) in).position(start);
+                return find(in, length);
+            }
+            return slot;
+        }
+
+        private static boolean matches(byte[] key, ByteBuffer in, int start, int length){
+            if (key.length != length) return false;
+            for (int i = 0; i < key.length; i++) if (key[i] != in.get(start + i)) return false;
+            return true;
+        }
+
+        private void grow(){
+            byte[][] oldKeys = keys;
+            String[] oldNames = names;
+            LeaderboardEntry[] oldBest = best;
+            keys = new byte[oldKeys.length * 2][];
+            names = new String[keys.length];
+            best = new LeaderboardEntry[keys.length];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == null) continue;
+                int hash = oldKeys[i].length;
+                for (byte b : oldKeys[i]) hash = 31 * hash + b;
+                int slot = (hash ^ hash >>> 16) & keys.length - 1;
+                while (keys[slot] != null) slot = slot + 1 & keys.length - 1;
+                keys[slot] = oldKeys[i];
+                names[slot] = oldNames[i];
+                best[slot] = oldBest[i];
+            }
+        }
+
+        private Map<String, LeaderboardEntry> toMap(){
+            Map<String, LeaderboardEntry> map = new HashMap<>(size * 2);
+            for (int i = 0; i < keys.length; i++) if (keys[i] != null) map.put(names[i], best[i]);
+            return map;
+        }
+    }
+}
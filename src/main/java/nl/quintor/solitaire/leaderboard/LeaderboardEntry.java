@@ -0,0 +1,125 @@
+package nl.quintor.solitaire.leaderboard;
+
+import java.util.Comparator;
+
+/**
+ * Immutable result of a finished game, as recorded by the {@link Leaderboard}. Entries are ordered from best to worst:
+ * by score (highest first), then by duration (shortest first), then by number of moves (fewest first); equal results
+ * are ordered by the moment they were recorded, so the first player to reach a result keeps the higher rank.
+ */
+public final class LeaderboardEntry {
+    /**
+     * Order of the leaderboard, best result first.
+     */
+    public final static Comparator<LeaderboardEntry> BEST_FIRST = (a, b) -> {
+        if (a.score != b.score) return a.score > b.score ? -1 : 1;
+        if (a.durationMillis != b.durationMillis) return a.durationMillis < b.durationMillis ? -1 : 1;
+        if (a.moves != b.moves) return a.moves < b.moves ? -1 : 1;
+        return Long.compare(a.sequence, b.sequence);
+    };
+
+    private final long sequence;
+    private final String player;
+    private final long dealId;
+    private final long score;
+    private final long durationMillis;
+    private final int moves;
+    private final boolean won;
+    private final long finishedAt;
+
+    LeaderboardEntry(long sequence, String player, long dealId, long score, long durationMillis, int moves, boolean won,
+                     long finishedAt){
+        this.sequence = sequence;
+        this.player = player;
+        this.dealId = dealId;
+        this.score = score;
+        this.durationMillis = durationMillis;
+        this.moves = moves;
+        this.won = won;
+        this.finishedAt = finishedAt;
+    }
+
+    /**
+     * Getter for sequence.
+     *
+     * @return position of this entry in the order of recording, starting at 0
+     */
+    public long getSequence(){
+        return sequence;
+    }
+
+    /**
+     * Getter for player.
+     *
+     * @return name of the player
+     */
+    public String getPlayer(){
+        return player;
+    }
+
+    /**
+     * Getter for dealId.
+     *
+     * @return number that identifies the deal that was played
+     */
+    public long getDealId(){
+        return dealId;
+    }
+
+    /**
+     * Getter for score.
+     *
+     * @return final score of the game
+     */
+    public long getScore(){
+        return score;
+    }
+
+    /**
+     * Getter for durationMillis.
+     *
+     * @return playing time in milliseconds
+     */
+    public long getDurationMillis(){
+        return durationMillis;
+    }
+
+    /**
+     * Getter for moves.
+     *
+     * @return number of moves of the game
+     */
+    public int getMoves(){
+        return moves;
+    }
+
+    /**
+     * Getter for won.
+     *
+     * @return true if the game was won
+     */
+    public boolean isWon(){
+        return won;
+    }
+
+    /**
+     * Getter for finishedAt.
+     *
+     * @return moment the game was recorded, in milliseconds since the epoch
+     */
+    public long getFinishedAt(){
+        return finishedAt;
+    }
+
+    /**
+     * String representation of this entry, for example "alice: 1250 points in 00:03:12 with 87 move(s), deal 42, won".
+     *
+     * @return String representation of this entry
+     */
+    @Override
+    public String toString(){
+        long seconds = durationMillis / 1000;
+        return player + ": " + score + " points in " + String.format("%02d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60) +
+            " with " + moves + " move(s), deal " + dealId + (won ? ", won" : ", lost");
+    }
+}
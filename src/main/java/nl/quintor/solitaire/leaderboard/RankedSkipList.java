@@ -0,0 +1,182 @@
+package nl.quintor.solitaire.leaderboard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Sorted skip list that also knows the position of its elements: every link stores the number of elements it skips,
+ * so adding an element, looking up its rank and getting the element at a rank all take logarithmic time. Elements are
+ * never removed. Not thread safe, the {@link Leaderboard} guards it with a lock.
+ *
+ * @param <E> type of the elements; the comparator must order all distinct elements, it may not consider two of
+ *            them equal
+ */
+final class RankedSkipList<E> {
+    private final static int MAX_LEVEL = 32;
+    private final Comparator<? super E> comparator;
+    private final Random random = new Random();
+    private final Node<E> head = new Node<>(null, MAX_LEVEL);
+    private int size = 0;
+
+    RankedSkipList(Comparator<? super E> comparator){
+        this.comparator = comparator;
+        for (int i = 0; i < MAX_LEVEL; i++) head.width[i] = 1;
+    }
+
+    /**
+     * Creates a list with the provided elements in linear time, without comparing them.
+     *
+     * @param comparator order of the list
+     * @param sorted elements, already sorted in the order of the comparator
+     * @param <E> type of the elements
+     * @return new list
+     */
+    static <E> RankedSkipList<E> ofSorted(Comparator<? super E> comparator, E[] sorted){
+        RankedSkipList<E> list = new RankedSkipList<>(comparator);
+        Node<E>[] last = newNodeArray(MAX_LEVEL);
+        int[] lastPosition = new int[MAX_LEVEL];
+        for (int i = 0; i < MAX_LEVEL; i++) last[i] = list.head;
+        for (int i = 0; i < sorted.length; i++) {
+            Node<E> node = new Node<>(sorted[i], list.randomLevel());
+            int position = i + 1;
+            for (int level = 0; level < node.next.length; level++) {
+                last[level].next[level] = node;
+                last[level].width[level] = position - lastPosition[level];
+                last[level] = node;
+                lastPosition[level] = position;
+            }
+        }
+        // links without a next node span the rest of the list, up to the position after the last element
+        for (int level = 0; level < MAX_LEVEL; level++) last[level].width[level] = sorted.length + 1 - lastPosition[level];
+        list.size = sorted.length;
+        return list;
+    }
+
+    /**
+     * Adds an element.
+     *
+     * @param element element to add
+     * @return rank of the element, starting at 0 for the first element
+     */
+    int add(E element){
+        Node<E>[] update = newNodeArray(MAX_LEVEL);
+        int[] updatePosition = new int[MAX_LEVEL];
+        Node<E> node = head;
+        int position = 0;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            while (node.next[level] != null && comparator.compare(node.next[level].value, element) < 0) {
+                position += node.width[level];
+                node = node.next[level];
+            }
+            update[level] = node;
+            updatePosition[level] = position;
+        }
+
+        int newPosition = position + 1;
+        Node<E> added = new Node<>(element, randomLevel());
+        for (int level = 0; level < MAX_LEVEL; level++) {
+            if (level < added.next.length) {
+                added.next[level] = update[level].next[level];
+                added.width[level] = update[level].width[level] - (newPosition - updatePosition[level]) + 1;
+                update[level].next[level] = added;
+                update[level].width[level] = newPosition - updatePosition[level];
+            } else {
+                update[level].width[level]++;
+            }
+        }
+        size++;
+        return newPosition - 1;
+    }
+
+    /**
+     * Returns the rank of an element.
+     *
+     * @param element element of this list
+     * @return rank of the element, starting at 0 for the first element, or -1 if the element is not in this list
+     */
+    int rankOf(E element){
+        Node<E> node = head;
+        int position = 0;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            while (node.next[level] != null && comparator.compare(node.next[level].value, element) < 0) {
+                position += node.width[level];
+                node = node.next[level];
+            }
+        }
+        Node<E> next = node.next[0];
+        return next != null && comparator.compare(next.value, element) == 0 ? position : -1;
+    }
+
+    /**
+     * Returns the element at a rank.
+     *
+     * @param rank rank of the element, starting at 0 for the first element
+     * @return the element
+     * @throws IndexOutOfBoundsException if the rank is not smaller than the size of this list
+     */
+    E get(int rank){
+        if (rank < 0 || rank >= size) throw new IndexOutOfBoundsException("Rank: " + rank + ", size: " + size);
+        return nodeAt(rank).value;
+    }
+
+    /**
+     * Returns the elements from a rank on.
+     *
+     * @param rank rank of the first element
+     * @param count maximum number of elements
+     * @return up to count elements, in order; empty if the rank is not smaller than the size of this list
+     */
+    List<E> range(int rank, int count){
+        if (rank < 0) throw new IndexOutOfBoundsException("Rank: " + rank);
+        List<E> result = new ArrayList<>(Math.max(0, Math.min(count, size - rank)));
+        if (rank >= size) return result;
+        for (Node<E> node = nodeAt(rank); node != null && result.size() < count; node = node.next[0]) result.add(node.value);
+        return result;
+    }
+
+    int size(){
+        return size;
+    }
+
+    /**
+     * Returns the node at a rank, which must be smaller than the size of this list.
+     */
+    private Node<E> nodeAt(int rank){
+        Node<E> node = head;
+        int position = 0;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            while (node.next[level] != null && position + node.width[level] <= rank + 1) {
+                position += node.width[level];
+                node = node.next[level];
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Returns a level between 1 and 16, level n + 1 being four times less likely than level n.
+     */
+    private int randomLevel(){
+        return 1 + Integer.numberOfTrailingZeros(random.nextInt() | 0x8000_0000) / 2;
+    }
+
+    // the only place where a generic array is created
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <E> Node<E>[] newNodeArray(int length){
+        return (Node<E>[]) new Node[length];
+    }
+
+    private static final class Node<E> {
+        private final E value;
+        private final Node<E>[] next;
+        private final int[] width;
+
+        private Node(E value, int level){
+            this.value = value;
+            this.next = newNodeArray(level);
+            this.width = new int[level];
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package nl.quintor.solitaire.load;
+
+import nl.quintor.solitaire.agent.Agent;
+import nl.quintor.solitaire.agent.GreedyAgent;
+import nl.quintor.solitaire.game.GameSession;
+import nl.quintor.solitaire.game.GameStateController;
+import nl.quintor.solitaire.metrics.LatencyHistogram;
+import nl.quintor.solitaire.metrics.LatencySnapshot;
+import nl.quintor.solitaire.metrics.Metrics;
+import nl.quintor.solitaire.models.state.GameClock;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+
+/**
+ * In-process load generator that finds the number of games one JVM can host. Virtual players, {@link Agent agents}
+ * with a {@link ThinkTime}, play real {@link GameSession game sessions}, each on its own thread, like the sessions of
+ * the {@link nl.quintor.solitaire.server.GameServer}. A session that ends starts a new game on the next deal.
+ *
+ * <p>The load is ramped up: every step doubles the number of sessions and measures the commands per second, the
+ * latency percentiles of the commands and the heap per session. Where the commands per second stop growing, the machine
+ * is saturated. Run with:
+ *
+ * <pre>{@code
+ * mvn compile exec:java -Dexec.mainClass=nl.quintor.solitaire.load.LoadGenerator -Dexec.args="<max sessions> <step seconds> <mean think millis>"
+ * }</pre>
+ */
+public class LoadGenerator {
+    private final static MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+    private final LongFunction<Agent> players;
+    private final ThinkTime thinkTime;
+    private final int maxTurns;
+    private final AtomicLong nextDeal = new AtomicLong(1);
+    private final LongAdder commands = new LongAdder();
+    private volatile LatencyHistogram latency = Metrics.newHistogram("load.command");
+    private volatile boolean running;
+
+    /**
+     * Constructs a load generator.
+     *
+     * @param players creates the player of a game, given the id of the deal
+     * @param thinkTime think time of the players before every move
+     * @param maxTurns maximum number of moves per game, after which the player quits
+     */
+    public LoadGenerator(LongFunction<Agent> players, ThinkTime thinkTime, int maxTurns){
+        this.players = players;
+        this.thinkTime = thinkTime;
+        this.maxTurns = maxTurns;
+    }
+
+    public static void main(String... args) throws InterruptedException {
+        int maxSessions = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+        long stepSeconds = args.length > 1 ? Long.parseLong(args[1]) : 5;
+        long thinkMillis = args.length > 2 ? Long.parseLong(args[2]) : 10;
+        ThinkTime thinkTime = thinkMillis == 0 ? ThinkTime.none() : ThinkTime.exponential(thinkMillis);
+        LoadGenerator generator = new LoadGenerator(dealId -> new GreedyAgent(), thinkTime, 1000);
+        double best = 0;
+        for (LoadStep step : generator.ramp(1, maxSessions, TimeUnit.SECONDS.toMillis(stepSeconds))) {
+            boolean saturated = best > 0 && step.getCommandsPerSecond() < best * 1.05;
+            best = Math.max(best, step.getCommandsPerSecond());
+            System.out.println(step + (saturated ? "  (saturated)" : ""));
+        }
+    }
+
+    /**
+     * Ramps up the load from the initial number of sessions, doubling it every step, up to the maximum.
+     *
+     * @param initialSessions number of sessions of the first step
+     * @param maxSessions number of sessions of the last step
+     * @param stepMillis duration of a step in milliseconds
+     * @return result per step
+     * @throws InterruptedException if the thread is interrupted while waiting for a step to end
+     */
+    public List<LoadStep> ramp(int initialSessions, int maxSessions, long stepMillis) throws InterruptedException {
+        List<Thread> sessions = new ArrayList<>();
+        List<Integer> counts = new ArrayList<>();
+        List<Double> throughputs = new ArrayList<>();
+        List<LatencySnapshot> latencies = new ArrayList<>();
+        List<Long> heaps = new ArrayList<>();
+        running = true;
+        try {
+            for (int count = initialSessions; ; count = Math.min(count * 2, maxSessions)) {
+                while (sessions.size() < count) sessions.add(startSession(sessions.size()));
+                latency = Metrics.newHistogram("load.command");
+                long startCommands = commands.sum();
+                long start = System.nanoTime();
+                Thread.sleep(stepMillis);
+                long stepCommands = commands.sum() - startCommands;
+                long nanos = System.nanoTime() - start;
+                counts.add(count);
+                throughputs.add(stepCommands * 1e9 / nanos);
+                latencies.add(latency.snapshot());
+                heaps.add(usedHeap());
+                if (count >= maxSessions) break;
+            }
+        } finally {
+            running = false;
+            for (Thread session : sessions) session.join();
+        }
+        // the heap without sessions is measured last, when class loading and compilation have settled down
+        long baselineHeap = usedHeap();
+        List<LoadStep> steps = new ArrayList<>();
+        for (int i = 0; i < counts.size(); i++) {
+            long heapPerSession = Math.max(0, heaps.get(i) - baselineHeap) / counts.get(i);
+            steps.add(new LoadStep(counts.get(i), throughputs.get(i), latencies.get(i), heapPerSession));
+        }
+        return steps;
+    }
+
+    /**
+     * Returns true while the ramp is running; players quit their game when it stops.
+     */
+    boolean isRunning(){
+        return running;
+    }
+
+    /**
+     * Records the latency of a command of a virtual player.
+     */
+    void recordCommand(long nanos){
+        commands.increment();
+        latency.record(nanos);
+    }
+
+    private Thread startSession(int number){
+        Thread thread = new Thread(() -> {
+            Random random = new Random(number);
+            while (running) playGame(nextDeal.getAndIncrement(), random, thinkTime);
+        }, "virtual-player-" + number);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private void playGame(long dealId, Random random, ThinkTime thinkTime){
+        VirtualPlayerUI ui = new VirtualPlayerUI(players.apply(dealId), thinkTime, random, this, maxTurns);
+        new GameSession(ui, GameStateController.init(GameClock.SYSTEM, dealId)).run();
+    }
+
+    /**
+     * Returns the used heap after a full garbage collection.
+     */
+    private static long usedHeap(){
+        System.gc();
+        System.gc();
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+}
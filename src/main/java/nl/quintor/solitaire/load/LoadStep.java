@@ -0,0 +1,73 @@
+package nl.quintor.solitaire.load;
+
+import nl.quintor.solitaire.metrics.LatencySnapshot;
+
+import java.util.Locale;
+
+/**
+ * Result of one step of a {@link LoadGenerator} ramp: the throughput and latency of a number of concurrent sessions.
+ */
+public final class LoadStep {
+    private final int sessions;
+    private final double commandsPerSecond;
+    private final LatencySnapshot latency;
+    private final long heapPerSession;
+
+    LoadStep(int sessions, double commandsPerSecond, LatencySnapshot latency, long heapPerSession){
+        this.sessions = sessions;
+        this.commandsPerSecond = commandsPerSecond;
+        this.latency = latency;
+        this.heapPerSession = heapPerSession;
+    }
+
+    /**
+     * Getter for sessions.
+     *
+     * @return number of concurrent sessions
+     */
+    public int getSessions(){
+        return sessions;
+    }
+
+    /**
+     * Getter for commandsPerSecond.
+     *
+     * @return number of commands played per second by all sessions together
+     */
+    public double getCommandsPerSecond(){
+        return commandsPerSecond;
+    }
+
+    /**
+     * Getter for latency.
+     *
+     * @return latencies of the commands played in this step
+     */
+    public LatencySnapshot getLatency(){
+        return latency;
+    }
+
+    /**
+     * Getter for heapPerSession.
+     *
+     * @return used heap during the step minus the used heap after all sessions ended, both after a garbage
+     *         collection, divided by the number of sessions; an estimate of the heap a session takes, which is most
+     *         accurate for steps with many sessions
+     */
+    public long getHeapPerSession(){
+        return heapPerSession;
+    }
+
+    /**
+     * String representation of this step, for example
+     * "  64 sessions    41230 commands/s  p50    12.3 µs  p99    88.1 µs  p999   402.7 µs    19.4 KiB/session".
+     *
+     * @return String representation of this step
+     */
+    @Override
+    public String toString(){
+        return String.format(Locale.ROOT, "%4d sessions %8.0f commands/s  p50 %7.1f µs  p99 %7.1f µs  p999 %8.1f µs %7.1f KiB/session",
+            sessions, commandsPerSecond, latency.getP50Nanos() / 1e3, latency.getP99Nanos() / 1e3,
+            latency.percentileNanos(99.9) / 1e3, heapPerSession / 1024.0);
+    }
+}
@@ -0,0 +1,62 @@
+package nl.quintor.solitaire.load;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distribution of the time a virtual player of the {@link LoadGenerator} thinks before every move.
+ */
+@FunctionalInterface
+public interface ThinkTime {
+    /**
+     * Returns the time to think before the next move.
+     *
+     * @param random random number generator of the player
+     * @return think time in nanoseconds
+     */
+    long nextNanos(Random random);
+
+    /**
+     * Players that don't think, to measure the maximum throughput.
+     *
+     * @return think time of 0
+     */
+    static ThinkTime none(){
+        return random -> 0;
+    }
+
+    /**
+     * Players that always think equally long.
+     *
+     * @param millis think time in milliseconds
+     * @return constant think time
+     */
+    static ThinkTime constant(long millis){
+        long nanos = TimeUnit.MILLISECONDS.toNanos(millis);
+        return random -> nanos;
+    }
+
+    /**
+     * Players that think between a minimum and a maximum time, every time in between equally likely.
+     *
+     * @param minMillis minimum think time in milliseconds
+     * @param maxMillis maximum think time in milliseconds
+     * @return uniformly distributed think time
+     */
+    static ThinkTime uniform(long minMillis, long maxMillis){
+        long min = TimeUnit.MILLISECONDS.toNanos(minMillis);
+        long range = TimeUnit.MILLISECONDS.toNanos(maxMillis) - min;
+        return random -> min + (long) (random.nextDouble() * range);
+    }
+
+    /**
+     * Players whose moves arrive as a Poisson process: mostly short think times, now and then a long one.
+     *
+     * @param meanMillis average think time in milliseconds
+     * @return exponentially distributed think time
+     */
+    static ThinkTime exponential(long meanMillis){
+        double mean = TimeUnit.MILLISECONDS.toNanos(meanMillis);
+        return random -> (long) (-mean * Math.log(1 - random.nextDouble()));
+    }
+}
@@ -0,0 +1,68 @@
+package nl.quintor.solitaire.load;
+
+import nl.quintor.solitaire.agent.Agent;
+import nl.quintor.solitaire.game.moves.Move;
+import nl.quintor.solitaire.models.state.GameSnapshot;
+import nl.quintor.solitaire.models.state.GameState;
+import nl.quintor.solitaire.ui.UI;
+
+import java.util.Collection;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UI} of a virtual player of the {@link LoadGenerator}: an {@link Agent} that thinks before every move. The
+ * latency of a command is the time from returning the player input to the game loop until the game loop requests the
+ * next move or shows the final position, so it includes applying the move and everything the game loop does after it.
+ */
+final class VirtualPlayerUI implements UI {
+    private final Agent agent;
+    private final ThinkTime thinkTime;
+    private final Random random;
+    private final LoadGenerator generator;
+    private final int maxTurns;
+    private int turns;
+    private long commandStart;
+
+    VirtualPlayerUI(Agent agent, ThinkTime thinkTime, Random random, LoadGenerator generator, int maxTurns){
+        this.agent = agent;
+        this.thinkTime = thinkTime;
+        this.random = random;
+        this.generator = generator;
+        this.maxTurns = maxTurns;
+    }
+
+    @Override
+    public void setMessage(String message){}
+
+    @Override
+    public void setErrorMessage(String message){}
+
+    @Override
+    public void refresh(GameState gameState){
+        completeCommand();
+    }
+
+    @Override
+    public String refreshAndRequestMove(GameState gameState, Collection<Move> moves){
+        completeCommand();
+        if (!generator.isRunning() || turns == maxTurns) return "Q";
+        long think = thinkTime.nextNanos(random);
+        if (think > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(think);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return "Q";
+            }
+        }
+        String input = agent.nextMove(GameSnapshot.of(gameState, ++turns));
+        commandStart = System.nanoTime();
+        return input == null || input.isEmpty() ? "Q" : input;
+    }
+
+    private void completeCommand(){
+        if (commandStart != 0) generator.recordCommand(System.nanoTime() - commandStart);
+        commandStart = 0;
+    }
+}
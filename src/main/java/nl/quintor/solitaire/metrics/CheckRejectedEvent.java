@@ -0,0 +1,45 @@
+package nl.quintor.solitaire.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of a card move that is rejected by the {@link nl.quintor.solitaire.game.CardMoveChecks}. Its
+ * duration is the time spent checking the move. See {@link MoveEvent} for the settings.
+ */
+@Name("nl.quintor.solitaire.CheckRejected")
+@Label("Check Rejected")
+@Category("Solitaire")
+@Description("A card move rejected by the move checks")
+@StackTrace(false)
+public final class CheckRejectedEvent extends Event {
+    @Label("Check")
+    @Description("playerInput, deck or card")
+    private String check;
+
+    @Label("Input")
+    private String input;
+
+    @Label("Reason")
+    private String reason;
+
+    /**
+     * Ends this event and commits it if it is enabled and exceeds its threshold.
+     *
+     * @param check check that rejected the move
+     * @param input player input of the move
+     * @param reason message of the check
+     */
+    public void complete(String check, String input, String reason){
+        end();
+        if (!shouldCommit()) return;
+        this.check = check;
+        this.input = input;
+        this.reason = reason;
+        commit();
+    }
+}
@@ -0,0 +1,97 @@
+package nl.quintor.solitaire.metrics;
+
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Library class that begins the Flight Recorder events of the application. The class is not instantiable, all
+ * constructors are private and all methods are static.
+ *
+ * <p>Loading the first event class sets up the event metadata of the Flight Recorder, which takes a few hundred
+ * milliseconds when the application starts. The events are therefore only created once the Flight Recorder has been
+ * initialized, that is, once a recording has been started with {@code -XX:StartFlightRecording}, with
+ * {@code jcmd <pid> JFR.start} or through the {@code jdk.jfr} API. Until then the methods return null without loading
+ * any event class, so call sites complete an event only if it is not null:
+ *
+ * <pre>{@code
+ * TurnEvent turn = FlightEvents.beginTurn();
+ * ...
+ * if (turn != null) turn.complete(input, moves, score, gameOver);
+ * }</pre>
+ *
+ * The application targets Java 8, and not every Java 8 runtime has a Flight Recorder: Oracle JDK 8 and OpenJDK 8
+ * before update 262 have no {@code jdk.jfr} package. Whether it can be loaded is checked once; without it, the methods
+ * return null as well, and no class of the package is ever resolved.
+ */
+public class FlightEvents {
+    private FlightEvents(){}
+    private final static boolean RECORDER_AVAILABLE = isRecorderAvailable();
+
+    /**
+     * Returns true if the Flight Recorder has been initialized, so events can be recorded.
+     *
+     * @return true if the runtime has a Flight Recorder and a recording has been started since the JVM started
+     */
+    public static boolean isRecorderInitialized(){
+        return RECORDER_AVAILABLE && FlightRecorder.isInitialized();
+    }
+
+    /**
+     * Returns true if the {@code jdk.jfr} package can be loaded, without initializing any of its classes.
+     */
+    private static boolean isRecorderAvailable(){
+        try {
+            Class.forName("jdk.jfr.FlightRecorder", false, FlightEvents.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates and begins a {@link MoveEvent}.
+     *
+     * @return begun event, or null if the Flight Recorder has not been initialized
+     */
+    public static MoveEvent beginMove(){
+        if (!isRecorderInitialized()) return null;
+        MoveEvent event = new MoveEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Creates and begins a {@link CheckRejectedEvent}.
+     *
+     * @return begun event, or null if the Flight Recorder has not been initialized
+     */
+    public static CheckRejectedEvent beginCheck(){
+        if (!isRecorderInitialized()) return null;
+        CheckRejectedEvent event = new CheckRejectedEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Creates and begins a {@link RefreshEvent}.
+     *
+     * @return begun event, or null if the Flight Recorder has not been initialized
+     */
+    public static RefreshEvent beginRefresh(){
+        if (!isRecorderInitialized()) return null;
+        RefreshEvent event = new RefreshEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Creates and begins a {@link TurnEvent}.
+     *
+     * @return begun event, or null if the Flight Recorder has not been initialized
+     */
+    public static TurnEvent beginTurn(){
+        if (!isRecorderInitialized()) return null;
+        TurnEvent event = new TurnEvent();
+        event.begin();
+        return event;
+    }
+}
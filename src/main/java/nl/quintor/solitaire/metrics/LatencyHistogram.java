@@ -0,0 +1,123 @@
+package nl.quintor.solitaire.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds, see {@link Metrics#histogram(String)}. Latencies are counted in
+ * log-linear buckets: every power of two is divided into four buckets, so a bucket is at most 25% wide and all
+ * latencies from a nanosecond to hundreds of years fit in {@link #BUCKETS} buckets.
+ *
+ * <p>Operations that are counted but not timed, see {@link Metrics#SAMPLING}, increment a separate counter; the
+ * percentiles and the mean are estimated from the timed operations. Recording a latency increments two counters of a
+ * stripe, without locks. Every thread uses the stripe of its id, so
+ * threads on different processors rarely share a stripe and don't contend; reading the histogram adds up the stripes.
+ * A snapshot taken while latencies are being recorded may miss the latest ones, but never counts a latency twice.
+ */
+public final class LatencyHistogram {
+    /**
+     * Number of buckets.
+     */
+    public final static int BUCKETS = 248;
+    private final static int TOTAL = BUCKETS;
+    private final static int NOT_SAMPLED = BUCKETS + 1;
+    private final static int STRIDE = BUCKETS + 2;
+    private final static int STRIPES = stripeCount();
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(STRIPES * STRIDE);
+
+    LatencyHistogram(String name){
+        this.name = name;
+    }
+
+    /**
+     * Returns the bucket that counts a latency.
+     *
+     * @param nanos latency in nanoseconds; negative latencies are counted as 0
+     * @return index of the bucket, between 0 and {@link #BUCKETS} - 1
+     */
+    public static int bucketOf(long nanos){
+        if (nanos < 4) return nanos < 0 ? 0 : (int) nanos;
+        int octave = 63 - Long.numberOfLeadingZeros(nanos);
+        return (octave - 1) * 4 + (int) (nanos >>> (octave - 2) & 3);
+    }
+
+    /**
+     * Returns the lowest latency counted by a bucket.
+     *
+     * @param bucket index of the bucket
+     * @return lowest latency of the bucket in nanoseconds
+     */
+    public static long bucketLowerBound(int bucket){
+        if (bucket < 4) return bucket;
+        return (4L + bucket % 4) << (bucket / 4 - 1);
+    }
+
+    /**
+     * Records the time passed since a start time, or only counts the operation if it was not sampled, if metrics are
+     * enabled.
+     *
+     * @param startNanos start time returned by {@link Metrics#start()}
+     */
+    public void stop(long startNanos){
+        if (!Metrics.ENABLED) return;
+        if (startNanos == Metrics.NOT_SAMPLED) counts.getAndIncrement(stripe() * STRIDE + NOT_SAMPLED);
+        else record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos latency in nanoseconds
+     */
+    public void record(long nanos){
+        int stripe = stripe();
+        counts.getAndIncrement(stripe * STRIDE + bucketOf(nanos));
+        counts.getAndAdd(stripe * STRIDE + TOTAL, nanos);
+    }
+
+    /**
+     * Getter for name.
+     *
+     * @return name of this histogram, for example "move.apply.MoveCard"
+     */
+    public String getName(){
+        return name;
+    }
+
+    /**
+     * Adds up the stripes of this histogram.
+     *
+     * @return snapshot of the recorded latencies
+     */
+    public LatencySnapshot snapshot(){
+        long[] buckets = new long[BUCKETS];
+        long total = 0;
+        long notSampled = 0;
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            int offset = stripe * STRIDE;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) buckets[bucket] += counts.get(offset + bucket);
+            total += counts.get(offset + TOTAL);
+            notSampled += counts.get(offset + NOT_SAMPLED);
+        }
+        return new LatencySnapshot(name, buckets, total, notSampled);
+    }
+
+    private static int stripe(){
+        return (int) Thread.currentThread().getId() & STRIPES - 1;
+    }
+
+    /**
+     * Sets all counters to 0. Latencies that are recorded at the same time may be partly cleared.
+     */
+    void reset(){
+        for (int i = 0; i < counts.length(); i++) counts.set(i, 0);
+    }
+
+    /**
+     * Returns the number of stripes: a power of two, at least twice the number of processors.
+     */
+    private static int stripeCount(){
+        int processors = Runtime.getRuntime().availableProcessors();
+        return Integer.highestOneBit(Math.min(64, Math.max(1, processors * 2 - 1))) << 1;
+    }
+}
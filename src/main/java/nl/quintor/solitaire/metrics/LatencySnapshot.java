@@ -0,0 +1,140 @@
+package nl.quintor.solitaire.metrics;
+
+import java.util.Locale;
+
+/**
+ * Immutable copy of a {@link LatencyHistogram}. Percentiles are estimated from the buckets: a percentile is reported as
+ * the upper bound of the bucket that contains it, so it is at most 25% too high. The count includes the operations
+ * that were not timed, see {@link Metrics#SAMPLING}; the mean and the percentiles are those of the timed operations.
+ * Exposed over JMX as composite data.
+ */
+public final class LatencySnapshot {
+    private final String name;
+    private final long[] buckets;
+    private final long totalNanos;
+    private final long sampledCount;
+    private final long count;
+
+    LatencySnapshot(String name, long[] buckets, long totalNanos, long notSampled){
+        this.name = name;
+        this.buckets = buckets;
+        this.totalNanos = totalNanos;
+        long sum = 0;
+        for (long bucket : buckets) sum += bucket;
+        this.sampledCount = sum;
+        this.count = sum + notSampled;
+    }
+
+    /**
+     * Getter for name.
+     *
+     * @return name of the histogram
+     */
+    public String getName(){
+        return name;
+    }
+
+    /**
+     * Getter for count.
+     *
+     * @return number of recorded operations, timed or not
+     */
+    public long getCount(){
+        return count;
+    }
+
+    /**
+     * Getter for sampledCount.
+     *
+     * @return number of recorded latencies, of the operations that were timed
+     */
+    public long getSampledCount(){
+        return sampledCount;
+    }
+
+    /**
+     * Getter for totalNanos.
+     *
+     * @return sum of the recorded latencies in nanoseconds, of the operations that were timed
+     */
+    public long getTotalNanos(){
+        return totalNanos;
+    }
+
+    /**
+     * Returns the counts of the buckets, see {@link LatencyHistogram#bucketOf(long)}.
+     *
+     * @return copy of the counts
+     */
+    public long[] getBuckets(){
+        return buckets.clone();
+    }
+
+    /**
+     * Returns the average latency.
+     *
+     * @return average latency in nanoseconds, or 0 if no latencies have been recorded
+     */
+    public long getMeanNanos(){
+        return sampledCount == 0 ? 0 : totalNanos / sampledCount;
+    }
+
+    /**
+     * Returns the median latency.
+     *
+     * @return estimated median in nanoseconds
+     */
+    public long getP50Nanos(){
+        return percentileNanos(50);
+    }
+
+    /**
+     * Returns the 99th percentile of the latencies.
+     *
+     * @return estimated 99th percentile in nanoseconds
+     */
+    public long getP99Nanos(){
+        return percentileNanos(99);
+    }
+
+    /**
+     * Returns the highest latency.
+     *
+     * @return upper bound of the highest non-empty bucket in nanoseconds, or 0 if no latencies have been recorded
+     */
+    public long getMaxNanos(){
+        return percentileNanos(100);
+    }
+
+    /**
+     * Returns a percentile of the latencies.
+     *
+     * @param percentile percentile between 0 and 100
+     * @return upper bound in nanoseconds of the bucket that contains the percentile, or 0 if no latencies have been
+     *         recorded
+     */
+    public long percentileNanos(double percentile){
+        if (sampledCount == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(sampledCount * percentile / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < buckets.length; bucket++) {
+            seen += buckets[bucket];
+            if (seen >= rank) {
+                return bucket + 1 < buckets.length ? LatencyHistogram.bucketLowerBound(bucket + 1) - 1 : Long.MAX_VALUE;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * String representation of this snapshot, for example
+     * "move.apply.MoveCard          1204 calls, mean 1.8 µs, p50 1.5 µs, p99 9.2 µs, max 40.9 µs".
+     *
+     * @return String representation of this snapshot
+     */
+    @Override
+    public String toString(){
+        return String.format(Locale.ROOT, "%-28s %8d calls, mean %.1f µs, p50 %.1f µs, p99 %.1f µs, max %.1f µs", name,
+            count, getMeanNanos() / 1e3, getP50Nanos() / 1e3, getP99Nanos() / 1e3, getMaxNanos() / 1e3);
+    }
+}
@@ -0,0 +1,242 @@
+package nl.quintor.solitaire.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Library class with the registry of the metrics of the application: a {@link LatencyHistogram} per timed operation
+ * and a counter per error. The class is not instantiable, all constructors are private and all methods are static.
+ *
+ * <p>Every operation is counted, but only a sample of the operations is timed, see {@link #SAMPLING}: reading the clock
+ * twice costs more than the rest of the bookkeeping together. An operation that is not timed costs a random number and
+ * an uncontended atomic increment; a timed operation costs two calls to {@link System#nanoTime()} and two increments.
+ * Call sites look up their histogram once and keep it, the lookup by name is not meant for the hot path:
+ *
+ * <pre>{@code
+ * private final static LatencyHistogram APPLY = Metrics.histogram("move.apply");
+ *
+ * long start = Metrics.start();
+ * try {
+ *     ...
+ * } finally {
+ *     APPLY.stop(start);
+ * }
+ * }</pre>
+ *
+ * Metrics are enabled unless the system property "solitaire.metrics" is "false". The system property
+ * "solitaire.metrics.sampling" sets {@link #SAMPLING}; 1 times every operation. The metrics are exposed through the
+ * {@link MetricsMXBean} after {@link #registerMBean()}, and printed when the application exits after
+ * {@link #dumpOnExit(PrintStream)}.
+ */
+public class Metrics {
+    private Metrics(){}
+
+    /**
+     * True unless the system property "solitaire.metrics" is "false". A constant, so the JIT compiler removes the
+     * timing code if metrics are disabled.
+     */
+    public final static boolean ENABLED = !"false".equals(System.getProperty("solitaire.metrics"));
+    /**
+     * One in this many operations is timed, on average; a power of two, 8 unless the system property
+     * "solitaire.metrics.sampling" is set. Operations are picked at random, so the timed operations are a fair sample.
+     */
+    public final static int SAMPLING = samplingInterval(Integer.getInteger("solitaire.metrics.sampling", 8));
+    /**
+     * Start time returned by {@link #start()} for an operation that is counted but not timed.
+     */
+    public final static long NOT_SAMPLED = Long.MIN_VALUE;
+    /**
+     * Name of the MBean, see {@link #registerMBean()}.
+     */
+    public final static String OBJECT_NAME = "nl.quintor.solitaire:type=Metrics";
+    private final static ConcurrentMap<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private final static ConcurrentMap<String, LongAdder> ERRORS = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the histogram with the provided name, creating it if it does not exist.
+     *
+     * @param name name of the histogram, for example "move.apply.MoveCard"
+     * @return histogram with the name
+     */
+    public static LatencyHistogram histogram(String name){
+        return HISTOGRAMS.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    /**
+     * Returns a new histogram that is not registered, for measurements that are reported by their owner instead of
+     * through the registry, such as the steps of a load test.
+     *
+     * @param name name of the histogram
+     * @return new histogram
+     */
+    public static LatencyHistogram newHistogram(String name){
+        return new LatencyHistogram(name);
+    }
+
+    /**
+     * Returns histograms per class, for operations that are timed per implementation, such as the moves. The histogram
+     * of a class is looked up by name once and then cached by the class.
+     *
+     * @param prefix prefix of the names of the histograms, followed by the simple name of the class
+     * @return histograms per class
+     */
+    public static ClassValue<LatencyHistogram> histogramPerClass(String prefix){
+        return new ClassValue<LatencyHistogram>() {
+            @Override
+            protected LatencyHistogram computeValue(Class<?> type){
+                return histogram(prefix + type.getSimpleName());
+            }
+        };
+    }
+
+    /**
+     * Returns the start time of an operation, to be passed to {@link LatencyHistogram#stop(long)}.
+     *
+     * @return current value of {@link System#nanoTime()} if the operation is timed, {@link #NOT_SAMPLED} if it is
+     *         only counted, or 0 if metrics are disabled
+     */
+    public static long start(){
+        if (!ENABLED) return 0;
+        if (SAMPLING > 1 && (ThreadLocalRandom.current().nextInt() & SAMPLING - 1) != 0) return NOT_SAMPLED;
+        return System.nanoTime();
+    }
+
+    /**
+     * Rounds the sampling interval down to a power of two, at least 1.
+     */
+    private static int samplingInterval(int interval){
+        return Integer.highestOneBit(Math.max(1, interval));
+    }
+
+    /**
+     * Counts an error, if metrics are enabled.
+     *
+     * @param name name of the error, for example "move.error.MoveCard.MoveException"
+     */
+    public static void countError(String name){
+        if (ENABLED) ERRORS.computeIfAbsent(name, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Returns snapshots of all histograms that recorded a latency.
+     *
+     * @return snapshots, ordered by name
+     */
+    public static List<LatencySnapshot> snapshots(){
+        List<LatencySnapshot> snapshots = new ArrayList<>();
+        for (LatencyHistogram histogram : HISTOGRAMS.values()) {
+            LatencySnapshot snapshot = histogram.snapshot();
+            if (snapshot.getCount() > 0) snapshots.add(snapshot);
+        }
+        snapshots.sort(Comparator.comparing(LatencySnapshot::getName));
+        return snapshots;
+    }
+
+    /**
+     * Returns the error counters that counted an error.
+     *
+     * @return number of errors per name, ordered by name
+     */
+    public static Map<String, Long> errors(){
+        Map<String, Long> errors = new TreeMap<>();
+        ERRORS.forEach((name, count) -> {
+            long sum = count.sum();
+            if (sum > 0) errors.put(name, sum);
+        });
+        return errors;
+    }
+
+    /**
+     * Sets all histograms and error counters to 0.
+     */
+    public static void reset(){
+        HISTOGRAMS.values().forEach(LatencyHistogram::reset);
+        ERRORS.values().forEach(LongAdder::reset);
+    }
+
+    /**
+     * Returns a summary of the metrics: one line per histogram, followed by one line per error counter.
+     *
+     * @return summary of the metrics
+     */
+    public static String summary(){
+        StringBuilder summary = new StringBuilder();
+        for (LatencySnapshot snapshot : snapshots()) summary.append(snapshot).append('\n');
+        errors().forEach((name, count) -> summary.append(String.format(Locale.ROOT, "%-28s %8d errors%n", name, count)));
+        return summary.toString();
+    }
+
+    /**
+     * Registers the {@link MetricsMXBean} with the platform MBean server, under {@link #OBJECT_NAME}. Does nothing if
+     * it has already been registered.
+     *
+     * @throws IllegalStateException if the MBean could not be registered
+     */
+    public static synchronized void registerMBean(){
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) server.registerMBean(new MetricsBean(), name);
+        } catch (JMException e) {
+            throw new IllegalStateException("The metrics MBean could not be registered", e);
+        }
+    }
+
+    /**
+     * Registers the {@link MetricsMXBean} like {@link #registerMBean()}, on a daemon thread. Starting the platform MBean
+     * server takes a few hundred milliseconds, which applications that start often, such as the command line game,
+     * should not spend before they show their first screen.
+     */
+    public static void registerMBeanInBackground(){
+        Thread thread = new Thread(Metrics::registerMBean, "metrics-mbean");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Prints the {@link #summary()} when the application exits.
+     *
+     * @param out stream to print the summary to
+     */
+    public static void dumpOnExit(PrintStream out){
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            out.print("Metrics:\n" + summary());
+            out.flush();
+        }, "metrics-dump"));
+    }
+
+    private static final class MetricsBean implements MetricsMXBean {
+        @Override
+        public List<LatencySnapshot> getHistograms(){
+            return snapshots();
+        }
+
+        @Override
+        public Map<String, Long> getErrors(){
+            return errors();
+        }
+
+        @Override
+        public String getSummary(){
+            return summary();
+        }
+
+        @Override
+        public void reset(){
+            Metrics.reset();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package nl.quintor.solitaire.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Management interface of the {@link Metrics}, registered as "nl.quintor.solitaire:type=Metrics". Can be viewed with
+ * any JMX client, such as JConsole or VisualVM.
+ */
+public interface MetricsMXBean {
+    /**
+     * Returns the latency histograms that recorded a latency.
+     *
+     * @return snapshots of the histograms, ordered by name
+     */
+    List<LatencySnapshot> getHistograms();
+
+    /**
+     * Returns the error counters.
+     *
+     * @return number of errors per name
+     */
+    Map<String, Long> getErrors();
+
+    /**
+     * Returns a summary of the metrics, one line per histogram or error counter.
+     *
+     * @return summary of the metrics
+     */
+    String getSummary();
+
+    /**
+     * Sets all metrics to 0.
+     */
+    void reset();
+}
@@ -0,0 +1,75 @@
+package nl.quintor.solitaire.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of a move that is applied or reverted. Like all events of the application it belongs to the
+ * "Solitaire" category and is switched on and off, or given a threshold, with the standard JFR settings, for example
+ * {@code -XX:StartFlightRecording=settings=profile} or a .jfc file with
+ * {@code <event name="nl.quintor.solitaire.Move"><setting name="enabled">true</setting></event>}.
+ *
+ * <p>The event is begun with {@link FlightEvents#beginMove()} before the move, and completed after it. The fields are
+ * only filled in if the event is going to be committed, so a disabled event costs next to nothing.
+ */
+@Name("nl.quintor.solitaire.Move")
+@Label("Move")
+@Category("Solitaire")
+@Description("A move applied or reverted by a player")
+@StackTrace(false)
+public final class MoveEvent extends Event {
+    @Label("Operation")
+    @Description("apply or revert")
+    private String operation;
+
+    @Label("Move Type")
+    private Class<?> moveType;
+
+    @Label("Input")
+    @Description("Player input of the move, for example M B1 A")
+    private String input;
+
+    @Label("Source")
+    @Description("Id of the source deck of a card move")
+    private String source;
+
+    @Label("Destination")
+    @Description("Id of the destination deck of a card move")
+    private String destination;
+
+    @Label("Result")
+    @Description("Message of the move, or the reason it was rejected")
+    private String result;
+
+    @Label("Rejected")
+    private boolean rejected;
+
+    /**
+     * Ends this event and commits it if it is enabled and exceeds its threshold.
+     *
+     * @param operation "apply" or "revert"
+     * @param moveType class of the move
+     * @param input player input of the move; the deck ids are taken from its second and third word
+     * @param result message of the move, or the reason it was rejected
+     * @param rejected true if the move was rejected
+     */
+    public void complete(String operation, Class<?> moveType, String input, String result, boolean rejected){
+        end();
+        if (!shouldCommit()) return;
+        this.operation = operation;
+        this.moveType = moveType;
+        this.input = input;
+        String[] words = input.split(" ");
+        if (words.length == 3) {
+            this.source = words[1];
+            this.destination = words[2];
+        }
+        this.result = result;
+        this.rejected = rejected;
+        commit();
+    }
+}
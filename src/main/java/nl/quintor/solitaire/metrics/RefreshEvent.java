@@ -0,0 +1,47 @@
+package nl.quintor.solitaire.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of a screen refresh of the {@link nl.quintor.solitaire.ui.cli.CommandLineUI}: encoding the
+ * frame and writing it to the terminal. See {@link MoveEvent} for the settings.
+ */
+@Name("nl.quintor.solitaire.Refresh")
+@Label("Refresh")
+@Category("Solitaire")
+@Description("A screen refresh of the command line UI")
+@StackTrace(false)
+public final class RefreshEvent extends Event {
+    @Label("Bytes Written")
+    @DataAmount
+    private long bytesWritten;
+
+    @Label("Incremental")
+    @Description("True if only the changes were written to an ANSI terminal")
+    private boolean incremental;
+
+    @Label("Requests Move")
+    private boolean requestsMove;
+
+    /**
+     * Ends this event and commits it if it is enabled and exceeds its threshold.
+     *
+     * @param bytesWritten number of bytes written to the terminal
+     * @param incremental true if only the changes were written
+     * @param requestsMove true if the refresh is followed by a move request
+     */
+    public void complete(long bytesWritten, boolean incremental, boolean requestsMove){
+        end();
+        if (!shouldCommit()) return;
+        this.bytesWritten = bytesWritten;
+        this.incremental = incremental;
+        this.requestsMove = requestsMove;
+        commit();
+    }
+}
@@ -0,0 +1,50 @@
+package nl.quintor.solitaire.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of one iteration of the game loop of {@link nl.quintor.solitaire.game.GameSession#run()}:
+ * showing the game, waiting for the player and playing the request. See {@link MoveEvent} for the settings.
+ */
+@Name("nl.quintor.solitaire.Turn")
+@Label("Turn")
+@Category("Solitaire")
+@Description("One iteration of the game loop, including the time the player takes")
+@StackTrace(false)
+public final class TurnEvent extends Event {
+    @Label("Input")
+    private String input;
+
+    @Label("Moves")
+    @Description("Number of moves of the game after this turn")
+    private int moves;
+
+    @Label("Score")
+    private long score;
+
+    @Label("Game Over")
+    private boolean gameOver;
+
+    /**
+     * Ends this event and commits it if it is enabled and exceeds its threshold.
+     *
+     * @param input player input of the turn
+     * @param moves number of moves of the game after the turn
+     * @param score score after the turn
+     * @param gameOver true if the turn ended the game
+     */
+    public void complete(String input, int moves, long score, boolean gameOver){
+        end();
+        if (!shouldCommit()) return;
+        this.input = input;
+        this.moves = moves;
+        this.score = score;
+        this.gameOver = gameOver;
+        commit();
+    }
+}
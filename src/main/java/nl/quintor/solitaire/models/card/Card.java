@@ -2,41 +2,92 @@ package nl.quintor.solitaire.models.card;
 
 /**<p>
  * Basic Card class. Each card has a {@link Suit} and a {@link Rank}, which are translated to an ordinal
- * value much like an {@link Enum}'s. The ordinal is final and unique, and forms the basis of the
- * {@link #hashCode()} and {@link #equals(Object)} methods. The ordinal also forms the basis for the natural
- * ordering of the Card instances. This order can be overridden in a {@link java.util.Collection} using a
- * {@link java.util.Comparator}{@literal <}{@link Card}{@literal >}.
+ * value much like an {@link Enum}'s. Games with more than one deck (a shoe) contain the same card more than once, so
+ * each card also has the index of the deck it belongs to. The deck index and the ordinal are packed into a unique id,
+ * see {@link #getId()}, which forms the basis of the {@link #hashCode()} and {@link #equals(Object)} methods. The
+ * ordinal, followed by the deck index, forms the basis for the natural ordering of the Card instances. This order can
+ * be overridden in a {@link java.util.Collection} using a {@link java.util.Comparator}{@literal <}{@link Card}{@literal >}.
+ * <p>
+ * The ordinal only describes the face of the card, so it can be used to look up anything that is the same for all
+ * decks, such as the rendering of the card.
  */
 public final class Card implements Comparable<Card> {
+    /**
+     * Number of decks that card ids can be made for; the deck index is 0 to MAX_DECKS - 1.
+     */
+    public final static int MAX_DECKS = 512;
+    private final static int ORDINAL_BITS = 6;
+    private final static Card[] SHARED = new Card[4 << ORDINAL_BITS];
     private final Suit suit;
     private final Rank rank;
     private final int ordinal;
+    private final int deckIndex;
+    private final short id;
     private String description;
     private String shortDescription;
 
+    static {
+        for (int deckIndex = 0; deckIndex < 4; deckIndex++) {
+            for (int ordinal = 0; ordinal < 54; ordinal++) {
+                Card card = new Card(deckIndex, ordinal);
+                SHARED[card.getId()] = card;
+            }
+        }
+    }
+
     /**
      * Create a new Card object with the provided {@link Suit} and {@link Rank}. The Card's ordinal value is
-     * calculated from the Suit and Rank.
+     * calculated from the Suit and Rank. The card belongs to the first deck.
      *
      * @param suit the {@link Suit} of the new card
      * @param rank the {@link Rank} of the new card
      */
     public Card(Suit suit, Rank rank) {
+        this(0, suit, rank);
+    }
+
+    /**
+     * Create a new Card object with the provided {@link Suit} and {@link Rank}, that belongs to the deck with the
+     * provided index.
+     *
+     * @param deckIndex 0 to {@link #MAX_DECKS} - 1, index of the deck of the new card
+     * @param suit the {@link Suit} of the new card
+     * @param rank the {@link Rank} of the new card
+     */
+    public Card(int deckIndex, Suit suit, Rank rank) {
+        checkDeckIndex(deckIndex);
         this.suit = suit;
         this.rank = rank;
-        this.ordinal = suit.ordinal() * 13 + rank.ordinal();
+        // the Joker ranks follow the thirteen ranks of the other suits
+        this.ordinal = suit.ordinal() * 13 + rank.ordinal() % 13;
+        this.deckIndex = deckIndex;
+        this.id = (short) (deckIndex << ORDINAL_BITS | ordinal);
         this.setDescriptions();
     }
 
     /**
      * Create a new Card object with the provided ordinal. The Card's {@link Suit} and {@link Rank} are calculated
-     * from the ordinal.
+     * from the ordinal. The card belongs to the first deck.
      *
      * @param ordinal 0-53 value corresponding to a single Card object
      */
     public Card(int ordinal) {
+        this(0, ordinal);
+    }
+
+    /**
+     * Create a new Card object with the provided ordinal, that belongs to the deck with the provided index. The
+     * Card's {@link Suit} and {@link Rank} are calculated from the ordinal.
+     *
+     * @param deckIndex 0 to {@link #MAX_DECKS} - 1, index of the deck of the new card
+     * @param ordinal 0-53 value corresponding to a single Card object of a deck
+     */
+    public Card(int deckIndex, int ordinal) {
         if (ordinal < 0 || ordinal > 53) throw new IllegalArgumentException("0 <= ordinal <= 53");
+        checkDeckIndex(deckIndex);
         this.ordinal = ordinal;
+        this.deckIndex = deckIndex;
+        this.id = (short) (deckIndex << ORDINAL_BITS | ordinal);
         this.suit = Suit.values()[ordinal / 13];
         if (this.suit != Suit.JOKER) this.rank = Rank.values()[ordinal % 13];
         else this.rank = Rank.values()[ordinal % 13 + 13];
@@ -70,16 +121,53 @@ public final class Card implements Comparable<Card> {
         return ordinal;
     }
 
+    /**
+     * Deck index getter
+     *
+     * @return index of the deck this card belongs to, 0 for the first deck
+     */
+    public int getDeckIndex() {
+        return deckIndex;
+    }
+
+    /**
+     * Returns the unique id of the card: the deck index shifted left by six bits, or'ed with the ordinal. The cards of
+     * the first deck have their ordinal as id, and the ids of the first four decks fit in an unsigned byte.
+     *
+     * @return id of the card
+     */
+    public short getId() {
+        return id;
+    }
+
+    /**
+     * Returns the card with the provided id, see {@link #getId()}. The cards of the first four decks, whose ids fit in
+     * an unsigned byte, are shared instances, so looking them up doesn't allocate; the cards of other decks are created.
+     *
+     * @param id id of the card
+     * @return the card with the id
+     * @throws IllegalArgumentException if the id is not the id of a card
+     */
+    public static Card of(int id) {
+        if (id >= 0 && id < SHARED.length && SHARED[id] != null) return SHARED[id];
+        return new Card(id >>> ORDINAL_BITS, id & (1 << ORDINAL_BITS) - 1);
+    }
+
+    private static void checkDeckIndex(int deckIndex) {
+        if (deckIndex < 0 || deckIndex >= MAX_DECKS) throw new IllegalArgumentException("0 <= deckIndex < " + MAX_DECKS);
+    }
+
     private void setDescriptions() {
         this.description = suit + " " + rank;
         this.shortDescription = suit.getSymbol() + " " + rank.getSymbol();
     }
 
     /**
-     * Compares this Card to another Card, provided to the method, by ordinal.
+     * Compares this Card to another Card, provided to the method, by ordinal and then by deck index.
      * If this Card has a lower ordinal than the argument Card, compareTo() returns a negative integer.
      * If this Card has a higher ordinal than the argument Card, compareTo() returns a positive integer.
-     * If the Cards' ordinals are equal, compareTo() returns 0.
+     * If the Cards' ordinals are equal, the deck indexes are compared the same way; if both are equal, compareTo()
+     * returns 0.
      *
      * @param that the Card object that this Card is compared with
      * @return positive int if this Card follows that Card, negative int if this Card precedes that Card, 0 if they
@@ -87,28 +175,30 @@ public final class Card implements Comparable<Card> {
      */
     @Override
     public int compareTo(Card that) {
-        return this.ordinal - that.ordinal;
+        if (this.ordinal != that.ordinal) return this.ordinal - that.ordinal;
+        return this.deckIndex - that.deckIndex;
     }
 
     /**
-     * Returns true if the method argument o is a Card and has the same ordinal value as this Card.
+     * Returns true if the method argument o is a Card and has the same id as this Card: the same ordinal value and
+     * the same deck index.
      *
      * @param o object to be compared to this card
      * @return true if equal, false if unequal
      */
     @Override
     public boolean equals(Object o) {
-        return o instanceof Card && ((Card) o).ordinal == this.ordinal;
+        return o instanceof Card && ((Card) o).id == this.id;
     }
 
     /**
-     * Returns the Card's hashCode (the unique ordinal is used as a hash).
+     * Returns the Card's hashCode (the unique id is used as a hash).
      *
-     * @return Card hash (ordinal)
+     * @return Card hash (id)
      */
     @Override
     public int hashCode() {
-        return ordinal;
+        return id;
     }
 
     /**
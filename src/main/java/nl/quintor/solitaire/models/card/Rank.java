@@ -1,5 +1,7 @@
 package nl.quintor.solitaire.models.card;
 
+import nl.quintor.solitaire.Platform;
+
 /**
  * Enum of card ranks, from 2 to Ace plus black and red Jokers. The ordering of the enum values
  * should NOT be changed.
@@ -28,7 +30,7 @@ public enum Rank{
     private final String symbol;
 
     Rank(String competentSymbol, String windowsSymbol){
-        this.symbol = System.getProperty("os.name").contains("Windows") ? windowsSymbol : competentSymbol;
+        this.symbol = Platform.symbol(competentSymbol, windowsSymbol);
     }
 
     /**
@@ -1,5 +1,7 @@
 package nl.quintor.solitaire.models.card;
 
+import nl.quintor.solitaire.Platform;
+
 /**
  * Enum of card suits, ordered according to Bridge rules plus Jokers. The ordering of the enum values
  * should NOT be changed.
@@ -18,7 +20,7 @@ public enum Suit {
     private final String symbol;
 
     Suit(String competentSymbol, String windowsSymbol){
-        this.symbol = System.getProperty("os.name").contains("Windows") ? windowsSymbol : competentSymbol;
+        this.symbol = Platform.symbol(competentSymbol, windowsSymbol);
     }
 
     /**
@@ -16,10 +16,14 @@ import java.util.stream.IntStream;
  * It is recommended that an appropriate Deck object is instantiated for a game using an appropriate factory
  * method (create[..]Deck()). This deck can then be shuffled and dealt out to other (empty) decks representing, for
  * example, the hand of a player.
+ * <p>
+ * Every Deck has a modification stamp, see {@link #getModificationStamp()}, which allows views of a Deck (such as a
+ * rendered column) to be cached until the Deck changes.
  */
 public final class Deck extends ArrayList<Card> {
     private int invisibleCards = 0;
     private DeckType deckType;
+    private long nonStructuralModifications = 0;
 
     /**
      * Constructs an empty Deck with an initial capacity of ten.
@@ -74,6 +78,23 @@ public final class Deck extends ArrayList<Card> {
         return IntStream.range(0, 54).mapToObj(Card::new).collect(Collectors.toCollection(Deck::new));
     }
 
+    /**
+     * Factory method for a shoe of the provided number of standard decks without Jokers, for games that are played
+     * with more than one deck. The cards of the n-th deck have deck index n - 1, see {@link Card#getDeckIndex()}, so
+     * cards with the same face are different cards.
+     *
+     * @param decks number of decks in the shoe, 1 to {@link Card#MAX_DECKS}
+     * @return a shoe of 52 * decks cards, ordered by deck
+     */
+    public static Deck createShoe(int decks){
+        if (decks < 1 || decks > Card.MAX_DECKS) throw new IllegalArgumentException("1 <= decks <= " + Card.MAX_DECKS);
+        Deck shoe = new Deck(52 * decks);
+        for (int deckIndex = 0; deckIndex < decks; deckIndex++) {
+            for (int ordinal = 0; ordinal < 52; ordinal++) shoe.add(new Card(deckIndex, ordinal));
+        }
+        return shoe;
+    }
+
     /**
      * Factory method for a piquet deck of cards (a 32-card deck without Jokers or 2-6 cards).
      *
@@ -120,6 +141,33 @@ public final class Deck extends ArrayList<Card> {
      */
     public void setInvisibleCards(int invisibleCards) {
         this.invisibleCards = invisibleCards;
+        nonStructuralModifications++;
+    }
+
+    /**
+     * Returns a stamp that changes whenever this Deck changes: when cards are added, removed, replaced or reordered, or
+     * when the number of invisible cards is set. If two calls return the same stamp, the Deck has not changed in
+     * between. The stamp is cheap to obtain; it combines {@link #modCount}, which {@link ArrayList} increments on every
+     * structural modification, with a counter for the modifications that ArrayList does not count.
+     *
+     * @return modification stamp of this deck
+     */
+    public long getModificationStamp() {
+        return modCount + nonStructuralModifications;
+    }
+
+    /**
+     * Replaces the card at the specified position, see {@link ArrayList#set(int, Object)}. Overridden to update the
+     * {@link #getModificationStamp() modification stamp}, also when the deck is shuffled.
+     *
+     * @param index index of the card to replace
+     * @param card card to be stored at the specified position
+     * @return the card previously at the specified position
+     */
+    @Override
+    public Card set(int index, Card card) {
+        nonStructuralModifications++;
+        return super.set(index, card);
     }
 
     /**
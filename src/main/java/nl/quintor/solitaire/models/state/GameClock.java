@@ -0,0 +1,24 @@
+package nl.quintor.solitaire.models.state;
+
+/**
+ * Source of monotonic time for a {@link GameState}, used to determine the playing time and thereby the time score.
+ * The ticks are nanoseconds from an arbitrary origin, like {@link System#nanoTime()}; only differences between ticks
+ * are meaningful. Reading the clock does not create any objects.
+ *
+ * <p>Games played by a person use {@link #SYSTEM}. Simulations and tests use a {@link VirtualClock}, so time scoring
+ * is deterministic and does not depend on how fast the games are played.
+ */
+@FunctionalInterface
+public interface GameClock {
+    /**
+     * Clock backed by {@link System#nanoTime()}.
+     */
+    GameClock SYSTEM = System::nanoTime;
+
+    /**
+     * Returns the current tick of this clock.
+     *
+     * @return current time in nanoseconds from an arbitrary origin
+     */
+    long nanoTime();
+}
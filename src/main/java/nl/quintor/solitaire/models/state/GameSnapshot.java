@@ -0,0 +1,221 @@
+package nl.quintor.solitaire.models.state;
+
+import nl.quintor.solitaire.models.card.Card;
+import nl.quintor.solitaire.models.deck.Deck;
+import nl.quintor.solitaire.models.deck.DeckType;
+
+import java.util.Map;
+
+/**
+ * Immutable, compact copy of the visible part of a {@link GameState}, for spectators that watch a game from other
+ * threads. A snapshot is taken by the thread that plays the game, after a move has been completely applied, so it is
+ * always consistent; it can be read by any number of threads without synchronization.
+ *
+ * <p>All cards are stored in one byte array, by ordinal, so the cards of a game of more than one deck that have the
+ * same face can't be told apart in a snapshot; spectators only see the faces. Face-down cards are not part of the
+ * snapshot, only their number. Decks are numbered: 0 for the stock, 1 for the waste, then the stack piles and the
+ * columns, in the order of {@link GameState#getStackPiles()} and {@link GameState#getColumns()}.
+ */
+public final class GameSnapshot {
+    private final static byte FACE_DOWN = -1;
+    private final long sequence;
+    private final int moves;
+    private final long score;
+    private final int stockCycles;
+    private final long playingSeconds;
+    private final boolean gameWon;
+    private final boolean gameLost;
+    private final String[] headers;
+    private final DeckType[] deckTypes;
+    private final int[] deckOffsets;
+    private final byte[] cards;
+
+    private GameSnapshot(GameState gameState, long sequence){
+        this.sequence = sequence;
+        this.moves = gameState.getMoves().size();
+        this.score = gameState.getScore();
+        this.stockCycles = gameState.getStockCycles();
+        this.playingSeconds = gameState.getPlayingSeconds();
+        this.gameWon = gameState.isGameWon();
+        this.gameLost = gameState.isGameLost();
+
+        int deckCount = 2 + gameState.getStackPiles().size() + gameState.getColumns().size();
+        headers = new String[deckCount];
+        deckTypes = new DeckType[deckCount];
+        deckOffsets = new int[deckCount + 1];
+        int cardCount = gameState.getStock().size() + gameState.getWaste().size();
+        for (Deck deck : gameState.getStackPiles().values()) cardCount += deck.size();
+        for (Deck deck : gameState.getColumns().values()) cardCount += deck.size();
+        cards = new byte[cardCount];
+
+        int index = copy(0, "O", gameState.getStock());
+        index = copy(index, "", gameState.getWaste());
+        for (Map.Entry<String, Deck> entry : gameState.getStackPiles().entrySet()) index = copy(index, entry.getKey(), entry.getValue());
+        for (Map.Entry<String, Deck> entry : gameState.getColumns().entrySet()) index = copy(index, entry.getKey(), entry.getValue());
+    }
+
+    /**
+     * Takes a snapshot of the provided game. Must be called by the thread that plays the game.
+     *
+     * @param gameState game to take a snapshot of
+     * @param sequence number that identifies the snapshot, increasing with every snapshot of the same game
+     * @return snapshot of the game
+     */
+    public static GameSnapshot of(GameState gameState, long sequence){
+        return new GameSnapshot(gameState, sequence);
+    }
+
+    /**
+     * Copies the deck into the cards array and returns the index of the next deck.
+     */
+    private int copy(int deckIndex, String header, Deck deck){
+        headers[deckIndex] = header;
+        deckTypes[deckIndex] = deck.getDeckType();
+        int offset = deckOffsets[deckIndex];
+        int faceDown = deck.getDeckType() == DeckType.WASTE ? deck.size() : Math.min(deck.getInvisibleCards(), deck.size());
+        for (int i = 0; i < deck.size(); i++) cards[offset + i] = i < faceDown ? FACE_DOWN : (byte) deck.get(i).getOrdinal();
+        deckOffsets[deckIndex + 1] = offset + deck.size();
+        return deckIndex + 1;
+    }
+
+    /**
+     * Getter for sequence.
+     *
+     * @return number that identifies this snapshot, increasing with every snapshot of the same game
+     */
+    public long getSequence(){
+        return sequence;
+    }
+
+    /**
+     * Getter for moves.
+     *
+     * @return number of moves played when this snapshot was taken
+     */
+    public int getMoves(){
+        return moves;
+    }
+
+    /**
+     * Getter for score.
+     *
+     * @return total score, see {@link GameState#getScore()}
+     */
+    public long getScore(){
+        return score;
+    }
+
+    /**
+     * Getter for stockCycles.
+     *
+     * @return number of times all stock cards have been cycled through
+     */
+    public int getStockCycles(){
+        return stockCycles;
+    }
+
+    /**
+     * Getter for playingSeconds.
+     *
+     * @return playing time in seconds when this snapshot was taken
+     */
+    public long getPlayingSeconds(){
+        return playingSeconds;
+    }
+
+    /**
+     * Getter for gameWon.
+     *
+     * @return true if the game has been won
+     */
+    public boolean isGameWon(){
+        return gameWon;
+    }
+
+    /**
+     * Getter for gameLost.
+     *
+     * @return true if the game has been lost
+     */
+    public boolean isGameLost(){
+        return gameLost;
+    }
+
+    /**
+     * Returns the number of decks.
+     *
+     * @return number of decks, including the stock and the waste
+     */
+    public int getDeckCount(){
+        return headers.length;
+    }
+
+    /**
+     * Returns the header of a deck, as used in player input, for example "SA" or "C". The waste has no header.
+     *
+     * @param deckIndex number of the deck
+     * @return header of the deck, empty for the waste
+     */
+    public String getDeckHeader(int deckIndex){
+        return headers[deckIndex];
+    }
+
+    /**
+     * Returns the type of a deck.
+     *
+     * @param deckIndex number of the deck
+     * @return type of the deck
+     */
+    public DeckType getDeckType(int deckIndex){
+        return deckTypes[deckIndex];
+    }
+
+    /**
+     * Returns the number of cards of a deck, including the face-down cards.
+     *
+     * @param deckIndex number of the deck
+     * @return number of cards
+     */
+    public int getDeckSize(int deckIndex){
+        return deckOffsets[deckIndex + 1] - deckOffsets[deckIndex];
+    }
+
+    /**
+     * Returns the number of face-down cards of a deck. The face-down cards are the first cards of the deck.
+     *
+     * @param deckIndex number of the deck
+     * @return number of face-down cards
+     */
+    public int getFaceDownCards(int deckIndex){
+        int faceDown = 0;
+        for (int i = deckOffsets[deckIndex]; i < deckOffsets[deckIndex + 1] && cards[i] == FACE_DOWN; i++) faceDown++;
+        return faceDown;
+    }
+
+    /**
+     * Returns a card of a deck.
+     *
+     * @param deckIndex number of the deck
+     * @param cardIndex index of the card in the deck
+     * @return the card, or null if it is face-down
+     */
+    public Card getCard(int deckIndex, int cardIndex){
+        if (cardIndex < 0 || cardIndex >= getDeckSize(deckIndex)) throw new IndexOutOfBoundsException("Card index: " + cardIndex);
+        byte ordinal = cards[deckOffsets[deckIndex] + cardIndex];
+        return ordinal == FACE_DOWN ? null : Card.of(ordinal);
+    }
+
+    @Override
+    public String toString(){
+        StringBuilder result = new StringBuilder("Snapshot ").append(sequence).append(": ");
+        for (int deck = 0; deck < headers.length; deck++) {
+            result.append(headers[deck]).append('[');
+            for (int card = 0; card < getDeckSize(deck); card++) {
+                Card value = getCard(deck, card);
+                result.append(card > 0 ? ", " : "").append(value == null ? "?" : value.toShortString());
+            }
+            result.append("] ");
+        }
+        return result.append("score ").append(score).append(", moves ").append(moves).toString();
+    }
+}
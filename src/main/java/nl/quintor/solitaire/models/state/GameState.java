@@ -7,6 +7,7 @@ import nl.quintor.solitaire.models.deck.DeckType;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -19,21 +20,64 @@ import java.util.Map;
  * the base game are implemented.
  *
  * <p>Almost all methods are basic getters and setters, except for {@link #remember(RevertibleMove)},
- * {@link #forget(RevertibleMove)}, {@link #isGameOver()} and {@link #getScore()}.
+ * {@link #forget(RevertibleMove)}, {@link #isGameOver()}, {@link #getScore()}, the card counters
+ * {@link #getFaceDownCards()}, {@link #getStockCards()} and {@link #getFoundationCards()}, and the positions remembered
+ * by the loss detection, see {@link #rememberProductivePosition(long)}.
+ *
+ * <p>The playing time is measured with a {@link GameClock}, which defaults to {@link GameClock#SYSTEM}. The start and
+ * end time are kept as clock ticks; the {@link LocalDateTime} getters and setters convert from and to wall-clock time
+ * and are not used while playing. The clock stops when the game is over.
+ *
+ * <p>Changes can be observed by registering a {@link GameStateListener}. Score and game over events are sent by the
+ * setters of this class, the moves report the changes they make to the decks through the notify methods, which also
+ * keep the card counters up to date, see {@link #getFaceDownCards()}.
  */
 public final class GameState {
+    private final static int PRODUCTIVE_POSITIONS = 16;
     private final Deck waste = new Deck(DeckType.WASTE);
     private final Deck stock = new Deck(DeckType.STOCK);
     private final Map<String, Deck> stackPiles = new LinkedHashMap<>(); // entries of header and deck
     private final Map<String, Deck> columns = new LinkedHashMap<>(); // entries of header and deck
     private final List<RevertibleMove> moves = new ArrayList<>();
+    private long dealId = 0;
+    private Position deal;
     private int stockCycles = 0;
     private long baseScore = 0;
     private long timeScore = 0;
-    private LocalDateTime startTime = LocalDateTime.now();
+    private final GameClock clock;
+    private long startTicks;
+    private long endTicks;
+    private boolean clockStopped = false;
+    private LocalDateTime startTime;
     private LocalDateTime endTime;
     private boolean gameLost = false;
     private boolean gameWon = false;
+    private GameStateListener[] listeners = new GameStateListener[0];
+    private long cycleFingerprint = 0;
+    private int fingerprintCycle = 0;
+    private long[] productivePositions; // ring of position fingerprints, created when first needed
+    private int nextProductivePosition = 0;
+    private boolean counted = false;
+    private int faceDownCards;
+    private int stockCards;
+    private int foundationCards;
+
+    /**
+     * Constructs an empty GameState that measures the playing time with the system clock. The clock starts now.
+     */
+    public GameState() {
+        this(GameClock.SYSTEM);
+    }
+
+    /**
+     * Constructs an empty GameState that measures the playing time with the provided clock. The clock starts now.
+     *
+     * @param clock clock used for the playing time
+     */
+    public GameState(GameClock clock) {
+        this.clock = clock;
+        this.startTicks = clock.nanoTime();
+    }
 
     /**
      * Getter for waste deck.
@@ -80,6 +124,44 @@ public final class GameState {
         return moves;
     }
 
+    /**
+     * Getter for dealId.
+     *
+     * @return number that identifies the deal of this game, see
+     * {@link nl.quintor.solitaire.game.GameStateController#init(GameClock, long)}
+     */
+    public long getDealId() {
+        return dealId;
+    }
+
+    /**
+     * Setter for dealId.
+     *
+     * @param dealId number that identifies the deal of this game
+     */
+    public void setDealId(long dealId) {
+        this.dealId = dealId;
+    }
+
+    /**
+     * Getter for deal.
+     *
+     * @return position of the game before its first move, or null if it is not known
+     */
+    public Position getDeal() {
+        return deal;
+    }
+
+    /**
+     * Setter for deal. Games dealt by {@link nl.quintor.solitaire.game.GameStateController#init(GameClock, long, int)}
+     * record their deal; code that sets up the decks of a game itself records it when the decks are ready.
+     *
+     * @param deal position of the game before its first move, or null if it is not known
+     */
+    public void setDeal(Position deal) {
+        this.deal = deal;
+    }
+
     /**
      * Getter for stockCycles.
      *
@@ -113,7 +195,9 @@ public final class GameState {
      * @param baseScore base score
      */
     public void setBaseScore(long baseScore) {
+        long previousScore = getScore();
         this.baseScore = baseScore;
+        notifyScoreChanged(previousScore);
     }
 
     /**
@@ -131,25 +215,40 @@ public final class GameState {
      * @param timeScore time score
      */
     public void setTimeScore(long timeScore) {
+        long previousScore = getScore();
         this.timeScore = timeScore;
+        notifyScoreChanged(previousScore);
+    }
+
+    /**
+     * Getter for clock.
+     *
+     * @return clock used for the playing time
+     */
+    public GameClock getClock() {
+        return clock;
     }
 
     /**
-     * Getter for startTime.
+     * Getter for startTime. Unless it was set explicitly, the start time is derived from the clock when it is first
+     * requested: the current wall-clock time minus the playing time.
      *
      * @return start time
      */
     public LocalDateTime getStartTime() {
+        if (startTime == null) startTime = LocalDateTime.now().minusNanos(clock.nanoTime() - startTicks);
         return startTime;
     }
 
     /**
-     * Setter for startTime.
+     * Setter for startTime. The start tick of the clock is moved accordingly, as is the end tick if an end time was set.
      *
      * @param startTime start time
      */
     public void setStartTime(LocalDateTime startTime) {
         this.startTime = startTime;
+        this.startTicks = clock.nanoTime() - Duration.between(startTime, LocalDateTime.now()).toNanos();
+        if (endTime != null) this.endTicks = startTicks + Duration.between(startTime, endTime).toNanos();
     }
 
     /**
@@ -167,7 +266,12 @@ public final class GameState {
      * @param gameLost true if the game has been lost
      */
     public void setGameLost(boolean gameLost) {
+        boolean wasGameOver = isGameOver();
         this.gameLost = gameLost;
+        if (!wasGameOver && gameLost) {
+            stopClock();
+            for (GameStateListener listener : listeners) listener.gameOver(false);
+        }
     }
 
     /**
@@ -185,7 +289,12 @@ public final class GameState {
      * @param gameWon true if the game has been won
      */
     public void setGameWon(boolean gameWon) {
+        boolean wasGameOver = isGameOver();
         this.gameWon = gameWon;
+        if (!wasGameOver && gameWon) {
+            stopClock();
+            for (GameStateListener listener : listeners) listener.gameOver(true);
+        }
     }
 
     /**
@@ -206,6 +315,115 @@ public final class GameState {
         return baseScore + timeScore > 0 ? baseScore + timeScore : 0;
     }
 
+    /**
+     * Getter for cycleFingerprint, the position fingerprint recorded when the stock was last turned over.
+     *
+     * @return position fingerprint, or 0 if none has been recorded
+     */
+    public long getCycleFingerprint() {
+        return cycleFingerprint;
+    }
+
+    /**
+     * Setter for cycleFingerprint.
+     *
+     * @param cycleFingerprint position fingerprint, or 0 if none has been recorded
+     */
+    public void setCycleFingerprint(long cycleFingerprint) {
+        this.cycleFingerprint = cycleFingerprint;
+    }
+
+    /**
+     * Getter for fingerprintCycle, the stock cycle in which the {@link #getCycleFingerprint() cycle fingerprint} was
+     * recorded.
+     *
+     * @return stock cycle of the fingerprint
+     */
+    public int getFingerprintCycle() {
+        return fingerprintCycle;
+    }
+
+    /**
+     * Setter for fingerprintCycle.
+     *
+     * @param fingerprintCycle stock cycle of the fingerprint
+     */
+    public void setFingerprintCycle(int fingerprintCycle) {
+        this.fingerprintCycle = fingerprintCycle;
+    }
+
+    /**
+     * Returns true if the provided position fingerprint has been remembered with
+     * {@link #rememberProductivePosition(long)}, so the loss detection doesn't have to search the position again.
+     *
+     * @param fingerprint position fingerprint, not 0
+     * @return true if a face-down card can be turned up in the position
+     */
+    public boolean isProductivePosition(long fingerprint) {
+        if (productivePositions == null) return false;
+        for (long productivePosition : productivePositions) {
+            if (productivePosition == fingerprint) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Remembers the fingerprint of a position in which a face-down card can still be turned up, as found by the loss
+     * detection of {@link nl.quintor.solitaire.game.GameStateController#detectGameLoss(GameState)}. Only the last
+     * sixteen positions are remembered, which covers a player who moves cards back and forth.
+     *
+     * @param fingerprint position fingerprint, not 0
+     */
+    public void rememberProductivePosition(long fingerprint) {
+        if (productivePositions == null) productivePositions = new long[PRODUCTIVE_POSITIONS];
+        productivePositions[nextProductivePosition] = fingerprint;
+        nextProductivePosition = (nextProductivePosition + 1) % PRODUCTIVE_POSITIONS;
+    }
+
+    /**
+     * Counter getter. Returns the number of face-down column cards.
+     *
+     * @return number of invisible cards in the columns
+     */
+    public int getFaceDownCards() {
+        if (!counted) recountCards();
+        return faceDownCards;
+    }
+
+    /**
+     * Counter getter. Returns the number of cards in the stock and the waste together.
+     *
+     * @return number of stock and waste cards
+     */
+    public int getStockCards() {
+        if (!counted) recountCards();
+        return stockCards;
+    }
+
+    /**
+     * Counter getter. Returns the number of cards on the stack piles.
+     *
+     * @return number of stack pile cards
+     */
+    public int getFoundationCards() {
+        if (!counted) recountCards();
+        return foundationCards;
+    }
+
+    /**
+     * Counts the cards of the card counters again. The counters are counted when they are first read, and from then on
+     * kept up to date by the notify methods, which the moves call for every change they make. Code that changes the
+     * decks directly instead of through a move, after the counters have been read, calls this method afterwards.
+     */
+    public void recountCards() {
+        stockCards = stock.size() + waste.size();
+        foundationCards = 0;
+        for (Deck stackPile : stackPiles.values()) foundationCards += stackPile.size();
+        faceDownCards = 0;
+        for (Deck column : columns.values()) faceDownCards += Math.min(column.getInvisibleCards(), column.size());
+        counted = true;
+    }
+
     /**
      * Stores the provided {@link RevertibleMove} in the moves list.
      *
@@ -224,12 +442,139 @@ public final class GameState {
         moves.remove(move);
     }
 
+    /**
+     * Registers a listener that is notified of all following changes to this GameState. Registering is relatively
+     * expensive (the listener array is copied), notifying is cheap.
+     *
+     * @param listener listener to add
+     */
+    public void addListener(GameStateListener listener){
+        GameStateListener[] newListeners = Arrays.copyOf(listeners, listeners.length + 1);
+        newListeners[listeners.length] = listener;
+        listeners = newListeners;
+    }
+
+    /**
+     * Removes a listener that was registered with {@link #addListener(GameStateListener)}.
+     *
+     * @param listener listener to remove
+     */
+    public void removeListener(GameStateListener listener){
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                GameStateListener[] newListeners = new GameStateListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, newListeners, 0, i);
+                System.arraycopy(listeners, i + 1, newListeners, i, listeners.length - i - 1);
+                listeners = newListeners;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Notifies the listeners that cards have been moved, see {@link GameStateListener#cardsMoved(String, String, int)}.
+     *
+     * @param sourceDeckId id of the deck the cards were taken from
+     * @param destinationDeckId id of the deck the cards were added to
+     * @param cardCount number of cards moved
+     */
+    public void notifyCardsMoved(String sourceDeckId, String destinationDeckId, int cardCount){
+        if (counted) {
+            if ("O".equals(sourceDeckId)) stockCards -= cardCount;
+            else if (stackPiles.containsKey(sourceDeckId)) foundationCards -= cardCount;
+            if ("O".equals(destinationDeckId)) stockCards += cardCount;
+            else if (stackPiles.containsKey(destinationDeckId)) foundationCards += cardCount;
+        }
+        for (GameStateListener listener : listeners) listener.cardsMoved(sourceDeckId, destinationDeckId, cardCount);
+    }
+
+    /**
+     * Notifies the listeners that a card has been turned, see {@link GameStateListener#cardFlipped(String, int, boolean)}.
+     *
+     * @param deckId id of the column
+     * @param index index of the card in the column
+     * @param faceUp true if the card is now face up
+     */
+    public void notifyCardFlipped(String deckId, int index, boolean faceUp){
+        if (counted) faceDownCards += faceUp ? -1 : 1;
+        for (GameStateListener listener : listeners) listener.cardFlipped(deckId, index, faceUp);
+    }
+
+    /**
+     * Notifies the listeners that the stock has been cycled, see {@link GameStateListener#stockCycled(int, int, int)}.
+     */
+    public void notifyStockCycled(){
+        for (GameStateListener listener : listeners) listener.stockCycled(stock.size(), waste.size(), stockCycles);
+    }
+
+    private void notifyScoreChanged(long previousScore){
+        long score = getScore();
+        if (score == previousScore) return;
+        for (GameStateListener listener : listeners) listener.scoreChanged(previousScore, score);
+    }
+
+    /**
+     * Getter for endTime. Unless it was set explicitly, the end time is derived from the start time and the playing
+     * time when it is first requested.
+     *
+     * @return end time, or null if the clock has not been stopped
+     */
     public LocalDateTime getEndTime() {
+        if (endTime == null && clockStopped) endTime = getStartTime().plusNanos(endTicks - startTicks);
         return endTime;
     }
 
+    /**
+     * Setter for endTime. Stops the clock at the provided time, or restarts it if the end time is null.
+     *
+     * @param endTime end time or null
+     */
     public void setEndTime(LocalDateTime endTime) {
         this.endTime = endTime;
+        this.clockStopped = endTime != null;
+        if (clockStopped) this.endTicks = startTicks + Duration.between(getStartTime(), endTime).toNanos();
+    }
+
+    /**
+     * Returns the number of nanoseconds between the start and the end of the game, or between the start of the game and
+     * now according to the clock if the game has not ended.
+     *
+     * @return playing time in nanoseconds
+     */
+    public long getPlayingNanos(){
+        return (clockStopped ? endTicks : clock.nanoTime()) - startTicks;
+    }
+
+    /**
+     * Restores the playing time, for example of a game that has been saved: moves the start of the clock so that the
+     * playing time is the provided number of nanoseconds. A stopped clock stays stopped. The start and end times are
+     * derived from the clock again.
+     *
+     * @param playingNanos playing time in nanoseconds
+     */
+    public void setPlayingNanos(long playingNanos){
+        startTicks = (clockStopped ? endTicks : clock.nanoTime()) - playingNanos;
+        startTime = null;
+        endTime = null;
+    }
+
+    /**
+     * Returns the number of whole seconds between the start and the end of the game, or between the start of the game
+     * and now according to the clock if the game has not ended.
+     *
+     * @return playing time in seconds
+     */
+    public long getPlayingSeconds(){
+        return Math.floorDiv(getPlayingNanos(), 1_000_000_000L);
+    }
+
+    /**
+     * Stops the clock at the current tick, unless it has been stopped already.
+     */
+    private void stopClock(){
+        if (clockStopped) return;
+        endTicks = clock.nanoTime();
+        clockStopped = true;
     }
 
     /**
@@ -239,8 +584,7 @@ public final class GameState {
      */
     @Override
     public String toString(){
-        LocalDateTime calculatedPlayingTime = endTime == null ? LocalDateTime.now():endTime;
-        long duration = Duration.between(startTime, calculatedPlayingTime).getSeconds();
+        long duration = getPlayingSeconds();
         return moves.size() + " move(s) played in " + String.format("%02d", duration / 3600) + ":" +
             String.format("%02d", duration / 60) +
             ":" + String.format("%02d", duration % 60) + " for " + getScore() + " points";
@@ -0,0 +1,57 @@
+package nl.quintor.solitaire.models.state;
+
+/**
+ * Listener for changes to a {@link GameState}, registered with {@link GameState#addListener(GameStateListener)}.
+ * Renderers, journals and statistics can use these events to update incrementally instead of inspecting the complete
+ * GameState after every move.
+ *
+ * <p>Events carry only primitive values and deck ids, so notifying listeners does not create any objects. Decks are
+ * identified by the headers used in player input: "O" for the stock, "SA" to "SD" for the stack piles and "A" to "G"
+ * for the columns of a single deck game, more of each for games of more decks. All methods have an empty default
+ * implementation, so a listener only overrides the events it is interested in. Listeners are called on the thread that
+ * changes the GameState, after the change has been applied.
+ */
+public interface GameStateListener {
+    /**
+     * Called when one or more cards have been moved from one deck to another, either by a move or by reverting one.
+     *
+     * @param sourceDeckId id of the deck the cards were taken from
+     * @param destinationDeckId id of the deck the cards were added to
+     * @param cardCount number of cards moved
+     */
+    default void cardsMoved(String sourceDeckId, String destinationDeckId, int cardCount){}
+
+    /**
+     * Called when a column card has been turned. Cards are turned face up when they are exposed by a move, and face
+     * down again when that move is reverted.
+     *
+     * @param deckId id of the column
+     * @param index index of the card in the column
+     * @param faceUp true if the card is now face up
+     */
+    default void cardFlipped(String deckId, int index, boolean faceUp){}
+
+    /**
+     * Called when the stock has been cycled, or when cycling the stock has been reverted.
+     *
+     * @param stockSize number of face-up cards in the stock
+     * @param wasteSize number of face-down cards in the waste
+     * @param stockCycles number of times all cards have been cycled through
+     */
+    default void stockCycled(int stockSize, int wasteSize, int stockCycles){}
+
+    /**
+     * Called when the total score, see {@link GameState#getScore()}, has changed.
+     *
+     * @param previousScore total score before the change
+     * @param score total score after the change
+     */
+    default void scoreChanged(long previousScore, long score){}
+
+    /**
+     * Called once, when the game is over.
+     *
+     * @param won true if the game has been won, false if it has been lost
+     */
+    default void gameOver(boolean won){}
+}
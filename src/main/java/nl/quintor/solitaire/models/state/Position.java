@@ -0,0 +1,428 @@
+package nl.quintor.solitaire.models.state;
+
+import nl.quintor.solitaire.game.CardMoveChecks;
+import nl.quintor.solitaire.game.moves.ex.MoveException;
+import nl.quintor.solitaire.models.card.Card;
+import nl.quintor.solitaire.models.deck.Deck;
+import nl.quintor.solitaire.models.deck.DeckType;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Immutable position of a game: the cards of all decks, the base score and the number of stock cycles. Applying a move
+ * to a position returns a new position and leaves the original unchanged, so searches, hints and what-if analyses can
+ * try moves from a position without copying a {@link GameState} first.
+ *
+ * <p>A new position shares every deck that the move does not touch with its parent. The cards of a deck are stored in a
+ * byte array, by card id, that is never changed after it has been created; a card move copies the source and the
+ * destination deck, cycling the stock copies the stock and the waste. The other decks are shared, so branching a
+ * position costs the position, an array with the references to the decks and the touched decks, whatever the number of
+ * moves that led to it. The ids of the cards of the first four decks fit in a byte, see {@link Card#getId()}, so
+ * positions are limited to games of up to four decks.
+ *
+ * <p>The moves follow the rules of {@link nl.quintor.solitaire.game.moves.MoveCard} and
+ * {@link nl.quintor.solitaire.game.moves.CycleStock}, including the scoring, and are checked with
+ * {@link CardMoveChecks}. Decks are numbered like in a {@link GameSnapshot}: 0 for the stock, 1 for the waste, then the
+ * stack piles and the columns, in the order of {@link GameState#getStackPiles()} and {@link GameState#getColumns()}.
+ * Unlike a snapshot, a position knows the face-down cards as well.
+ */
+public final class Position {
+    private final static int MAX_CARD_ID = 0xFF;
+    private final static int STOCK = 0;
+    private final static int WASTE = 1;
+    private final static byte[] NO_CARDS = new byte[0];
+    private final String[] headers; // shared by all positions of a game
+    private final DeckType[] deckTypes; // shared by all positions of a game
+    private final byte[][] cards; // shared with the parent, except the touched decks
+    private final int[] invisibleCards; // shared with the parent, unless a card was turned
+    private final long dealId;
+    private final long baseScore;
+    private final int stockCycles;
+    private int hash;
+
+    private Position(String[] headers, DeckType[] deckTypes, byte[][] cards, int[] invisibleCards, long dealId, long baseScore,
+                     int stockCycles){
+        this.headers = headers;
+        this.deckTypes = deckTypes;
+        this.cards = cards;
+        this.invisibleCards = invisibleCards;
+        this.dealId = dealId;
+        this.baseScore = baseScore;
+        this.stockCycles = stockCycles;
+    }
+
+    /**
+     * Returns the position of the provided game. The game is not changed, and later changes to the game do not change
+     * the position.
+     *
+     * @param gameState game to take the position of
+     * @return position of the game
+     * @throws IllegalArgumentException if the game is played with more than four decks
+     */
+    public static Position of(GameState gameState){
+        int deckCount = 2 + gameState.getStackPiles().size() + gameState.getColumns().size();
+        String[] headers = new String[deckCount];
+        DeckType[] deckTypes = new DeckType[deckCount];
+        byte[][] cards = new byte[deckCount][];
+        int[] invisibleCards = new int[deckCount];
+        int index = copy(0, "O", gameState.getStock(), headers, deckTypes, cards, invisibleCards);
+        index = copy(index, "", gameState.getWaste(), headers, deckTypes, cards, invisibleCards);
+        for (Map.Entry<String, Deck> entry : gameState.getStackPiles().entrySet()) {
+            index = copy(index, entry.getKey(), entry.getValue(), headers, deckTypes, cards, invisibleCards);
+        }
+        for (Map.Entry<String, Deck> entry : gameState.getColumns().entrySet()) {
+            index = copy(index, entry.getKey(), entry.getValue(), headers, deckTypes, cards, invisibleCards);
+        }
+        return new Position(headers, deckTypes, cards, invisibleCards, gameState.getDealId(), gameState.getBaseScore(),
+            gameState.getStockCycles());
+    }
+
+    /**
+     * Copies the deck into the arrays and returns the index of the next deck.
+     */
+    private static int copy(int deckIndex, String header, Deck deck, String[] headers, DeckType[] deckTypes, byte[][] cards,
+                            int[] invisibleCards){
+        headers[deckIndex] = header;
+        deckTypes[deckIndex] = deck.getDeckType();
+        byte[] ids = new byte[deck.size()];
+        for (int i = 0; i < ids.length; i++) {
+            int id = deck.get(i).getId();
+            if (id > MAX_CARD_ID) throw new IllegalArgumentException("Positions are limited to games of up to four decks");
+            ids[i] = (byte) id;
+        }
+        cards[deckIndex] = ids;
+        invisibleCards[deckIndex] = deck.getInvisibleCards();
+        return deckIndex + 1;
+    }
+
+    /**
+     * Creates a game in this position that measures the playing time with the system clock, see
+     * {@link #toGameState(GameClock)}.
+     *
+     * @return new game in this position
+     */
+    public GameState toGameState(){
+        return toGameState(GameClock.SYSTEM);
+    }
+
+    /**
+     * Creates a game in this position, with the decks, the deal id, the base score and the number of stock cycles of
+     * this position. The game has no moves to revert, so this position is its deal, and its clock starts now.
+     *
+     * @param clock clock used for the playing time of the new game
+     * @return new game in this position
+     */
+    public GameState toGameState(GameClock clock){
+        GameState gameState = new GameState(clock);
+        gameState.setDealId(dealId);
+        gameState.setBaseScore(baseScore);
+        gameState.setStockCycles(stockCycles);
+        for (int deckIndex = 0; deckIndex < cards.length; deckIndex++) {
+            Deck deck;
+            if (deckIndex == STOCK) deck = gameState.getStock();
+            else if (deckIndex == WASTE) deck = gameState.getWaste();
+            else {
+                deck = new Deck(deckTypes[deckIndex]);
+                Map<String, Deck> target = deckTypes[deckIndex] == DeckType.STACK ? gameState.getStackPiles() : gameState.getColumns();
+                target.put(headers[deckIndex], deck);
+            }
+            for (byte id : cards[deckIndex]) deck.add(Card.of(id & MAX_CARD_ID));
+            deck.setInvisibleCards(invisibleCards[deckIndex]);
+        }
+        gameState.setDeal(this);
+        return gameState;
+    }
+
+    /**
+     * Applies a player request: "C" cycles the stock, "M source destination" moves cards, with the same syntax as the
+     * {@link nl.quintor.solitaire.game.moves.MoveCard} move, for example "M B1 A".
+     *
+     * @param playerInput player request, case-insensitive
+     * @return position after the move
+     * @throws MoveException if the request is not a legal move in this position
+     */
+    public Position apply(String playerInput) throws MoveException {
+        String[] input = playerInput.toUpperCase().split(" ");
+        if ("C".equals(input[0]) && input.length == 1) {
+            Position next = cycleStock();
+            if (next == null) throw new MoveException("Stock is empty");
+            return next;
+        }
+        if (!"M".equals(input[0])) throw new MoveException("Unknown move \"" + playerInput + "\"");
+        CardMoveChecks.checkPlayerInput(input);
+        int source = getDeckIndex(input[1]);
+        int destination = getDeckIndex(input[2]);
+        if (source < 0 || destination < 0) throw new MoveException("Unknown deck in move \"" + playerInput + "\"");
+        int sourceCardIndex = deckTypes[source] == DeckType.COLUMN ? Integer.parseInt(input[1].substring(1)) : cards[source].length - 1;
+        Position next = moveCards(source, sourceCardIndex, destination);
+        if (next == null) throw new MoveException("Illegal move \"" + playerInput + "\"");
+        return next;
+    }
+
+    /**
+     * Moves cards from one deck to another. The cards from the provided index to the end of the source deck are moved;
+     * from the stock and the stack piles only the last card can be moved. Like
+     * {@link nl.quintor.solitaire.game.moves.MoveCard}, the move turns the last card of the source column face-up if it
+     * was face-down, shows the next stock card if the last face-up stock card was taken, and scores.
+     *
+     * @param sourceDeck number of the deck to take the cards from
+     * @param sourceCardIndex index of the first card to move
+     * @param destinationDeck number of the deck to add the cards to
+     * @return position after the move, or null if the move is not legal in this position
+     */
+    public Position moveCards(int sourceDeck, int sourceCardIndex, int destinationDeck){
+        if (!isLegalMove(sourceDeck, sourceCardIndex, destinationDeck)) return null;
+        byte[] source = cards[sourceDeck];
+        byte[] destination = cards[destinationDeck];
+        DeckType sourceType = deckTypes[sourceDeck];
+
+        byte[][] nextCards = cards.clone();
+        nextCards[sourceDeck] = Arrays.copyOf(source, sourceCardIndex);
+        byte[] joined = Arrays.copyOf(destination, destination.length + source.length - sourceCardIndex);
+        System.arraycopy(source, sourceCardIndex, joined, destination.length, source.length - sourceCardIndex);
+        nextCards[destinationDeck] = joined;
+
+        // turn an exposed column card face-upwards
+        int[] nextInvisibleCards = invisibleCards;
+        boolean showedInvisible = sourceType == DeckType.COLUMN && sourceCardIndex > 0 && invisibleCards[sourceDeck] == sourceCardIndex;
+        if (showedInvisible) {
+            nextInvisibleCards = invisibleCards.clone();
+            nextInvisibleCards[sourceDeck]--;
+        }
+
+        // show the next stock card if the last face-up card was taken
+        byte[] waste = cards[WASTE];
+        if (sourceType == DeckType.STOCK && sourceCardIndex == 0 && waste.length > 0) {
+            nextCards[STOCK] = new byte[]{waste[0]};
+            nextCards[WASTE] = Arrays.copyOfRange(waste, 1, waste.length);
+        }
+
+        long score = baseScore;
+        DeckType destinationType = deckTypes[destinationDeck];
+        if (sourceType == DeckType.STOCK && destinationType == DeckType.COLUMN) score += 5;
+        if (sourceType == DeckType.STOCK && destinationType == DeckType.STACK) score += 10;
+        if (sourceType == DeckType.COLUMN && destinationType == DeckType.STACK) score += 10;
+        if (showedInvisible) score += 5;
+        if (sourceType == DeckType.STACK) score -= 15;
+        return new Position(headers, deckTypes, nextCards, nextInvisibleCards, dealId, score, stockCycles);
+    }
+
+    /**
+     * Returns true if the cards from the provided index to the end of the source deck can be moved to the destination
+     * deck, according to the checks of {@link CardMoveChecks}.
+     *
+     * @param sourceDeck number of the deck to take the cards from
+     * @param sourceCardIndex index of the first card to move
+     * @param destinationDeck number of the deck to add the cards to
+     * @return true if the move is legal in this position
+     */
+    public boolean isLegalMove(int sourceDeck, int sourceCardIndex, int destinationDeck){
+        if (sourceDeck == destinationDeck || sourceDeck == WASTE) return false;
+        int size = cards[sourceDeck].length;
+        if (sourceCardIndex < 0 || sourceCardIndex >= size || sourceCardIndex < invisibleCards[sourceDeck]) return false;
+        DeckType sourceType = deckTypes[sourceDeck];
+        if (sourceType != DeckType.COLUMN && sourceCardIndex != size - 1) return false;
+        Card card = Card.of(cards[sourceDeck][sourceCardIndex] & MAX_CARD_ID);
+        byte[] destination = cards[destinationDeck];
+        Card target = destination.length == 0 ? null : Card.of(destination[destination.length - 1] & MAX_CARD_ID);
+        switch (deckTypes[destinationDeck]) {
+            case STACK:
+                return sourceCardIndex == size - 1 && CardMoveChecks.isLegalStackMove(target, card);
+            case COLUMN:
+                return CardMoveChecks.isLegalColumnMove(target, card);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Cycles the stock, like {@link nl.quintor.solitaire.game.moves.CycleStock}: shows the next stock card, or turns
+     * the stock face-down again if all cards have been shown, which costs a hundred points.
+     *
+     * @return position after cycling the stock, or null if the stock and the waste are empty
+     */
+    public Position cycleStock(){
+        byte[] stock = cards[STOCK];
+        byte[] waste = cards[WASTE];
+        if (stock.length == 0 && waste.length == 0) return null;
+        int cycles = stockCycles;
+        long score = baseScore;
+        if (waste.length == 0) {
+            waste = stock;
+            stock = NO_CARDS;
+            cycles++;
+            score -= 100;
+        }
+        byte[][] nextCards = cards.clone();
+        byte[] nextStock = Arrays.copyOf(stock, stock.length + 1);
+        nextStock[stock.length] = waste[0];
+        nextCards[STOCK] = nextStock;
+        nextCards[WASTE] = Arrays.copyOfRange(waste, 1, waste.length);
+        return new Position(headers, deckTypes, nextCards, invisibleCards, dealId, score, cycles);
+    }
+
+    /**
+     * Returns the number of the deck that a location in player input refers to, for example 0 for "O", the number of
+     * the stack pile for "SA" or the number of the column for "B" or "B3".
+     *
+     * @param locationToken location in player input, in uppercase
+     * @return number of the deck, or -1 if no deck has the header
+     */
+    public int getDeckIndex(String locationToken){
+        if ("O".equals(locationToken)) return STOCK;
+        for (int deckIndex = WASTE + 1; deckIndex < headers.length; deckIndex++) {
+            if (deckTypes[deckIndex] == DeckType.STACK && headers[deckIndex].equals(locationToken)) return deckIndex;
+        }
+        String columnHeader = locationToken.isEmpty() ? "" : locationToken.substring(0, 1);
+        for (int deckIndex = WASTE + 1; deckIndex < headers.length; deckIndex++) {
+            if (deckTypes[deckIndex] == DeckType.COLUMN && headers[deckIndex].equals(columnHeader)) return deckIndex;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns true if the game is won in this position: no column card is face-down and the stock and the waste are
+     * empty, the rule of {@link nl.quintor.solitaire.game.GameStateController#detectGameWin(GameState)}.
+     *
+     * @return true if the position wins the game
+     */
+    public boolean isWon(){
+        if (cards[STOCK].length + cards[WASTE].length > 0) return false;
+        for (int deckIndex = WASTE + 1; deckIndex < cards.length; deckIndex++) {
+            if (deckTypes[deckIndex] == DeckType.COLUMN && getFaceDownCards(deckIndex) > 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Getter for dealId.
+     *
+     * @return number that identifies the deal of the game
+     */
+    public long getDealId(){
+        return dealId;
+    }
+
+    /**
+     * Getter for baseScore.
+     *
+     * @return base score, see {@link GameState#getBaseScore()}
+     */
+    public long getBaseScore(){
+        return baseScore;
+    }
+
+    /**
+     * Getter for stockCycles.
+     *
+     * @return number of times all stock cards have been cycled through
+     */
+    public int getStockCycles(){
+        return stockCycles;
+    }
+
+    /**
+     * Returns the number of decks.
+     *
+     * @return number of decks, including the stock and the waste
+     */
+    public int getDeckCount(){
+        return headers.length;
+    }
+
+    /**
+     * Returns the header of a deck, as used in player input, for example "SA" or "C". The waste has no header.
+     *
+     * @param deckIndex number of the deck
+     * @return header of the deck, empty for the waste
+     */
+    public String getDeckHeader(int deckIndex){
+        return headers[deckIndex];
+    }
+
+    /**
+     * Returns the type of a deck.
+     *
+     * @param deckIndex number of the deck
+     * @return type of the deck
+     */
+    public DeckType getDeckType(int deckIndex){
+        return deckTypes[deckIndex];
+    }
+
+    /**
+     * Returns the number of cards of a deck, including the face-down cards.
+     *
+     * @param deckIndex number of the deck
+     * @return number of cards
+     */
+    public int getDeckSize(int deckIndex){
+        return cards[deckIndex].length;
+    }
+
+    /**
+     * Returns the number of face-down cards of a deck. The face-down cards are the first cards of the deck; all cards of
+     * the waste are face-down.
+     *
+     * @param deckIndex number of the deck
+     * @return number of face-down cards
+     */
+    public int getFaceDownCards(int deckIndex){
+        int size = cards[deckIndex].length;
+        return deckTypes[deckIndex] == DeckType.WASTE ? size : Math.min(invisibleCards[deckIndex], size);
+    }
+
+    /**
+     * Returns a card of a deck, face-up or face-down.
+     *
+     * @param deckIndex number of the deck
+     * @param cardIndex index of the card in the deck
+     * @return the card
+     */
+    public Card getCard(int deckIndex, int cardIndex){
+        return Card.of(cards[deckIndex][cardIndex] & MAX_CARD_ID);
+    }
+
+    /**
+     * Returns true if the provided object is a position with the same cards in the same places, face-up or face-down
+     * alike. The scores and the numbers of stock cycles are not compared, so positions that are reached in different
+     * ways are equal, which lets a search recognize positions it has seen before. Decks that are shared between the
+     * positions are not compared card by card.
+     *
+     * @param o object to compare with
+     * @return true if the object is an equal position
+     */
+    @Override
+    public boolean equals(Object o){
+        if (this == o) return true;
+        if (!(o instanceof Position)) return false;
+        Position that = (Position) o;
+        return hashCode() == that.hashCode() && Arrays.equals(invisibleCards, that.invisibleCards)
+            && Arrays.deepEquals(cards, that.cards) && Arrays.equals(headers, that.headers);
+    }
+
+    @Override
+    public int hashCode(){
+        int result = hash;
+        if (result == 0) {
+            result = 31 * Arrays.deepHashCode(cards) + Arrays.hashCode(invisibleCards);
+            hash = result;
+        }
+        return result;
+    }
+
+    @Override
+    public String toString(){
+        StringBuilder result = new StringBuilder("Position: ");
+        for (int deck = 0; deck < headers.length; deck++) {
+            result.append(headers[deck]).append('[');
+            for (int card = 0; card < cards[deck].length; card++) {
+                result.append(card > 0 ? ", " : "").append(card < getFaceDownCards(deck) ? "(" : "")
+                    .append(getCard(deck, card).toShortString()).append(card < getFaceDownCards(deck) ? ")" : "");
+            }
+            result.append("] ");
+        }
+        return result.append("base score ").append(baseScore).append(", cycles ").append(stockCycles).toString();
+    }
+}
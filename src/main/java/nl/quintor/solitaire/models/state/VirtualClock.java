@@ -0,0 +1,36 @@
+package nl.quintor.solitaire.models.state;
+
+/**
+ * {@link GameClock} that only moves when it is advanced explicitly. Starts at tick 0. Instances are not thread safe;
+ * every simulated game, or every thread running simulated games, uses its own clock.
+ */
+public final class VirtualClock implements GameClock {
+    private long nanoTime = 0;
+
+    @Override
+    public long nanoTime() {
+        return nanoTime;
+    }
+
+    /**
+     * Moves this clock forward.
+     *
+     * @param nanos number of nanoseconds to advance, must not be negative
+     * @return this clock
+     */
+    public VirtualClock advance(long nanos) {
+        if (nanos < 0) throw new IllegalArgumentException("A clock can't go back in time: " + nanos);
+        nanoTime += nanos;
+        return this;
+    }
+
+    /**
+     * Moves this clock forward by whole seconds.
+     *
+     * @param seconds number of seconds to advance, must not be negative
+     * @return this clock
+     */
+    public VirtualClock advanceSeconds(long seconds) {
+        return advance(seconds * 1_000_000_000L);
+    }
+}
@@ -0,0 +1,180 @@
+package nl.quintor.solitaire.server;
+
+import nl.quintor.solitaire.agent.Agent;
+import nl.quintor.solitaire.agent.AgentUI;
+import nl.quintor.solitaire.game.GameStateController;
+import nl.quintor.solitaire.metrics.LatencyHistogram;
+import nl.quintor.solitaire.metrics.Metrics;
+import nl.quintor.solitaire.models.state.GameClock;
+import nl.quintor.solitaire.models.state.GameState;
+import nl.quintor.solitaire.models.state.VirtualClock;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool of games that are dealt ahead of time, so a server hands a new player a game that is ready to play
+ * instead of shuffling and dealing it on the request path. A background thread deals the games with
+ * {@link GameStateController#init(GameClock, long, int)} and puts them in the pool; when the pool is full, the thread
+ * blocks until a game is taken, so the pool never holds more than its capacity. Games can be filtered before they go
+ * into the pool, for example to only hand out deals that an agent can win, see {@link #winnableBy(LongFunction, int)}; the
+ * filter runs on the background thread as well.
+ *
+ * <p>Taking a game, see {@link #get()}, is a constant-time handoff. The clock of a pooled game is restarted when it is
+ * taken, so the time it waited in the pool does not count as playing time. If the pool is empty, because players take
+ * games faster than they are dealt, the game is dealt on the calling thread without the filter, so a player never
+ * waits for the filter. All methods are thread safe.
+ */
+public final class DealPool implements Supplier<GameState>, Closeable {
+    private final static LatencyHistogram TAKE = Metrics.histogram("dealPool.take");
+    private final static LatencyHistogram DEAL = Metrics.histogram("dealPool.deal");
+    private final BlockingQueue<GameState> games;
+    private final int decks;
+    private final Predicate<GameState> filter;
+    private final Thread filler;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private volatile boolean closed = false;
+
+    /**
+     * Starts a pool of single deck games without a filter.
+     *
+     * @param capacity maximum number of games in the pool, at least 1
+     */
+    public DealPool(int capacity){
+        this(capacity, 1, game -> true);
+    }
+
+    /**
+     * Starts a pool of games dealt from the provided number of decks, that only holds the games accepted by the filter.
+     *
+     * @param capacity maximum number of games in the pool, at least 1
+     * @param decks number of decks, 1 to {@link GameStateController#MAX_DECKS}
+     * @param filter filter of the dealt games, called by the background thread only
+     */
+    public DealPool(int capacity, int decks, Predicate<GameState> filter){
+        if (capacity < 1) throw new IllegalArgumentException("A pool holds at least one game");
+        if (decks < 1 || decks > GameStateController.MAX_DECKS) throw new IllegalArgumentException("1 <= decks <= " + GameStateController.MAX_DECKS);
+        this.games = new ArrayBlockingQueue<>(capacity);
+        this.decks = decks;
+        this.filter = filter;
+        this.filler = new Thread(this::fill, "deal-pool-filler");
+        filler.setDaemon(true);
+        filler.setPriority(Thread.MIN_PRIORITY);
+        filler.start();
+    }
+
+    /**
+     * Returns a filter that accepts the deals that a new agent wins within the maximum number of turns. Every candidate
+     * is played by its own agent, like the games of a {@link nl.quintor.solitaire.agent.Tournament}, so an agent that
+     * keeps state between moves does not carry it over from the previous deal. The agent plays a copy of the deal with a
+     * {@link VirtualClock}, so the game that is accepted has not been played. Dealing and playing every candidate costs
+     * far more than dealing it, which is why the filter runs in the background.
+     *
+     * @param agents creates the agent that plays a deal, given the id of the deal; only called by the background thread
+     * @param maxTurns maximum number of moves of the agent, see {@link AgentUI#play(Agent, GameState, int)}
+     * @return filter of winnable deals
+     */
+    public static Predicate<GameState> winnableBy(LongFunction<Agent> agents, int maxTurns){
+        return game -> {
+            GameState copy = GameStateController.init(new VirtualClock(), game.getDealId(), game.getStackPiles().size() / 4);
+            AgentUI.play(agents.apply(game.getDealId()), copy, maxTurns);
+            return copy.isGameWon();
+        };
+    }
+
+    /**
+     * Takes a game from the pool, or deals one if the pool is empty. The clock of the game starts now.
+     *
+     * @return a new game, ready to go
+     */
+    @Override
+    public GameState get(){
+        long start = Metrics.start();
+        GameState game = games.poll();
+        if (game != null) {
+            hits.increment();
+            game.setPlayingNanos(0);
+        } else {
+            misses.increment();
+            game = deal();
+        }
+        TAKE.stop(start);
+        return game;
+    }
+
+    private GameState deal(){
+        long start = Metrics.start();
+        GameState game = GameStateController.init(GameClock.SYSTEM, ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, decks);
+        DEAL.stop(start);
+        return game;
+    }
+
+    private void fill(){
+        try {
+            while (!closed) {
+                GameState game = deal();
+                if (filter.test(game)) games.put(game);
+                else rejected.increment();
+            }
+        } catch (InterruptedException e) {
+            // the pool has been closed
+        } catch (RuntimeException e) {
+            // a failing filter stops the filler, games are dealt on the calling thread from now on
+            Metrics.countError("dealPool.filler." + e.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Returns the number of games that are ready in the pool.
+     *
+     * @return number of pooled games
+     */
+    public int size(){
+        return games.size();
+    }
+
+    /**
+     * Getter for hits.
+     *
+     * @return number of games that were taken from the pool
+     */
+    public long getHits(){
+        return hits.sum();
+    }
+
+    /**
+     * Getter for misses.
+     *
+     * @return number of games that were dealt on the calling thread because the pool was empty
+     */
+    public long getMisses(){
+        return misses.sum();
+    }
+
+    /**
+     * Getter for rejected.
+     *
+     * @return number of dealt games that the filter rejected
+     */
+    public long getRejected(){
+        return rejected.sum();
+    }
+
+    /**
+     * Stops the background thread and drops the pooled games. Games taken afterwards are dealt on the calling thread.
+     */
+    @Override
+    public void close(){
+        closed = true;
+        filler.interrupt();
+        games.clear();
+    }
+}
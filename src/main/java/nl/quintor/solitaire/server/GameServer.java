@@ -0,0 +1,231 @@
+package nl.quintor.solitaire.server;
+
+import nl.quintor.solitaire.game.GameSession;
+import nl.quintor.solitaire.game.GameStateController;
+import nl.quintor.solitaire.metrics.Metrics;
+import nl.quintor.solitaire.models.state.GameState;
+import nl.quintor.solitaire.ui.cli.CommandLineUI;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * TCP server that hosts many games in one JVM. Every connection gets its own game, played through a
+ * {@link CommandLineUI} that reads lines from and writes ANSI screens to the connection, so any terminal client such as
+ * telnet or netcat can be used to play: {@code nc localhost 4000}. In sync mode, the games are played through a
+ * {@link SyncUI} instead, which sends the {@link SyncProtocol} messages for a {@link SyncDecoder}: a keyframe when the
+ * client connects, deltas after every move.
+ *
+ * <p>Every session runs as one task with blocking I/O, and the session's {@link GameState} is only accessed by that
+ * task. On Java 21 and newer the tasks run on virtual threads. On older versions they run on platform threads with a
+ * small stack, which still allows thousands of concurrent sessions. The sessions are kept in a registry, so the server
+ * can report and close them.
+ *
+ * <p>Start the server with {@code mvn compile exec:java -Dexec.mainClass=nl.quintor.solitaire.server.GameServer}, the
+ * optional arguments are the port, the maximum number of sessions and {@code sync} for sync mode.
+ */
+public class GameServer implements Closeable {
+    private final static int DEFAULT_PORT = 4000;
+    private final static int DEFAULT_MAX_SESSIONS = 10_000;
+    private final static long SESSION_STACK_SIZE = 256 * 1024;
+    private final static int DEAL_POOL_SIZE = 64;
+    private final static byte[] SERVER_FULL = "The server is full, please try again later.\n".getBytes(StandardCharsets.UTF_8);
+
+    private final ServerSocketChannel serverChannel;
+    private final int maxSessions;
+    private final Supplier<GameState> newGame;
+    private final boolean sync;
+    private final ExecutorService executor = newSessionExecutor();
+    private final Map<Long, SocketChannel> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong sessionIds = new AtomicLong();
+    private final Thread acceptor;
+
+    /**
+     * Starts a server that accepts connections on the provided port and starts a new game for every connection.
+     *
+     * @param port TCP port, or 0 for any free port
+     * @param maxSessions maximum number of concurrent sessions, further connections are refused with a message
+     * @throws IOException if the port could not be bound
+     */
+    public GameServer(int port, int maxSessions) throws IOException {
+        this(port, maxSessions, GameStateController::init);
+    }
+
+    /**
+     * Starts a server that accepts connections on the provided port and plays the games created by the provided
+     * supplier.
+     *
+     * @param port TCP port, or 0 for any free port
+     * @param maxSessions maximum number of concurrent sessions, further connections are refused with a message
+     * @param newGame supplier of the game for every new session
+     * @throws IOException if the port could not be bound
+     */
+    public GameServer(int port, int maxSessions, Supplier<GameState> newGame) throws IOException {
+        this(port, maxSessions, newGame, false);
+    }
+
+    /**
+     * Starts a server like {@link #GameServer(int, int, Supplier)}, that sends the games as screens for terminals or,
+     * in sync mode, as {@link SyncProtocol} messages.
+     *
+     * @param port TCP port, or 0 for any free port
+     * @param maxSessions maximum number of concurrent sessions, further connections are refused with a message
+     * @param newGame supplier of the game for every new session
+     * @param sync true to play the games through a {@link SyncUI}, false for a {@link CommandLineUI}
+     * @throws IOException if the port could not be bound
+     */
+    public GameServer(int port, int maxSessions, Supplier<GameState> newGame, boolean sync) throws IOException {
+        this.maxSessions = maxSessions;
+        this.newGame = newGame;
+        this.sync = sync;
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), 1024);
+        this.acceptor = new Thread(this::acceptConnections, "game-server-acceptor");
+        acceptor.start();
+    }
+
+    /**
+     * Starts a server. The optional arguments are the port (default 4000), the maximum number of concurrent sessions
+     * (default 10000) and {@code sync} to start the server in sync mode. New games are taken from a {@link DealPool},
+     * so the sessions don't deal their games themselves.
+     *
+     * @param args optional port, maximum number of sessions and sync mode
+     * @throws IOException if the port could not be bound
+     */
+    public static void main(String... args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int maxSessions = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAX_SESSIONS;
+        boolean sync = args.length > 2 && "sync".equals(args[2]);
+        GameServer server = new GameServer(port, maxSessions, new DealPool(DEAL_POOL_SIZE), sync);
+        Metrics.registerMBean();
+        Metrics.dumpOnExit(System.out);
+        System.out.println("Solitaire server listening on port " + server.getPort());
+    }
+
+    /**
+     * Returns the port that this server accepts connections on.
+     *
+     * @return TCP port
+     */
+    public int getPort(){
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Returns the number of games that are currently being played.
+     *
+     * @return number of sessions
+     */
+    public int getSessionCount(){
+        return sessions.size();
+    }
+
+    /**
+     * Stops accepting connections and disconnects all sessions.
+     */
+    @Override
+    public void close() throws IOException {
+        serverChannel.close();
+        for (SocketChannel channel : sessions.values()) closeQuietly(channel);
+        executor.shutdown();
+    }
+
+    private void acceptConnections(){
+        try {
+            while (true) {
+                SocketChannel channel = serverChannel.accept();
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                if (sessions.size() >= maxSessions) {
+                    refuse(channel);
+                    continue;
+                }
+                long id = sessionIds.incrementAndGet();
+                sessions.put(id, channel);
+                executor.execute(() -> runSession(id, channel));
+            }
+        } catch (ClosedChannelException e) {
+            // the server has been closed
+        } catch (IOException e) {
+            System.err.println("Solitaire server stopped accepting connections: " + e);
+        }
+    }
+
+    /**
+     * Plays a game over the provided connection. A session ends when the game is over or when the player disconnects,
+     * in which case the UI runs out of input. Any other failure is a bug in the game; it is counted, see
+     * {@link Metrics#errors()}, and logged.
+     */
+    private void runSession(long id, SocketChannel channel){
+        try {
+            if (sync) {
+                try (SyncUI ui = new SyncUI(Channels.newInputStream(channel), channel)) {
+                    new GameSession(ui, newGame.get()).run();
+                }
+            } else {
+                CommandLineUI ui = new CommandLineUI(Channels.newInputStream(channel), channel, true);
+                new GameSession(ui, newGame.get()).run();
+            }
+        } catch (UncheckedIOException | NoSuchElementException e) {
+            // the connection failed or the player disconnected, in which case the UI runs out of input; the game is
+            // abandoned
+        } catch (RuntimeException e) {
+            Metrics.countError("server.session." + e.getClass().getSimpleName());
+            System.err.println("Solitaire session " + id + " failed:");
+            e.printStackTrace();
+        } finally {
+            sessions.remove(id);
+            closeQuietly(channel);
+        }
+    }
+
+    private static void refuse(SocketChannel channel){
+        try {
+            channel.write(ByteBuffer.wrap(SERVER_FULL));
+        } catch (IOException e) {
+            // the connection is closed anyway
+        }
+        closeQuietly(channel);
+    }
+
+    private static void closeQuietly(SocketChannel channel){
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // nothing left to clean up
+        }
+    }
+
+    /**
+     * Creates the executor for the session tasks: virtual threads if the JVM supports them (Java 21 and newer),
+     * otherwise daemon platform threads with a small stack. Looked up reflectively so the server compiles for Java 8.
+     */
+    private static ExecutorService newSessionExecutor(){
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(null, task, "game-session-" + threadNumber.incrementAndGet(), SESSION_STACK_SIZE);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package nl.quintor.solitaire.server;
+
+import nl.quintor.solitaire.models.card.Card;
+import nl.quintor.solitaire.models.deck.Deck;
+import nl.quintor.solitaire.models.deck.DeckType;
+import nl.quintor.solitaire.models.state.GameSnapshot;
+import nl.quintor.solitaire.models.state.GameState;
+import nl.quintor.solitaire.ui.cli.FrameBuffer;
+
+import java.util.Map;
+
+/**
+ * Library class that writes {@link GameState}, {@link Deck} and {@link Card} objects as JSON with a {@link JsonWriter}.
+ * The class is not instantiable, all constructors are private and all methods are static. The objects are written
+ * field by field without reflection; the JSON of every card is encoded once, when the class is loaded.
+ *
+ * <p>Face-down cards are never revealed: a deck is written as its size, the number of face-down cards and the
+ * face-up cards only. For example, a column with two face-down cards and the Queen of Hearts on top is written as
+ * {@code {"size":3,"faceDown":2,"cards":[{"suit":"HEARTS","rank":"QUEEN","symbol":"♥ Q"}]}}.
+ */
+public class GameStateJson {
+    private GameStateJson(){}
+    private final static byte[][] CARDS = new byte[54][];
+
+    static {
+        for (int ordinal = 0; ordinal < CARDS.length; ordinal++) {
+            Card card = new Card(ordinal);
+            FrameBuffer encoded = new FrameBuffer(64);
+            new JsonWriter(encoded).beginObject()
+                .name("suit").value(card.getSuit().name())
+                .name("rank").value(card.getRank().name())
+                .name("symbol").value(card.toShortString())
+                .endObject();
+            CARDS[ordinal] = new byte[encoded.size()];
+            System.arraycopy(encoded.array(), 0, CARDS[ordinal], 0, encoded.size());
+        }
+    }
+
+    /**
+     * Writes the provided game state as a JSON object with the summary fields (moves, playingSeconds, score,
+     * stockCycles, gameWon, gameLost) and the decks (stock, waste, stackPiles and columns, the latter two as objects
+     * keyed by deck header).
+     *
+     * @param writer writer to write to
+     * @param gameState game state to write
+     */
+    public static void writeGameState(JsonWriter writer, GameState gameState){
+        writer.beginObject()
+            .name("moves").value(gameState.getMoves().size())
+            .name("playingSeconds").value(gameState.getPlayingSeconds())
+            .name("score").value(gameState.getScore())
+            .name("stockCycles").value(gameState.getStockCycles())
+            .name("gameWon").value(gameState.isGameWon())
+            .name("gameLost").value(gameState.isGameLost());
+        writer.name("stock");
+        writeDeck(writer, gameState.getStock());
+        writer.name("waste");
+        writeDeck(writer, gameState.getWaste());
+        writer.name("stackPiles");
+        writeDecks(writer, gameState.getStackPiles());
+        writer.name("columns");
+        writeDecks(writer, gameState.getColumns());
+        writer.endObject();
+    }
+
+    /**
+     * Writes the provided deck as a JSON object with its size, the number of face-down cards and the face-up cards.
+     * All cards of the waste are face-down; in other decks the invisible cards are face-down.
+     *
+     * @param writer writer to write to
+     * @param deck deck to write
+     */
+    public static void writeDeck(JsonWriter writer, Deck deck){
+        int faceDown = deck.getDeckType() == DeckType.WASTE ? deck.size() : Math.min(deck.getInvisibleCards(), deck.size());
+        writer.beginObject()
+            .name("size").value(deck.size())
+            .name("faceDown").value(faceDown)
+            .name("cards").beginArray();
+        for (int i = faceDown; i < deck.size(); i++) writeCard(writer, deck.get(i));
+        writer.endArray().endObject();
+    }
+
+    /**
+     * Writes the provided snapshot as a JSON object in the same format as {@link #writeGameState(JsonWriter, GameState)}.
+     *
+     * @param writer writer to write to
+     * @param snapshot snapshot to write
+     */
+    public static void writeSnapshot(JsonWriter writer, GameSnapshot snapshot){
+        writer.beginObject()
+            .name("moves").value(snapshot.getMoves())
+            .name("playingSeconds").value(snapshot.getPlayingSeconds())
+            .name("score").value(snapshot.getScore())
+            .name("stockCycles").value(snapshot.getStockCycles())
+            .name("gameWon").value(snapshot.isGameWon())
+            .name("gameLost").value(snapshot.isGameLost());
+        writer.name("stock");
+        writeDeck(writer, snapshot, 0);
+        writer.name("waste");
+        writeDeck(writer, snapshot, 1);
+        writer.name("stackPiles");
+        writeDecks(writer, snapshot, DeckType.STACK);
+        writer.name("columns");
+        writeDecks(writer, snapshot, DeckType.COLUMN);
+        writer.endObject();
+    }
+
+    /**
+     * Writes the provided card as a JSON object with its suit, rank and symbol.
+     *
+     * @param writer writer to write to
+     * @param card card to write
+     */
+    public static void writeCard(JsonWriter writer, Card card){
+        writer.rawValue(CARDS[card.getOrdinal()]);
+    }
+
+    private static void writeDecks(JsonWriter writer, Map<String, Deck> decks){
+        writer.beginObject();
+        for (Map.Entry<String, Deck> entry : decks.entrySet()) {
+            writer.name(entry.getKey());
+            writeDeck(writer, entry.getValue());
+        }
+        writer.endObject();
+    }
+
+    private static void writeDecks(JsonWriter writer, GameSnapshot snapshot, DeckType deckType){
+        writer.beginObject();
+        for (int deck = 2; deck < snapshot.getDeckCount(); deck++) {
+            if (snapshot.getDeckType(deck) != deckType) continue;
+            writer.name(snapshot.getDeckHeader(deck));
+            writeDeck(writer, snapshot, deck);
+        }
+        writer.endObject();
+    }
+
+    private static void writeDeck(JsonWriter writer, GameSnapshot snapshot, int deck){
+        int faceDown = snapshot.getFaceDownCards(deck);
+        writer.beginObject()
+            .name("size").value(snapshot.getDeckSize(deck))
+            .name("faceDown").value(faceDown)
+            .name("cards").beginArray();
+        for (int i = faceDown; i < snapshot.getDeckSize(deck); i++) writeCard(writer, snapshot.getCard(deck, i));
+        writer.endArray().endObject();
+    }
+}
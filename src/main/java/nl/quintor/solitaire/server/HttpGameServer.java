@@ -0,0 +1,432 @@
+package nl.quintor.solitaire.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import nl.quintor.solitaire.game.GameSession;
+import nl.quintor.solitaire.game.GameStateCodec;
+import nl.quintor.solitaire.game.GameStateController;
+import nl.quintor.solitaire.metrics.Metrics;
+import nl.quintor.solitaire.models.state.GameClock;
+import nl.quintor.solitaire.models.state.GameSnapshot;
+import nl.quintor.solitaire.models.state.GameState;
+import nl.quintor.solitaire.ui.cli.FrameBuffer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * HTTP/JSON API for web front ends, built on the HTTP server of the JDK. The API has the following endpoints:
+ *
+ * <ul>
+ *     <li>{@code POST /games} creates a new game (201)
+ *     <li>{@code GET /games/{id}} returns the game
+ *     <li>{@code POST /games/{id}/moves} plays the player request in the plain text body, for example "M O SA". A
+ *     rejected move returns 422 with the reason as error message
+ *     <li>{@code DELETE /games/{id}} removes the game (204)
+ *     <li>{@code GET /games/{id}/snapshot} returns the game as seen by spectators, see below
+ * </ul>
+ *
+ * Every response with a body is a JSON object with the game id, the message for the player, an error flag and the game
+ * as written by {@link GameStateJson}, for example
+ * {@code {"id":1,"message":"Moved [♧ A] from O to SA","error":false,"game":{...}}}. Failed requests only contain the
+ * message and the error flag.
+ *
+ * <p>Requests for the same game are handled one at a time; every request thread writes its responses with its own
+ * reusable {@link JsonWriter}. Spectator requests are the exception: they read the last
+ * {@link nl.quintor.solitaire.models.state.GameSnapshot} of the game without waiting for the player, and return the id,
+ * the sequence number of the snapshot and the game, for example {@code {"id":1,"sequence":4,"game":{...}}}.
+ *
+ * <p>Games that are not played are passivated when more games than the configured maximum are on the heap: the least
+ * recently used games are saved with {@link GameStateCodec} into a {@link PassivationArena} outside the heap, and
+ * restored transparently by their next request. Spectators are served the last snapshot of a passivated game without
+ * restoring it. See {@link #getPassivationStats()} for the hit rate and the rehydration latency.
+ *
+ * <p>Start the server with {@code mvn compile exec:java -Dexec.mainClass=nl.quintor.solitaire.server.HttpGameServer},
+ * the optional arguments are the port, the maximum number of games, the maximum number of games on the heap and the
+ * file to passivate games to; without a file, games are passivated to a direct buffer.
+ */
+public class HttpGameServer implements Closeable {
+    private final static int DEFAULT_PORT = 8080;
+    private final static int DEFAULT_MAX_GAMES = 10_000;
+    private final static int MAX_MOVE_LENGTH = 256;
+    private final static int ARENA_BYTES_PER_GAME = 1024;
+    private final static int ARENA_BLOCK_SIZE = 128;
+    private final static int DEAL_POOL_SIZE = 64;
+    private final static String JSON = "application/json; charset=utf-8";
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    private final ThreadLocal<JsonWriter> writers = ThreadLocal.withInitial(() -> new JsonWriter(new FrameBuffer(4096)));
+    private final Map<Long, Game> games = new ConcurrentHashMap<>();
+    private final AtomicLong gameIds = new AtomicLong();
+    private final int maxGames;
+    private final int maxLiveGames;
+    private final PassivationArena arena;
+    private final Supplier<GameState> newGame;
+    private final Map<Long, Game> liveGames = new LinkedHashMap<>(16, 0.75f, true); // least recently used first
+    private final ThreadLocal<FrameBuffer> passivationBuffers = ThreadLocal.withInitial(() -> new FrameBuffer(1024));
+    private final PassivationStats passivationStats = new PassivationStats();
+
+    /**
+     * Starts a server on the provided port that keeps all games on the heap.
+     *
+     * @param port TCP port, or 0 for any free port
+     * @param maxGames maximum number of games, further games are refused with 503 until games are removed
+     * @throws IOException if the port could not be bound
+     */
+    public HttpGameServer(int port, int maxGames) throws IOException {
+        this(port, maxGames, maxGames, null);
+    }
+
+    /**
+     * Starts a server on the provided port that passivates the least recently used games to the provided arena when
+     * more than the maximum number of games are on the heap. If the arena is full, games stay on the heap.
+     *
+     * @param port TCP port, or 0 for any free port
+     * @param maxGames maximum number of games, further games are refused with 503 until games are removed
+     * @param maxLiveGames maximum number of games on the heap
+     * @param arena arena to passivate games to, or null to keep all games on the heap
+     * @throws IOException if the port could not be bound
+     */
+    public HttpGameServer(int port, int maxGames, int maxLiveGames, PassivationArena arena) throws IOException {
+        this(port, maxGames, maxLiveGames, arena, GameStateController::init);
+    }
+
+    /**
+     * Starts a server like {@link #HttpGameServer(int, int, int, PassivationArena)} that plays the games created by the
+     * provided supplier, for example a {@link DealPool}.
+     *
+     * @param port TCP port, or 0 for any free port
+     * @param maxGames maximum number of games, further games are refused with 503 until games are removed
+     * @param maxLiveGames maximum number of games on the heap
+     * @param arena arena to passivate games to, or null to keep all games on the heap
+     * @param newGame supplier of the game for every created game
+     * @throws IOException if the port could not be bound
+     */
+    public HttpGameServer(int port, int maxGames, int maxLiveGames, PassivationArena arena, Supplier<GameState> newGame) throws IOException {
+        this.newGame = newGame;
+        this.maxGames = maxGames;
+        this.maxLiveGames = maxLiveGames;
+        this.arena = arena;
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/games", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Starts a server. The optional arguments are the port (default 8080), the maximum number of games (default
+     * 10000), the maximum number of games on the heap (default all games) and the file to passivate games to (default
+     * a direct buffer). New games are taken from a {@link DealPool}, so creating a game doesn't deal it.
+     *
+     * @param args optional port, maximum number of games, maximum number of games on the heap and passivation file
+     * @throws IOException if the port could not be bound or the file could not be mapped
+     */
+    public static void main(String... args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int maxGames = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAX_GAMES;
+        int maxLiveGames = args.length > 2 ? Integer.parseInt(args[2]) : maxGames;
+        PassivationArena arena = null;
+        if (maxLiveGames < maxGames) {
+            int capacity = (int) Math.min(Integer.MAX_VALUE, (long) (maxGames - maxLiveGames) * ARENA_BYTES_PER_GAME);
+            arena = args.length > 3 ? PassivationArena.map(Paths.get(args[3]), capacity, ARENA_BLOCK_SIZE)
+                : PassivationArena.allocateDirect(capacity, ARENA_BLOCK_SIZE);
+        }
+        HttpGameServer server = new HttpGameServer(port, maxGames, maxLiveGames, arena, new DealPool(DEAL_POOL_SIZE));
+        Metrics.registerMBean();
+        Metrics.dumpOnExit(System.out);
+        System.out.println("Solitaire HTTP API listening on port " + server.getPort());
+    }
+
+    /**
+     * Returns the port that this server accepts connections on.
+     *
+     * @return TCP port
+     */
+    public int getPort(){
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the number of games that have been created and not removed.
+     *
+     * @return number of games
+     */
+    public int getGameCount(){
+        return games.size();
+    }
+
+    /**
+     * Returns the number of games on the heap; the other games are passivated.
+     *
+     * @return number of games on the heap
+     */
+    public int getLiveGameCount(){
+        if (arena == null) return games.size();
+        synchronized (liveGames) {
+            return liveGames.size();
+        }
+    }
+
+    /**
+     * Returns the counters of the passivation of idle games.
+     *
+     * @return passivation counters
+     */
+    public PassivationStats getPassivationStats(){
+        return passivationStats;
+    }
+
+    /**
+     * Stops the server immediately.
+     */
+    @Override
+    public void close(){
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            String method = exchange.getRequestMethod();
+            // path[0] is empty and path[1] is "games"
+            if (path.length == 2) {
+                if ("POST".equals(method)) createGame(exchange);
+                else sendError(exchange, 405, "Method not allowed");
+                return;
+            }
+            Game game = path.length <= 4 ? findGame(path[2]) : null;
+            if (game == null) {
+                sendError(exchange, 404, "Not found");
+            } else if (path.length == 3 && "GET".equals(method)) {
+                synchronized (game) {
+                    if (activate(game)) sendGame(exchange, 200, game);
+                    else sendError(exchange, 404, "Not found");
+                }
+                passivateIdleGames(game);
+            } else if (path.length == 3 && "DELETE".equals(method)) {
+                removeGame(game);
+                exchange.sendResponseHeaders(204, -1);
+            } else if (path.length == 4 && "moves".equals(path[3]) && "POST".equals(method)) {
+                playMove(exchange, game);
+            } else if (path.length == 4 && "snapshot".equals(path[3]) && "GET".equals(method)) {
+                sendSnapshot(exchange, game);
+            } else if (path.length == 4 && !"moves".equals(path[3]) && !"snapshot".equals(path[3])) {
+                sendError(exchange, 404, "Not found");
+            } else {
+                sendError(exchange, 405, "Method not allowed");
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void createGame(HttpExchange exchange) throws IOException {
+        if (games.size() >= maxGames) {
+            sendError(exchange, 503, "The server is full, please try again later.");
+            return;
+        }
+        Game game = new Game(gameIds.incrementAndGet(), newGame.get());
+        games.put(game.id, game);
+        synchronized (game) {
+            game.session.start();
+            sendGame(exchange, 201, game);
+        }
+        passivateIdleGames(game);
+    }
+
+    private void playMove(HttpExchange exchange, Game game) throws IOException {
+        byte[] body = new byte[MAX_MOVE_LENGTH + 1];
+        int length = readBody(exchange.getRequestBody(), body);
+        if (length > MAX_MOVE_LENGTH) {
+            sendError(exchange, 413, "A move can't be longer than " + MAX_MOVE_LENGTH + " bytes");
+            return;
+        }
+        String playerInput = new String(body, 0, length, StandardCharsets.UTF_8).trim();
+        synchronized (game) {
+            if (!activate(game)) {
+                sendError(exchange, 404, "Not found");
+                return;
+            }
+            game.session.play(playerInput);
+            sendGame(exchange, game.ui.isError() ? 422 : 200, game);
+        }
+        passivateIdleGames(game);
+    }
+
+    private void removeGame(Game game){
+        games.remove(game.id);
+        // marked as removed first, so a failing passivation doesn't put it back into the live games
+        synchronized (game) {
+            if (!game.removed && game.session == null) arena.free(game.handle);
+            game.removed = true;
+        }
+        synchronized (liveGames) {
+            liveGames.remove(game.id);
+        }
+    }
+
+    /**
+     * Restores the game from the arena if it has been passivated. Must be called while holding the lock of the game.
+     *
+     * @return false if the game has been removed in the meantime
+     */
+    private boolean activate(Game game){
+        if (game.removed) return false;
+        if (game.session != null) {
+            passivationStats.hit();
+            return true;
+        }
+        long start = System.nanoTime();
+        byte[] saved = arena.load(game.handle);
+        arena.free(game.handle);
+        game.session = new GameSession(game.ui, GameStateCodec.read(ByteBuffer.wrap(saved), game.clock),
+            game.previousInput, game.lastSnapshot.getSequence() + 1);
+        passivationStats.rehydrated(System.nanoTime() - start);
+        return true;
+    }
+
+    /**
+     * Marks the game as most recently used, and passivates the least recently used games if there are too many games
+     * on the heap. Must be called without holding the lock of any game.
+     */
+    private void passivateIdleGames(Game used){
+        if (arena == null) return;
+        List<Game> idleGames = new ArrayList<>();
+        synchronized (liveGames) {
+            liveGames.put(used.id, used);
+            Iterator<Game> leastRecentlyUsed = liveGames.values().iterator();
+            while (liveGames.size() > maxLiveGames) {
+                idleGames.add(leastRecentlyUsed.next());
+                leastRecentlyUsed.remove();
+            }
+        }
+        for (Game game : idleGames) passivate(game);
+    }
+
+    /**
+     * Saves the game into the arena. If the arena is full, the game stays on the heap and is put back into the live
+     * games, so it is passivated again when it is the least recently used game once more.
+     */
+    private void passivate(Game game){
+        synchronized (game) {
+            if (game.session == null || game.removed) return;
+            FrameBuffer saved = passivationBuffers.get();
+            saved.clear();
+            GameStateCodec.write(game.session.getGameState(), saved);
+            int handle = arena.store(saved.array(), 0, saved.size());
+            if (handle < 0) {
+                passivationStats.passivationFailed();
+                synchronized (liveGames) {
+                    liveGames.putIfAbsent(game.id, game);
+                }
+                return;
+            }
+            game.handle = handle;
+            game.clock = game.session.getGameState().getClock();
+            game.previousInput = game.session.getPreviousInput();
+            game.lastSnapshot = game.session.getSnapshot();
+            game.session = null;
+            passivationStats.passivated();
+        }
+    }
+
+    private Game findGame(String id){
+        try {
+            return games.get(Long.parseLong(id));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void sendGame(HttpExchange exchange, int status, Game game) throws IOException {
+        JsonWriter writer = writers.get().clear();
+        writer.beginObject()
+            .name("id").value(game.id)
+            .name("message").value(game.ui.getMessage())
+            .name("error").value(game.ui.isError())
+            .name("game");
+        GameStateJson.writeGameState(writer, game.session.getGameState());
+        writer.endObject();
+        send(exchange, status, writer.getBuffer());
+    }
+
+    private void sendSnapshot(HttpExchange exchange, Game game) throws IOException {
+        GameSession session = game.session;
+        GameSnapshot snapshot = session != null ? session.getSnapshot() : game.lastSnapshot;
+        JsonWriter writer = writers.get().clear();
+        writer.beginObject()
+            .name("id").value(game.id)
+            .name("sequence").value(snapshot.getSequence())
+            .name("game");
+        GameStateJson.writeSnapshot(writer, snapshot);
+        writer.endObject();
+        send(exchange, 200, writer.getBuffer());
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        JsonWriter writer = writers.get().clear();
+        writer.beginObject().name("message").value(message).name("error").value(true).endObject();
+        send(exchange, status, writer.getBuffer());
+    }
+
+    private static void send(HttpExchange exchange, int status, FrameBuffer body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, body.size());
+        OutputStream out = exchange.getResponseBody();
+        body.writeTo(out);
+        out.close();
+    }
+
+    /**
+     * Reads the body into the array, stopping when the array is full.
+     *
+     * @return number of bytes read
+     */
+    private static int readBody(InputStream in, byte[] body) throws IOException {
+        int length = 0;
+        for (int read; length < body.length && (read = in.read(body, length, body.length - length)) != -1; ) {
+            length += read;
+        }
+        return length;
+    }
+
+    /**
+     * A game hosted by this server: the session that plays it and the UI that keeps its last message. While the game
+     * is passivated, the session is null and the game is kept as its handle in the arena, its clock, the last input of
+     * the player and the last snapshot. The fields are guarded by the lock of the game; the session and the last
+     * snapshot are volatile for the spectators, who read them without the lock.
+     */
+    private static final class Game {
+        private final long id;
+        private final MessageUI ui = new MessageUI();
+        private volatile GameSession session;
+        private volatile GameSnapshot lastSnapshot;
+        private String previousInput;
+        private GameClock clock;
+        private int handle = -1;
+        private boolean removed = false;
+
+        private Game(long id, GameState gameState){
+            this.id = id;
+            this.session = new GameSession(ui, gameState);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package nl.quintor.solitaire.server;
+
+import nl.quintor.solitaire.ui.cli.FrameBuffer;
+
+/**
+ * Streaming JSON writer that encodes straight into a reusable {@link FrameBuffer}. Values are written as they are
+ * provided, without building a document tree, intermediate Strings or byte arrays. Separators are inserted
+ * automatically: a comma is written before every name or value that follows another value.
+ *
+ * <p>The writer does not validate the structure of the document; callers are responsible for balancing
+ * {@link #beginObject()} and {@link #endObject()}, and for writing a name before every value in an object.
+ */
+public final class JsonWriter {
+    private final static byte[] HEX = "0123456789abcdef".getBytes();
+    private final static byte[] TRUE = "true".getBytes();
+    private final static byte[] FALSE = "false".getBytes();
+    private final static byte[] NULL = "null".getBytes();
+    private final static byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes();
+
+    private final FrameBuffer buffer;
+    private boolean valueWritten = false;
+
+    /**
+     * Constructs a JsonWriter that appends to the provided buffer.
+     *
+     * @param buffer buffer that the JSON document is written to
+     */
+    public JsonWriter(FrameBuffer buffer){
+        this.buffer = buffer;
+    }
+
+    /**
+     * Getter for buffer.
+     *
+     * @return buffer that the JSON document is written to
+     */
+    public FrameBuffer getBuffer(){
+        return buffer;
+    }
+
+    /**
+     * Discards the buffer contents, so the writer can be reused for a new document.
+     *
+     * @return this writer
+     */
+    public JsonWriter clear(){
+        buffer.clear();
+        valueWritten = false;
+        return this;
+    }
+
+    public JsonWriter beginObject(){
+        separate();
+        buffer.put((byte) '{');
+        valueWritten = false;
+        return this;
+    }
+
+    public JsonWriter endObject(){
+        buffer.put((byte) '}');
+        valueWritten = true;
+        return this;
+    }
+
+    public JsonWriter beginArray(){
+        separate();
+        buffer.put((byte) '[');
+        valueWritten = false;
+        return this;
+    }
+
+    public JsonWriter endArray(){
+        buffer.put((byte) ']');
+        valueWritten = true;
+        return this;
+    }
+
+    /**
+     * Writes the name of the next object member, followed by a colon.
+     *
+     * @param name member name
+     * @return this writer
+     */
+    public JsonWriter name(CharSequence name){
+        separate();
+        putString(name);
+        buffer.put((byte) ':');
+        valueWritten = false;
+        return this;
+    }
+
+    public JsonWriter value(long value){
+        separate();
+        if (value == Long.MIN_VALUE) {
+            buffer.put(MIN_LONG);
+        } else {
+            if (value < 0) buffer.put((byte) '-');
+            buffer.putNumber(Math.abs(value), 1);
+        }
+        valueWritten = true;
+        return this;
+    }
+
+    public JsonWriter value(boolean value){
+        return rawValue(value ? TRUE : FALSE);
+    }
+
+    /**
+     * Writes a string value, escaping quotes, backslashes and control characters. Null is written as JSON null.
+     *
+     * @param value string value or null
+     * @return this writer
+     */
+    public JsonWriter value(CharSequence value){
+        if (value == null) return nullValue();
+        separate();
+        putString(value);
+        valueWritten = true;
+        return this;
+    }
+
+    public JsonWriter nullValue(){
+        return rawValue(NULL);
+    }
+
+    /**
+     * Writes a value that has already been encoded as UTF-8 JSON, for example a constant that is encoded once.
+     *
+     * @param json complete JSON value
+     * @return this writer
+     */
+    public JsonWriter rawValue(byte[] json){
+        separate();
+        buffer.put(json);
+        valueWritten = true;
+        return this;
+    }
+
+    private void separate(){
+        if (valueWritten) buffer.put((byte) ',');
+    }
+
+    /**
+     * Writes a quoted string. Characters that need no escaping are written in runs, so the UTF-8 encoding of the buffer
+     * is used for everything but the escape sequences.
+     */
+    private void putString(CharSequence value){
+        buffer.put((byte) '"');
+        int runStart = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') continue;
+            buffer.putChars(value, runStart, i);
+            putEscaped(c);
+            runStart = i + 1;
+        }
+        buffer.putChars(value, runStart, value.length());
+        buffer.put((byte) '"');
+    }
+
+    private void putEscaped(char c){
+        buffer.put((byte) '\\');
+        switch (c) {
+            case '"': buffer.put((byte) '"'); break;
+            case '\\': buffer.put((byte) '\\'); break;
+            case '\n': buffer.put((byte) 'n'); break;
+            case '\r': buffer.put((byte) 'r'); break;
+            case '\t': buffer.put((byte) 't'); break;
+            default:
+                buffer.put((byte) 'u').put((byte) '0').put((byte) '0').put(HEX[c >> 4]).put(HEX[c & 0xF]);
+        }
+    }
+}
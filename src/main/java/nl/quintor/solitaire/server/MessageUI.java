@@ -0,0 +1,36 @@
+package nl.quintor.solitaire.server;
+
+import nl.quintor.solitaire.models.state.GameState;
+import nl.quintor.solitaire.ui.Display;
+
+/**
+ * {@link Display} for sessions that are driven by requests instead of by the game loop, such as the games of the
+ * {@link HttpGameServer}. It only keeps the last message, which is returned to the client together with the game state.
+ */
+final class MessageUI implements Display {
+    private String message = "";
+    private boolean error = false;
+
+    @Override
+    public void setMessage(String message){
+        this.message = message;
+        this.error = false;
+    }
+
+    @Override
+    public void setErrorMessage(String message){
+        this.message = message;
+        this.error = true;
+    }
+
+    @Override
+    public void refresh(GameState gameState){}
+
+    String getMessage(){
+        return message;
+    }
+
+    boolean isError(){
+        return error;
+    }
+}
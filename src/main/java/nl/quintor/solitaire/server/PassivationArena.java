@@ -0,0 +1,179 @@
+package nl.quintor.solitaire.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Fixed-size store for records outside the heap: either a direct {@link ByteBuffer} or a memory-mapped file. Used to
+ * keep idle games, saved with {@link nl.quintor.solitaire.game.GameStateCodec}, out of the heap until they are needed
+ * again.
+ *
+ * <p>The arena is divided into blocks of equal size. A record occupies a chain of blocks, every block starting with
+ * the index of the next block; the first block also holds the length of the record. Free blocks are kept on a stack, so
+ * records of any size can be stored and freed without fragmenting the arena. All methods are thread safe.
+ */
+public final class PassivationArena implements Closeable {
+    private final static int NO_BLOCK = -1;
+    private final static int MINIMUM_BLOCK_SIZE = 16;
+    private final ByteBuffer buffer;
+    private final ByteBuffer view;
+    private final FileChannel channel;
+    private final int blockSize;
+    private final int[] freeBlocks;
+    private int freeCount;
+    private int recordCount;
+
+    private PassivationArena(ByteBuffer buffer, FileChannel channel, int blockSize){
+        if (blockSize < MINIMUM_BLOCK_SIZE) throw new IllegalArgumentException("The block size should be at least " + MINIMUM_BLOCK_SIZE);
+        this.buffer = buffer;
+        this.view = buffer.duplicate();
+        this.channel = channel;
+        this.blockSize = blockSize;
+        this.freeBlocks = new int[buffer.capacity() / blockSize];
+        for (int i = 0; i < freeBlocks.length; i++) freeBlocks[i] = freeBlocks.length - 1 - i;
+        this.freeCount = freeBlocks.length;
+    }
+
+    /**
+     * Creates an arena in a direct buffer, outside the heap.
+     *
+     * @param capacity size of the arena in bytes
+     * @param blockSize size of a block in bytes, at least 16
+     * @return new arena
+     */
+    public static PassivationArena allocateDirect(int capacity, int blockSize){
+        return new PassivationArena(ByteBuffer.allocateDirect(capacity), null, blockSize);
+    }
+
+    /**
+     * Creates an arena in a memory-mapped file, so the operating system can page out records that are not used. The
+     * file is created if it does not exist; its previous contents are ignored.
+     *
+     * @param file file to map
+     * @param capacity size of the arena in bytes
+     * @param blockSize size of a block in bytes, at least 16
+     * @return new arena
+     * @throws IOException if the file could not be opened or mapped
+     */
+    public static PassivationArena map(Path file, int capacity, int blockSize) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new PassivationArena(channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity), channel, blockSize);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Stores a record.
+     *
+     * @param data array that contains the record
+     * @param offset position of the record in the array
+     * @param length length of the record in bytes
+     * @return handle of the stored record, or -1 if the arena does not have enough free space
+     */
+    public synchronized int store(byte[] data, int offset, int length){
+        // the first block holds the length and the first part of the record, the following blocks the rest
+        int remainder = Math.max(0, length - (blockSize - 8));
+        int blocks = 1 + (remainder + blockSize - 5) / (blockSize - 4);
+        if (blocks > freeCount) return NO_BLOCK;
+
+        int first = freeBlocks[--freeCount];
+        int block = first;
+        int position = block * blockSize + 4;
+        buffer.putInt(position, length);
+        position += 4;
+        int end = offset + length;
+        while (true) {
+            int chunk = Math.min(end - offset, (block + 1) * blockSize - position);
+            ((Buffer) view).position(position);
+            view.put(data, offset, chunk);
+            offset += chunk;
+            int next = offset < end ? freeBlocks[--freeCount] : NO_BLOCK;
+            buffer.putInt(block * blockSize, next);
+            if (next == NO_BLOCK) break;
+            block = next;
+            position = block * blockSize + 4;
+        }
+        recordCount++;
+        return first;
+    }
+
+    /**
+     * Copies a stored record out of the arena. The record stays stored until it is freed.
+     *
+     * @param handle handle returned by {@link #store(byte[], int, int)}
+     * @return copy of the record
+     */
+    public synchronized byte[] load(int handle){
+        byte[] data = new byte[buffer.getInt(handle * blockSize + 4)];
+        int block = handle;
+        int position = block * blockSize + 8;
+        int offset = 0;
+        while (true) {
+            int chunk = Math.min(data.length - offset, (block + 1) * blockSize - position);
+            ((Buffer) view).position(position);
+            view.get(data, offset, chunk);
+            offset += chunk;
+            block = buffer.getInt(block * blockSize);
+            if (block == NO_BLOCK) break;
+            position = block * blockSize + 4;
+        }
+        return data;
+    }
+
+    /**
+     * Frees the blocks of a stored record, the handle can no longer be used.
+     *
+     * @param handle handle returned by {@link #store(byte[], int, int)}
+     */
+    public synchronized void free(int handle){
+        for (int block = handle; block != NO_BLOCK; block = buffer.getInt(block * blockSize)) {
+            freeBlocks[freeCount++] = block;
+        }
+        recordCount--;
+    }
+
+    /**
+     * Returns the size of the arena.
+     *
+     * @return capacity in bytes, a multiple of the block size
+     */
+    public int getCapacity(){
+        return freeBlocks.length * blockSize;
+    }
+
+    /**
+     * Returns the free space of the arena.
+     *
+     * @return number of bytes in free blocks
+     */
+    public synchronized int getFreeBytes(){
+        return freeCount * blockSize;
+    }
+
+    /**
+     * Returns the number of stored records.
+     *
+     * @return number of records that have been stored and not freed
+     */
+    public synchronized int getRecordCount(){
+        return recordCount;
+    }
+
+    /**
+     * Closes the mapped file, if any. The memory of the arena is released when the arena is garbage collected.
+     *
+     * @throws IOException if the file could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) channel.close();
+    }
+}
@@ -0,0 +1,116 @@
+package nl.quintor.solitaire.server;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the passivation of idle games by the {@link HttpGameServer}: how often a request found its game on the
+ * heap (a hit) or had to restore it from the {@link PassivationArena} first (a rehydration), and how long rehydrating
+ * took. All methods are thread safe.
+ */
+public final class PassivationStats {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder rehydrations = new LongAdder();
+    private final LongAdder rehydrationNanos = new LongAdder();
+    private final LongAccumulator maxRehydrationNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder passivations = new LongAdder();
+    private final LongAdder failedPassivations = new LongAdder();
+
+    void hit(){
+        hits.increment();
+    }
+
+    void rehydrated(long nanos){
+        rehydrations.increment();
+        rehydrationNanos.add(nanos);
+        maxRehydrationNanos.accumulate(nanos);
+    }
+
+    void passivated(){
+        passivations.increment();
+    }
+
+    void passivationFailed(){
+        failedPassivations.increment();
+    }
+
+    /**
+     * Returns the number of requests that found their game on the heap.
+     *
+     * @return number of hits
+     */
+    public long getHits(){
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of requests that had to restore their game from the arena.
+     *
+     * @return number of rehydrations
+     */
+    public long getRehydrations(){
+        return rehydrations.sum();
+    }
+
+    /**
+     * Returns the fraction of requests that found their game on the heap.
+     *
+     * @return hit rate between 0 and 1, or 1 if there have not been any requests
+     */
+    public double getHitRate(){
+        long hitCount = getHits();
+        long total = hitCount + getRehydrations();
+        return total == 0 ? 1 : (double) hitCount / total;
+    }
+
+    /**
+     * Returns the average time it took to restore a game from the arena.
+     *
+     * @return average rehydration latency in nanoseconds, or 0 if no game has been rehydrated
+     */
+    public long getAverageRehydrationNanos(){
+        long count = getRehydrations();
+        return count == 0 ? 0 : rehydrationNanos.sum() / count;
+    }
+
+    /**
+     * Returns the longest time it took to restore a game from the arena.
+     *
+     * @return maximum rehydration latency in nanoseconds
+     */
+    public long getMaxRehydrationNanos(){
+        return maxRehydrationNanos.get();
+    }
+
+    /**
+     * Returns the number of games that have been moved to the arena.
+     *
+     * @return number of passivations
+     */
+    public long getPassivations(){
+        return passivations.sum();
+    }
+
+    /**
+     * Returns the number of idle games that stayed on the heap because the arena was full.
+     *
+     * @return number of failed passivations
+     */
+    public long getFailedPassivations(){
+        return failedPassivations.sum();
+    }
+
+    /**
+     * String representation of the counters, for example
+     * "hit rate 0.95, 40 rehydration(s) in 35 µs on average (max 120 µs), 42 passivation(s), 0 failed".
+     *
+     * @return String representation of the counters
+     */
+    @Override
+    public String toString(){
+        return String.format(Locale.ROOT, "hit rate %.2f, %d rehydration(s) in %d µs on average (max %d µs), %d passivation(s), %d failed",
+            getHitRate(), getRehydrations(), getAverageRehydrationNanos() / 1000, getMaxRehydrationNanos() / 1000,
+            getPassivations(), getFailedPassivations());
+    }
+}
@@ -0,0 +1,171 @@
+package nl.quintor.solitaire.server;
+
+import nl.quintor.solitaire.models.card.Card;
+import nl.quintor.solitaire.models.deck.Deck;
+import nl.quintor.solitaire.models.deck.DeckType;
+import nl.quintor.solitaire.models.state.GameState;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static nl.quintor.solitaire.server.SyncProtocol.*;
+
+/**
+ * Client side of the {@link SyncProtocol}: reconstructs a {@link GameState} from the messages written by a
+ * {@link SyncEncoder}. Face-down cards are unknown to the client, they are stored as {@code null} in the decks of the
+ * reconstructed GameState. The number of moves is not part of the GameState, see {@link #getMoveCount()}.
+ *
+ * <p>Deltas are only applied if they directly follow the previous message. After a missed message the decoder is out
+ * of sync, and ignores deltas until the next keyframe, which the client can request from the server.
+ */
+public final class SyncDecoder {
+    private GameState gameState;
+    private Deck[] decks = new Deck[0];
+    private int moveCount;
+    private int sequence = -1;
+    private boolean inSync = false;
+
+    /**
+     * Reads one message, including its length prefix, from the provided buffer and applies it to the reconstructed
+     * GameState.
+     *
+     * @param buffer buffer positioned at the start of a message
+     * @return true if the message has been applied, false if it has been skipped because the decoder is out of sync
+     * @throws IllegalArgumentException if the message is malformed
+     */
+    public boolean read(ByteBuffer buffer){
+        int length = (buffer.get() & 0xFF) << 8 | buffer.get() & 0xFF;
+        int end = buffer.position() + length;
+        byte type = buffer.get();
+        int messageSequence = buffer.getInt();
+        if (type == DELTA && (!inSync || messageSequence != sequence + 1)) {
+            inSync = false;
+            ((Buffer) buffer).position(end);
+            return false;
+        }
+        if (type != KEYFRAME && type != DELTA) throw new IllegalArgumentException("Unknown message type: " + type);
+
+        for (byte op = buffer.get(); op != END; op = buffer.get()) {
+            switch (op) {
+                case OP_LAYOUT: readLayout(buffer); break;
+                case OP_DECK: readDeck(buffer); break;
+                case OP_REMOVE: readRemove(buffer); break;
+                case OP_ADD: readAdd(buffer); break;
+                case OP_FLIP: readFlip(buffer); break;
+                case OP_SCORE: gameState.setBaseScore(buffer.getLong()); break;
+                case OP_STATUS: readStatus(buffer); break;
+                default: throw new IllegalArgumentException("Unknown operation: " + op);
+            }
+        }
+        if (buffer.position() != end) throw new IllegalArgumentException("Message length does not match its contents");
+        // the operations change the decks directly, not through moves
+        gameState.recountCards();
+        sequence = messageSequence;
+        inSync = true;
+        return true;
+    }
+
+    /**
+     * Getter for gameState.
+     *
+     * @return reconstructed game, null until the first keyframe has been read
+     */
+    public GameState getGameState(){
+        return gameState;
+    }
+
+    /**
+     * Getter for moveCount.
+     *
+     * @return number of moves played on the server
+     */
+    public int getMoveCount(){
+        return moveCount;
+    }
+
+    /**
+     * Getter for sequence.
+     *
+     * @return sequence number of the last applied message, -1 if no message has been applied
+     */
+    public int getSequence(){
+        return sequence;
+    }
+
+    /**
+     * Returns true if the decoder applied the last message it read, false if it has to wait for a keyframe.
+     *
+     * @return true if the reconstructed GameState is up to date
+     */
+    public boolean isSynchronized(){
+        return inSync;
+    }
+
+    private void readLayout(ByteBuffer buffer){
+        gameState = new GameState();
+        decks = new Deck[buffer.get() & 0xFF];
+        for (int i = 0; i < decks.length; i++) {
+            DeckType deckType = DeckType.values()[buffer.get()];
+            byte[] header = new byte[buffer.get() & 0xFF];
+            buffer.get(header);
+            if (deckType == DeckType.STOCK) decks[i] = gameState.getStock();
+            else if (deckType == DeckType.WASTE) decks[i] = gameState.getWaste();
+            else {
+                decks[i] = new Deck(deckType);
+                Map<String, Deck> target = deckType == DeckType.STACK ? gameState.getStackPiles() : gameState.getColumns();
+                target.put(new String(header, StandardCharsets.US_ASCII), decks[i]);
+            }
+        }
+    }
+
+    private void readDeck(ByteBuffer buffer){
+        Deck deck = deck(buffer.get());
+        int size = buffer.get() & 0xFF;
+        int faceDown = buffer.get() & 0xFF;
+        deck.clear();
+        for (int i = 0; i < faceDown; i++) deck.add(null);
+        for (int i = faceDown; i < size; i++) deck.add(card(buffer.get()));
+        deck.setInvisibleCards(faceDown);
+    }
+
+    private void readRemove(ByteBuffer buffer){
+        Deck deck = deck(buffer.get());
+        int count = buffer.get() & 0xFF;
+        deck.subList(deck.size() - count, deck.size()).clear();
+        if (deck.getInvisibleCards() > deck.size()) deck.setInvisibleCards(deck.size());
+    }
+
+    private void readAdd(ByteBuffer buffer){
+        Deck deck = deck(buffer.get());
+        int count = buffer.get() & 0xFF;
+        for (int i = 0; i < count; i++) deck.add(card(buffer.get()));
+        if (deck.getDeckType() == DeckType.WASTE) deck.setInvisibleCards(deck.size());
+    }
+
+    private void readFlip(ByteBuffer buffer){
+        Deck deck = deck(buffer.get());
+        int index = buffer.get() & 0xFF;
+        Card card = card(buffer.get());
+        deck.set(index, card);
+        deck.setInvisibleCards(card == null ? index + 1 : index);
+    }
+
+    private void readStatus(ByteBuffer buffer){
+        moveCount = buffer.getInt();
+        gameState.setStockCycles(buffer.getInt());
+        byte status = buffer.get();
+        gameState.setGameWon((status & STATUS_WON) != 0);
+        gameState.setGameLost((status & STATUS_LOST) != 0);
+    }
+
+    private Deck deck(byte deckIndex){
+        if (gameState == null) throw new IllegalArgumentException("Deck operation before the layout");
+        return decks[deckIndex & 0xFF];
+    }
+
+    private static Card card(byte ordinal){
+        return ordinal == UNKNOWN_CARD ? null : Card.of(ordinal & 0xFF);
+    }
+}
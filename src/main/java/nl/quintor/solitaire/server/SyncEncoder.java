@@ -0,0 +1,226 @@
+package nl.quintor.solitaire.server;
+
+import nl.quintor.solitaire.models.deck.Deck;
+import nl.quintor.solitaire.models.deck.DeckType;
+import nl.quintor.solitaire.models.state.GameState;
+import nl.quintor.solitaire.models.state.GameStateListener;
+import nl.quintor.solitaire.ui.cli.FrameBuffer;
+
+import java.nio.charset.StandardCharsets;
+
+import static nl.quintor.solitaire.server.SyncProtocol.*;
+
+/**
+ * Writes the messages of the {@link SyncProtocol} for one client of one {@link GameState}. The encoder registers itself
+ * as {@link GameStateListener} and translates the events of every move that is applied or reverted into delta
+ * operations, so a move that touches two decks is sent as a few bytes instead of the complete board.
+ *
+ * <p>The first message is a keyframe, followed by deltas. A keyframe is sent instead of a delta every
+ * {@code keyframeInterval} messages, when the client requests one, see {@link #requestKeyframe()}, and when the
+ * pending delta would be larger than a keyframe.
+ *
+ * <p>An encoder is confined to the thread that plays the game, like the GameState itself. {@link #close()} unregisters
+ * the encoder.
+ */
+public final class SyncEncoder implements GameStateListener, AutoCloseable {
+    private final static int MAX_DELTA_BYTES = 256;
+    private final GameState gameState;
+    private final int keyframeInterval;
+    private final String[] deckIds;
+    private final Deck[] decks;
+    private final int[] sentSizes;
+    private final FrameBuffer layout = new FrameBuffer(128);
+    private final FrameBuffer pending = new FrameBuffer(MAX_DELTA_BYTES);
+    private final FrameBuffer message = new FrameBuffer(512);
+    private int sequence = 0;
+    private boolean keyframeRequested = true;
+
+    /**
+     * Constructs an encoder for the provided game and registers it as listener of the game.
+     *
+     * @param gameState game to be synchronized
+     * @param keyframeInterval number of messages after which a keyframe is sent instead of a delta, at least 1
+     */
+    public SyncEncoder(GameState gameState, int keyframeInterval){
+        if (keyframeInterval < 1) throw new IllegalArgumentException("The keyframe interval should be at least 1");
+        this.gameState = gameState;
+        this.keyframeInterval = keyframeInterval;
+        int deckCount = 2 + gameState.getStackPiles().size() + gameState.getColumns().size();
+        deckIds = new String[deckCount];
+        decks = new Deck[deckCount];
+        sentSizes = new int[deckCount];
+        deckIds[0] = "O";
+        decks[0] = gameState.getStock();
+        deckIds[1] = "";
+        decks[1] = gameState.getWaste();
+        int index = 2;
+        for (String header : gameState.getStackPiles().keySet()) {
+            deckIds[index] = header;
+            decks[index++] = gameState.getStackPiles().get(header);
+        }
+        for (String header : gameState.getColumns().keySet()) {
+            deckIds[index] = header;
+            decks[index++] = gameState.getColumns().get(header);
+        }
+
+        layout.put(OP_LAYOUT).put((byte) deckCount);
+        for (int i = 0; i < deckCount; i++) {
+            byte[] header = deckIds[i].getBytes(StandardCharsets.US_ASCII);
+            layout.put((byte) decks[i].getDeckType().ordinal()).put((byte) header.length).put(header);
+        }
+        gameState.addListener(this);
+    }
+
+    /**
+     * Appends the next message to the provided buffer: a keyframe or a delta with all changes since the previous
+     * message, see {@link SyncProtocol}.
+     *
+     * @param out buffer to append the message to
+     */
+    public void writeMessage(FrameBuffer out){
+        message.clear();
+        boolean keyframe = keyframeRequested || sequence % keyframeInterval == 0;
+        message.put(keyframe ? KEYFRAME : DELTA);
+        putInt(message, sequence++);
+        if (keyframe) {
+            message.put(layout.array(), 0, layout.size());
+            for (int i = 0; i < decks.length; i++) putDeck(message, i);
+            putScore(message, gameState.getScore());
+        } else {
+            message.put(pending.array(), 0, pending.size());
+        }
+        message.put(OP_STATUS);
+        putInt(message, gameState.getMoves().size());
+        putInt(message, gameState.getStockCycles());
+        message.put((byte) ((gameState.isGameWon() ? STATUS_WON : 0) | (gameState.isGameLost() ? STATUS_LOST : 0)));
+        message.put(END);
+
+        out.put((byte) (message.size() >>> 8)).put((byte) message.size());
+        out.put(message.array(), 0, message.size());
+        pending.clear();
+        keyframeRequested = false;
+    }
+
+    /**
+     * Makes the next message a keyframe, for example because the client missed a message.
+     */
+    public void requestKeyframe(){
+        keyframeRequested = true;
+        pending.clear();
+    }
+
+    /**
+     * Getter for sequence.
+     *
+     * @return sequence number of the next message
+     */
+    public int getSequence(){
+        return sequence;
+    }
+
+    /**
+     * Unregisters this encoder from the game.
+     */
+    @Override
+    public void close(){
+        gameState.removeListener(this);
+    }
+
+    @Override
+    public void cardsMoved(String sourceDeckId, String destinationDeckId, int cardCount){
+        if (keyframeRequested) return;
+        putRemove(indexOf(sourceDeckId), cardCount);
+        putAdd(indexOf(destinationDeckId), cardCount);
+        checkPendingSize();
+    }
+
+    @Override
+    public void cardFlipped(String deckId, int index, boolean faceUp){
+        if (keyframeRequested) return;
+        int deckIndex = indexOf(deckId);
+        pending.put(OP_FLIP).put((byte) deckIndex).put((byte) index)
+            .put(faceUp ? (byte) decks[deckIndex].get(index).getOrdinal() : UNKNOWN_CARD);
+        checkPendingSize();
+    }
+
+    /**
+     * Sends drawing a card and reverting that as the single card that changed; anything else, such as turning the
+     * stock face-down again, as the complete stock and waste.
+     */
+    @Override
+    public void stockCycled(int stockSize, int wasteSize, int stockCycles){
+        if (keyframeRequested) return;
+        int stockChange = stockSize - sentSizes[0];
+        int wasteChange = wasteSize - sentSizes[1];
+        if (stockChange == 1 && wasteChange == -1) {
+            putRemove(1, 1);
+            putAdd(0, 1);
+        } else if (stockChange == -1 && wasteChange == 1) {
+            putRemove(0, 1);
+            putAdd(1, 1);
+        } else {
+            putDeck(pending, 0);
+            putDeck(pending, 1);
+        }
+        checkPendingSize();
+    }
+
+    @Override
+    public void scoreChanged(long previousScore, long score){
+        if (keyframeRequested) return;
+        putScore(pending, score);
+        checkPendingSize();
+    }
+
+    private int indexOf(String deckId){
+        for (int i = 0; i < deckIds.length; i++) if (deckIds[i].equals(deckId)) return i;
+        throw new IllegalArgumentException("Unknown deck id: " + deckId);
+    }
+
+    private void putDeck(FrameBuffer out, int deckIndex){
+        Deck deck = decks[deckIndex];
+        int faceDown = faceDown(deck);
+        out.put(OP_DECK).put((byte) deckIndex).put((byte) deck.size()).put((byte) faceDown);
+        for (int i = faceDown; i < deck.size(); i++) out.put((byte) deck.get(i).getOrdinal());
+        sentSizes[deckIndex] = deck.size();
+    }
+
+    private void putRemove(int deckIndex, int count){
+        pending.put(OP_REMOVE).put((byte) deckIndex).put((byte) count);
+        sentSizes[deckIndex] -= count;
+    }
+
+    /**
+     * Writes the last cards of the deck as added cards, sending face-down cards as unknown.
+     */
+    private void putAdd(int deckIndex, int count){
+        Deck deck = decks[deckIndex];
+        int faceDown = faceDown(deck);
+        pending.put(OP_ADD).put((byte) deckIndex).put((byte) count);
+        for (int i = deck.size() - count; i < deck.size(); i++) {
+            pending.put(i < faceDown ? UNKNOWN_CARD : (byte) deck.get(i).getOrdinal());
+        }
+        sentSizes[deckIndex] += count;
+    }
+
+    private static void putScore(FrameBuffer out, long score){
+        out.put(OP_SCORE);
+        putInt(out, (int) (score >>> 32));
+        putInt(out, (int) score);
+    }
+
+    /**
+     * Falls back to a keyframe when the delta grows larger than a keyframe would be.
+     */
+    private void checkPendingSize(){
+        if (pending.size() > MAX_DELTA_BYTES) requestKeyframe();
+    }
+
+    private static int faceDown(Deck deck){
+        return deck.getDeckType() == DeckType.WASTE ? deck.size() : Math.min(deck.getInvisibleCards(), deck.size());
+    }
+
+    private static void putInt(FrameBuffer out, int value){
+        out.put((byte) (value >>> 24)).put((byte) (value >>> 16)).put((byte) (value >>> 8)).put((byte) value);
+    }
+}
@@ -0,0 +1,53 @@
+package nl.quintor.solitaire.server;
+
+/**
+ * Constants of the binary state synchronization protocol, written by {@link SyncEncoder} and read by
+ * {@link SyncDecoder}. The protocol lets remote clients mirror a {@link nl.quintor.solitaire.models.state.GameState}
+ * without receiving the complete board after every move.
+ *
+ * <p>Every message starts with its length in bytes (2 bytes, unsigned, excluding the length itself), the message type
+ * (1 byte) and a sequence number (4 bytes), followed by operations, each starting with an opcode byte, and ends with
+ * {@link #END}. All numbers are big-endian. A {@link #KEYFRAME} describes the complete state: the {@link #OP_LAYOUT}
+ * followed by an {@link #OP_DECK} for every deck, the score and the status. A {@link #DELTA} only contains the
+ * operations needed to get from the previous message to the current state, and always ends with the status. Sequence
+ * numbers increase by one with every message; a client that misses a message ignores deltas until the next keyframe.
+ *
+ * <p>Decks are identified by their position in the layout: 0 for the stock, 1 for the waste, then the stack piles and
+ * the columns. Cards are identified by their ordinal, see {@link nl.quintor.solitaire.models.card.Card#getOrdinal()}.
+ * Face-down cards are never sent; their position is sent as {@link #UNKNOWN_CARD} instead.
+ */
+public final class SyncProtocol {
+    private SyncProtocol(){}
+
+    // message types
+    public final static byte KEYFRAME = 1;
+    public final static byte DELTA = 2;
+
+    // operations
+    /** End of the message. */
+    public final static byte END = 0;
+    /** Deck count (1 byte), then per deck: deck type ordinal (1 byte), header length (1 byte) and ASCII header. */
+    public final static byte OP_LAYOUT = 1;
+    /** Deck id, size, number of face-down cards, then the ordinals of the face-up cards (1 byte each). */
+    public final static byte OP_DECK = 2;
+    /** Deck id and number of cards removed from the end of the deck. */
+    public final static byte OP_REMOVE = 3;
+    /** Deck id, number of cards added to the end of the deck, then their ordinals. */
+    public final static byte OP_ADD = 4;
+    /** Deck id, index of the turned card and its ordinal if it was turned face-up, or {@link #UNKNOWN_CARD}. */
+    public final static byte OP_FLIP = 5;
+    /** Total score (8 bytes). */
+    public final static byte OP_SCORE = 6;
+    /** Number of moves (4 bytes), number of stock cycles (4 bytes) and the game status flags (1 byte). */
+    public final static byte OP_STATUS = 7;
+
+    // status flags
+    public final static byte STATUS_WON = 1;
+    public final static byte STATUS_LOST = 2;
+
+    /** Ordinal sent in place of a face-down card. */
+    public final static byte UNKNOWN_CARD = (byte) 0xFF;
+
+    /** Number of bytes of the length prefix of a message. */
+    public final static int LENGTH_BYTES = 2;
+}
@@ -0,0 +1,82 @@
+package nl.quintor.solitaire.server;
+
+import nl.quintor.solitaire.game.moves.Move;
+import nl.quintor.solitaire.models.state.GameState;
+import nl.quintor.solitaire.ui.UI;
+import nl.quintor.solitaire.ui.cli.FrameBuffer;
+
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.util.Collection;
+import java.util.Scanner;
+
+/**
+ * {@link UI} for clients of the {@link GameServer} that mirror the game with a {@link SyncDecoder} instead of showing
+ * the screens of the command line. Every refresh sends the next {@link SyncProtocol} message: a keyframe when the client
+ * connects, deltas after that. The client sends its requests as lines of text, like the command line players; the line
+ * {@link #KEYFRAME_REQUEST} requests a keyframe, for example after the client lost track of the game.
+ *
+ * <p>The protocol carries the state of the game only, so the messages for the player are not sent. A client sees that
+ * a move was rejected from the unchanged state.
+ */
+final class SyncUI implements UI, AutoCloseable {
+    /**
+     * Line that requests a keyframe instead of a move.
+     */
+    final static String KEYFRAME_REQUEST = "K";
+    private final static int KEYFRAME_INTERVAL = 64;
+    private final Scanner reader;
+    private final WritableByteChannel out;
+    private final FrameBuffer buffer = new FrameBuffer(512);
+    private SyncEncoder encoder;
+
+    /**
+     * Constructs a UI that reads the player requests from the provided stream and writes the messages to the provided
+     * channel.
+     *
+     * @param in stream of UTF-8 encoded player input lines
+     * @param out channel that the messages are written to
+     */
+    SyncUI(InputStream in, WritableByteChannel out){
+        this.reader = new Scanner(in, "UTF-8");
+        this.out = out;
+    }
+
+    @Override
+    public void setMessage(String message){}
+
+    @Override
+    public void setErrorMessage(String message){}
+
+    @Override
+    public void refresh(GameState gameState){
+        send(gameState);
+    }
+
+    @Override
+    public String refreshAndRequestMove(GameState gameState, Collection<Move> moves){
+        send(gameState);
+        while (true) {
+            String input = reader.nextLine();
+            if (!KEYFRAME_REQUEST.equalsIgnoreCase(input.trim())) return input;
+            encoder.requestKeyframe();
+            send(gameState);
+        }
+    }
+
+    private void send(GameState gameState){
+        // the encoder starts listening to the game when the first message is sent, which is a keyframe
+        if (encoder == null) encoder = new SyncEncoder(gameState, KEYFRAME_INTERVAL);
+        buffer.clear();
+        encoder.writeMessage(buffer);
+        buffer.writeTo(out);
+    }
+
+    /**
+     * Unregisters the encoder from the game.
+     */
+    @Override
+    public void close(){
+        if (encoder != null) encoder.close();
+    }
+}
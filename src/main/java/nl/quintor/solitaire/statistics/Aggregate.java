@@ -0,0 +1,155 @@
+package nl.quintor.solitaire.statistics;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Immutable statistics of a group of finished games, such as the games of one player or the games of one deal. The
+ * scores are counted in buckets of exponentially growing width: bucket 0 counts the scores of 0 and lower, bucket 1 the
+ * score 1, bucket 2 the scores 2 and 3, bucket 3 the scores 4 to 7 and so on; the last bucket counts all scores from
+ * {@link #bucketLowerBound(int) bucketLowerBound(BUCKETS - 1)}.
+ */
+public final class Aggregate {
+    /**
+     * Number of buckets of the score histogram.
+     */
+    public final static int BUCKETS = 16;
+    final static Aggregate EMPTY = new Aggregate(0, 0, 0, 0, 0, new int[BUCKETS]);
+
+    private final int games;
+    private final int wins;
+    private final long totalMoves;
+    private final long totalDurationMillis;
+    private final long totalScore;
+    private final int[] scoreHistogram;
+
+    Aggregate(int games, int wins, long totalMoves, long totalDurationMillis, long totalScore, int[] scoreHistogram){
+        this.games = games;
+        this.wins = wins;
+        this.totalMoves = totalMoves;
+        this.totalDurationMillis = totalDurationMillis;
+        this.totalScore = totalScore;
+        this.scoreHistogram = scoreHistogram;
+    }
+
+    /**
+     * Returns the bucket of the score histogram that counts a score.
+     *
+     * @param score score of a game
+     * @return index of the bucket, between 0 and {@link #BUCKETS} - 1
+     */
+    public static int bucketOf(long score){
+        return score <= 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(score));
+    }
+
+    /**
+     * Returns the lowest score counted by a bucket of the score histogram.
+     *
+     * @param bucket index of the bucket
+     * @return lowest score of the bucket; the first bucket also counts all negative scores
+     */
+    public static long bucketLowerBound(int bucket){
+        return bucket == 0 ? 0 : 1L << (bucket - 1);
+    }
+
+    /**
+     * Getter for games.
+     *
+     * @return number of finished games
+     */
+    public int getGames(){
+        return games;
+    }
+
+    /**
+     * Getter for wins.
+     *
+     * @return number of won games
+     */
+    public int getWins(){
+        return wins;
+    }
+
+    /**
+     * Returns the fraction of the games that has been won.
+     *
+     * @return win rate between 0 and 1, or 0 if no games have been played
+     */
+    public double getWinRate(){
+        return games == 0 ? 0 : (double) wins / games;
+    }
+
+    /**
+     * Returns the average number of moves per game.
+     *
+     * @return average number of moves, or 0 if no games have been played
+     */
+    public double getAverageMoves(){
+        return games == 0 ? 0 : (double) totalMoves / games;
+    }
+
+    /**
+     * Returns the average playing time per game.
+     *
+     * @return average playing time in milliseconds, or 0 if no games have been played
+     */
+    public long getAverageDurationMillis(){
+        return games == 0 ? 0 : totalDurationMillis / games;
+    }
+
+    /**
+     * Returns the average score per game.
+     *
+     * @return average score, or 0 if no games have been played
+     */
+    public double getAverageScore(){
+        return games == 0 ? 0 : (double) totalScore / games;
+    }
+
+    /**
+     * Returns the score distribution.
+     *
+     * @return copy of the histogram, the number of games per bucket (see {@link #bucketOf(long)})
+     */
+    public int[] getScoreHistogram(){
+        return scoreHistogram.clone();
+    }
+
+    /**
+     * String representation of these statistics, for example
+     * "12 game(s), 58% won, 87.5 moves and 00:03:12 on average, average score 410.2, scores 256+: 5, 512+: 7".
+     * Empty buckets are left out.
+     *
+     * @return String representation of these statistics
+     */
+    @Override
+    public String toString(){
+        if (games == 0) return "no games";
+        long seconds = getAverageDurationMillis() / 1000;
+        StringBuilder result = new StringBuilder(String.format(Locale.ROOT,
+            "%d game(s), %.0f%% won, %.1f moves and %02d:%02d:%02d on average, average score %.1f, scores",
+            games, getWinRate() * 100, getAverageMoves(), seconds / 3600, seconds / 60 % 60, seconds % 60, getAverageScore()));
+        String separator = " ";
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            if (scoreHistogram[bucket] == 0) continue;
+            result.append(separator).append(bucket == 0 ? "0-" : bucketLowerBound(bucket) + "+").append(": ").append(scoreHistogram[bucket]);
+            separator = ", ";
+        }
+        return result.toString();
+    }
+
+    @Override
+    public boolean equals(Object o){
+        if (this == o) return true;
+        if (!(o instanceof Aggregate)) return false;
+        Aggregate that = (Aggregate) o;
+        return games == that.games && wins == that.wins && totalMoves == that.totalMoves &&
+            totalDurationMillis == that.totalDurationMillis && totalScore == that.totalScore &&
+            Arrays.equals(scoreHistogram, that.scoreHistogram);
+    }
+
+    @Override
+    public int hashCode(){
+        return 31 * (31 * games + wins) + Arrays.hashCode(scoreHistogram);
+    }
+}
@@ -0,0 +1,123 @@
+package nl.quintor.solitaire.statistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Running statistics of groups of games, one row per key, stored in columns: one primitive array per statistic. A
+ * finished game updates one row in constant time; nothing is ever recomputed. The columns are saved and loaded as they
+ * are, one after the other. Not thread safe, the {@link GameStatistics} guards its tables with its lock.
+ *
+ * @param <K> type of the keys, such as the name of a player or the id of a deal
+ */
+final class AggregateTable<K> {
+    private final Map<K, Integer> rows = new HashMap<>();
+    private Object[] keys;
+    private int[] games;
+    private int[] wins;
+    private long[] totalMoves;
+    private long[] totalDurationMillis;
+    private long[] totalScore;
+    private final int[][] histogram = new int[Aggregate.BUCKETS][];
+    private int size = 0;
+
+    AggregateTable(){
+        allocate(16);
+    }
+
+    /**
+     * Adds a finished game to the row of a key, adding the row if the key is new.
+     */
+    void add(K key, long score, long durationMillis, int moves, boolean won){
+        Integer row = rows.get(key);
+        if (row == null) row = addRow(key);
+        games[row]++;
+        if (won) wins[row]++;
+        totalMoves[row] += moves;
+        totalDurationMillis[row] += durationMillis;
+        totalScore[row] += score;
+        histogram[Aggregate.bucketOf(score)][row]++;
+    }
+
+    /**
+     * Returns the statistics of a key.
+     *
+     * @return statistics of the key, without any games if the key has no row
+     */
+    Aggregate get(K key){
+        Integer row = rows.get(key);
+        if (row == null) return Aggregate.EMPTY;
+        int[] buckets = new int[Aggregate.BUCKETS];
+        for (int bucket = 0; bucket < buckets.length; bucket++) buckets[bucket] = histogram[bucket][row];
+        return new Aggregate(games[row], wins[row], totalMoves[row], totalDurationMillis[row], totalScore[row], buckets);
+    }
+
+    int size(){
+        return size;
+    }
+
+    /**
+     * Writes the number of rows and then every column, starting with the keys.
+     */
+    void write(DataOutput out, KeyWriter<? super K> keyWriter) throws IOException {
+        out.writeInt(size);
+        for (int row = 0; row < size; row++) keyWriter.write(out, key(row));
+        for (int row = 0; row < size; row++) out.writeInt(games[row]);
+        for (int row = 0; row < size; row++) out.writeInt(wins[row]);
+        for (int row = 0; row < size; row++) out.writeLong(totalMoves[row]);
+        for (int row = 0; row < size; row++) out.writeLong(totalDurationMillis[row]);
+        for (int row = 0; row < size; row++) out.writeLong(totalScore[row]);
+        for (int[] column : histogram) for (int row = 0; row < size; row++) out.writeInt(column[row]);
+    }
+
+    /**
+     * Reads the rows written by {@link #write(DataOutput, KeyWriter)} into this empty table.
+     */
+    void read(DataInput in, KeyReader<? extends K> keyReader) throws IOException {
+        int count = in.readInt();
+        allocate(Math.max(16, count));
+        for (int row = 0; row < count; row++) addRow(keyReader.read(in));
+        for (int row = 0; row < count; row++) games[row] = in.readInt();
+        for (int row = 0; row < count; row++) wins[row] = in.readInt();
+        for (int row = 0; row < count; row++) totalMoves[row] = in.readLong();
+        for (int row = 0; row < count; row++) totalDurationMillis[row] = in.readLong();
+        for (int row = 0; row < count; row++) totalScore[row] = in.readLong();
+        for (int[] column : histogram) for (int row = 0; row < count; row++) column[row] = in.readInt();
+    }
+
+    @SuppressWarnings("unchecked")
+    private K key(int row){
+        return (K) keys[row];
+    }
+
+    private int addRow(K key){
+        if (size == keys.length) allocate(size * 2);
+        keys[size] = key;
+        rows.put(key, size);
+        return size++;
+    }
+
+    private void allocate(int capacity){
+        keys = keys == null ? new Object[capacity] : Arrays.copyOf(keys, capacity);
+        games = games == null ? new int[capacity] : Arrays.copyOf(games, capacity);
+        wins = wins == null ? new int[capacity] : Arrays.copyOf(wins, capacity);
+        totalMoves = totalMoves == null ? new long[capacity] : Arrays.copyOf(totalMoves, capacity);
+        totalDurationMillis = totalDurationMillis == null ? new long[capacity] : Arrays.copyOf(totalDurationMillis, capacity);
+        totalScore = totalScore == null ? new long[capacity] : Arrays.copyOf(totalScore, capacity);
+        for (int bucket = 0; bucket < histogram.length; bucket++) {
+            histogram[bucket] = histogram[bucket] == null ? new int[capacity] : Arrays.copyOf(histogram[bucket], capacity);
+        }
+    }
+
+    interface KeyWriter<K> {
+        void write(DataOutput out, K key) throws IOException;
+    }
+
+    interface KeyReader<K> {
+        K read(DataInput in) throws IOException;
+    }
+}
@@ -0,0 +1,335 @@
+package nl.quintor.solitaire.statistics;
+
+import nl.quintor.solitaire.ui.cli.FrameBuffer;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Block of a {@link GameArchive}: the games of the block stored column by column, so every column holds similar numbers
+ * that encode and compress well. An ArchiveBlock collects the columns of the games that are added to it, until it is
+ * written; the static methods decode written blocks. Not thread safe, the {@link GameArchiveWriter} guards its block
+ * with its lock.
+ *
+ * <p>A block starts with the number of games, followed by six columns, each preceded by its length in bytes so a scan
+ * can skip the columns it does not need:
+ *
+ * <ol>
+ *     <li>deal ids: the difference with the deal id of the previous game, zigzag varint encoded, so consecutive deals
+ *     take one byte
+ *     <li>status: one byte per game, won in bit 0, lost in bit 1 and the number of decks minus one in bits 2 and 3
+ *     <li>scores: zigzag varint
+ *     <li>durations: milliseconds, varint
+ *     <li>move counts: varint
+ *     <li>moves: the moves of all games, deflated, preceded by their length before deflating. A move is one varint: 0
+ *     cycles the stock, otherwise it is one more than the source deck times {@link #DECK_IDS} plus the destination
+ *     deck, numbered in the alphabet of {@link #HEADERS}. A column source is followed by a varint of the row.
+ * </ol>
+ *
+ * Varints store seven bits per byte, least significant group first, with the high bit set on all bytes but the last.
+ */
+final class ArchiveBlock {
+    /**
+     * The deck ids of the player input of {@link nl.quintor.solitaire.game.moves.MoveCard}, for games of up to three
+     * decks: the stock, twelve stack piles and thirteen columns.
+     */
+    private final static String[] HEADERS = {
+        "O", "SA", "SB", "SC", "SD", "SE", "SF", "SG", "SH", "SI", "SJ", "SK", "SL",
+        "A", "B", "C", "D", "E", "F", "G", "H", "I", "J", "K", "L", "M"
+    };
+    private final static int DECK_IDS = HEADERS.length;
+    private final static int FIRST_COLUMN = 13;
+    private final static int CYCLE_STOCK = 0;
+    private final static int WON = 1;
+    private final static int LOST = 2;
+    private final static int CACHED_ROWS = 32;
+    private final static String[][] MOVES = new String[1 + DECK_IDS * DECK_IDS][];
+    static {
+        for (int code = 1; code < MOVES.length; code++) {
+            MOVES[code] = new String[(code - 1) / DECK_IDS >= FIRST_COLUMN ? CACHED_ROWS : 1];
+        }
+    }
+
+    private final FrameBuffer dealIds = new FrameBuffer(1024);
+    private final FrameBuffer status = new FrameBuffer(1024);
+    private final FrameBuffer scores = new FrameBuffer(1024);
+    private final FrameBuffer durations = new FrameBuffer(1024);
+    private final FrameBuffer moveCounts = new FrameBuffer(1024);
+    private final FrameBuffer moves = new FrameBuffer(1 << 16);
+    private final FrameBuffer gameMoves = new FrameBuffer(256);
+    private long previousDealId = 0;
+    private int games = 0;
+
+    /**
+     * Adds a game to the columns of the block.
+     *
+     * @param game game to add
+     * @throws IllegalArgumentException if a move is not the player input of a card move or cycling the stock; the game
+     * is not added
+     */
+    void add(ArchivedGame game){
+        gameMoves.clear();
+        for (String move : game.getMoves()) putMove(gameMoves, move);
+        moves.put(gameMoves.array(), 0, gameMoves.size());
+        putVarLong(dealIds, zigzag(game.getDealId() - previousDealId));
+        previousDealId = game.getDealId();
+        status.put((byte) ((game.isWon() ? WON : 0) | (game.isLost() ? LOST : 0) | (game.getDecks() - 1) << 2));
+        putVarLong(scores, zigzag(game.getScore()));
+        putVarLong(durations, game.getDurationMillis());
+        putVarLong(moveCounts, game.getMoveCount());
+        games++;
+    }
+
+    /**
+     * Returns the number of games in the block.
+     *
+     * @return number of games added since the block was last cleared
+     */
+    int size(){
+        return games;
+    }
+
+    /**
+     * Appends the block to the buffer.
+     *
+     * @param out buffer to append the block to
+     */
+    void writeTo(FrameBuffer out){
+        putVarLong(out, games);
+        putColumn(out, dealIds);
+        putColumn(out, status);
+        putColumn(out, scores);
+        putColumn(out, durations);
+        putColumn(out, moveCounts);
+        putVarLong(out, moves.size());
+        putDeflated(out, moves);
+    }
+
+    /**
+     * Removes all games, so the block can be reused.
+     */
+    void clear(){
+        dealIds.clear();
+        status.clear();
+        scores.clear();
+        durations.clear();
+        moveCounts.clear();
+        moves.clear();
+        previousDealId = 0;
+        games = 0;
+    }
+
+    /**
+     * Decodes all games of a block.
+     *
+     * @param block the block, from its first byte to its last
+     * @param withMoves false to skip the moves column, which is the largest and the slowest to decode
+     * @return games of the block
+     */
+    static List<ArchivedGame> decode(ByteBuffer block, boolean withMoves){
+        int games = (int) getVarLong(block);
+        return decode(block, 0, games, withMoves);
+    }
+
+    /**
+     * Decodes one game of a block.
+     *
+     * @param block the block, from its first byte to its last
+     * @param index index of the game in the block
+     * @return the game
+     */
+    static ArchivedGame decode(ByteBuffer block, int index){
+        getVarLong(block);
+        return decode(block, index, index + 1, true).get(0);
+    }
+
+    /**
+     * Decodes the games from index first (inclusive) to index end (exclusive). The columns are decoded up to index end,
+     * because every value depends on the previous ones.
+     */
+    private static List<ArchivedGame> decode(ByteBuffer block, int first, int end, boolean withMoves){
+        long[] dealIds = new long[end];
+        ByteBuffer column = nextColumn(block);
+        long dealId = 0;
+        for (int i = 0; i < end; i++) dealIds[i] = dealId += unzigzag(getVarLong(column));
+
+        byte[] status = new byte[end];
+        nextColumn(block).get(status);
+
+        long[] scores = new long[end];
+        column = nextColumn(block);
+        for (int i = 0; i < end; i++) scores[i] = unzigzag(getVarLong(column));
+
+        long[] durations = new long[end];
+        column = nextColumn(block);
+        for (int i = 0; i < end; i++) durations[i] = getVarLong(column);
+
+        int[] moveCounts = new int[end];
+        column = nextColumn(block);
+        for (int i = 0; i < end; i++) moveCounts[i] = (int) getVarLong(column);
+
+        ByteBuffer moves = withMoves ? inflate(block) : null;
+        List<ArchivedGame> games = new ArrayList<>(end - first);
+        for (int i = 0; i < end; i++) {
+            List<String> inputs = Collections.emptyList();
+            if (moves != null) {
+                if (i < first) {
+                    for (int move = 0; move < moveCounts[i]; move++) skipMove(moves);
+                    continue;
+                }
+                String[] decoded = new String[moveCounts[i]];
+                for (int move = 0; move < decoded.length; move++) decoded[move] = getMove(moves);
+                inputs = Collections.unmodifiableList(Arrays.asList(decoded));
+            }
+            if (i < first) continue;
+            games.add(new ArchivedGame(dealIds[i], (status[i] >> 2) + 1, (status[i] & WON) != 0, (status[i] & LOST) != 0,
+                scores[i], durations[i], moveCounts[i], inputs));
+        }
+        return games;
+    }
+
+    /**
+     * Appends the varint code of a move.
+     */
+    private static void putMove(FrameBuffer out, String input){
+        if ("C".equals(input)) {
+            putVarLong(out, CYCLE_STOCK);
+            return;
+        }
+        int space = input.indexOf(' ', 2);
+        if (!input.startsWith("M ") || space < 0) throw new IllegalArgumentException("Move \"" + input + "\" can't be archived");
+        String sourceLocation = input.substring(2, space);
+        int source = deckId(sourceLocation, true, input);
+        int destination = deckId(input.substring(space + 1), false, input);
+        putVarLong(out, 1 + source * DECK_IDS + destination);
+        if (source >= FIRST_COLUMN) putVarLong(out, Integer.parseInt(sourceLocation.substring(1)));
+    }
+
+    /**
+     * Returns the deck id of a location: the stock, a stack pile or a column, which is followed by a row in a source.
+     */
+    private static int deckId(String location, boolean source, String input){
+        for (int id = 0; id < DECK_IDS; id++) {
+            String header = HEADERS[id];
+            boolean withRow = source && id >= FIRST_COLUMN;
+            if (withRow ? location.startsWith(header) && isRow(location.substring(1)) : location.equals(header)) return id;
+        }
+        throw new IllegalArgumentException("Move \"" + input + "\" can't be archived");
+    }
+
+    private static boolean isRow(String row){
+        if (row.isEmpty() || row.length() > 2) return false;
+        for (int i = 0; i < row.length(); i++) {
+            if (!Character.isDigit(row.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the player input of the next move. The player input of a move and row is created once and then reused,
+     * because a scan decodes tens of millions of moves but there are only a few thousand different ones.
+     */
+    private static String getMove(ByteBuffer in){
+        int code = (int) getVarLong(in);
+        if (code == CYCLE_STOCK) return "C";
+        int source = (code - 1) / DECK_IDS;
+        int row = source >= FIRST_COLUMN ? (int) getVarLong(in) : 0;
+        String[] rows = MOVES[code];
+        if (rows == null || row >= rows.length) return moveInput(code, row);
+        String move = rows[row];
+        // racy but benign: threads that miss the move of another thread create an equal String
+        if (move == null) rows[row] = move = moveInput(code, row);
+        return move;
+    }
+
+    private static String moveInput(int code, int row){
+        int source = (code - 1) / DECK_IDS;
+        String sourceLocation = source >= FIRST_COLUMN ? HEADERS[source] + row : HEADERS[source];
+        return "M " + sourceLocation + " " + HEADERS[(code - 1) % DECK_IDS];
+    }
+
+    private static void skipMove(ByteBuffer in){
+        int code = (int) getVarLong(in);
+        if (code != CYCLE_STOCK && (code - 1) / DECK_IDS >= FIRST_COLUMN) getVarLong(in);
+    }
+
+    private static void putColumn(FrameBuffer out, FrameBuffer column){
+        putVarLong(out, column.size());
+        out.put(column.array(), 0, column.size());
+    }
+
+    /**
+     * Returns the next column as a buffer of its own and moves the block past it.
+     */
+    private static ByteBuffer nextColumn(ByteBuffer block){
+        int length = (int) getVarLong(block);
+        ByteBuffer column = block.slice();
+        ((Buffer) column).limit(length);
+        ((Buffer) block).position(block.position() + length);
+        return column;
+    }
+
+    private static void putDeflated(FrameBuffer out, FrameBuffer column){
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(column.array(), 0, column.size());
+            deflater.finish();
+            byte[] chunk = new byte[4096];
+            FrameBuffer deflated = new FrameBuffer(chunk.length);
+            while (!deflater.finished()) deflated.put(chunk, 0, deflater.deflate(chunk));
+            putColumn(out, deflated);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static ByteBuffer inflate(ByteBuffer block){
+        byte[] moves = new byte[(int) getVarLong(block)];
+        ByteBuffer column = nextColumn(block);
+        byte[] deflated = new byte[column.remaining()];
+        column.get(deflated);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(deflated);
+            if (inflater.inflate(moves) != moves.length || !inflater.finished()) throw new IllegalArgumentException("Damaged moves column");
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Damaged moves column", e);
+        } finally {
+            inflater.end();
+        }
+        return ByteBuffer.wrap(moves);
+    }
+
+    private static long zigzag(long value){
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value){
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void putVarLong(FrameBuffer out, long value){
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static long getVarLong(ByteBuffer in){
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
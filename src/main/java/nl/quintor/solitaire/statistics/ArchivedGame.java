@@ -0,0 +1,161 @@
+package nl.quintor.solitaire.statistics;
+
+import nl.quintor.solitaire.game.moves.RevertibleMove;
+import nl.quintor.solitaire.models.state.GameState;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Finished game as it is kept in a {@link GameArchive}: the deal, the number of decks, the result, the final score,
+ * the playing time and the player input of every move that was not reverted. The deal and the moves are enough to
+ * replay the game. Immutable.
+ */
+public final class ArchivedGame {
+    private final long dealId;
+    private final int decks;
+    private final boolean won;
+    private final boolean lost;
+    private final long score;
+    private final long durationMillis;
+    private final int moveCount;
+    private final List<String> moves;
+
+    /**
+     * Constructs an archived game.
+     *
+     * @param dealId number that identifies the deal that was played
+     * @param decks number of decks of the game, 1 to 4
+     * @param won true if the game was won
+     * @param lost true if the game was lost or given up
+     * @param score final score
+     * @param durationMillis playing time in milliseconds, not negative
+     * @param moves player input of the moves, "C" or "M source destination", in the order they were played
+     */
+    public ArchivedGame(long dealId, int decks, boolean won, boolean lost, long score, long durationMillis, List<String> moves){
+        this(dealId, decks, won, lost, score, durationMillis, moves.size(), Collections.unmodifiableList(new ArrayList<>(moves)));
+    }
+
+    ArchivedGame(long dealId, int decks, boolean won, boolean lost, long score, long durationMillis, int moveCount,
+                 List<String> moves){
+        if (decks < 1 || decks > 4) throw new IllegalArgumentException("1 <= decks <= 4");
+        if (durationMillis < 0) throw new IllegalArgumentException("The duration can't be negative");
+        this.dealId = dealId;
+        this.decks = decks;
+        this.won = won;
+        this.lost = lost;
+        this.score = score;
+        this.durationMillis = durationMillis;
+        this.moveCount = moveCount;
+        this.moves = moves;
+    }
+
+    /**
+     * Returns the archived form of a finished game. Every deck of a game has four stack piles, which gives the number
+     * of decks.
+     *
+     * @param gameState finished game
+     * @return archived game
+     */
+    public static ArchivedGame of(GameState gameState){
+        List<String> moves = new ArrayList<>(gameState.getMoves().size());
+        for (RevertibleMove move : gameState.getMoves()) moves.add(move.getPlayerInput().toUpperCase());
+        return new ArchivedGame(gameState.getDealId(), gameState.getStackPiles().size() / 4, gameState.isGameWon(),
+            gameState.isGameLost(), gameState.getScore(), gameState.getPlayingNanos() / 1_000_000, moves.size(),
+            Collections.unmodifiableList(moves));
+    }
+
+    /**
+     * Getter for dealId.
+     *
+     * @return number that identifies the deal that was played
+     */
+    public long getDealId(){
+        return dealId;
+    }
+
+    /**
+     * Getter for decks.
+     *
+     * @return number of decks of the game
+     */
+    public int getDecks(){
+        return decks;
+    }
+
+    /**
+     * Getter for won.
+     *
+     * @return true if the game was won
+     */
+    public boolean isWon(){
+        return won;
+    }
+
+    /**
+     * Getter for lost.
+     *
+     * @return true if the game was lost or given up
+     */
+    public boolean isLost(){
+        return lost;
+    }
+
+    /**
+     * Getter for score.
+     *
+     * @return final score of the game
+     */
+    public long getScore(){
+        return score;
+    }
+
+    /**
+     * Getter for durationMillis.
+     *
+     * @return playing time in milliseconds
+     */
+    public long getDurationMillis(){
+        return durationMillis;
+    }
+
+    /**
+     * Returns the number of moves, also for games that were read without their moves.
+     *
+     * @return number of moves
+     */
+    public int getMoveCount(){
+        return moveCount;
+    }
+
+    /**
+     * Returns the player input of the moves. Empty for games that were read without their moves, see
+     * {@link GameArchive#streamWithoutMoves()}.
+     *
+     * @return unmodifiable list of player input
+     */
+    public List<String> getMoves(){
+        return moves;
+    }
+
+    @Override
+    public boolean equals(Object o){
+        if (this == o) return true;
+        if (!(o instanceof ArchivedGame)) return false;
+        ArchivedGame that = (ArchivedGame) o;
+        return dealId == that.dealId && decks == that.decks && won == that.won && lost == that.lost && score == that.score
+            && durationMillis == that.durationMillis && moveCount == that.moveCount && moves.equals(that.moves);
+    }
+
+    @Override
+    public int hashCode(){
+        return Long.hashCode(dealId) * 31 + moves.hashCode();
+    }
+
+    @Override
+    public String toString(){
+        return "deal " + dealId + " (" + decks + " deck" + (decks == 1 ? "" : "s") + ") " + (won ? "won" : lost ? "lost" : "unfinished")
+            + " for " + score + " points in " + durationMillis + " ms and " + moveCount + " move(s)";
+    }
+}
@@ -0,0 +1,176 @@
+package nl.quintor.solitaire.statistics;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Read access to an archive of finished games written by a {@link GameArchiveWriter}. The games are stored column by
+ * column in compressed blocks, see {@link ArchiveBlock}: a game takes a few bytes for its deal, result, score and
+ * playing time, and about a byte per move, so millions of games fit in a file of tens of megabytes.
+ *
+ * <p>Opening an archive only reads the footer with the index of the blocks. A game is read by its index, which reads
+ * and decodes the block of the game. Analytics scan the archive with {@link #stream()}, which reads the blocks one by
+ * one; a parallel stream reads and decodes different blocks on different threads. Scans that don't need the moves use
+ * {@link #streamWithoutMoves()}, which skips the largest column. All methods are thread safe; blocks are read with
+ * positional reads, which do not share a file position.
+ */
+public final class GameArchive implements Closeable {
+    private final static int TRAILER_SIZE = 16;
+    private final static int INDEX_ENTRY_SIZE = 16;
+    private final FileChannel channel;
+    private final long[] blockOffsets;
+    private final int[] blockLengths;
+    private final long[] firstGames; // index of the first game of every block, and the number of games at the end
+
+    private GameArchive(FileChannel channel, long[] blockOffsets, int[] blockLengths, long[] firstGames){
+        this.channel = channel;
+        this.blockOffsets = blockOffsets;
+        this.blockLengths = blockLengths;
+        this.firstGames = firstGames;
+    }
+
+    /**
+     * Opens an archive and reads its index.
+     *
+     * @param file archive file
+     * @return the archive
+     * @throws IOException if the file could not be read, or is not a complete archive
+     */
+    public static GameArchive open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < 4 + TRAILER_SIZE || read(channel, 0, 4).getInt() != GameArchiveWriter.MAGIC) throw new IOException("Not a game archive");
+            ByteBuffer trailer = read(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+            int blocks = trailer.getInt();
+            long footerOffset = trailer.getLong();
+            if (trailer.getInt() != GameArchiveWriter.MAGIC || blocks < 0
+                || footerOffset + (long) blocks * INDEX_ENTRY_SIZE != size - TRAILER_SIZE) {
+                throw new IOException("Incomplete game archive, it was not closed");
+            }
+            long[] blockOffsets = new long[blocks];
+            int[] blockLengths = new int[blocks];
+            long[] firstGames = new long[blocks + 1];
+            ByteBuffer footer = read(channel, footerOffset, blocks * INDEX_ENTRY_SIZE);
+            for (int block = 0; block < blocks; block++) {
+                blockOffsets[block] = footer.getLong();
+                blockLengths[block] = footer.getInt();
+                firstGames[block + 1] = firstGames[block] + footer.getInt();
+            }
+            return new GameArchive(channel, blockOffsets, blockLengths, firstGames);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of games in the archive.
+     *
+     * @return number of games
+     */
+    public long getGameCount(){
+        return firstGames[firstGames.length - 1];
+    }
+
+    /**
+     * Returns the number of blocks in the archive.
+     *
+     * @return number of blocks
+     */
+    public int getBlockCount(){
+        return blockOffsets.length;
+    }
+
+    /**
+     * Reads a game, with its moves.
+     *
+     * @param index index of the game, 0 for the first game that was archived
+     * @return the game
+     * @throws IOException if the block of the game could not be read
+     */
+    public ArchivedGame get(long index) throws IOException {
+        if (index < 0 || index >= getGameCount()) throw new IndexOutOfBoundsException("Game " + index + " of " + getGameCount());
+        int block = Arrays.binarySearch(firstGames, index);
+        // a game that is not the first of its block is found as the insertion point, after its block
+        if (block < 0) block = -block - 2;
+        return ArchiveBlock.decode(readBlock(block), (int) (index - firstGames[block]));
+    }
+
+    /**
+     * Reads all games of a block.
+     *
+     * @param block index of the block
+     * @return the games of the block, in the order they were archived
+     * @throws IOException if the block could not be read
+     */
+    public List<ArchivedGame> getBlock(int block) throws IOException {
+        return ArchiveBlock.decode(readBlock(block), true);
+    }
+
+    /**
+     * Returns all games, with their moves, in the order they were archived. The stream reads the blocks lazily; call
+     * {@link Stream#parallel()} to scan the blocks in parallel.
+     *
+     * @return stream of the games
+     * @throws UncheckedIOException from the terminal operation, if a block could not be read
+     */
+    public Stream<ArchivedGame> stream(){
+        return stream(true);
+    }
+
+    /**
+     * Returns all games like {@link #stream()}, but without decoding their moves: {@link ArchivedGame#getMoves()} is
+     * empty, {@link ArchivedGame#getMoveCount()} is set.
+     *
+     * @return stream of the games, without moves
+     * @throws UncheckedIOException from the terminal operation, if a block could not be read
+     */
+    public Stream<ArchivedGame> streamWithoutMoves(){
+        return stream(false);
+    }
+
+    private Stream<ArchivedGame> stream(boolean withMoves){
+        return IntStream.range(0, getBlockCount()).boxed().flatMap(block -> {
+            try {
+                return ArchiveBlock.decode(readBlock(block), withMoves).stream();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private ByteBuffer readBlock(int block) throws IOException {
+        return read(channel, blockOffsets[block], blockLengths[block]);
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) throw new EOFException("Unexpected end of the game archive");
+        }
+        ((Buffer) buffer).flip();
+        return buffer;
+    }
+
+    /**
+     * Closes the file.
+     *
+     * @throws IOException if the file could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
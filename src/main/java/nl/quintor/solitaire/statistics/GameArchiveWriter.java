@@ -0,0 +1,150 @@
+package nl.quintor.solitaire.statistics;
+
+import nl.quintor.solitaire.models.state.GameState;
+import nl.quintor.solitaire.ui.cli.FrameBuffer;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Writes finished games to a {@link GameArchive} file as they come in. Games are collected in a block, see
+ * {@link ArchiveBlock}, which is compressed and written to the file as soon as it is full, so the writer never holds
+ * more than one block in memory, however many games are archived. Closing the writer writes the last block and the
+ * footer with the index of the blocks; an archive that was not closed can't be read. All methods are thread safe.
+ *
+ * <p>The file starts with {@link #MAGIC}, followed by the blocks. The footer holds the offset, the length and the number
+ * of games of every block, and ends with the number of blocks, the offset of the footer and {@link #MAGIC} again.
+ */
+public final class GameArchiveWriter implements Closeable {
+    /**
+     * First and last four bytes of an archive: "SGA1".
+     */
+    final static int MAGIC = 0x53474131;
+    /**
+     * Number of games per block, unless another number is passed to {@link #create(Path, int)}. Large enough to
+     * compress the moves well, small enough to read a single game quickly.
+     */
+    public final static int DEFAULT_GAMES_PER_BLOCK = 256;
+    private final DataOutputStream out;
+    private final int gamesPerBlock;
+    private final ArchiveBlock block = new ArchiveBlock();
+    private final FrameBuffer buffer = new FrameBuffer(1 << 16);
+    private long offset;
+    private long gameCount = 0;
+    private long[] blockOffsets = new long[16];
+    private int[] blockLengths = new int[16];
+    private int[] blockGames = new int[16];
+    private int blocks = 0;
+    private boolean closed = false;
+
+    private GameArchiveWriter(DataOutputStream out, int gamesPerBlock) throws IOException {
+        this.out = out;
+        this.gamesPerBlock = gamesPerBlock;
+        out.writeInt(MAGIC);
+        offset = 4;
+    }
+
+    /**
+     * Creates an archive file with blocks of {@link #DEFAULT_GAMES_PER_BLOCK} games, replacing the file if it exists.
+     *
+     * @param file archive file
+     * @return writer of the archive
+     * @throws IOException if the file could not be created
+     */
+    public static GameArchiveWriter create(Path file) throws IOException {
+        return create(file, DEFAULT_GAMES_PER_BLOCK);
+    }
+
+    /**
+     * Creates an archive file with blocks of the provided number of games, replacing the file if it exists.
+     *
+     * @param file archive file
+     * @param gamesPerBlock number of games per block, at least 1
+     * @return writer of the archive
+     * @throws IOException if the file could not be created
+     */
+    public static GameArchiveWriter create(Path file, int gamesPerBlock) throws IOException {
+        if (gamesPerBlock < 1) throw new IllegalArgumentException("A block holds at least one game");
+        return new GameArchiveWriter(new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)), gamesPerBlock);
+    }
+
+    /**
+     * Archives a finished game, see {@link ArchivedGame#of(GameState)}.
+     *
+     * @param gameState finished game
+     * @throws IOException if a full block could not be written
+     */
+    public void append(GameState gameState) throws IOException {
+        append(ArchivedGame.of(gameState));
+    }
+
+    /**
+     * Archives a game.
+     *
+     * @param game game to archive
+     * @throws IOException if a full block could not be written
+     * @throws IllegalArgumentException if a move of the game is not the player input of a card move or cycling the
+     * stock, in which case the game is not archived
+     */
+    public synchronized void append(ArchivedGame game) throws IOException {
+        if (closed) throw new IllegalStateException("The archive is closed");
+        block.add(game);
+        gameCount++;
+        if (block.size() == gamesPerBlock) writeBlock();
+    }
+
+    /**
+     * Returns the number of archived games.
+     *
+     * @return number of games appended so far
+     */
+    public synchronized long getGameCount(){
+        return gameCount;
+    }
+
+    private void writeBlock() throws IOException {
+        buffer.clear();
+        block.writeTo(buffer);
+        if (blocks == blockOffsets.length) {
+            blockOffsets = Arrays.copyOf(blockOffsets, blocks * 2);
+            blockLengths = Arrays.copyOf(blockLengths, blocks * 2);
+            blockGames = Arrays.copyOf(blockGames, blocks * 2);
+        }
+        blockOffsets[blocks] = offset;
+        blockLengths[blocks] = buffer.size();
+        blockGames[blocks] = block.size();
+        blocks++;
+        buffer.writeTo(out);
+        offset += buffer.size();
+        block.clear();
+    }
+
+    /**
+     * Writes the last block and the footer, and closes the file. Does nothing if the writer is already closed.
+     *
+     * @throws IOException if the file could not be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            if (block.size() > 0) writeBlock();
+            for (int i = 0; i < blocks; i++) {
+                out.writeLong(blockOffsets[i]);
+                out.writeInt(blockLengths[i]);
+                out.writeInt(blockGames[i]);
+            }
+            out.writeInt(blocks);
+            out.writeLong(offset);
+            out.writeInt(MAGIC);
+        } finally {
+            out.close();
+        }
+    }
+}
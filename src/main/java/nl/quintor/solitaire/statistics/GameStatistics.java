@@ -0,0 +1,162 @@
+package nl.quintor.solitaire.statistics;
+
+import nl.quintor.solitaire.models.state.GameState;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Statistics of finished games per player and per deal: number of games, win rate, average number of moves, average
+ * playing time, average score and score distribution, see {@link Aggregate}. Every finished game updates the running
+ * totals of its player and its deal, so the statistics are never computed from the history of games, which is not
+ * kept. All methods are thread safe.
+ *
+ * <p>The statistics are saved in a columnar file: per table (players, then deals) the number of rows, the column of
+ * keys and then one column per total, each column a plain sequence of numbers. Loading the file reads every column
+ * straight into a primitive array. The file is replaced as a whole by {@link #save()} and {@link #close()}; a game
+ * recorded after the last save is lost when the application stops.
+ */
+public final class GameStatistics implements Closeable {
+    private final static int MAGIC = 0x53535431; // "SST1"
+    private final AggregateTable<String> players = new AggregateTable<>();
+    private final AggregateTable<Long> deals = new AggregateTable<>();
+    private final Path file;
+
+    private GameStatistics(Path file){
+        this.file = file;
+    }
+
+    /**
+     * Creates empty statistics that are not saved.
+     *
+     * @return new statistics
+     */
+    public static GameStatistics inMemory(){
+        return new GameStatistics(null);
+    }
+
+    /**
+     * Loads the statistics of a file, which is created when the statistics are saved if it does not exist.
+     *
+     * @param file statistics file
+     * @return statistics of the file
+     * @throws IOException if the file could not be read, or is not a statistics file
+     */
+    public static GameStatistics open(Path file) throws IOException {
+        GameStatistics statistics = new GameStatistics(file);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a statistics file");
+            statistics.players.read(in, DataInput::readUTF);
+            statistics.deals.read(in, DataInput::readLong);
+        } catch (NoSuchFileException e) {
+            // no games have been recorded yet
+        }
+        return statistics;
+    }
+
+    /**
+     * Records a finished game.
+     *
+     * @param player name of the player
+     * @param gameState finished game
+     */
+    public void record(String player, GameState gameState){
+        record(player, gameState.getDealId(), gameState.getScore(), gameState.getPlayingNanos() / 1_000_000,
+            gameState.getMoves().size(), gameState.isGameWon());
+    }
+
+    /**
+     * Records the result of a game.
+     *
+     * @param player name of the player
+     * @param dealId number that identifies the deal that was played
+     * @param score final score
+     * @param durationMillis playing time in milliseconds
+     * @param moves number of moves
+     * @param won true if the game was won
+     */
+    public synchronized void record(String player, long dealId, long score, long durationMillis, int moves, boolean won){
+        players.add(player, score, durationMillis, moves, won);
+        deals.add(dealId, score, durationMillis, moves, won);
+    }
+
+    /**
+     * Returns the statistics of a player.
+     *
+     * @param player name of the player
+     * @return statistics of the games of the player
+     */
+    public synchronized Aggregate ofPlayer(String player){
+        return players.get(player);
+    }
+
+    /**
+     * Returns the statistics of a deal.
+     *
+     * @param dealId number that identifies the deal
+     * @return statistics of the games of the deal, by any player
+     */
+    public synchronized Aggregate ofDeal(long dealId){
+        return deals.get(dealId);
+    }
+
+    /**
+     * Returns the number of players.
+     *
+     * @return number of players that finished a game
+     */
+    public synchronized int getPlayerCount(){
+        return players.size();
+    }
+
+    /**
+     * Returns the number of deals.
+     *
+     * @return number of deals that have been finished
+     */
+    public synchronized int getDealCount(){
+        return deals.size();
+    }
+
+    /**
+     * Saves the statistics to the file, if any. The statistics are written to a temporary file first, which then
+     * replaces the file, so the file is never left half written.
+     *
+     * @throws IOException if the file could not be written
+     */
+    public synchronized void save() throws IOException {
+        if (file == null) return;
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+                out.writeInt(MAGIC);
+                players.write(out, DataOutput::writeUTF);
+                deals.write(out, DataOutput::writeLong);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Saves the statistics, see {@link #save()}.
+     *
+     * @throws IOException if the file could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        save();
+    }
+}
@@ -0,0 +1,33 @@
+package nl.quintor.solitaire.ui;
+
+import nl.quintor.solitaire.models.state.GameState;
+
+/**
+ * The part of a {@link UI} that shows the game and the messages to the player, without requesting moves. Sessions that
+ * receive the player requests from elsewhere, see {@link nl.quintor.solitaire.game.GameSession#play(String)}, only need
+ * a Display.
+ */
+public interface Display{
+    /**
+     * Set a message to show the player the next time {@link #refresh(GameState)} is called. This message
+     * should be shown as a non-error message.
+     *
+     * @param message message to show the player
+     */
+    void setMessage(String message);
+
+    /**
+     * Set an error message to show the player the next time {@link #refresh(GameState)} is called. This
+     * message should be shown as an error.
+     *
+     * @param message error message to show the player
+     */
+    void setErrorMessage(String message);
+
+    /**
+     * Signals to the UI implementation that the game state has changed. The UI may or may not refresh more often.
+     *
+     * @param gameState the game state to be visualized by the UI
+     */
+    void refresh(GameState gameState);
+}
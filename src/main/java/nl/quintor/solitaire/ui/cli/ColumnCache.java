@@ -0,0 +1,66 @@
+package nl.quintor.solitaire.ui.cli;
+
+import nl.quintor.solitaire.models.deck.Deck;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Cache of rendered columns, keyed on the position of the column on the board. A column is only rendered again if a
+ * different {@link Deck} is shown at its position or if its {@link Deck#getModificationStamp() modification stamp}
+ * changed since it was last rendered. Since a move touches at most two decks, a frame usually re-renders at most two
+ * columns.
+ *
+ * <p>Instances are not thread safe; every UI keeps its own cache.
+ *
+ * @param <T> type of a rendered column, for example an array of cell Strings
+ */
+final class ColumnCache<T> {
+    private final Function<Deck, T> renderer;
+    private Deck[] decks = new Deck[0];
+    private long[] stamps = new long[0];
+    private Object[] renderedColumns = new Object[0];
+    private int renderCount = 0;
+
+    /**
+     * Constructs an empty cache that renders columns with the provided function.
+     *
+     * @param renderer function that renders a complete column
+     */
+    ColumnCache(Function<Deck, T> renderer){
+        this.renderer = renderer;
+    }
+
+    /**
+     * Returns the rendered column at the provided position, rendering it if it is not cached or has changed.
+     *
+     * @param position position of the column on the board, starting at 0
+     * @param column deck shown at that position
+     * @return rendered column
+     */
+    @SuppressWarnings("unchecked")
+    T get(int position, Deck column){
+        if (position >= decks.length) {
+            decks = Arrays.copyOf(decks, position + 1);
+            stamps = Arrays.copyOf(stamps, position + 1);
+            renderedColumns = Arrays.copyOf(renderedColumns, position + 1);
+        }
+        long stamp = column.getModificationStamp();
+        if (decks[position] != column || stamps[position] != stamp) {
+            decks[position] = column;
+            stamps[position] = stamp;
+            renderedColumns[position] = renderer.apply(column);
+            renderCount++;
+        }
+        return (T) renderedColumns[position];
+    }
+
+    /**
+     * Returns the number of times a column has been rendered by this cache, which shows how effective the cache is.
+     *
+     * @return number of rendered columns
+     */
+    int getRenderCount(){
+        return renderCount;
+    }
+}
@@ -1,73 +1,149 @@
 package nl.quintor.solitaire.ui.cli;
 
+import nl.quintor.solitaire.Platform;
 import nl.quintor.solitaire.game.moves.Move;
+import nl.quintor.solitaire.metrics.FlightEvents;
+import nl.quintor.solitaire.metrics.LatencyHistogram;
+import nl.quintor.solitaire.metrics.Metrics;
+import nl.quintor.solitaire.metrics.RefreshEvent;
 import nl.quintor.solitaire.models.state.GameState;
 import nl.quintor.solitaire.ui.UI;
 
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Scanner;
-import java.util.stream.Collectors;
 
 /**
- * Command line implementation of {@link UI}.
+ * Command line implementation of {@link UI}. Every screen is encoded by a {@link FrameEncoder} into a reusable buffer and
+ * written to stdout's channel with a single write. On ANSI capable terminals (that is, non-Windows terminals) the screen
+ * is updated incrementally by a {@link DiffRenderer}, so only the changed parts of the board are written to the terminal.
+ *
+ * <p>By default the UI uses the console. It can also be connected to other streams, for example to a network
+ * connection with a remote terminal, see {@link nl.quintor.solitaire.server.GameServer}.
  */
 public class CommandLineUI implements UI{
     private static final String ANSI_RED = "\u001B[31m";
     private static final String ANSI_RESET = "\u001B[0m";
+    private static final LatencyHistogram REFRESH = Metrics.histogram("ui.refresh");
+    private final FrameBuffer frame = new FrameBuffer(4096);
+    private final FrameBuffer output = new FrameBuffer(4096);
+    private final FrameEncoder encoder = new FrameEncoder(frame);
+    private final DiffRenderer renderer = new DiffRenderer();
+    private final WritableByteChannel out;
+    private final Scanner reader;
+    private final boolean ansi;
     private String message = "";
-    private Scanner reader = new Scanner(System.in);
+
+    /**
+     * Constructs a UI that uses the console. ANSI escape codes are used on all terminals except Windows terminals.
+     */
+    public CommandLineUI(){
+        this(System.in, new FileOutputStream(FileDescriptor.out).getChannel(), !Platform.WINDOWS);
+    }
+
+    /**
+     * Constructs a UI that reads the player input from the provided stream and writes the screens to the provided
+     * channel.
+     *
+     * @param in stream of UTF-8 encoded player input lines
+     * @param out channel that the UTF-8 encoded screens are written to
+     * @param ansi true if the receiving terminal supports ANSI escape codes, in which case the screen is updated
+     *             incrementally and errors are shown in red
+     */
+    public CommandLineUI(InputStream in, WritableByteChannel out, boolean ansi){
+        this.reader = new Scanner(in, "UTF-8");
+        this.out = out;
+        this.ansi = ansi;
+    }
 
     public void setMessage(String message){
         this.message = message;
     }
 
     public void setErrorMessage(String message){
-        this.message = System.getProperty("os.name").contains("Windows") ? message : ANSI_RED + message + ANSI_RESET;
+        this.message = ansi ? ANSI_RED + message + ANSI_RESET : message;
     }
 
     public void refresh(GameState gameState){
-        clrscr();
-        System.out.println(GameStateParser.parseGameState(gameState));
-        if (message.length() != 0) System.out.println(message);
+        RefreshEvent event = FlightEvents.beginRefresh();
+        long start = Metrics.start();
+        createFrame(gameState);
+        int written = draw();
+        REFRESH.stop(start);
+        if (event != null) event.complete(written, ansi, false);
     }
 
     public String refreshAndRequestMove(GameState gameState, Collection<Move> moves){
-        refresh(gameState);
-        System.out.println(parseMoves(moves));
-        return requestMove();
+        RefreshEvent event = FlightEvents.beginRefresh();
+        long start = Metrics.start();
+        createFrame(gameState);
+        appendMoves(moves);
+        encoder.appendLine("What would you like to do?");
+        int written = draw();
+        // the time the player takes to answer is not part of the refresh
+        REFRESH.stop(start);
+        if (event != null) event.complete(written, ansi, true);
+        return reader.nextLine();
     }
 
     /**
-     * Creates a string representation of the provided collection of moves.
+     * Encodes the screen for the provided game state into the frame buffer, consisting of the board and the current
+     * message.
      *
-     * @param moves moves to be represented
-     * @return String representation of the moves collection
+     * @param gameState the game state to be visualized
      */
-    private String parseMoves(Collection<Move> moves){
-        return moves.stream().map(Move::toString).collect(Collectors.joining(", "));
+    private void createFrame(GameState gameState){
+        frame.clear();
+        encoder.appendGameState(gameState);
+        encoder.appendLine("");
+        if (message.length() != 0) encoder.appendLine(message);
     }
 
     /**
-     * Politely requests player input and returns it as a String.
+     * Writes the current frame to the terminal with a single write. ANSI terminals only receive the differences with
+     * the previous frame, other terminals get the complete frame after the Windows console is cleared.
      *
-     * @return player input
+     * @return number of bytes written
      */
-    private String requestMove(){
-        System.out.println("What would you like to do?");
-        return reader.nextLine();
+    private int draw(){
+        if (ansi) {
+            output.clear();
+            renderer.render(frame, output);
+            output.writeTo(out);
+            return output.size();
+        } else {
+            if (Platform.WINDOWS) clrscr();
+            frame.writeTo(out);
+            return frame.size();
+        }
+    }
+
+    /**
+     * Appends a line with the names of the provided moves to the frame.
+     *
+     * @param moves moves to be represented
+     */
+    private void appendMoves(Collection<Move> moves){
+        Iterator<Move> iterator = moves.iterator();
+        while (iterator.hasNext()) {
+            frame.putChars(String.valueOf(iterator.next()));
+            if (iterator.hasNext()) frame.putChars(", ");
+        }
+        encoder.appendLine("");
     }
 
     /**
-     * Clears the screen. Differentiates between Windows and Linux/MacOS.
+     * Clears the screen on Windows. Other terminals are cleared by the {@link DiffRenderer} when needed.
      */
     private static void clrscr(){
         //Clears Screen in java
         try {
-            if (System.getProperty("os.name").contains("Windows"))
-                new ProcessBuilder("cmd", "/c", "cls").inheritIO().start().waitFor();
-            else
-                System.out.print("\033\143");
+            new ProcessBuilder("cmd", "/c", "cls").inheritIO().start().waitFor();
         } catch (IOException | InterruptedException ex) {
             throw new RuntimeException("Screen clearing error");
         }
@@ -0,0 +1,196 @@
+package nl.quintor.solitaire.ui.cli;
+
+import java.util.Arrays;
+
+/**
+ * Incremental terminal renderer for ANSI capable terminals. The renderer keeps the previously rendered frame as a grid
+ * of UTF-8 encoded characters and, when a new frame is rendered, only emits ANSI cursor-positioning sequences plus the
+ * text of the cells that actually changed. A typical card move changes a handful of cells, so this is a lot cheaper
+ * (and flickers a lot less) than clearing the screen and printing the whole board again.
+ *
+ * <p>A cell is a single character together with any combining characters that follow it, so the underlined move names
+ * (for example "H̲elp") occupy as many cells as they occupy terminal columns.
+ *
+ * <p>Rows that were not part of the previous frame (such as the line on which the player typed the previous command)
+ * are considered unknown and are always rewritten completely, as are changed rows containing escape sequences (such as
+ * colored error messages), because partially rewriting those would lose the color. Everything below the new frame is
+ * erased.
+ */
+class DiffRenderer {
+    private final static byte ESC_BYTE = 0x1B;
+    private final static byte[] CLEAR_SCREEN = {ESC_BYTE, '[', 'H', ESC_BYTE, '[', '2', 'J'};
+    private final static byte[] ERASE_LINE_END = {ESC_BYTE, '[', 'K'};
+    private final static byte[] ERASE_SCREEN_END = {ESC_BYTE, '[', 'J'};
+    private final static byte[][] NO_ROWS = new byte[0][];
+
+    private byte[][] previousFrame;
+
+    /**
+     * Forces the next call to {@link #render(FrameBuffer, FrameBuffer)} to redraw the complete frame, for example
+     * because something else has written to the terminal.
+     */
+    void reset(){
+        previousFrame = null;
+    }
+
+    /**
+     * Appends the terminal output that transforms the previously rendered frame into the provided frame. The first frame
+     * (or the first frame after {@link #reset()}) clears the screen and is written in full. The cursor is left at the
+     * start of the line following the frame.
+     *
+     * @param frame the complete UTF-8 encoded text that should be visible on the terminal, lines separated by "\n"
+     * @param out buffer that the ANSI escape sequences and text to write to the terminal are appended to
+     */
+    void render(FrameBuffer frame, FrameBuffer out){
+        byte[][] nextFrame = toGrid(frame);
+        if (previousFrame == null) {
+            out.put(CLEAR_SCREEN);
+            for (int row = 0; row < nextFrame.length; row++) {
+                moveCursor(out, row, 0);
+                out.put(nextFrame[row]);
+            }
+        } else {
+            for (int row = 0; row < nextFrame.length; row++) {
+                if (row >= previousFrame.length) renderUnknownRow(out, row, nextFrame[row]);
+                else if (Arrays.equals(previousFrame[row], nextFrame[row])) continue;
+                else if (containsEscape(previousFrame[row]) || containsEscape(nextFrame[row])) renderUnknownRow(out, row, nextFrame[row]);
+                else renderRowDiff(out, row, previousFrame[row], nextFrame[row]);
+            }
+        }
+        moveCursor(out, nextFrame.length, 0);
+        out.put(ERASE_SCREEN_END);
+        previousFrame = nextFrame;
+    }
+
+    /**
+     * Appends the changed runs of cells of a single row. Consecutive changed cells are written after a single cursor
+     * movement. If the new row is shorter than the old row, the remainder of the line is erased.
+     *
+     * @param out output to append to
+     * @param row 0-based row index
+     * @param oldLine bytes of the row in the previous frame
+     * @param newLine bytes of the row in the new frame
+     */
+    private static void renderRowDiff(FrameBuffer out, int row, byte[] oldLine, byte[] newLine){
+        int oldPos = 0;
+        int newPos = 0;
+        int column = 0;
+        int runStart = -1; // byte offset in newLine of the current run of changed cells, -1 if there is none
+        while (newPos < newLine.length) {
+            int newEnd = cellEnd(newLine, newPos);
+            int oldEnd = oldPos < oldLine.length ? cellEnd(oldLine, oldPos) : oldPos;
+            boolean changed = !sameCell(oldLine, oldPos, oldEnd, newLine, newPos, newEnd);
+            if (changed && runStart < 0) {
+                moveCursor(out, row, column);
+                runStart = newPos;
+            } else if (!changed && runStart >= 0) {
+                out.put(newLine, runStart, newPos - runStart);
+                runStart = -1;
+            }
+            newPos = newEnd;
+            oldPos = oldEnd;
+            column++;
+        }
+        if (runStart >= 0) out.put(newLine, runStart, newPos - runStart);
+        if (oldPos < oldLine.length) {
+            if (runStart < 0) moveCursor(out, row, column);
+            out.put(ERASE_LINE_END);
+        }
+    }
+
+    /**
+     * Appends a row that was not part of the previous frame, erasing whatever was left on that line.
+     *
+     * @param out output to append to
+     * @param row 0-based row index
+     * @param newLine bytes of the row in the new frame
+     */
+    private static void renderUnknownRow(FrameBuffer out, int row, byte[] newLine){
+        moveCursor(out, row, 0);
+        out.put(newLine).put(ERASE_LINE_END);
+    }
+
+    /**
+     * Returns the offset just past the cell that starts at the provided offset: the bytes of one character plus those
+     * of any combining characters that follow it.
+     *
+     * @param line UTF-8 bytes of a row
+     * @param start offset of the first byte of the cell
+     * @return offset of the first byte of the next cell
+     */
+    private static int cellEnd(byte[] line, int start){
+        int end = characterEnd(line, start);
+        while (end < line.length && Character.getType(codePointAt(line, end)) == Character.NON_SPACING_MARK) {
+            end = characterEnd(line, end);
+        }
+        return end;
+    }
+
+    private static int characterEnd(byte[] line, int start){
+        int end = start + 1;
+        while (end < line.length && (line[end] & 0xC0) == 0x80) end++;
+        return end;
+    }
+
+    private static int codePointAt(byte[] line, int start){
+        int lead = line[start] & 0xFF;
+        if (lead < 0x80) return lead;
+        int continuationBytes = lead >= 0xF0 ? 3 : lead >= 0xE0 ? 2 : 1;
+        int codePoint = lead & (0x3F >> continuationBytes);
+        for (int i = 1; i <= continuationBytes && start + i < line.length; i++) {
+            codePoint = codePoint << 6 | line[start + i] & 0x3F;
+        }
+        return codePoint;
+    }
+
+    private static boolean containsEscape(byte[] line){
+        for (byte b : line) if (b == ESC_BYTE) return true;
+        return false;
+    }
+
+    private static boolean sameCell(byte[] oldLine, int oldStart, int oldEnd, byte[] newLine, int newStart, int newEnd){
+        if (oldEnd - oldStart != newEnd - newStart) return false;
+        for (int i = 0; i < oldEnd - oldStart; i++) {
+            if (oldLine[oldStart + i] != newLine[newStart + i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Appends an ANSI cursor position sequence. ANSI rows and columns are 1-based.
+     *
+     * @param out output to append to
+     * @param row 0-based row index
+     * @param column 0-based column index
+     */
+    private static void moveCursor(FrameBuffer out, int row, int column){
+        out.put(ESC_BYTE).put((byte) '[').putNumber(row + 1, 1).put((byte) ';').putNumber(column + 1, 1).put((byte) 'H');
+    }
+
+    /**
+     * Splits a frame into rows of bytes. A trailing line separator does not produce an extra empty row, carriage
+     * returns are dropped.
+     *
+     * @param frame UTF-8 bytes of the frame
+     * @return grid of bytes
+     */
+    private static byte[][] toGrid(FrameBuffer frame){
+        byte[] bytes = frame.array();
+        int size = frame.size();
+        int rows = 0;
+        for (int i = 0; i < size; i++) if (bytes[i] == '\n') rows++;
+        if (size > 0 && bytes[size - 1] != '\n') rows++;
+        if (rows == 0) return NO_ROWS;
+
+        byte[][] grid = new byte[rows][];
+        int lineStart = 0;
+        for (int row = 0; row < rows; row++) {
+            int lineEnd = lineStart;
+            while (lineEnd < size && bytes[lineEnd] != '\n') lineEnd++;
+            int contentEnd = lineEnd > lineStart && bytes[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+            grid[row] = Arrays.copyOfRange(bytes, lineStart, contentEnd);
+            lineStart = lineEnd + 1;
+        }
+        return grid;
+    }
+}
@@ -0,0 +1,186 @@
+package nl.quintor.solitaire.ui.cli;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Reusable, growable buffer of UTF-8 encoded output, such as terminal frames or JSON documents. Characters are encoded
+ * directly into the buffer, so filling it does not create any intermediate Strings or byte arrays. The buffer only grows
+ * when a frame does not fit, after which the larger buffer is reused for all following frames.
+ */
+public final class FrameBuffer {
+    private ByteBuffer buffer;
+
+    /**
+     * Constructs an empty FrameBuffer with the specified initial capacity in bytes.
+     *
+     * @param initialCapacity initial size of the buffer
+     */
+    public FrameBuffer(int initialCapacity){
+        buffer = ByteBuffer.allocate(initialCapacity);
+    }
+
+    /**
+     * Discards the contents of this buffer, keeping the allocated memory for the next frame.
+     */
+    public void clear(){
+        // called on Buffer, as ByteBuffer overrides it from Java 9 on, which a Java 8 runtime does not have
+        ((Buffer) buffer).clear();
+    }
+
+    /**
+     * Returns the number of bytes currently in the buffer.
+     *
+     * @return number of bytes written since the last {@link #clear()}
+     */
+    public int size(){
+        return buffer.position();
+    }
+
+    /**
+     * Returns the byte at the provided position.
+     *
+     * @param index position of the byte, smaller than {@link #size()}
+     * @return byte at that position
+     */
+    public byte get(int index){
+        return buffer.get(index);
+    }
+
+    /**
+     * Returns the backing array of this buffer. Only the first {@link #size()} bytes are meaningful. The array is
+     * replaced when the buffer grows, so it should not be held on to.
+     *
+     * @return backing array
+     */
+    public byte[] array(){
+        return buffer.array();
+    }
+
+    public FrameBuffer put(byte b){
+        ensureRemaining(1);
+        buffer.put(b);
+        return this;
+    }
+
+    public FrameBuffer put(byte[] bytes){
+        return put(bytes, 0, bytes.length);
+    }
+
+    public FrameBuffer put(byte[] bytes, int offset, int length){
+        ensureRemaining(length);
+        buffer.put(bytes, offset, length);
+        return this;
+    }
+
+    /**
+     * Appends the characters as UTF-8.
+     *
+     * @param chars characters to append
+     * @return this buffer
+     */
+    public FrameBuffer putChars(CharSequence chars){
+        return putChars(chars, 0, chars.length());
+    }
+
+    /**
+     * Appends a range of the characters as UTF-8.
+     *
+     * @param chars characters to append
+     * @param start index of the first character to append
+     * @param end index after the last character to append
+     * @return this buffer
+     */
+    public FrameBuffer putChars(CharSequence chars, int start, int end){
+        ensureRemaining((end - start) * 3);
+        for (int i = start; i < end; i++) {
+            char c = chars.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | c >> 6));
+                buffer.put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(chars.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, chars.charAt(++i));
+                buffer.put((byte) (0xF0 | codePoint >> 18));
+                buffer.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint & 0x3F));
+            } else {
+                buffer.put((byte) (0xE0 | c >> 12));
+                buffer.put((byte) (0x80 | c >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | c & 0x3F));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Appends the decimal representation of a non-negative number, left padded with zeroes to the minimum number of
+     * digits.
+     *
+     * @param number non-negative number to append
+     * @param minimumDigits minimum number of digits to write
+     * @return this buffer
+     */
+    public FrameBuffer putNumber(long number, int minimumDigits){
+        int digits = 1;
+        for (long rest = number / 10; rest > 0; rest /= 10) digits++;
+        digits = Math.max(digits, minimumDigits);
+        ensureRemaining(digits);
+        int end = buffer.position() + digits;
+        for (int i = end - 1; i >= buffer.position(); i--) {
+            buffer.put(i, (byte) ('0' + number % 10));
+            number /= 10;
+        }
+        ((Buffer) buffer).position(end);
+        return this;
+    }
+
+    public FrameBuffer putSpaces(int count){
+        ensureRemaining(count);
+        for (int i = 0; i < count; i++) buffer.put((byte) ' ');
+        return this;
+    }
+
+    /**
+     * Writes the contents of this buffer to the channel, using as few write calls as the channel allows (a single one
+     * for blocking channels such as stdout).
+     *
+     * @param channel channel to write to
+     */
+    public void writeTo(WritableByteChannel channel){
+        int size = buffer.position();
+        ((Buffer) buffer).flip();
+        try {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            ((Buffer) buffer).limit(buffer.capacity());
+            ((Buffer) buffer).position(size);
+        }
+    }
+
+    /**
+     * Writes the contents of this buffer to the stream with a single write.
+     *
+     * @param out stream to write to
+     * @throws IOException if the stream could not be written
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer.array(), 0, buffer.position());
+    }
+
+    private void ensureRemaining(int length){
+        if (buffer.remaining() >= length) return;
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + length));
+        ((Buffer) buffer).flip();
+        larger.put(buffer);
+        buffer = larger;
+    }
+}
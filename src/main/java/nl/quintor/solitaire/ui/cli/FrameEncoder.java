@@ -0,0 +1,182 @@
+package nl.quintor.solitaire.ui.cli;
+
+import nl.quintor.solitaire.models.card.Card;
+import nl.quintor.solitaire.models.deck.Deck;
+import nl.quintor.solitaire.models.state.GameState;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Byte level counterpart of {@link GameStateParser#parseGameState(GameState)}. The board is written straight into a
+ * reusable {@link FrameBuffer} using UTF-8 byte sequences that are encoded once, when the class is loaded: one padded
+ * cell for every card face, the "? ?" face-down marker, the "_ _" empty pile marker and the row labels. Rendering a
+ * frame therefore does not encode any suit or rank symbols and does not create intermediate Strings for the board.
+ *
+ * <p>Columns are rendered through a {@link ColumnCache}, so only the columns that changed since the previous frame
+ * are looked up again. The output is byte-for-byte identical to the UTF-8 encoding of the String produced by
+ * {@link GameStateParser}.
+ */
+class FrameEncoder {
+    private final static int COLUMN_WIDTH = 8;
+    private final static int FIRST_COLUMN_WIDTH = 3;
+    private final static int STOCK_WIDTH = COLUMN_WIDTH * 3;
+    private final static int PRE_ENCODED_ROWS = 32;
+    private final static byte NEWLINE = '\n';
+
+    private final static byte[][] CARD_CELLS = new byte[54][];
+    private final static byte[] FACE_DOWN_CELL = encodeCell("? ?", COLUMN_WIDTH);
+    private final static byte[] EMPTY_PILE_CELL = encodeCell("_ _", COLUMN_WIDTH);
+    private final static byte[][] ROW_LABELS = new byte[PRE_ENCODED_ROWS][];
+    private final static byte[][] NO_CELLS = new byte[0][];
+
+    static {
+        for (int ordinal = 0; ordinal < CARD_CELLS.length; ordinal++) {
+            CARD_CELLS[ordinal] = encodeCell(new Card(ordinal).toShortString(), COLUMN_WIDTH);
+        }
+        for (int row = 0; row < PRE_ENCODED_ROWS; row++) ROW_LABELS[row] = encodeCell(String.valueOf(row), FIRST_COLUMN_WIDTH);
+    }
+
+    private final FrameBuffer buffer;
+    private final ColumnCache<byte[][]> columnCache = new ColumnCache<>(FrameEncoder::renderColumn);
+    private byte[][][] columnCells = new byte[0][][];
+
+    /**
+     * Constructs a FrameEncoder that writes into the provided buffer.
+     *
+     * @param buffer buffer that frames are appended to
+     */
+    FrameEncoder(FrameBuffer buffer){
+        this.buffer = buffer;
+    }
+
+    /**
+     * Appends the board of the provided game state to the buffer, in the layout of
+     * {@link GameStateParser#parseGameState(GameState)}, followed by a line separator.
+     *
+     * @param gameState the game state to be visualized
+     */
+    void appendGameState(GameState gameState){
+        appendSummary(gameState);
+        buffer.put(NEWLINE).put(NEWLINE);
+
+        // stock and stack pile headers and top cards
+        Deck stock = gameState.getStock();
+        int stockCards = stock.size() + gameState.getWaste().size();
+        buffer.putSpaces(FIRST_COLUMN_WIDTH).putChars("O (").putNumber(stockCards, 1).put((byte) ')');
+        buffer.putSpaces(STOCK_WIDTH - 4 - digits(stockCards));
+        appendHeaders(gameState.getStackPiles());
+        buffer.putSpaces(FIRST_COLUMN_WIDTH);
+        appendTopCard(stock);
+        buffer.putSpaces(STOCK_WIDTH - cellLength(stock));
+        for (Deck stackPile : gameState.getStackPiles().values()) appendTopCard(stackPile);
+        buffer.put(NEWLINE).put(NEWLINE);
+
+        // column headers and rows
+        buffer.putSpaces(FIRST_COLUMN_WIDTH);
+        appendHeaders(gameState.getColumns());
+        int columns = gameState.getColumns().size();
+        if (columnCells.length != columns) columnCells = new byte[columns][][];
+        int position = 0;
+        for (Deck column : gameState.getColumns().values()) {
+            columnCells[position] = columnCache.get(position, column);
+            position++;
+        }
+        boolean rowContainedCards = true;
+        for (int row = 0; rowContainedCards; row++) {
+            appendRowLabel(row);
+            rowContainedCards = appendRow(row);
+            buffer.put(NEWLINE);
+        }
+    }
+
+    /**
+     * Appends a line of text followed by a line separator, for example a message or the list of possible moves.
+     *
+     * @param line text to append
+     */
+    void appendLine(CharSequence line){
+        buffer.putChars(line).put(NEWLINE);
+    }
+
+    /**
+     * Appends the summary line of {@link GameState#toString()} without creating the String.
+     */
+    private void appendSummary(GameState gameState){
+        long duration = gameState.getPlayingSeconds();
+        buffer.putNumber(gameState.getMoves().size(), 1).putChars(" move(s) played in ")
+            .putNumber(duration / 3600, 2).put((byte) ':')
+            .putNumber(duration / 60, 2).put((byte) ':')
+            .putNumber(duration % 60, 2).putChars(" for ")
+            .putNumber(gameState.getScore(), 1).putChars(" points");
+    }
+
+    private void appendHeaders(Map<String, Deck> decks){
+        for (String header : decks.keySet()) {
+            if (header.length() == 1) buffer.put((byte) ' ');
+            buffer.putChars(header).putSpaces(COLUMN_WIDTH - Math.max(header.length(), 2));
+        }
+        buffer.put(NEWLINE);
+    }
+
+    private boolean appendRow(int row){
+        boolean rowContainedCards = false;
+        for (byte[][] cells : columnCells) {
+            if (row < cells.length) {
+                buffer.put(cells[row]);
+                rowContainedCards = true;
+            } else {
+                buffer.putSpaces(COLUMN_WIDTH);
+            }
+        }
+        return rowContainedCards;
+    }
+
+    /**
+     * Looks up the pre-encoded cell of every row of the column that shows a card.
+     */
+    private static byte[][] renderColumn(Deck column){
+        int rows = Math.max(column.size(), column.getInvisibleCards());
+        if (rows == 0) return NO_CELLS;
+        byte[][] cells = new byte[rows][];
+        for (int row = 0; row < rows; row++) {
+            cells[row] = row < column.getInvisibleCards() ? FACE_DOWN_CELL : CARD_CELLS[column.get(row).getOrdinal()];
+        }
+        return cells;
+    }
+
+    private void appendRowLabel(int row){
+        if (row < PRE_ENCODED_ROWS) {
+            buffer.put(ROW_LABELS[row]);
+        } else {
+            buffer.putNumber(row, 1).putSpaces(FIRST_COLUMN_WIDTH - digits(row));
+        }
+    }
+
+    private void appendTopCard(Deck deck){
+        buffer.put(deck.isEmpty() ? EMPTY_PILE_CELL : CARD_CELLS[deck.get(deck.size() - 1).getOrdinal()]);
+    }
+
+    /**
+     * Returns the number of characters of the padded top card cell, which is less than the number of bytes for cards
+     * with a suit symbol.
+     */
+    private static int cellLength(Deck deck){
+        return deck.isEmpty() ? COLUMN_WIDTH : Math.max(COLUMN_WIDTH, deck.get(deck.size() - 1).toShortString().length());
+    }
+
+    private static int digits(long number){
+        int digits = 1;
+        for (long rest = number / 10; rest > 0; rest /= 10) digits++;
+        return digits;
+    }
+
+    /**
+     * Pads the String the way {@link GameStateParser#padNAdd(StringBuilder, String, int)} does and encodes it as UTF-8.
+     */
+    private static byte[] encodeCell(String string, int width){
+        StringBuilder builder = new StringBuilder();
+        GameStateParser.padNAdd(builder, string, width);
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -7,10 +7,16 @@ import java.util.Collection;
 
 /**
  * {@link GameState} parser for terminal printing. The class is not instantiable, all constructors are private.
+ *
+ * <p>Columns can be rendered through a {@link ColumnCache}, see {@link #parseGameState(GameState, ColumnCache)}, in
+ * which case only the columns that changed since the previous frame are rendered again.
  */
 class GameStateParser {
     private final static int COLUMN_WIDTH = 8; // 8 columns in 64 char width (80 char width is Windows default)
     private final static int FIRST_COLUMN_WIDTH = 3;
+    private final static String FACE_DOWN = "? ?";
+    private final static String EMPTY_PILE = "_ _";
+    private final static String EMPTY_CELL = "        ";
 
     protected GameStateParser(){}
 
@@ -40,8 +46,59 @@ class GameStateParser {
      *  @return a visual representation of the gameState (for monospace terminal printing)
      */
     static String parseGameState(GameState gameState){
-        // TODO: Write implementation
-        return "";
+        return parseGameState(gameState, createColumnCache());
+    }
+
+    /**
+     * Parses {@link GameState} to a String representation for terminal printing, like
+     * {@link #parseGameState(GameState)}, but takes the rendered columns from the provided cache. Reuse the cache for
+     * every frame of the same UI.
+     *
+     * @param gameState a representation of the current state of the game
+     * @param columnCache cache of rendered columns, created by {@link #createColumnCache()}
+     * @return a visual representation of the gameState (for monospace terminal printing)
+     */
+    static String parseGameState(GameState gameState, ColumnCache<String[]> columnCache){
+        StringBuilder builder = new StringBuilder();
+        builder.append(gameState.toString()).append("\n\n");
+
+        // stock and stack pile headers and top cards
+        Deck stock = gameState.getStock();
+        padNAdd(builder, "", FIRST_COLUMN_WIDTH);
+        padNAdd(builder, "O (" + (stock.size() + gameState.getWaste().size()) + ")", COLUMN_WIDTH * 3);
+        for (String header : gameState.getStackPiles().keySet()) padNAdd(builder, header, COLUMN_WIDTH);
+        builder.append("\n");
+        padNAdd(builder, "", FIRST_COLUMN_WIDTH);
+        padNAdd(builder, getTopCardString(stock), COLUMN_WIDTH * 3);
+        for (Deck stackPile : gameState.getStackPiles().values()) padNAdd(builder, getTopCardString(stackPile), COLUMN_WIDTH);
+        builder.append("\n\n");
+
+        // column headers and rows
+        padNAdd(builder, "", FIRST_COLUMN_WIDTH);
+        for (String header : gameState.getColumns().keySet()) padNAdd(builder, header, COLUMN_WIDTH);
+        builder.append("\n");
+        String[][] columnCells = new String[gameState.getColumns().size()][];
+        int position = 0;
+        for (Deck column : gameState.getColumns().values()) {
+            columnCells[position] = columnCache.get(position, column);
+            position++;
+        }
+        boolean rowContainedCards = true;
+        for (int row = 0; rowContainedCards; row++) {
+            padNAdd(builder, String.valueOf(row), FIRST_COLUMN_WIDTH);
+            rowContainedCards = printRow(builder, columnCells, row);
+            builder.append("\n");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Creates an empty cache of rendered columns for {@link #parseGameState(GameState, ColumnCache)}.
+     *
+     * @return new column cache
+     */
+    static ColumnCache<String[]> createColumnCache(){
+        return new ColumnCache<>(GameStateParser::renderColumn);
     }
 
     /**
@@ -56,8 +113,64 @@ class GameStateParser {
      * @return did the row contain any cards
      */
     protected static boolean printRow(StringBuilder builder, Collection<Deck> columns, int row){
-        // TODO: Write implementation
-        return true;
+        boolean rowContainedCards = false;
+        for (Deck column : columns) {
+            String cardString = getCellString(column, row);
+            if (cardString != null) rowContainedCards = true;
+            padNAdd(builder, cardString == null ? "" : cardString, COLUMN_WIDTH);
+        }
+        return rowContainedCards;
+    }
+
+    /**
+     * Add the requested row of the provided rendered columns to the provided StringBuilder, like
+     * {@link #printRow(StringBuilder, Collection, int)}.
+     *
+     * @param builder contains the visualization of the game state
+     * @param columnCells the padded cells of every column, as rendered by {@link #renderColumn(Deck)}
+     * @param row the row of the columns to be printed
+     * @return did the row contain any cards
+     */
+    private static boolean printRow(StringBuilder builder, String[][] columnCells, int row){
+        boolean rowContainedCards = false;
+        for (String[] cells : columnCells) {
+            if (row < cells.length) {
+                builder.append(cells[row]);
+                rowContainedCards = true;
+            } else {
+                builder.append(EMPTY_CELL);
+            }
+        }
+        return rowContainedCards;
+    }
+
+    /**
+     * Renders all cells of a column, padded to the column width.
+     *
+     * @param column the column to render
+     * @return one padded cell for every row of the column that shows a card
+     */
+    private static String[] renderColumn(Deck column){
+        String[] cells = new String[Math.max(column.size(), column.getInvisibleCards())];
+        StringBuilder builder = new StringBuilder(COLUMN_WIDTH);
+        for (int row = 0; row < cells.length; row++) {
+            builder.setLength(0);
+            padNAdd(builder, getCellString(column, row), COLUMN_WIDTH);
+            cells[row] = builder.toString();
+        }
+        return cells;
+    }
+
+    /**
+     * Returns the String representation of a cell of a column: "? ?" for invisible cards, the card itself for visible
+     * cards or null if the column has no card at that row.
+     *
+     * @param column the column of the cell
+     * @param row the row of the cell
+     * @return String representation of the cell or null
+     */
+    private static String getCellString(Deck column, int row){
+        return row < column.getInvisibleCards() ? FACE_DOWN : getCardStringOrNull(column, row);
     }
 
     /**
@@ -68,8 +181,17 @@ class GameStateParser {
      * @return the requested card or null
      */
     protected static String getCardStringOrNull(Deck deck, int index){
-        // TODO: Write implementation
-        return null;
+        return index >= 0 && index < deck.size() ? deck.get(index).toShortString() : null;
+    }
+
+    /**
+     * Returns the String representation of the last card of the deck, or "_ _" if the deck is empty.
+     *
+     * @param deck deck of which the top card is requested
+     * @return String representation of the top card
+     */
+    private static String getTopCardString(Deck deck){
+        return deck.isEmpty() ? EMPTY_PILE : deck.get(deck.size() - 1).toShortString();
     }
 
     /**
@@ -81,6 +203,9 @@ class GameStateParser {
      * @param totalLength The total length that the String must become
      */
     protected static void padNAdd(StringBuilder builder, String string, int totalLength){
-        // TODO: Write implementation
+        int start = builder.length();
+        if (string.length() == 1) builder.append(' ');
+        builder.append(string);
+        while (builder.length() - start < totalLength) builder.append(' ');
     }
 }
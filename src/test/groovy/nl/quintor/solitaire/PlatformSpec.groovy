@@ -0,0 +1,37 @@
+package nl.quintor.solitaire
+
+import nl.quintor.solitaire.game.moves.CycleStock
+import nl.quintor.solitaire.game.moves.Quit
+import nl.quintor.solitaire.models.card.Rank
+import nl.quintor.solitaire.models.card.Suit
+import spock.lang.Requires
+import spock.lang.Specification
+
+
+class PlatformSpec extends Specification {
+
+    def "The platform is detected from the os.name system property" () {
+        expect:
+            Platform.WINDOWS == System.getProperty("os.name").contains("Windows")
+    }
+
+    @Requires({ !Platform.WINDOWS })
+    def "Competent terminals get Unicode symbols and underlined shortcuts" () {
+        expect:
+            Platform.symbol("♥", "H") == "♥"
+            Platform.shortcut("Quit") == "Q̲uit"
+            Suit.HEARTS.symbol == "♥"
+            Rank.JOKER_RED.symbol == "★"
+            new Quit().toString() == "Q̲uit"
+            new CycleStock().toString() == "C̲ycle stock"
+    }
+
+    @Requires({ Platform.WINDOWS })
+    def "Windows terminals get plain symbols and names" () {
+        expect:
+            Platform.symbol("♥", "H") == "H"
+            Platform.shortcut("Quit") == "Quit"
+            Suit.HEARTS.symbol == "H"
+            new CycleStock().toString() == "Cycle stock"
+    }
+}
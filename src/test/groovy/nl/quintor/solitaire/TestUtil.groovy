@@ -1,6 +1,10 @@
 package nl.quintor.solitaire
 
 import nl.quintor.solitaire.game.GameStateController
+import nl.quintor.solitaire.game.moves.CycleStock
+import nl.quintor.solitaire.game.moves.MoveCard
+import nl.quintor.solitaire.game.moves.Revert
+import nl.quintor.solitaire.game.moves.ex.MoveException
 import nl.quintor.solitaire.models.card.Card
 import nl.quintor.solitaire.models.card.Rank
 import nl.quintor.solitaire.models.card.Suit
@@ -12,6 +16,24 @@ import java.time.LocalDateTime
 import java.util.stream.IntStream
 
 class TestUtil {
+    static final List<String> SOURCES = ["O", "SA", "SB", "SC", "SD"] + ("A".."G").collectMany { column -> (1..19).collect { column + it } }
+    static final List<String> DESTINATIONS = ["SA", "SB", "SC", "SD"] + ("A".."G")
+
+    /**
+     * Plays a random move: a revert, cycling the stock or a random card move, which is often illegal and then has no
+     * effect.
+     */
+    static void playRandomMove(GameState gameState, Random random) {
+        def roll = random.nextInt(10)
+        def move = roll == 0 ? new Revert() : roll < 3 ? new CycleStock() :
+            new MoveCard().createInstance("M " + SOURCES[random.nextInt(SOURCES.size())] + " " + DESTINATIONS[random.nextInt(DESTINATIONS.size())])
+        try {
+            move.apply(gameState)
+        } catch (MoveException ignored) {
+            // illegal moves do not change the game
+        }
+    }
+
     static  Deck createTestDeck(deckType, nrOfCards = 0, nrOfInvisible = 0){
         def result = new Deck(deckType)
         result.invisibleCards = nrOfInvisible
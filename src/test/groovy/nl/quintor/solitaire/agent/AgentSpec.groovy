@@ -0,0 +1,97 @@
+package nl.quintor.solitaire.agent
+
+import nl.quintor.solitaire.TestUtil
+import nl.quintor.solitaire.game.GameStateController
+import nl.quintor.solitaire.game.moves.MoveCard
+import nl.quintor.solitaire.game.moves.ex.MoveException
+import nl.quintor.solitaire.models.state.GameSnapshot
+import nl.quintor.solitaire.models.state.VirtualClock
+import spock.lang.Specification
+
+
+class AgentSpec extends Specification {
+
+    def "The legal moves are exactly the card moves that MoveCard accepts" () {
+        given:
+            def gameState = GameStateController.init(new VirtualClock(), seed)
+            def random = new Random(seed)
+            100.times { TestUtil.playRandomMove(gameState, random) }
+        when:
+            def legal = LegalMoves.cardMoves(GameSnapshot.of(gameState, 0))
+        then:
+            def accepted = []
+            for (source in TestUtil.SOURCES) {
+                for (destination in TestUtil.DESTINATIONS) {
+                    def move = new MoveCard("M $source $destination")
+                    try {
+                        move.apply(gameState)
+                        move.revert(gameState)
+                        accepted << "M $source $destination".toString()
+                    } catch (MoveException ignored) {
+                        // not a legal move
+                    }
+                }
+            }
+            legal.sort() == accepted.sort()
+        where:
+            seed << [1, 2, 3, 4]
+    }
+
+    def "An agent plays through the moves of a game session" () {
+        given:
+            def gameState = TestUtil.createFixedNewGame()
+            def inputs = ["M B1 A", "M B1 SA", "Q"].iterator()
+            def seen = []
+            Agent agent = { GameSnapshot game -> seen << game.moves; inputs.next() }
+        when:
+            def ui = AgentUI.play(agent, gameState, 100)
+        then:
+            ui.turns == 3
+            seen == [0, 1, 1]
+            ui.rejectedMoves == 1
+            gameState.gameLost
+            gameState.score == 5
+    }
+
+    def "An agent quits after the maximum number of turns" () {
+        given:
+            def gameState = GameStateController.init(new VirtualClock(), 1)
+        when:
+            def ui = AgentUI.play({ "C" } as Agent, gameState, 10)
+        then:
+            ui.turns == 10
+            gameState.moves.size() == 10
+            gameState.gameLost
+    }
+
+    def "The greedy agent finishes every game by itself" () {
+        when:
+            def uis = (1..20).collect { AgentUI.play(new GreedyAgent(), GameStateController.init(new VirtualClock(), it), 1000) }
+        then:
+            uis.every { it.turns < 1000 }
+    }
+
+    def "A tournament gives the same results on any number of threads" () {
+        given:
+            def tournament = new Tournament(1, 30, 300)
+                .add("random", { new RandomAgent(it) })
+                .add("greedy", { new GreedyAgent() })
+        when:
+            def single = tournament.run(1)
+            def parallel = tournament.run(3)
+        then:
+            single*.name == ["random", "greedy"]
+            single.every { it.games == 30 && it.gamesPerSecond > 0 }
+            single*.wins == parallel*.wins
+            single*.meanScore == parallel*.meanScore
+            single*.meanMoves == parallel*.meanMoves
+            single[1].meanScore > single[0].meanScore
+    }
+
+    def "Agent names are unique in a tournament" () {
+        when:
+            new Tournament(1, 1, 1).add("agent", { new GreedyAgent() }).add("agent", { new GreedyAgent() })
+        then:
+            thrown(IllegalArgumentException)
+    }
+}
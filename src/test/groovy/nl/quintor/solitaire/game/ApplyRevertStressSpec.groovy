@@ -0,0 +1,49 @@
+package nl.quintor.solitaire.game
+
+import nl.quintor.solitaire.models.state.VirtualClock
+import spock.lang.Specification
+
+
+class ApplyRevertStressSpec extends Specification {
+
+    def "Random sequences of moves and reverts keep the invariants" () {
+        when:
+            def report = ApplyRevertStress.run(2, 1, 40, 150)
+        then:
+            report.failure == null
+            report.sequences == 40
+            report.steps > 40 * 100
+    }
+
+    def "A corrupted game violates the invariants" () {
+        given:
+            def gameState = GameStateController.init(new VirtualClock(), 7)
+        when:
+            corrupt(gameState)
+        then:
+            ApplyRevertStress.checkInvariants(gameState).startsWith(violation)
+        where:
+            corrupt                                                           | violation
+            { it -> it.stock.add(it.waste[0]) }                               | "53 cards of which 52 unique"
+            { it -> it.columns["C"].invisibleCards = 3 }                      | "column C has 3 face-down of 3 cards"
+            { it -> it.baseScore = 42 }                                       | "score 42, replaying the moves gives 0"
+            { it -> it.columns["B"].add(it.stock.remove(0)) }                 | "column B is not a run"
+    }
+
+    def "An untouched deal keeps the invariants" () {
+        expect:
+            ApplyRevertStress.checkInvariants(GameStateController.init(new VirtualClock(), 7)) == null
+    }
+
+    def "Failing sequences are shrunk to a minimal sequence" () {
+        given:
+            def actions = ["M B1 A", "C", "R", "M A0 B", "C", "R", "C"]
+            def fails = { List<String> sequence -> sequence.count("C") >= 2 && sequence.contains("R") }
+        when:
+            def shrunk = ApplyRevertStress.shrink(actions, fails)
+        then:
+            fails(shrunk)
+            shrunk.sort() == ["C", "C", "R"]
+            ApplyRevertStress.shrink(actions, { it.contains("M A0 B") }) == ["M A0 B"]
+    }
+}
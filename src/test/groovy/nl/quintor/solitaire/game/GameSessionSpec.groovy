@@ -0,0 +1,119 @@
+package nl.quintor.solitaire.game
+
+import nl.quintor.solitaire.TestUtil
+import nl.quintor.solitaire.models.state.GameSnapshot
+import nl.quintor.solitaire.ui.Display
+import nl.quintor.solitaire.ui.UI
+import spock.lang.Specification
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.atomic.AtomicBoolean
+
+
+class GameSessionSpec extends Specification {
+    static final List<String> INPUTS = ["C", "C", "R", ""] +
+        ["O", "SA", "SB", "SC", "SD", "A1", "B2", "C3", "D4", "E5", "F6", "G7"].collectMany { source ->
+            ["SA", "SB", "SC", "SD", "A", "B", "C", "D", "E", "F", "G"].collect { "M $source $it".toString() }
+        }
+
+    static UI silentUI() {
+        return [setMessage: {}, setErrorMessage: {}, refresh: {}, refreshAndRequestMove: { gameState, moves -> "Q" }] as UI
+    }
+
+    static String describe(GameSnapshot snapshot) {
+        return (0..<snapshot.deckCount).collect { deck ->
+            (0..<snapshot.getDeckSize(deck)).collect { snapshot.getCard(deck, it)?.ordinal }.toString()
+        }.join() + " $snapshot.score $snapshot.moves $snapshot.stockCycles $snapshot.gameWon $snapshot.gameLost"
+    }
+
+    def "A snapshot is published when the session is created and after every move" () {
+        given:
+            def session = new GameSession(silentUI(), GameStateController.init())
+            def first = session.snapshot
+        when:
+            session.play("C")
+        then:
+            first.sequence == 0
+            first.moves == 0
+            session.snapshot.sequence == 1
+            session.snapshot.moves == 1
+            describe(session.snapshot) == describe(GameSnapshot.of(session.gameState, 1))
+    }
+
+    def "A game lost by cycling the stock without any change says so" () {
+        given:
+            def messages = []
+            def errors = []
+            def ui = [setMessage: { messages << it }, setErrorMessage: { errors << it }, refresh: {}, refreshAndRequestMove: { gameState, moves -> "Q" }] as UI
+            def session = new GameSession(ui, TestUtil.createFixedNewGame())
+        when:
+            4.times { session.play("C") }
+        then: "the last move was played, so the loss is not reported as an error"
+            session.gameState.gameLost
+            messages.last() == "The stock was cycled through without any change, the game is lost."
+            errors.empty
+    }
+
+    def "A session that is driven by requests only needs a display, and can't run the game loop" () {
+        given:
+            def messages = []
+            def display = [setMessage: { messages << it }, setErrorMessage: { messages << it }, refresh: {}] as Display
+            def session = new GameSession(display, GameStateController.init())
+        when:
+            session.start()
+            session.play("C")
+        then:
+            messages.size() == 2
+            session.gameState.moves.size() == 1
+        when:
+            session.run()
+        then:
+            thrown(IllegalStateException)
+    }
+
+    def "Spectators read consistent snapshots while the game is played" () {
+        given:
+            def sessions = new CopyOnWriteArrayList<GameSession>()
+            def published = new ConcurrentHashMap<String, String>() // session and sequence -> expected contents
+            def seen = Collections.synchronizedList([])
+            def failures = Collections.synchronizedList([])
+            def playing = new AtomicBoolean(true)
+            def random = new Random(35)
+            def spectators = (1..4).collect {
+                Thread.start {
+                    def last = [:]
+                    try {
+                        while (playing.get()) {
+                            sessions.eachWithIndex { session, index ->
+                                def snapshot = session.snapshot
+                                def cards = (0..<snapshot.deckCount).sum { snapshot.getDeckSize(it) }
+                                assert cards == 52
+                                assert snapshot.sequence >= last.getOrDefault(index, 0L)
+                                if (snapshot.sequence != last[index]) seen << ["$index:$snapshot.sequence", describe(snapshot)]
+                                last[index] = snapshot.sequence
+                            }
+                        }
+                    } catch (Throwable failure) {
+                        failures << failure
+                    }
+                }
+            }
+        when:
+            (0..<20).each { index ->
+                def session = new GameSession(silentUI(), GameStateController.init())
+                published["$index:0".toString()] = describe(session.snapshot)
+                sessions << session
+                for (int move = 0; move < 500 && !session.gameState.gameOver; move++) {
+                    session.play(INPUTS[random.nextInt(INPUTS.size())])
+                    published["$index:$session.snapshot.sequence".toString()] = describe(GameSnapshot.of(session.gameState, 0))
+                }
+            }
+            playing.set(false)
+            spectators*.join()
+        then:
+            failures.empty
+            seen.size() > 20
+            seen.every { key, contents -> published[key.toString()] == contents }
+    }
+}
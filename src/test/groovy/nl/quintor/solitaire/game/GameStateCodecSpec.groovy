@@ -0,0 +1,140 @@
+package nl.quintor.solitaire.game
+
+import nl.quintor.solitaire.TestUtil
+import nl.quintor.solitaire.game.moves.CycleStock
+import nl.quintor.solitaire.game.moves.Quit
+import nl.quintor.solitaire.models.state.GameState
+import nl.quintor.solitaire.models.state.GameStateListener
+import nl.quintor.solitaire.models.state.VirtualClock
+import nl.quintor.solitaire.ui.cli.FrameBuffer
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+
+
+class GameStateCodecSpec extends Specification {
+
+    static String describe(GameState gameState) {
+        def decks = [gameState.stock, gameState.waste] + gameState.stackPiles.values() + gameState.columns.values()
+        return decks.collect { "$it.invisibleCards:$it" }.join() + gameState.stackPiles.keySet() + gameState.columns.keySet() +
+            " $gameState.baseScore $gameState.timeScore $gameState.stockCycles ${gameState.moves.size()}" +
+            " $gameState.gameWon $gameState.gameLost $gameState.cycleFingerprint $gameState.fingerprintCycle $gameState.dealId"
+    }
+
+    static GameState playedGame(VirtualClock clock, long seed) {
+        def gameState = GameStateController.init(clock)
+        def random = new Random(seed)
+        500.times {
+            clock.advanceSeconds(1)
+            TestUtil.playRandomMove(gameState, random)
+        }
+        GameStateController.applyTimePenalty(gameState)
+        gameState.cycleFingerprint = random.nextLong()
+        gameState.fingerprintCycle = gameState.stockCycles
+        return gameState
+    }
+
+    static ByteBuffer save(GameState gameState) {
+        def out = new FrameBuffer(64)
+        GameStateCodec.write(gameState, out)
+        return ByteBuffer.wrap(Arrays.copyOf(out.array(), out.size()))
+    }
+
+    def "A saved game is restored with its decks, scores, moves and playing time" () {
+        given:
+            def clock = new VirtualClock()
+            def gameState = playedGame(clock, seed)
+        when:
+            def saved = save(gameState)
+            def restored = GameStateCodec.read(saved, clock)
+        then:
+            gameState.moves.size() > 10
+            describe(restored) == describe(gameState)
+            restored.playingNanos == gameState.playingNanos
+            !saved.hasRemaining()
+            saved.capacity() < 100 + 10 * gameState.moves.size()
+        where:
+            seed << [1, 2, 3]
+    }
+
+    def "Saving a game neither changes it nor notifies its listeners" () {
+        given:
+            def gameState = playedGame(new VirtualClock(), 4)
+            def before = describe(gameState)
+            def listener = Mock(GameStateListener)
+            gameState.addListener(listener)
+        when:
+            save(gameState)
+        then:
+            0 * listener._
+            describe(gameState) == before
+    }
+
+    def "A game that did not record its deal can only be saved before its first move" () {
+        given:
+            def clock = new VirtualClock()
+            def gameState = GameStateController.init(clock)
+            gameState.deal = null
+        when:
+            def restored = GameStateCodec.read(save(gameState), clock)
+        then:
+            describe(restored) == describe(gameState)
+        when:
+            new CycleStock().apply(gameState)
+            save(gameState)
+        then:
+            thrown(IllegalArgumentException)
+    }
+
+    def "The moves of a restored game can be reverted" () {
+        given:
+            def clock = new VirtualClock()
+            def gameState = playedGame(clock, 5)
+            def restored = GameStateCodec.read(save(gameState), clock)
+        when:
+            [gameState, restored].each { game ->
+                game.moves.reverse().each { it.revert(game) }
+            }
+        then:
+            restored.moves.empty
+            describe(restored) == describe(gameState)
+    }
+
+    def "A saved game keeps counting time, like a game that was not saved" () {
+        given: "two games played for the same time, on clocks of their own"
+            def liveClock = new VirtualClock()
+            def savedClock = new VirtualClock()
+            def live = playedGame(liveClock, 6)
+            def saved = save(playedGame(savedClock, 6))
+        when:
+            [liveClock, savedClock]*.advanceSeconds(300)
+            def restored = GameStateCodec.read(saved, savedClock)
+            [live, restored].each { GameStateController.applyTimePenalty(it) }
+        then:
+            live.playingSeconds == 800
+            restored.playingNanos == live.playingNanos
+            restored.timeScore == live.timeScore
+    }
+
+    def "A finished game stays finished with its final playing time" () {
+        given:
+            def clock = new VirtualClock()
+            def gameState = GameStateController.init(clock)
+            clock.advanceSeconds(42)
+            new Quit().apply(gameState)
+            clock.advanceSeconds(100)
+        when:
+            def restored = GameStateCodec.read(save(gameState), clock)
+            clock.advanceSeconds(100)
+        then:
+            restored.gameLost
+            restored.playingSeconds == 42
+    }
+
+    def "Data that is not a saved game is rejected" () {
+        when:
+            GameStateCodec.read(ByteBuffer.wrap([9, 0, 0] as byte[]), new VirtualClock())
+        then:
+            thrown(IllegalArgumentException)
+    }
+}
@@ -1,11 +1,16 @@
 package nl.quintor.solitaire.game
 
 import nl.quintor.solitaire.TestUtil
+import nl.quintor.solitaire.game.moves.CycleStock
+import nl.quintor.solitaire.game.moves.MoveCard
+import nl.quintor.solitaire.game.moves.Revert
+import nl.quintor.solitaire.metrics.Metrics
 import nl.quintor.solitaire.models.card.Card
 import nl.quintor.solitaire.models.card.Rank
 import nl.quintor.solitaire.models.card.Suit
 import nl.quintor.solitaire.models.deck.DeckType
 import nl.quintor.solitaire.models.state.GameState
+import nl.quintor.solitaire.models.state.VirtualClock
 import org.assertj.core.api.SoftAssertions
 import spock.lang.Specification
 import spock.lang.Unroll
@@ -73,6 +78,19 @@ class GameStateControllerSpec extends Specification {
             softAssert.assertAll()
     }
 
+    def "The same deal id deals the same cards" () {
+        given:
+            def clock = new VirtualClock()
+        when:
+            def first = GameStateController.init(clock, 42)
+            def second = GameStateController.init(clock, 42)
+            def other = GameStateController.init(clock, 43)
+        then:
+            first.dealId == 42
+            GameStateCodecSpec.describe(first) == GameStateCodecSpec.describe(second)
+            GameStateCodecSpec.describe(first) != GameStateCodecSpec.describe(other)
+    }
+
     @Unroll
     def "Win detection should return #expectedResult when testing: #testCase" () {
         expect:
@@ -85,6 +103,170 @@ class GameStateControllerSpec extends Specification {
         TestUtil.createGameWithOnlyVisibleCards()   | true           || "Empty stock and waste but visible cards left in columns"
     }
 
+    def "The card counters follow moves and are recounted after direct deck changes" () {
+        given:
+            def gameState = TestUtil.createFixedNewGame()
+        expect:
+            gameState.faceDownCards == 21
+            gameState.stockCards == 2
+            gameState.foundationCards == 1
+        when:
+            new MoveCard().createInstance("M C2 SA").apply(gameState)
+        then:
+            gameState.faceDownCards == 20
+            gameState.stockCards == 2
+            gameState.foundationCards == 2
+        when:
+            new Revert().createInstance("R").apply(gameState)
+        then:
+            gameState.faceDownCards == 21
+            gameState.foundationCards == 1
+        when:
+            gameState.waste.clear()
+            gameState.recountCards()
+        then:
+            gameState.stockCards == 1
+    }
+
+    def "The running card counters match a recount after random moves and reverts" () {
+        given:
+            def gameState = GameStateController.init(new VirtualClock(), seed, decks)
+            def random = new Random(seed)
+            def counters = { [it.faceDownCards, it.stockCards, it.foundationCards] }
+        expect:
+            (1..400).every {
+                TestUtil.playRandomMove(gameState, random)
+                def running = counters(gameState)
+                gameState.recountCards()
+                running == counters(gameState)
+            }
+        where:
+            seed | decks
+            1    | 1
+            2    | 2
+            3    | 3
+    }
+
+    @Unroll
+    def "Loss detection should return #expectedResult when testing: #testCase" () {
+        given:
+            def gameState = TestUtil.createGameWithEmptyStockAndWaste()
+            gameState.stackPiles.values().forEach { it.clear() }
+            gameState.columns.values().forEach { it.clear(); it.invisibleCards = 0 }
+            gameState.columns["A"].addAll(firstColumn)
+            gameState.columns["A"].invisibleCards = 1
+            ["B", "C", "D", "E", "F"].forEach { gameState.columns[it] << new Card(Suit.DIAMONDS, Rank.TWO) }
+            if (lastCard != null) gameState.columns["G"] << lastCard
+            if (stackCard != null) gameState.stackPiles["SA"] << stackCard
+        when:
+            GameStateController.detectGameLoss(gameState)
+        then:
+            gameState.isGameLost() == expectedResult
+        where:
+            firstColumn                                                     | lastCard                          | stackCard                         || expectedResult | testCase
+            [new Card(Suit.HEARTS, Rank.FIVE), new Card(Suit.SPADES, Rank.KING)] | new Card(Suit.DIAMONDS, Rank.TWO) | null                          || true           | "No legal moves"
+            [new Card(Suit.HEARTS, Rank.FIVE), new Card(Suit.SPADES, Rank.KING)] | new Card(Suit.DIAMONDS, Rank.TWO) | new Card(Suit.DIAMONDS, Rank.ACE) || false   | "Column card to stack pile"
+            [new Card(Suit.HEARTS, Rank.FIVE), new Card(Suit.SPADES, Rank.KING)] | null                              | null                          || false          | "King to an empty column exposes a card"
+            [new Card(Suit.CLUBS, Rank.NINE), new Card(Suit.HEARTS, Rank.FIVE)]  | new Card(Suit.HEARTS, Rank.SEVEN) | new Card(Suit.SPADES, Rank.SIX) || false     | "Stack pile card makes room to expose a card"
+            [new Card(Suit.CLUBS, Rank.NINE), new Card(Suit.HEARTS, Rank.FIVE)]  | new Card(Suit.CLUBS, Rank.SEVEN)  | new Card(Suit.SPADES, Rank.SIX) || true      | "Stack pile card without a target"
+    }
+
+    def "A column that is emptied first to make room for a king is not a stalemate" () {
+        given:
+            def gameState = TestUtil.createGameWithEmptyStockAndWaste()
+            gameState.stackPiles.values().forEach { it.clear() }
+            gameState.columns.values().forEach { it.clear(); it.invisibleCards = 0 }
+            gameState.columns["A"].addAll([new Card(Suit.CLUBS, Rank.NINE), new Card(Suit.HEARTS, Rank.KING)])
+            gameState.columns["A"].invisibleCards = 1
+            gameState.columns["B"] << new Card(Suit.SPADES, Rank.SIX)
+            gameState.columns["C"] << new Card(Suit.HEARTS, Rank.SEVEN)
+            ["D", "E", "F", "G"].forEach { gameState.columns[it] << new Card(Suit.DIAMONDS, Rank.TWO) }
+        when:
+            GameStateController.detectGameLoss(gameState)
+        then:
+            !gameState.isGameLost()
+        when:
+            new MoveCard().createInstance("M B0 C").apply(gameState)
+            new MoveCard().createInstance("M A1 B").apply(gameState)
+        then:
+            gameState.columns["A"].invisibleCards == 0
+    }
+
+    def "The stalemate search runs once per position, not on every request" () {
+        given:
+            def gameState = TestUtil.createGameWithEmptyStockAndWaste()
+            gameState.stackPiles.values().forEach { it.clear() }
+            gameState.columns.values().forEach { it.clear(); it.invisibleCards = 0 }
+            gameState.columns["A"].addAll([new Card(Suit.CLUBS, Rank.NINE), new Card(Suit.HEARTS, Rank.KING)])
+            gameState.columns["A"].invisibleCards = 1
+            gameState.columns["B"] << new Card(Suit.SPADES, Rank.SIX)
+            gameState.columns["C"] << new Card(Suit.HEARTS, Rank.SEVEN)
+            ["D", "E", "F", "G"].forEach { gameState.columns[it] << new Card(Suit.DIAMONDS, Rank.TWO) }
+            def searches = Metrics.histogram("controller.stalemateSearch")
+            def before = searches.snapshot().count
+        when:
+            3.times { GameStateController.detectGameLoss(gameState) }
+        then:
+            searches.snapshot().count == before + 1
+            !gameState.isGameLost()
+        when: "a card is moved and the move is reverted"
+            new MoveCard().createInstance("M B0 C").apply(gameState)
+            GameStateController.detectGameLoss(gameState)
+            new Revert().apply(gameState)
+            GameStateController.detectGameLoss(gameState)
+        then: "only the new position is searched"
+            searches.snapshot().count == before + 2
+            !gameState.isGameLost()
+    }
+
+    def "Cycling through the stock without changing the position loses the game" () {
+        given:
+            def gameState = TestUtil.createFixedNewGame()
+        when:
+            cycle(gameState, 3)
+        then:
+            gameState.stockCycles == 1
+            !gameState.isGameLost()
+        when:
+            cycle(gameState, 1)
+        then:
+            gameState.stockCycles == 2
+            gameState.isGameLost()
+    }
+
+    def "Cycling through the stock after changing the position does not lose the game" () {
+        given:
+            def gameState = TestUtil.createFixedNewGame()
+            cycle(gameState, 2)
+        when:
+            new MoveCard().createInstance("M O F").apply(gameState)
+            GameStateController.detectGameLoss(gameState)
+            cycle(gameState, 1)
+        then:
+            gameState.stockCycles == 2
+            !gameState.isGameLost()
+    }
+
+    def "Reverting a turn-over of the stock discards the recorded fingerprint" () {
+        given:
+            def gameState = TestUtil.createFixedNewGame()
+            cycle(gameState, 2)
+        when:
+            new Revert().createInstance("R").apply(gameState)
+            GameStateController.detectGameLoss(gameState)
+            cycle(gameState, 1)
+        then:
+            gameState.stockCycles == 1
+            !gameState.isGameLost()
+    }
+
+    static void cycle(GameState gameState, int times) {
+        times.times {
+            new CycleStock().createInstance("C").apply(gameState)
+            GameStateController.detectGameLoss(gameState)
+        }
+    }
+
     @Unroll
     def "A bonus should be given of #expectedTimeScore when testing: #testCase" () {
         expect:
@@ -110,4 +292,23 @@ class GameStateControllerSpec extends Specification {
             TestUtil.createGame(500L) | 500 || -100
 
     }
-}
\ No newline at end of file
+
+    def "Time scores are calculated from a virtual clock, which stops when the game is over" () {
+        given:
+            def clock = new VirtualClock()
+            def gameState = GameStateController.init(clock)
+        when:
+            clock.advanceSeconds(31)
+            GameStateController.applyTimePenalty(gameState)
+        then:
+            gameState.timeScore == -6
+        when:
+            gameState.setGameWon(true)
+            clock.advanceSeconds(1000)
+            GameStateController.applyBonusScore(gameState)
+        then:
+            gameState.playingSeconds == 31
+            gameState.timeScore == -6 + 22580
+            gameState.endTime == gameState.startTime.plusSeconds(31)
+    }
+}
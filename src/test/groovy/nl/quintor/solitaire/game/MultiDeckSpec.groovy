@@ -0,0 +1,203 @@
+package nl.quintor.solitaire.game
+
+import nl.quintor.solitaire.game.moves.CycleStock
+import nl.quintor.solitaire.game.moves.MoveCard
+import nl.quintor.solitaire.game.moves.ex.MoveException
+import nl.quintor.solitaire.models.card.Card
+import nl.quintor.solitaire.models.card.Rank
+import nl.quintor.solitaire.models.card.Suit
+import nl.quintor.solitaire.models.deck.Deck
+import nl.quintor.solitaire.models.state.GameState
+import nl.quintor.solitaire.models.state.Position
+import nl.quintor.solitaire.models.state.VirtualClock
+import spock.lang.Specification
+
+
+class MultiDeckSpec extends Specification {
+
+    def "Cards with the same face from different decks are different cards" () {
+        given:
+            def first = new Card(Suit.HEARTS, Rank.QUEEN)
+            def second = new Card(1, Suit.HEARTS, Rank.QUEEN)
+        expect:
+            first == new Card(0, first.ordinal)
+            first.id == first.ordinal
+            second.id == (1 << 6 | first.ordinal)
+            second == new Card(1, first.ordinal)
+            first != second
+            first.hashCode() != second.hashCode()
+            second.ordinal == first.ordinal
+            second.toShortString() == first.toShortString()
+            [second, new Card(Suit.HEARTS, Rank.KING), first].sort() == [first, second, new Card(Suit.HEARTS, Rank.KING)]
+    }
+
+    def "Cards can only be made for the supported number of decks" () {
+        when:
+            new Card(deckIndex, 0)
+        then:
+            thrown(IllegalArgumentException)
+        where:
+            deckIndex << [-1, Card.MAX_DECKS]
+    }
+
+    def "A card is looked up by its id, sharing the cards of the first four decks" () {
+        given:
+            def card = new Card(deckIndex, Suit.CLUBS, Rank.JACK)
+        expect:
+            Card.of(card.id) == card
+            Card.of(card.id).is(Card.of(card.id)) == shared
+        where:
+            deckIndex | shared
+            0         | true
+            3         | true
+            4         | false
+            511       | false
+    }
+
+    def "Ids that are no card ids are rejected" () {
+        when:
+            Card.of(id)
+        then:
+            thrown(IllegalArgumentException)
+        where:
+            id << [-1, 54, 1 << 6 | 63, Card.MAX_DECKS << 6]
+    }
+
+    def "A shoe holds every card of every deck exactly once" () {
+        when:
+            def shoe = Deck.createShoe(decks)
+        then:
+            shoe.size() == 52 * decks
+            shoe.toSet().size() == 52 * decks
+            shoe.countBy { it.ordinal }.values().every { it == decks }
+            shoe.countBy { it.deckIndex } == (0..<decks).collectEntries { [(it): 52] }
+        where:
+            decks << [1, 2, 3]
+    }
+
+    def "Games of more decks are dealt to more stack piles and columns" () {
+        when:
+            def gameState = GameStateController.init(new VirtualClock(), 7, decks)
+        then:
+            gameState.stackPiles.keySet() as List == stackPiles
+            gameState.columns.keySet() as List == columns
+            gameState.columns.values().withIndex().every { column, index -> column.size() == index + 1 && column.invisibleCards == index }
+            gameState.stock.size() == 1
+            gameState.waste.size() == waste
+            allCards(gameState).toSet().size() == 52 * decks
+            gameState.faceDownCards + gameState.stockCards + gameState.columns.size() == 52 * decks
+        where:
+            decks || stackPiles                      | columns                 | waste
+            1     || ("SA".."SD")                    | ("A".."G")              | 23
+            2     || ("SA".."SH")                    | ("A".."I")              | 58
+            3     || ("SA".."SL")                    | ("A".."M")              | 64
+    }
+
+    def "Only one to three decks can be dealt" () {
+        when:
+            GameStateController.init(new VirtualClock(), 7, decks)
+        then:
+            thrown(IllegalArgumentException)
+        where:
+            decks << [0, GameStateController.MAX_DECKS + 1]
+    }
+
+    def "Both aces of a suit can be moved to the stack piles of a two deck game" () {
+        given:
+            def gameState = GameStateController.init(new VirtualClock(), 7, 2)
+            def columnA = gameState.columns.get("A")
+            def columnB = gameState.columns.get("B")
+            columnA.clear()
+            columnA.add(new Card(0, Suit.SPADES, Rank.ACE))
+            columnB.set(1, new Card(1, Suit.SPADES, Rank.ACE))
+        when:
+            new MoveCard("M A0 SE").apply(gameState)
+            new MoveCard("M B1 SH").apply(gameState)
+        then:
+            gameState.stackPiles.get("SE") == [new Card(0, Suit.SPADES, Rank.ACE)]
+            gameState.stackPiles.get("SH") == [new Card(1, Suit.SPADES, Rank.ACE)]
+            gameState.columns.get("B").invisibleCards == 0
+    }
+
+    def "No card can be added to a complete stack pile, not even the ace of another deck" () {
+        given:
+            def gameState = GameStateController.init(new VirtualClock(), 7, decks)
+            def stackPile = gameState.stackPiles.get("SA")
+            ([Rank.ACE] + (Rank.TWO..Rank.KING)).each { stackPile.add(new Card(0, Suit.HEARTS, it)) }
+            def columnA = gameState.columns.get("A")
+            columnA.clear()
+            columnA.add(new Card(1, Suit.HEARTS, Rank.ACE))
+            def position = Position.of(gameState)
+        when:
+            new MoveCard("M A0 SA").apply(gameState)
+        then:
+            thrown(MoveException)
+            stackPile.size() == 13
+            !position.isLegalMove(position.getDeckIndex("A"), 0, position.getDeckIndex("SA"))
+            position.isLegalMove(position.getDeckIndex("A"), 0, position.getDeckIndex("SB"))
+        where:
+            decks << [2, 3]
+    }
+
+    def "Headers of stack piles and columns that a game does not have are rejected" () {
+        when:
+            new MoveCard(input).apply(GameStateController.init(new VirtualClock(), 7, decks))
+        then:
+            thrown(MoveException)
+        where:
+            input       | decks
+            "M H7 A"    | 1
+            "M A0 SE"   | 1
+            "M O J"     | 2
+            "M A0 SM"   | 3
+            "M N1 A"    | 3
+    }
+
+    def "Games of more decks keep every card while they are played, saved and restored" () {
+        given:
+            def clock = new VirtualClock()
+            def gameState = GameStateController.init(clock, seed, decks)
+            def random = new Random(seed)
+            def before = allCards(gameState).toSet()
+        when:
+            200.times {
+                def legal = legalCardMoves(gameState)
+                if (legal.empty && gameState.stockCards == 0) return
+                if (legal.empty || (gameState.stockCards > 0 && random.nextInt(4) == 0)) new CycleStock().apply(gameState)
+                else new MoveCard(legal[random.nextInt(legal.size())]).apply(gameState)
+            }
+            def restored = GameStateCodec.read(GameStateCodecSpec.save(gameState), clock)
+        then:
+            gameState.stackPiles.values().sum { it.size() } > 0
+            allCards(gameState).size() == 52 * decks
+            allCards(gameState).toSet() == before
+            GameStateCodecSpec.describe(restored) == GameStateCodecSpec.describe(gameState)
+            allCards(restored).collect { it.id } == allCards(gameState).collect { it.id }
+            allCards(Position.of(gameState).toGameState(clock)) == allCards(gameState)
+        where:
+            seed | decks
+            11L  | 2
+            12L  | 3
+    }
+
+    private static List<Card> allCards(GameState gameState){
+        def decks = [gameState.stock, gameState.waste] + gameState.stackPiles.values() + gameState.columns.values()
+        return decks.collectMany { it }
+    }
+
+    private static List<String> legalCardMoves(GameState gameState){
+        def sources = ["O"] + gameState.stackPiles.keySet() +
+            gameState.columns.collectMany { header, column -> (column.invisibleCards..<column.size()).collect { header + it } }
+        def destinations = gameState.stackPiles.keySet() + gameState.columns.keySet()
+        return [sources, destinations].combinations().collect { source, destination -> "M $source $destination".toString() }.findAll {
+            def move = new MoveCard(it)
+            try {
+                move.apply(gameState)
+            } catch (MoveException ignored) {
+                return false
+            }
+            move.revert(gameState)
+            return true
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package nl.quintor.solitaire.game.moves
+
+import nl.quintor.solitaire.TestUtil
+import nl.quintor.solitaire.statistics.GameStatistics
+import spock.lang.Specification
+
+class StatsMoveSpec extends Specification {
+
+    def "Stats move should return the statistics of the player and of the deal" () {
+        given:
+            def gameState = TestUtil.createFixedNewGame()
+            def statistics = GameStatistics.inMemory()
+            statistics.record("alice", gameState.dealId, 300, 120_000, 40, true)
+            statistics.record("alice", 7, 100, 60_000, 20, false)
+        when:
+            def actualMessage = new Stats(statistics, "alice").createInstance("S").apply(gameState)
+        then:
+            actualMessage == """
+Your games: 2 game(s), 50% won, 30.0 moves and 00:01:30 on average, average score 200.0, scores 64+: 1, 256+: 1
+This deal: 1 game(s), 100% won, 40.0 moves and 00:02:00 on average, average score 300.0, scores 256+: 1
+"""
+    }
+
+    def "Stats move toString should return 'S̲tats'" () {
+        expect:
+            new Stats(GameStatistics.inMemory(), "alice").toString() == "S̲tats"
+    }
+
+}
@@ -0,0 +1,198 @@
+package nl.quintor.solitaire.leaderboard
+
+import nl.quintor.solitaire.TestUtil
+import nl.quintor.solitaire.game.GameSession
+import nl.quintor.solitaire.ui.UI
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.StandardOpenOption
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+
+class LeaderboardSpec extends Specification {
+
+    def "Entries are ranked by score, then duration, then moves, then the order of recording" () {
+        given:
+            def leaderboard = Leaderboard.inMemory()
+        when:
+            leaderboard.record("slow", 1, 500, 90_000, 80, true)
+            leaderboard.record("low", 2, 100, 10_000, 10, false)
+            leaderboard.record("fast", 3, 500, 60_000, 90, true)
+            leaderboard.record("efficient", 4, 500, 60_000, 70, true)
+            leaderboard.record("late", 5, 500, 60_000, 70, true)
+        then:
+            leaderboard.top(10)*.player == ["efficient", "late", "fast", "slow", "low"]
+            leaderboard.top(2)*.player == ["efficient", "late"]
+            leaderboard.top(0).empty
+            leaderboard.size() == 5
+    }
+
+    def "The rank of a player is the rank of the best entry of the player" () {
+        given:
+            def leaderboard = Leaderboard.inMemory()
+            leaderboard.record("alice", 1, 300, 1000, 10, false)
+            leaderboard.record("bob", 2, 400, 1000, 10, false)
+            leaderboard.record("alice", 3, 200, 1000, 10, false)
+        expect:
+            leaderboard.rankOf("bob") == 1
+            leaderboard.rankOf("alice") == 2
+            leaderboard.bestOf("alice").score == 300
+            leaderboard.rankOf("carol") == -1
+            leaderboard.bestOf("carol") == null
+        when:
+            leaderboard.record("alice", 4, 1000, 1000, 10, true)
+        then:
+            leaderboard.rankOf("alice") == 1
+            leaderboard.rankOf("bob") == 2
+    }
+
+    def "Ranks and top entries match a sorted list for many entries" () {
+        given:
+            def leaderboard = Leaderboard.inMemory()
+            def random = new Random(7)
+            2000.times { leaderboard.record("p${random.nextInt(300)}", it, random.nextInt(100), random.nextInt(50), random.nextInt(20), false) }
+            def expected = leaderboard.top(Integer.MAX_VALUE).sort(false, LeaderboardEntry.BEST_FIRST)
+            def bestByPlayer = expected.groupBy { it.player }.collectEntries { player, entries -> [player, entries[0]] }
+        expect:
+            leaderboard.top(Integer.MAX_VALUE) == expected
+            bestByPlayer.every { player, best -> leaderboard.rankOf(player) == expected.indexOf(best) + 1 }
+    }
+
+    def "Games are recorded concurrently" () {
+        given:
+            def leaderboard = Leaderboard.inMemory()
+            def executor = Executors.newFixedThreadPool(8)
+            def start = new CountDownLatch(1)
+        when:
+            8.times { thread ->
+                executor.submit {
+                    start.await()
+                    1000.times { leaderboard.record("player$thread", it, it, 1000, 10, false) }
+                    leaderboard.top(10)
+                    leaderboard.rankOf("player$thread")
+                }
+            }
+            start.countDown()
+            executor.shutdown()
+            executor.awaitTermination(30, TimeUnit.SECONDS)
+        then:
+            leaderboard.size() == 8000
+            leaderboard.top(8)*.score == [999] * 8
+            leaderboard.top(8000)*.sequence.toSet().size() == 8000
+            (0..<8).every { leaderboard.rankOf("player$it") <= 8 }
+    }
+
+    def "Entries survive reopening the file" () {
+        given:
+            def file = Files.createTempFile("leaderboard", ".bin")
+            Files.delete(file)
+        when:
+            def leaderboard = Leaderboard.open(file)
+            leaderboard.record("alice", 11, 300, 1000, 10, false)
+            leaderboard.record("bøb", 12, 400, 2000, 20, true)
+            leaderboard.close()
+            def reopened = Leaderboard.open(file)
+            reopened.record("carol", 13, 350, 3000, 30, false)
+        then:
+            reopened.top(3).collect { [it.player, it.dealId, it.score, it.durationMillis, it.moves, it.won, it.sequence] } == [
+                ["bøb", 12, 400, 2000, 20, true, 1],
+                ["carol", 13, 350, 3000, 30, false, 2],
+                ["alice", 11, 300, 1000, 10, false, 0]]
+            reopened.rankOf("alice") == 3
+        cleanup:
+            reopened?.close()
+            Files.deleteIfExists(file)
+    }
+
+    def "Reopening a file ranks the entries like recording them, with scores #scores" () {
+        given:
+            def file = Files.createTempFile("leaderboard", ".bin")
+            Files.delete(file)
+            def random = new Random(5)
+            def leaderboard = Leaderboard.open(file)
+            2000.times { leaderboard.record("p${random.nextInt(1000)}", it, scores[random.nextInt(scores.size())], random.nextInt(5), 1, false) }
+            def expected = leaderboard.top(2000)
+            leaderboard.close()
+        when:
+            def reopened = Leaderboard.open(file)
+        then:
+            reopened.top(2000)*.sequence == expected*.sequence
+            expected*.player.unique().every { player -> reopened.rankOf(player) == expected.findIndexOf { it.player == player } + 1 }
+        cleanup:
+            reopened?.close()
+            Files.deleteIfExists(file)
+        where:
+            scores << [[0, 5, 10, 15], [Long.MIN_VALUE, -1, 0, Long.MAX_VALUE]]
+    }
+
+    def "A partly written record is discarded" () {
+        given:
+            def file = Files.createTempFile("leaderboard", ".bin")
+            Files.delete(file)
+            Leaderboard.open(file).withCloseable {
+                it.record("alice", 1, 300, 1000, 10, false)
+                it.record("bob", 2, 400, 1000, 10, false)
+            }
+            def size = Files.size(file)
+            FileChannel.open(file, StandardOpenOption.WRITE).withCloseable { it.truncate(size - 2) }
+        when:
+            def reopened = Leaderboard.open(file)
+            reopened.record("carol", 3, 100, 1000, 10, false)
+            reopened.close()
+            reopened = Leaderboard.open(file)
+        then:
+            reopened.top(3)*.player == ["alice", "carol"]
+        cleanup:
+            reopened?.close()
+            Files.deleteIfExists(file)
+    }
+
+    def "A file that is not a leaderboard is refused" () {
+        given:
+            def file = Files.createTempFile("leaderboard", ".bin")
+            Files.write(file, ByteBuffer.allocate(8).putLong(42).array())
+        when:
+            Leaderboard.open(file)
+        then:
+            thrown(IOException)
+        cleanup:
+            Files.deleteIfExists(file)
+    }
+
+    def "A name that is empty or too long is refused" () {
+        when:
+            Leaderboard.inMemory().record(name, 1, 1, 1, 1, false)
+        then:
+            thrown(IllegalArgumentException)
+        where:
+            name << ["", "x" * 256, "é" * 128]
+    }
+
+    def "A session records its game when the game is over" () {
+        given:
+            def leaderboard = Leaderboard.inMemory()
+            def gameState = TestUtil.createFixedNewGame()
+            def session = new GameSession(Mock(UI), gameState)
+            session.recordTo(leaderboard, "alice")
+        when:
+            session.play("M B1 A")
+        then:
+            leaderboard.size() == 0
+        when:
+            session.play("Q")
+            session.play("M A B")
+        then:
+            leaderboard.size() == 1
+            with(leaderboard.bestOf("alice")) {
+                score == 5
+                moves == 1
+                !won
+                dealId == gameState.dealId
+            }
+    }
+}
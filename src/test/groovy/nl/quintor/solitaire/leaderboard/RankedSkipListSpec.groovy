@@ -0,0 +1,56 @@
+package nl.quintor.solitaire.leaderboard
+
+import spock.lang.Specification
+
+
+class RankedSkipListSpec extends Specification {
+
+    def "Adding elements in any order keeps them ranked" () {
+        given:
+            def list = new RankedSkipList<Integer>(Comparator.naturalOrder())
+            def expected = []
+            def random = new Random(3)
+        when:
+            def ranks = (0..<1000).collect {
+                int value = random.nextInt(1_000_000) * 1000 + it // distinct values
+                expected << value
+                expected.sort()
+                [list.add(value), expected.indexOf(value)]
+            }
+        then:
+            ranks.every { it[0] == it[1] }
+            list.size() == 1000
+            list.range(0, 1000) == expected
+            (0..<1000).every { list.get(it) == expected[it] && list.rankOf(expected[it]) == it }
+            list.rankOf(-1) == -1
+            list.range(990, 20) == expected[990..<1000]
+            list.range(1000, 5).empty
+    }
+
+    def "A list built from sorted elements can be extended" () {
+        given:
+            Integer[] sorted = (0..<500).collect { it * 2 }
+            def list = RankedSkipList.ofSorted(Comparator.naturalOrder(), sorted)
+        when:
+            def rank = list.add(501)
+        then:
+            rank == 251
+            list.size() == 501
+            list.get(250) == 500
+            list.get(251) == 501
+            list.get(252) == 502
+            list.rankOf(998) == 500
+            list.range(0, 501) == ((0..<500).collect { it * 2 } + 501).sort()
+    }
+
+    def "An empty list has no elements" () {
+        given:
+            def list = RankedSkipList.ofSorted(Comparator.naturalOrder(), new Integer[0])
+        when:
+            list.get(0)
+        then:
+            thrown(IndexOutOfBoundsException)
+            list.rankOf(1) == -1
+            list.range(0, 10).empty
+    }
+}
@@ -0,0 +1,45 @@
+package nl.quintor.solitaire.load
+
+import nl.quintor.solitaire.agent.GreedyAgent
+import nl.quintor.solitaire.agent.RandomAgent
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+
+class LoadGeneratorSpec extends Specification {
+
+    def "Ramping up the load measures every step" () {
+        given:
+            def generator = new LoadGenerator({ new GreedyAgent() }, ThinkTime.none(), 1000)
+        when:
+            def steps = generator.ramp(1, 3, 200)
+        then:
+            steps*.sessions == [1, 2, 3]
+            steps.every { it.commandsPerSecond > 0 && it.latency.count > 0 }
+            steps.every { it.latency.p50Nanos <= it.latency.p99Nanos && it.latency.p99Nanos <= it.latency.percentileNanos(99.9) }
+            steps.every { it.toString().contains("sessions") }
+            Thread.allStackTraces.keySet().every { !it.name.startsWith("virtual-player-") }
+    }
+
+    def "Players that think play fewer commands" () {
+        given:
+            def generator = new LoadGenerator({ new RandomAgent(it) }, ThinkTime.constant(20), 100)
+        when:
+            def steps = generator.ramp(2, 2, 500)
+        then:
+            steps.size() == 1
+            steps[0].commandsPerSecond < 2 * 1000 / 20
+    }
+
+    def "Think times follow their distribution" () {
+        given:
+            def random = new Random(1)
+            def samples = { ThinkTime thinkTime -> (1..20000).collect { thinkTime.nextNanos(random) } }
+        expect:
+            samples(ThinkTime.none()).every { it == 0 }
+            samples(ThinkTime.constant(3)).every { it == TimeUnit.MILLISECONDS.toNanos(3) }
+            samples(ThinkTime.uniform(2, 4)).every { it >= 2_000_000 && it < 4_000_000 }
+            Math.abs(samples(ThinkTime.exponential(10)).sum() / 20000 - 10_000_000) < 500_000
+    }
+}
@@ -0,0 +1,120 @@
+package nl.quintor.solitaire.metrics
+
+import jdk.jfr.Recording
+import jdk.jfr.consumer.RecordedEvent
+import jdk.jfr.consumer.RecordingFile
+import nl.quintor.solitaire.TestUtil
+import nl.quintor.solitaire.game.GameSession
+import nl.quintor.solitaire.ui.UI
+import nl.quintor.solitaire.ui.cli.CommandLineUI
+import spock.lang.Specification
+
+import java.nio.channels.Channels
+import java.nio.file.Files
+
+
+class FlightEventsSpec extends Specification {
+
+    def "Games are played on a runtime without a Flight Recorder" () {
+        given: "the classes of the application, loaded by a class loader that can't load the jdk.jfr package"
+            def withoutRecorder = new ClassLoader(ClassLoader.systemClassLoader.parent) {
+                @Override
+                protected Class<?> loadClass(String name, boolean resolve) {
+                    if (name.startsWith("jdk.jfr.")) throw new ClassNotFoundException(name)
+                    return super.loadClass(name, resolve)
+                }
+            }
+            def location = FlightEvents.protectionDomain.codeSource.location
+            def loader = new URLClassLoader([location] as URL[], withoutRecorder)
+            def controller = loader.loadClass("nl.quintor.solitaire.game.GameStateController")
+            def agentUI = loader.loadClass("nl.quintor.solitaire.agent.AgentUI")
+            def agent = loader.loadClass("nl.quintor.solitaire.agent.GreedyAgent").newInstance()
+        when:
+            def gameState = controller.init()
+            def ui = agentUI.play(agent, gameState, 200)
+        then: "no event is created, so the missing event classes are never linked"
+            notThrown(LinkageError)
+            gameState.gameOver
+            ui.turns > 0
+        cleanup:
+            loader?.close()
+    }
+
+    def "Applying, rejecting and reverting moves is recorded" () {
+        given:
+            def session = new GameSession(Mock(UI), TestUtil.createFixedNewGame())
+        when:
+            def events = record {
+                session.play("M B1 A")
+                session.play("R")
+                session.play("M B1 SA")
+            }
+        then:
+            def moves = events.findAll { it.eventType.name == "nl.quintor.solitaire.Move" }
+            // the revert of the MoveCard is nested in the apply of the Revert
+            moves*.getString("operation") == ["apply", "apply", "revert", "apply"]
+            moves*.getClass("moveType")*.name*.tokenize(".")*.last() == ["MoveCard", "Revert", "MoveCard", "MoveCard"]
+            moves[0].getString("input") == "M B1 A"
+            moves[0].getString("source") == "B1"
+            moves[0].getString("destination") == "A"
+            !moves[0].getBoolean("rejected")
+            moves[3].getBoolean("rejected")
+            moves[3].getString("destination") == "SA"
+            def rejected = events.findAll { it.eventType.name == "nl.quintor.solitaire.CheckRejected" }
+            rejected.size() == 1
+            rejected[0].getString("check") == "card"
+            rejected[0].getString("input") == "M B1 SA"
+    }
+
+    def "Turns and refreshes of the command line UI are recorded" () {
+        given:
+            def input = new ByteArrayInputStream("C\nQ\n".getBytes("UTF-8"))
+            def output = new ByteArrayOutputStream()
+            def ui = new CommandLineUI(input, Channels.newChannel(output), true)
+            def session = new GameSession(ui, TestUtil.createFixedNewGame())
+        when:
+            def events = record { session.run() }
+        then:
+            def turns = events.findAll { it.eventType.name == "nl.quintor.solitaire.Turn" }
+            turns*.getString("input") == ["C", "Q"]
+            turns*.getBoolean("gameOver") == [false, true]
+            def refreshes = events.findAll { it.eventType.name == "nl.quintor.solitaire.Refresh" }
+            refreshes*.getBoolean("requestsMove") == [true, true, false]
+            refreshes*.getLong("bytesWritten").sum() == output.size()
+            refreshes.every { it.getBoolean("incremental") }
+    }
+
+    def "Events are not recorded unless they are enabled" () {
+        given:
+            def session = new GameSession(Mock(UI), TestUtil.createFixedNewGame())
+        when:
+            def events = record(false) { session.play("M B1 A") }
+        then:
+            events.every { !it.eventType.name.startsWith("nl.quintor.solitaire.") }
+    }
+
+    /**
+     * Runs the closure while recording, and returns the recorded events of the current thread in order.
+     */
+    private static List<RecordedEvent> record(boolean enabled = true, Closure closure) {
+        def file = Files.createTempFile("solitaire", ".jfr")
+        try {
+            def recording = new Recording()
+            ["Move", "CheckRejected", "Refresh", "Turn"].each {
+                if (enabled) recording.enable("nl.quintor.solitaire." + it)
+                else recording.disable("nl.quintor.solitaire." + it)
+            }
+            recording.start()
+            closure()
+            recording.stop()
+            recording.dump(file)
+            recording.close()
+            def thread = Thread.currentThread().id
+            return RecordingFile.readAllEvents(file)
+                .findAll { it.thread?.javaThreadId == thread }
+                .sort { it.startTime }
+        } finally {
+            Files.delete(file)
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package nl.quintor.solitaire.metrics
+
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+
+class LatencyHistogramSpec extends Specification {
+
+    def "A latency of #nanos ns is counted in bucket #bucket" () {
+        expect:
+            LatencyHistogram.bucketOf(nanos) == bucket
+            LatencyHistogram.bucketLowerBound(bucket) <= Math.max(0, nanos)
+            bucket == LatencyHistogram.BUCKETS - 1 || LatencyHistogram.bucketLowerBound(bucket + 1) > nanos
+        where:
+            nanos          || bucket
+            -5             || 0
+            0              || 0
+            3              || 3
+            4              || 4
+            7              || 7
+            8              || 8
+            9              || 8
+            10             || 9
+            15             || 11
+            16             || 12
+            1000           || 35
+            Long.MAX_VALUE || 247
+    }
+
+    def "Buckets are at most 25% wide" () {
+        expect:
+            (4..<LatencyHistogram.BUCKETS - 1).every {
+                def lower = LatencyHistogram.bucketLowerBound(it)
+                def upper = LatencyHistogram.bucketLowerBound(it + 1)
+                upper > lower && (upper - lower) * 4 <= lower
+            }
+    }
+
+    def "A snapshot reports the count, mean and percentiles" () {
+        given:
+            def histogram = new LatencyHistogram("test")
+        when:
+            (1..100).each { histogram.record(it * 1000) }
+            def snapshot = histogram.snapshot()
+        then:
+            snapshot.name == "test"
+            snapshot.count == 100
+            snapshot.totalNanos == 5050 * 1000
+            snapshot.meanNanos == 50_500
+            snapshot.p50Nanos >= 50_000 && snapshot.p50Nanos <= 50_000 * 1.25
+            snapshot.p99Nanos >= 99_000 && snapshot.p99Nanos <= 99_000 * 1.25
+            snapshot.maxNanos >= 100_000 && snapshot.maxNanos <= 100_000 * 1.25
+            snapshot.buckets.sum() == 100
+            new LatencyHistogram("empty").snapshot().p99Nanos == 0
+    }
+
+    def "Operations that are not sampled are counted without a latency" () {
+        given:
+            def histogram = new LatencyHistogram("test")
+        when:
+            3.times { histogram.stop(Metrics.NOT_SAMPLED) }
+            histogram.record(2000)
+            def snapshot = histogram.snapshot()
+        then:
+            snapshot.count == 4
+            snapshot.sampledCount == 1
+            snapshot.meanNanos == 2000
+            snapshot.p50Nanos >= 2000
+    }
+
+    def "About one in SAMPLING operations is timed" () {
+        given:
+            def histogram = new LatencyHistogram("test")
+        when:
+            80_000.times { histogram.stop(Metrics.start()) }
+            def snapshot = histogram.snapshot()
+        then:
+            snapshot.count == 80_000
+            Math.abs(snapshot.sampledCount * Metrics.SAMPLING - 80_000) < 8_000
+    }
+
+    def "Latencies recorded by many threads are all counted" () {
+        given:
+            def histogram = new LatencyHistogram("concurrent")
+            def executor = Executors.newFixedThreadPool(8)
+            def start = new CountDownLatch(1)
+        when:
+            8.times { thread ->
+                executor.submit {
+                    start.await()
+                    10_000.times { histogram.record(thread * 100 + 1) }
+                }
+            }
+            start.countDown()
+            executor.shutdown()
+            executor.awaitTermination(30, TimeUnit.SECONDS)
+            def snapshot = histogram.snapshot()
+        then:
+            snapshot.count == 80_000
+            snapshot.totalNanos == (0..<8).sum { (it * 100 + 1) * 10_000L }
+        when:
+            histogram.reset()
+        then:
+            histogram.snapshot().count == 0
+    }
+}
@@ -0,0 +1,71 @@
+package nl.quintor.solitaire.metrics
+
+import nl.quintor.solitaire.TestUtil
+import nl.quintor.solitaire.game.GameSession
+import nl.quintor.solitaire.ui.UI
+import spock.lang.Specification
+
+import javax.management.ObjectName
+import javax.management.openmbean.CompositeData
+import java.lang.management.ManagementFactory
+
+
+class MetricsSpec extends Specification {
+
+    def setup() {
+        Metrics.reset()
+    }
+
+    def "Playing moves records their latencies and errors" () {
+        given:
+            def session = new GameSession(Mock(UI), TestUtil.createFixedNewGame())
+        when:
+            session.play("M B1 A")
+            session.play("R")
+            session.play("M B1 SA")
+            session.play("C")
+        then:
+            def histograms = Metrics.snapshots().collectEntries { [it.name, it.count] }
+            histograms["move.apply.MoveCard"] == 2
+            histograms["move.apply.Revert"] == 1
+            histograms["move.apply.CycleStock"] == 1
+            histograms["move.revert.MoveCard"] == 1
+            histograms["move.checks"] == 2
+            histograms["controller.detectGameWin"] == 3
+            histograms["controller.detectGameLoss"] == 3
+            histograms["controller.score"] == 3
+            Metrics.errors() == ["checks.rejected.card": 1L, "move.error.MoveCard.MoveException": 1L]
+            Metrics.summary().contains("move.apply.MoveCard")
+    }
+
+    def "Histograms per class are cached by the class" () {
+        given:
+            def perClass = Metrics.histogramPerClass("test.")
+        expect:
+            perClass.get(String).is(perClass.get(String))
+            perClass.get(String).is(Metrics.histogram("test.String"))
+    }
+
+    def "The metrics are exposed through JMX" () {
+        given:
+            Metrics.registerMBean()
+            Metrics.registerMBean()
+            Metrics.histogram("jmx.test").record(1500)
+            Metrics.countError("jmx.error")
+            def server = ManagementFactory.platformMBeanServer
+            def name = new ObjectName(Metrics.OBJECT_NAME)
+        when:
+            def histograms = server.getAttribute(name, "Histograms") as CompositeData[]
+            def errors = server.getAttribute(name, "Errors")
+        then:
+            def histogram = histograms.find { it.get("name") == "jmx.test" }
+            histogram.get("count") == 1L
+            histogram.get("meanNanos") == 1500L
+            errors.get(["jmx.error"] as Object[]).get("value") == 1L
+            (server.getAttribute(name, "Summary") as String).contains("jmx.test")
+        when:
+            server.invoke(name, "reset", null, null)
+        then:
+            Metrics.histogram("jmx.test").snapshot().count == 0
+    }
+}
@@ -0,0 +1,68 @@
+package nl.quintor.solitaire.models.state
+
+import nl.quintor.solitaire.TestUtil
+import nl.quintor.solitaire.game.moves.CycleStock
+import nl.quintor.solitaire.game.moves.MoveCard
+import nl.quintor.solitaire.models.deck.DeckType
+import spock.lang.Specification
+
+
+class GameSnapshotSpec extends Specification {
+
+    def "A snapshot contains the summary and the visible cards of every deck" () {
+        given:
+            def gameState = TestUtil.createFixedNewGame()
+            new MoveCard().createInstance("M B1 A").apply(gameState)
+        when:
+            def snapshot = GameSnapshot.of(gameState, 7)
+        then:
+            snapshot.sequence == 7
+            snapshot.moves == 1
+            snapshot.score == 5
+            snapshot.deckCount == 13
+            (0..<13).collect { snapshot.getDeckHeader(it) } == ["O", "", "SA", "SB", "SC", "SD", "A", "B", "C", "D", "E", "F", "G"]
+            (0..<13).collect { snapshot.getDeckType(it) } == [DeckType.STOCK, DeckType.WASTE] + [DeckType.STACK] * 4 + [DeckType.COLUMN] * 7
+            snapshot.getDeckSize(0) == 1
+            snapshot.getCard(0, 0) == gameState.stock[0]
+            snapshot.getDeckSize(6) == 2
+            snapshot.getCard(6, 1) == gameState.columns.A[1]
+            snapshot.getDeckSize(7) == 1
+            snapshot.getFaceDownCards(7) == 0
+            snapshot.getCard(7, 0) == gameState.columns.B[0]
+    }
+
+    def "Face-down cards are not part of the snapshot" () {
+        given:
+            def snapshot = GameSnapshot.of(TestUtil.createFixedNewGame(), 0)
+        expect:
+            snapshot.getDeckSize(1) == 1
+            snapshot.getFaceDownCards(1) == 1
+            snapshot.getCard(1, 0) == null
+            snapshot.getFaceDownCards(12) == 6
+            (0..5).every { snapshot.getCard(12, it) == null }
+            snapshot.getCard(12, 6) != null
+    }
+
+    def "A snapshot does not change when the game changes" () {
+        given:
+            def gameState = TestUtil.createFixedNewGame()
+            def snapshot = GameSnapshot.of(gameState, 0)
+            def before = snapshot.toString()
+        when:
+            new CycleStock().apply(gameState)
+            new MoveCard().createInstance("M B1 A").apply(gameState)
+        then:
+            snapshot.toString() == before
+            snapshot.moves == 0
+            GameSnapshot.of(gameState, 1).toString() != before
+    }
+
+    def "Cards outside a deck can't be read" () {
+        given:
+            def snapshot = GameSnapshot.of(TestUtil.createFixedNewGame(), 0)
+        when:
+            snapshot.getCard(0, 1)
+        then:
+            thrown(IndexOutOfBoundsException)
+    }
+}
@@ -0,0 +1,37 @@
+package nl.quintor.solitaire.models.state
+
+import spock.lang.Specification
+
+
+class GameStateFootprintSpec extends Specification {
+    static final long BUDGET = Long.getLong("solitaire.footprint.budget", 12288)
+    static final long BUDGET_PER_MOVE = Long.getLong("solitaire.footprint.budgetPerMove", 256)
+
+    def "A fresh game stays within the memory budget" () {
+        when:
+            def footprint = GameStateFootprint.measure(GameStateFootprint.play(0))
+        then:
+            assert footprint.total <= BUDGET, "A fresh game takes $footprint"
+    }
+
+    def "Every move stays within the memory budget per move" () {
+        given:
+            def fresh = GameStateFootprint.measure(GameStateFootprint.play(0))
+            def gameState = GameStateFootprint.play(200)
+        when:
+            def footprint = GameStateFootprint.measure(gameState)
+        then:
+            def perMove = (footprint.total - fresh.total) / gameState.moves.size()
+            assert perMove <= BUDGET_PER_MOVE, "$perMove bytes per move, after ${gameState.moves.size()} moves the game takes $footprint"
+    }
+
+    def "The footprint is divided over the fields of the game" () {
+        when:
+            def footprint = GameStateFootprint.measure(GameStateFootprint.play(50))
+        then:
+            footprint.total == footprint.shell + footprint.shared + footprint.retained.values().sum()
+            footprint.retained.keySet().containsAll(["stock", "waste", "stackPiles", "columns", "moves"])
+            footprint.retained["moves"] > 0
+            footprint.toString().contains("columns")
+    }
+}
@@ -0,0 +1,121 @@
+package nl.quintor.solitaire.models.state
+
+import nl.quintor.solitaire.TestUtil
+import nl.quintor.solitaire.game.moves.CycleStock
+import nl.quintor.solitaire.game.moves.MoveCard
+import nl.quintor.solitaire.game.moves.Quit
+import nl.quintor.solitaire.game.moves.Revert
+import spock.lang.Specification
+
+
+class GameStateListenerSpec extends Specification {
+
+    def "Moving a card emits cards moved, card flipped and score changed events" () {
+        given:
+            def gameState = TestUtil.createFixedNewGame()
+            def listener = Mock(GameStateListener)
+            gameState.addListener(listener)
+        when:
+            new MoveCard().createInstance("M B1 A").apply(gameState)
+        then:
+            1 * listener.cardsMoved("B", "A", 1)
+        then:
+            1 * listener.cardFlipped("B", 0, true)
+        then:
+            1 * listener.scoreChanged(0, 5)
+            0 * _
+    }
+
+    def "Taking the last stock card emits a stock cycled event" () {
+        given:
+            def gameState = TestUtil.createFixedNewGame()
+            def listener = Mock(GameStateListener)
+            gameState.addListener(listener)
+        when:
+            new MoveCard().createInstance("M O F").apply(gameState)
+        then:
+            1 * listener.cardsMoved("O", "F", 1)
+            1 * listener.stockCycled(1, 0, 0)
+            1 * listener.scoreChanged(0, 5)
+            0 * _
+    }
+
+    def "Reverting a card move emits the opposite events" () {
+        given:
+            def gameState = TestUtil.createFixedNewGame()
+            new MoveCard().createInstance("M B1 A").apply(gameState)
+            def listener = Mock(GameStateListener)
+            gameState.addListener(listener)
+        when:
+            new Revert().createInstance("R").apply(gameState)
+        then:
+            1 * listener.cardFlipped("B", 0, false)
+            1 * listener.cardsMoved("A", "B", 1)
+            1 * listener.scoreChanged(5, 0)
+            0 * _
+    }
+
+    def "Cycling the stock and reverting it emits stock cycled events" () {
+        given:
+            def gameState = TestUtil.createFixedNewGame()
+            gameState.setBaseScore(150)
+            def listener = Mock(GameStateListener)
+            gameState.addListener(listener)
+        when:
+            new CycleStock().createInstance("C").apply(gameState)
+        then:
+            1 * listener.stockCycled(2, 0, 0)
+            0 * _
+        when:
+            new CycleStock().createInstance("C").apply(gameState)
+        then:
+            1 * listener.scoreChanged(150, 50)
+            1 * listener.stockCycled(1, 1, 1)
+            0 * _
+        when:
+            new Revert().createInstance("R").apply(gameState)
+        then:
+            1 * listener.scoreChanged(50, 150)
+            1 * listener.stockCycled(2, 0, 0)
+            0 * _
+    }
+
+    def "Game over is emitted once" () {
+        given:
+            def gameState = TestUtil.createFixedNewGame()
+            def listener = Mock(GameStateListener)
+            gameState.addListener(listener)
+        when:
+            new Quit().apply(gameState)
+            gameState.setGameWon(true)
+        then:
+            1 * listener.gameOver(false)
+            0 * _
+    }
+
+    def "Removed listeners are no longer notified" () {
+        given:
+            def gameState = TestUtil.createFixedNewGame()
+            def removed = Mock(GameStateListener)
+            def kept = Mock(GameStateListener)
+            gameState.addListener(removed)
+            gameState.addListener(kept)
+            gameState.removeListener(removed)
+        when:
+            gameState.setBaseScore(10)
+        then:
+            0 * removed._
+            1 * kept.scoreChanged(0, 10)
+    }
+
+    def "Setting a base score that does not change the total score does not emit an event" () {
+        given:
+            def gameState = TestUtil.createFixedNewGame()
+            def listener = Mock(GameStateListener)
+            gameState.addListener(listener)
+        when:
+            gameState.setBaseScore(-100)
+        then:
+            0 * _
+    }
+}
@@ -0,0 +1,132 @@
+package nl.quintor.solitaire.models.state
+
+import nl.quintor.solitaire.TestUtil
+import nl.quintor.solitaire.game.GameStateController
+import nl.quintor.solitaire.game.moves.CycleStock
+import nl.quintor.solitaire.game.moves.MoveCard
+import nl.quintor.solitaire.game.moves.RevertibleMove
+import nl.quintor.solitaire.game.moves.ex.MoveException
+import nl.quintor.solitaire.models.deck.DeckType
+import spock.lang.Specification
+
+
+class PositionSpec extends Specification {
+
+    def "A position converts to a game and back without changes" () {
+        given:
+            def gameState = TestUtil.createFixedNewGame()
+            new MoveCard("M B1 A").apply(gameState)
+            new CycleStock().apply(gameState)
+        when:
+            def position = Position.of(gameState)
+            def copy = position.toGameState(new VirtualClock())
+        then:
+            copy.stock == gameState.stock
+            copy.waste == gameState.waste
+            copy.stackPiles == gameState.stackPiles
+            copy.columns == gameState.columns
+            copy.columns.values()*.invisibleCards == gameState.columns.values()*.invisibleCards
+            copy.columns.values()*.deckType == [DeckType.COLUMN] * 7
+            copy.baseScore == 5
+            copy.stockCycles == gameState.stockCycles
+            copy.dealId == gameState.dealId
+            copy.moves.empty
+            Position.of(copy) == position
+            Position.of(copy).toString() == position.toString()
+    }
+
+    def "A move returns a new position that shares the untouched decks" () {
+        given:
+            def position = Position.of(TestUtil.createFixedNewGame())
+            def before = position.toString()
+        when:
+            def next = position.apply("M B1 A")
+        then:
+            position.toString() == before
+            next.baseScore == 5
+            next.getDeckSize(position.getDeckIndex("A")) == 2
+            next.getDeckSize(position.getDeckIndex("B")) == 1
+            next.getFaceDownCards(position.getDeckIndex("B")) == 0
+            def touched = [position.getDeckIndex("A"), position.getDeckIndex("B")]
+            (0..<position.deckCount).findAll { !next.@cards[it].is(position.@cards[it]) } == touched
+            next.@headers.is(position.@headers)
+    }
+
+    def "Illegal moves are rejected like the mutable moves reject them" () {
+        given:
+            def position = Position.of(TestUtil.createFixedNewGame()).apply("M B1 A")
+        when:
+            position.apply(input)
+        then:
+            thrown(MoveException)
+        where:
+            input << ["M B1 SA", "M SA B", "M A9 B", "M O O", "X", "M B1", "M H1 A"]
+    }
+
+    def "Positions play exactly like the moves of a game" () {
+        given:
+            def random = new Random(seed)
+            def gameState = GameStateController.init(new VirtualClock(), seed, decks)
+            def position = Position.of(gameState)
+        expect:
+            150.times {
+                def legalInputs = inputs(gameState).findAll { legal(position, it) }
+                assert legalInputs == inputs(gameState).findAll { legal(gameState, it) }
+                if (legalInputs.empty) return
+                def input = legalInputs[random.nextInt(legalInputs.size())]
+                position = position.apply(input)
+                (input == "C" ? new CycleStock() : new MoveCard(input)).apply(gameState)
+                assert position == Position.of(gameState)
+                assert position.toString() == Position.of(gameState).toString()
+                assert position.isWon() == (gameState.faceDownCards == 0 && gameState.stockCards == 0)
+            }
+        where:
+            seed | decks
+            1L   | 1
+            2L   | 1
+            3L   | 1
+            4L   | 2
+            5L   | 3
+    }
+
+    def "Equal positions have equal hash codes, whatever the moves that led to them" () {
+        given:
+            def position = Position.of(TestUtil.createFixedNewGame())
+        when:
+            // the fixed game has two stock cards, so the second cycle turns the stock over and shows the first card again
+            def cycled = position.cycleStock().cycleStock()
+        then:
+            cycled.stockCycles == position.stockCycles + 1
+            cycled.baseScore == position.baseScore - 100
+            cycled == position
+            cycled.hashCode() == position.hashCode()
+            position.cycleStock() != position
+    }
+
+    private static List<String> inputs(GameState gameState){
+        def sources = ["O"] + gameState.stackPiles.keySet() +
+            gameState.columns.collectMany { header, column -> (0..<Math.max(column.size(), 1)).collect { header + it } }
+        def destinations = ["O"] + gameState.stackPiles.keySet() + gameState.columns.keySet()
+        return ["C"] + [sources, destinations].combinations().collect { source, destination -> "M $source $destination".toString() }
+    }
+
+    private static boolean legal(Position position, String input){
+        try {
+            position.apply(input)
+            return true
+        } catch (MoveException ignored) {
+            return false
+        }
+    }
+
+    private static boolean legal(GameState gameState, String input){
+        RevertibleMove move = input == "C" ? new CycleStock() : new MoveCard(input)
+        try {
+            move.apply(gameState)
+        } catch (MoveException ignored) {
+            return false
+        }
+        move.revert(gameState)
+        return true
+    }
+}
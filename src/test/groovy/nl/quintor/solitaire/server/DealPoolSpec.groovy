@@ -0,0 +1,71 @@
+package nl.quintor.solitaire.server
+
+import nl.quintor.solitaire.agent.GreedyAgent
+import nl.quintor.solitaire.agent.AgentUI
+import nl.quintor.solitaire.game.GameStateController
+import nl.quintor.solitaire.models.state.VirtualClock
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+
+class DealPoolSpec extends Specification {
+
+    @AutoCleanup
+    def pool = new DealPool(8)
+
+    def conditions = new PollingConditions(timeout: 10)
+
+    def "The pool is filled up to its capacity and no further" () {
+        when:
+            conditions.eventually { assert pool.size() == 8 }
+            Thread.sleep(100)
+        then:
+            pool.size() == 8
+            pool.hits == 0
+            pool.misses == 0
+    }
+
+    def "A pooled game is handed out unplayed, with its clock starting when it is taken" () {
+        given:
+            conditions.eventually { assert pool.size() == 8 }
+            Thread.sleep(1100)
+        when:
+            def games = (1..8).collect { pool.get() }
+        then:
+            pool.hits == 8
+            games*.dealId.toSet().size() == 8
+            games.every { it.moves.empty && !it.gameOver && it.stackPiles.size() == 4 && it.columns.size() == 7 }
+            games.every { it.playingSeconds == 0 }
+    }
+
+    def "A game is dealt on the calling thread when the pool is empty" () {
+        given:
+            pool.close()
+        when:
+            def game = pool.get()
+        then:
+            game.columns.size() == 7
+            pool.misses == 1
+            pool.size() == 0
+    }
+
+    def "Only the games accepted by the filter go into the pool" () {
+        given:
+            def filtered = new DealPool(2, 2, DealPool.winnableBy({ dealId -> new GreedyAgent() }, 1000))
+        when:
+            conditions.within(60) { assert filtered.size() == 2 }
+            def games = [filtered.get(), filtered.get()]
+        then:
+            filtered.hits == 2
+            filtered.rejected > 0
+            games.every { it.stackPiles.size() == 8 && it.moves.empty }
+            games.every {
+                def copy = GameStateController.init(new VirtualClock(), it.dealId, 2)
+                AgentUI.play(new GreedyAgent(), copy, 1000)
+                copy.gameWon
+            }
+        cleanup:
+            filtered?.close()
+    }
+}
@@ -0,0 +1,189 @@
+package nl.quintor.solitaire.server
+
+import nl.quintor.solitaire.game.GameStateController
+import nl.quintor.solitaire.game.moves.CycleStock
+import nl.quintor.solitaire.metrics.Metrics
+import nl.quintor.solitaire.models.state.VirtualClock
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.nio.ByteBuffer
+
+
+class GameServerSpec extends Specification {
+    static final String END_OF_SCREEN = "\u001B[J"
+
+    @AutoCleanup
+    def server = new GameServer(0, 100)
+
+    def conditions = new PollingConditions(timeout: 10)
+
+    /**
+     * Reads one screen, every screen ends with the ANSI code that clears the rest of the terminal.
+     */
+    static String readScreen(Socket socket) {
+        def received = new ByteArrayOutputStream()
+        int b
+        while (!new String(received.toByteArray(), "UTF-8").endsWith(END_OF_SCREEN) && (b = socket.inputStream.read()) != -1) {
+            received.write(b)
+        }
+        return new String(received.toByteArray(), "UTF-8")
+    }
+
+    static String readAll(Socket socket) {
+        return new String(socket.inputStream.bytes, "UTF-8")
+    }
+
+    static void send(Socket socket, String line) {
+        socket.outputStream.write((line + "\r\n").getBytes("UTF-8"))
+        socket.outputStream.flush()
+    }
+
+    def "A client receives the board and can play until the game is over" () {
+        given:
+            def socket = new Socket("localhost", server.port)
+        when:
+            def firstScreen = readScreen(socket)
+        then:
+            firstScreen.contains("O (24)")
+            firstScreen.contains("What would you like to do?")
+            server.sessionCount == 1
+        when:
+            send(socket, "M Z A")
+            def errorScreen = readScreen(socket)
+            send(socket, "Q")
+            def lastScreen = readAll(socket)
+        then:
+            errorScreen.contains('"Z" is not a valid source location')
+            lastScreen.contains("Game over")
+            conditions.eventually { assert server.sessionCount == 0 }
+        cleanup:
+            socket.close()
+    }
+
+    def "Concurrent sessions play separate games" () {
+        given:
+            def sockets = (1..50).collect { new Socket("localhost", server.port) }
+        when:
+            sockets.each { readScreen(it) }
+        then:
+            server.sessionCount == 50
+        when:
+            send(sockets[0], "C")
+            def cycled = readScreen(sockets[0])
+        then:
+            cycled.contains("Stock card 2 out of 24, cycle 0")
+        when:
+            sockets.each { send(it, "Q") }
+            sockets.each { readAll(it) }
+        then:
+            conditions.eventually { assert server.sessionCount == 0 }
+        cleanup:
+            sockets.each { it.close() }
+    }
+
+    def "Disconnected clients end their session" () {
+        given:
+            def socket = new Socket("localhost", server.port)
+            readScreen(socket)
+        when:
+            socket.close()
+        then:
+            conditions.eventually { assert server.sessionCount == 0 }
+    }
+
+    def "A session that fails with a bug is counted as an error instead of a disconnect" () {
+        given:
+            def failingServer = new GameServer(0, 10, { throw new IllegalStateException("no game") })
+            def before = Metrics.errors().getOrDefault("server.session.IllegalStateException", 0L)
+            def socket = new Socket("localhost", failingServer.port)
+        expect:
+            socket.inputStream.read() == -1
+            conditions.eventually { assert Metrics.errors()["server.session.IllegalStateException"] == before + 1 }
+        cleanup:
+            socket?.close()
+            failingServer?.close()
+    }
+
+        /**
+     * Reads one sync protocol message, including its length prefix.
+     */
+    static ByteBuffer readMessage(Socket socket) {
+        def input = new DataInputStream(socket.inputStream)
+        int length = input.readUnsignedShort()
+        def message = ByteBuffer.allocate(SyncProtocol.LENGTH_BYTES + length).putShort((short) length)
+        def body = new byte[length]
+        input.readFully(body)
+        return message.put(body).flip() as ByteBuffer
+    }
+
+    def "In sync mode a client mirrors the game from a keyframe and deltas" () {
+        given:
+            def syncServer = new GameServer(0, 10, { GameStateController.init(new VirtualClock(), 7) }, true)
+            def socket = new Socket("localhost", syncServer.port)
+            def decoder = new SyncDecoder()
+            def expected = GameStateController.init(new VirtualClock(), 7)
+        when:
+            def keyframe = readMessage(socket)
+            decoder.read(keyframe)
+        then:
+            keyframe.get(SyncProtocol.LENGTH_BYTES) == SyncProtocol.KEYFRAME
+            decoder.gameState.columns.size() == 7
+            decoder.gameState.stock*.ordinal == expected.stock*.ordinal
+        when:
+            send(socket, "C")
+            def delta = readMessage(socket)
+            decoder.read(delta)
+            new CycleStock().createInstance("C").apply(expected)
+        then:
+            delta.get(SyncProtocol.LENGTH_BYTES) == SyncProtocol.DELTA
+            decoder.synchronized
+            decoder.moveCount == 1
+            decoder.gameState.stock*.ordinal == expected.stock*.ordinal
+        when:
+            send(socket, SyncUI.KEYFRAME_REQUEST)
+            def requested = readMessage(socket)
+        then:
+            requested.get(SyncProtocol.LENGTH_BYTES) == SyncProtocol.KEYFRAME
+            decoder.read(requested)
+        when:
+            send(socket, "Q")
+            decoder.read(readMessage(socket))
+        then:
+            decoder.gameState.gameLost
+            conditions.eventually { assert syncServer.sessionCount == 0 }
+        cleanup:
+            socket?.close()
+            syncServer?.close()
+    }
+
+    def "Connections beyond the maximum number of sessions are refused" () {
+        given:
+            def fullServer = new GameServer(0, 1)
+            def first = new Socket("localhost", fullServer.port)
+            readScreen(first)
+        when:
+            def second = new Socket("localhost", fullServer.port)
+        then:
+            readAll(second) == "The server is full, please try again later.\n"
+            fullServer.sessionCount == 1
+        cleanup:
+            first?.close()
+            second?.close()
+            fullServer?.close()
+    }
+
+    def "Closing the server disconnects all sessions" () {
+        given:
+            def socket = new Socket("localhost", server.port)
+            readScreen(socket)
+        when:
+            server.close()
+        then:
+            socket.inputStream.read() == -1
+            conditions.eventually { assert server.sessionCount == 0 }
+        cleanup:
+            socket.close()
+    }
+}
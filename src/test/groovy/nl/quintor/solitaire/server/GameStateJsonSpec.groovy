@@ -0,0 +1,64 @@
+package nl.quintor.solitaire.server
+
+import groovy.json.JsonSlurper
+import nl.quintor.solitaire.TestUtil
+import nl.quintor.solitaire.game.moves.MoveCard
+import nl.quintor.solitaire.models.state.GameSnapshot
+import nl.quintor.solitaire.ui.cli.FrameBuffer
+import spock.lang.Specification
+
+
+class GameStateJsonSpec extends Specification {
+
+    static Map toJson(gameState) {
+        def writer = new JsonWriter(new FrameBuffer(16))
+        GameStateJson.writeGameState(writer, gameState)
+        return new JsonSlurper().parseText(new String(writer.buffer.array(), 0, writer.buffer.size(), "UTF-8")) as Map
+    }
+
+    static Map toJson(GameSnapshot snapshot) {
+        def writer = new JsonWriter(new FrameBuffer(16))
+        GameStateJson.writeSnapshot(writer, snapshot)
+        return new JsonSlurper().parseText(new String(writer.buffer.array(), 0, writer.buffer.size(), "UTF-8")) as Map
+    }
+
+    def "The game state is written with its summary and all decks" () {
+        given:
+            def gameState = TestUtil.createFixedNewGame()
+            new MoveCard().createInstance("M C2 SA").apply(gameState)
+        when:
+            def json = toJson(gameState)
+        then:
+            with(json) {
+                moves == 1
+                score == 15
+                stockCycles == 0
+                !gameWon
+                !gameLost
+                stock == [size: 1, faceDown: 0, cards: [[suit: "CLUBS", rank: "EIGHT", symbol: "♧ 8"]]]
+                stackPiles.keySet() as List == ["SA", "SB", "SC", "SD"]
+                stackPiles.SA.cards*.rank == ["ACE", "TWO"]
+                columns.keySet() as List == ["A", "B", "C", "D", "E", "F", "G"]
+            }
+    }
+
+    def "Face-down cards are not revealed" () {
+        given:
+            def gameState = TestUtil.createFixedNewGame()
+        when:
+            def json = toJson(gameState)
+        then:
+            json.waste == [size: 1, faceDown: 1, cards: []]
+            json.columns.G.size == 7
+            json.columns.G.faceDown == 6
+            json.columns.G.cards == [[suit: "CLUBS", rank: "JACK", symbol: "♧ J"]]
+    }
+
+    def "A snapshot is written in the same format as the game state" () {
+        given:
+            def gameState = TestUtil.createFixedNewGame()
+            new MoveCard().createInstance("M C2 SA").apply(gameState)
+        expect:
+            toJson(GameSnapshot.of(gameState, 1)) == toJson(gameState)
+    }
+}
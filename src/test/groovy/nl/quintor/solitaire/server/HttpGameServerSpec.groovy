@@ -0,0 +1,207 @@
+package nl.quintor.solitaire.server
+
+import groovy.json.JsonSlurper
+import nl.quintor.solitaire.TestUtil
+import nl.quintor.solitaire.game.GameStateController
+import nl.quintor.solitaire.models.state.VirtualClock
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+
+class HttpGameServerSpec extends Specification {
+
+    @AutoCleanup
+    def server = new HttpGameServer(0, 2)
+
+    Map request(String method, String path, String body = null, HttpGameServer target = server) {
+        def connection = (HttpURLConnection) new URL("http://localhost:${target.port}$path").openConnection()
+        connection.requestMethod = method
+        if (body != null) {
+            connection.doOutput = true
+            connection.outputStream.withStream { it.write(body.getBytes("UTF-8")) }
+        }
+        def stream = connection.responseCode < 400 ? connection.inputStream : connection.errorStream
+        def text = stream == null ? "" : stream.getText("UTF-8")
+        return [status: connection.responseCode, contentType: connection.contentType,
+                json: text.isEmpty() ? null : new JsonSlurper().parseText(text)]
+    }
+
+    def "A game can be created, played, fetched and removed" () {
+        when:
+            def created = request("POST", "/games")
+        then:
+            created.status == 201
+            created.contentType == "application/json; charset=utf-8"
+            created.json.id == 1
+            created.json.message.contains("M Source Destination")
+            created.json.game.moves == 0
+            created.json.game.waste.size == 23
+        when:
+            def cycled = request("POST", "/games/1/moves", "c")
+        then:
+            cycled.status == 200
+            cycled.json.message == "Stock card 2 out of 24, cycle 0"
+            !cycled.json.error
+            cycled.json.game.moves == 1
+        when:
+            def fetched = request("GET", "/games/1")
+        then:
+            fetched.status == 200
+            fetched.json.game == cycled.json.game
+        when:
+            def removed = request("DELETE", "/games/1")
+        then:
+            removed.status == 204
+            request("GET", "/games/1").status == 404
+            server.gameCount == 0
+    }
+
+    def "A rejected move returns the reason" () {
+        given:
+            request("POST", "/games")
+        when:
+            def response = request("POST", "/games/1/moves", "M Z A")
+        then:
+            response.status == 422
+            response.json.error
+            response.json.message.startsWith('Invalid Move syntax. "Z" is not a valid source location.')
+            response.json.game.moves == 0
+    }
+
+    def "A move that loses the game is played, not rejected" () {
+        given:
+            def losing = new HttpGameServer(0, 1, 1, null, { TestUtil.createFixedNewGame() })
+            request("POST", "/games", null, losing)
+            3.times { request("POST", "/games/1/moves", "C", losing) }
+        when:
+            def response = request("POST", "/games/1/moves", "C", losing)
+        then:
+            response.status == 200
+            !response.json.error
+            response.json.message == "The stock was cycled through without any change, the game is lost."
+            response.json.game.gameLost
+            response.json.game.moves == 4
+        when:
+            def afterwards = request("POST", "/games/1/moves", "C", losing)
+        then:
+            afterwards.status == 422
+            afterwards.json.message == "The game is over."
+        cleanup:
+            losing?.close()
+    }
+
+    def "Spectators get the snapshot of the last move" () {
+        given:
+            request("POST", "/games")
+            def cycled = request("POST", "/games/1/moves", "C")
+        when:
+            def snapshot = request("GET", "/games/1/snapshot")
+        then:
+            snapshot.status == 200
+            snapshot.json.id == 1
+            snapshot.json.sequence == 1
+            snapshot.json.game.stock == cycled.json.game.stock
+            snapshot.json.game.columns == cycled.json.game.columns
+            snapshot.json.game.moves == 1
+    }
+
+    def "Idle games are passivated and restored by their next request" () {
+        given:
+            def passivating = new HttpGameServer(0, 10, 2, PassivationArena.allocateDirect(64 * 1024, 128))
+        when:
+            (1..4).each { request("POST", "/games", null, passivating) }
+            request("POST", "/games/1/moves", "C", passivating)
+            def cycled = request("POST", "/games/1/moves", "C", passivating)
+        then:
+            passivating.gameCount == 4
+            passivating.liveGameCount == 2
+            passivating.passivationStats.passivations == 3
+            passivating.passivationStats.rehydrations == 1
+            passivating.passivationStats.hits == 1
+            cycled.json.message == "Stock card 3 out of 24, cycle 0"
+            cycled.json.game.moves == 2
+        when:
+            def snapshot = request("GET", "/games/2/snapshot", null, passivating)
+            def reverted = request("POST", "/games/2/moves", "R", passivating)
+            def removed = request("DELETE", "/games/3", null, passivating)
+        then:
+            snapshot.json.game.moves == 0
+            passivating.passivationStats.rehydrations == 2
+            reverted.status == 422
+            reverted.json.message == "Cannot revert; no moves have been played."
+            removed.status == 204
+            request("GET", "/games/3", null, passivating).status == 404
+        when:
+            request("GET", "/games/4", null, passivating)
+            def repeated = request("POST", "/games/1/moves", "", passivating)
+        then:
+            passivating.passivationStats.rehydrations == 4
+            passivating.passivationStats.averageRehydrationNanos > 0
+            repeated.json.message == "Stock card 4 out of 24, cycle 0"
+            repeated.json.game.moves == 3
+        cleanup:
+            passivating?.close()
+    }
+
+    def "A passivated game scores the same as a game that stayed on the heap" () {
+        given:
+            def clock = new VirtualClock()
+            def passivating = new HttpGameServer(0, 10, 1, PassivationArena.allocateDirect(64 * 1024, 128),
+                { GameStateController.init(clock, 7) })
+            request("POST", "/games", null, passivating)
+            request("POST", "/games", null, passivating)
+        when: "game 1 was passivated when game 2 was created"
+            clock.advanceSeconds(300)
+            def live = request("POST", "/games/2/moves", "C", passivating)
+            def restored = request("POST", "/games/1/moves", "C", passivating)
+        then:
+            passivating.passivationStats.rehydrations == 1
+            live.json.game.playingSeconds == 300
+            restored.json.game == live.json.game
+        cleanup:
+            passivating?.close()
+    }
+
+    def "Games stay on the heap when the arena is full" () {
+        given:
+            def passivating = new HttpGameServer(0, 10, 1, PassivationArena.allocateDirect(128, 16))
+        when:
+            (1..3).each { request("POST", "/games", null, passivating) }
+            def played = request("POST", "/games/1/moves", "C", passivating)
+        then: "every request tries again to passivate the games beyond the maximum: 1 + 2 + 2 times"
+            passivating.passivationStats.passivations == 0
+            passivating.passivationStats.failedPassivations == 5
+            passivating.liveGameCount == 3
+            played.status == 200
+            played.json.game.moves == 1
+        cleanup:
+            passivating?.close()
+    }
+
+    def "Unknown resources and methods are rejected" () {
+        given:
+            request("POST", "/games")
+        expect:
+            request(method, path).status == expectedStatus
+        where:
+            method   | path                || expectedStatus
+            "GET"    | "/games"            || 405
+            "GET"    | "/games/9"          || 404
+            "GET"    | "/games/x"          || 404
+            "GET"    | "/games/1/moves"    || 405
+            "GET"    | "/games/1/history"  || 404
+            "POST"   | "/games/1/snapshot" || 405
+            "PUT"    | "/games/1"          || 405
+    }
+
+    def "Games beyond the maximum are refused" () {
+        given:
+            request("POST", "/games")
+            request("POST", "/games")
+        when:
+            def response = request("POST", "/games")
+        then:
+            response.status == 503
+            response.json == [message: "The server is full, please try again later.", error: true]
+    }
+}
@@ -0,0 +1,72 @@
+package nl.quintor.solitaire.server
+
+import groovy.json.JsonSlurper
+import nl.quintor.solitaire.ui.cli.FrameBuffer
+import spock.lang.Specification
+import spock.lang.Unroll
+
+
+class JsonWriterSpec extends Specification {
+
+    static String json(JsonWriter writer) {
+        return new String(writer.buffer.array(), 0, writer.buffer.size(), "UTF-8")
+    }
+
+    def "Separators are written between names, values and nested structures" () {
+        given:
+            def writer = new JsonWriter(new FrameBuffer(4))
+        when:
+            writer.beginObject()
+                .name("a").value(1)
+                .name("b").beginArray().value(true).nullValue().beginObject().endObject().beginArray().endArray().endArray()
+                .name("c").beginObject().name("d").value(-12).endObject()
+                .endObject()
+        then:
+            json(writer) == '{"a":1,"b":[true,null,{},[]],"c":{"d":-12}}'
+    }
+
+    @Unroll
+    def "The string #value is written as #expectedResult" () {
+        given:
+            def writer = new JsonWriter(new FrameBuffer(4))
+        when:
+            writer.value(value)
+        then:
+            json(writer) == expectedResult
+            new JsonSlurper().parseText("[" + json(writer) + "]") == [value]
+        where:
+            value                 || expectedResult
+            "plain"               || '"plain"'
+            'quote " backslash \\' || '"quote \\" backslash \\\\"'
+            "line\nbreak\ttab"    || '"line\\nbreak\\ttab"'
+            "bell\u0007"          || '"bell\\u0007"'
+            "♧ A and H̲elp"        || '"♧ A and H̲elp"'
+            ""                    || '""'
+    }
+
+    @Unroll
+    def "The number #value is written as #expectedResult" () {
+        given:
+            def writer = new JsonWriter(new FrameBuffer(4))
+        when:
+            writer.value(value)
+        then:
+            json(writer) == expectedResult
+        where:
+            value          || expectedResult
+            0L             || "0"
+            -100L          || "-100"
+            Long.MAX_VALUE || "9223372036854775807"
+            Long.MIN_VALUE || "-9223372036854775808"
+    }
+
+    def "Clearing the writer starts a new document" () {
+        given:
+            def writer = new JsonWriter(new FrameBuffer(4))
+            writer.beginArray().value(1)
+        when:
+            writer.clear().value(2)
+        then:
+            json(writer) == "2"
+    }
+}
@@ -0,0 +1,70 @@
+package nl.quintor.solitaire.server
+
+import spock.lang.Specification
+
+import java.nio.file.Files
+
+
+class PassivationArenaSpec extends Specification {
+
+    static byte[] record(int length) {
+        return (0..<length).collect { (byte) (it * 7) } as byte[]
+    }
+
+    def "Records of any length are stored and loaded" () {
+        given:
+            def arena = PassivationArena.allocateDirect(4096, 32)
+        when:
+            def handle = arena.store(record(length), 0, length)
+        then:
+            arena.load(handle) == record(length)
+            arena.recordCount == 1
+            arena.freeBytes == 4096 - 32 * blocks
+        where:
+            length || blocks
+            0      || 1
+            24     || 1
+            25     || 2
+            52     || 2
+            53     || 3
+            1000   || 36
+    }
+
+    def "Freed blocks are reused" () {
+        given:
+            def arena = PassivationArena.allocateDirect(1024, 64)
+            def first = arena.store(record(500), 0, 500)
+            def second = arena.store(record(300), 0, 300)
+        when:
+            arena.free(first)
+            def third = arena.store(record(400), 50, 350)
+        then:
+            arena.load(second) == record(300)
+            arena.load(third) == Arrays.copyOfRange(record(400), 50, 400)
+            arena.recordCount == 2
+    }
+
+    def "A record that does not fit is refused" () {
+        given:
+            def arena = PassivationArena.allocateDirect(256, 64)
+            arena.store(record(100), 0, 100)
+        expect:
+            arena.store(record(200), 0, 200) == -1
+            arena.store(record(100), 0, 100) >= 0
+            arena.freeBytes == 0
+    }
+
+    def "Records are stored in a memory-mapped file" () {
+        given:
+            def file = Files.createTempFile("arena", ".bin")
+            def arena = PassivationArena.map(file, 8192, 128)
+        when:
+            def handle = arena.store(record(777), 0, 777)
+        then:
+            arena.capacity == 8192
+            arena.load(handle) == record(777)
+        cleanup:
+            arena?.close()
+            Files.deleteIfExists(file)
+    }
+}
@@ -0,0 +1,145 @@
+package nl.quintor.solitaire.server
+
+import nl.quintor.solitaire.TestUtil
+import nl.quintor.solitaire.game.GameStateController
+import nl.quintor.solitaire.game.moves.CycleStock
+import nl.quintor.solitaire.game.moves.MoveCard
+import nl.quintor.solitaire.game.moves.Quit
+import nl.quintor.solitaire.models.deck.Deck
+import nl.quintor.solitaire.models.deck.DeckType
+import nl.quintor.solitaire.models.state.GameState
+import nl.quintor.solitaire.ui.cli.FrameBuffer
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+
+
+class SyncProtocolSpec extends Specification {
+
+    /**
+     * Describes what a client may know about a deck: its size, the number of face-down cards and the face-up cards.
+     */
+    static String visible(Deck deck) {
+        int faceDown = deck.deckType == DeckType.WASTE ? deck.size() : Math.min(deck.invisibleCards, deck.size())
+        return "${deck.size()}/${faceDown}/${deck.subList(faceDown, deck.size())*.ordinal}"
+    }
+
+    static String visible(GameState gameState, int moveCount) {
+        return [visible(gameState.stock), visible(gameState.waste)] +
+            gameState.stackPiles.collect { header, deck -> header + visible(deck) } +
+            gameState.columns.collect { header, deck -> header + visible(deck) } +
+            [gameState.score, gameState.stockCycles, moveCount, gameState.gameWon, gameState.gameLost]
+    }
+
+    static ByteBuffer message(SyncEncoder encoder) {
+        def out = new FrameBuffer(64)
+        encoder.writeMessage(out)
+        return ByteBuffer.wrap(Arrays.copyOf(out.array(), out.size()))
+    }
+
+    def "The decoder reconstructs the visible game after every move" () {
+        given:
+            def gameState = GameStateController.init()
+            def encoder = new SyncEncoder(gameState, 16)
+            def decoder = new SyncDecoder()
+            def random = new Random(seed)
+        expect:
+            decoder.read(message(encoder))
+            visible(decoder.gameState, decoder.moveCount) == visible(gameState, gameState.moves.size())
+            (1..2000).every {
+                TestUtil.playRandomMove(gameState, random)
+                decoder.read(message(encoder)) &&
+                    visible(decoder.gameState, decoder.moveCount) == visible(gameState, gameState.moves.size())
+            }
+            gameState.moves.size() > 50
+        where:
+            seed << [1, 2, 3, 4, 5]
+    }
+
+    def "Face-down cards are not sent to the client" () {
+        given:
+            def gameState = GameStateController.init()
+            def decoder = new SyncDecoder()
+        when:
+            decoder.read(message(new SyncEncoder(gameState, 16)))
+        then:
+            decoder.gameState.waste.size() == 23
+            decoder.gameState.waste.every { it == null }
+            decoder.gameState.columns["G"].size() == 7
+            decoder.gameState.columns["G"].subList(0, 6).every { it == null }
+            decoder.gameState.columns["G"][6] == gameState.columns["G"][6]
+    }
+
+    def "A move that touches two decks is sent as a small delta" () {
+        given:
+            def gameState = TestUtil.createFixedNewGame()
+            def encoder = new SyncEncoder(gameState, 16)
+            def keyframe = message(encoder)
+        when:
+            new MoveCard().createInstance("M B1 A").apply(gameState)
+            def delta = message(encoder)
+        then:
+            delta.get(2) == SyncProtocol.DELTA
+            delta.remaining() < 40
+            delta.remaining() * 3 < keyframe.remaining()
+    }
+
+    def "Every keyframe interval a keyframe is sent" () {
+        given:
+            def gameState = TestUtil.createFixedNewGame()
+            def encoder = new SyncEncoder(gameState, 4)
+        expect:
+            (0..8).collect { message(encoder).get(2) } == [1, 2, 2, 2, 1, 2, 2, 2, 1]
+    }
+
+    def "A client that missed a message ignores deltas until the next keyframe" () {
+        given:
+            def gameState = TestUtil.createFixedNewGame()
+            def encoder = new SyncEncoder(gameState, 4)
+            def decoder = new SyncDecoder()
+            decoder.read(message(encoder))
+        when:
+            new MoveCard().createInstance("M B1 A").apply(gameState)
+            message(encoder) // lost
+            new CycleStock().apply(gameState)
+            def skipped = decoder.read(message(encoder))
+        then:
+            !skipped
+            !decoder.synchronized
+        when:
+            encoder.requestKeyframe()
+            def applied = decoder.read(message(encoder))
+        then:
+            applied
+            decoder.synchronized
+            decoder.sequence == 3
+            visible(decoder.gameState, decoder.moveCount) == visible(gameState, gameState.moves.size())
+    }
+
+    def "The end of the game is sent" () {
+        given:
+            def gameState = TestUtil.createFixedNewGame()
+            def encoder = new SyncEncoder(gameState, 16)
+            def decoder = new SyncDecoder()
+            decoder.read(message(encoder))
+        when:
+            new Quit().apply(gameState)
+            decoder.read(message(encoder))
+        then:
+            decoder.gameState.gameLost
+            !decoder.gameState.gameWon
+    }
+
+    def "A closed encoder no longer listens to the game" () {
+        given:
+            def gameState = TestUtil.createFixedNewGame()
+            def encoder = new SyncEncoder(gameState, 16)
+            message(encoder)
+        when:
+            encoder.close()
+            new MoveCard().createInstance("M B1 A").apply(gameState)
+            def delta = message(encoder)
+        then:
+            delta.remaining() == 2 + 1 + 4 + 10 + 1
+    }
+}
@@ -0,0 +1,100 @@
+package nl.quintor.solitaire.statistics
+
+import nl.quintor.solitaire.TestUtil
+import nl.quintor.solitaire.game.GameStateController
+import nl.quintor.solitaire.game.moves.Quit
+import nl.quintor.solitaire.models.state.VirtualClock
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.util.stream.Collectors
+
+
+class GameArchiveSpec extends Specification {
+
+    static List<ArchivedGame> playedGames(int count) {
+        return (1..count).collect { dealId ->
+            def clock = new VirtualClock()
+            def gameState = GameStateController.init(clock, dealId, dealId % 5 == 0 ? 2 : 1)
+            def random = new Random(dealId)
+            (dealId * 7 % 300).times {
+                clock.advanceSeconds(1)
+                TestUtil.playRandomMove(gameState, random)
+            }
+            GameStateController.applyTimePenalty(gameState)
+            if (dealId % 3 == 0) new Quit().apply(gameState)
+            ArchivedGame.of(gameState)
+        }
+    }
+
+    def "Archived games are read back by index, by block and by scanning" () {
+        given:
+            def file = Files.createTempFile("archive", ".bin")
+            def games = playedGames(50) + [new ArchivedGame(Long.MIN_VALUE, 3, true, false, -12345, 0, ["M M12 SL", "C", "M SL M", "M O A"])]
+        when:
+            GameArchiveWriter.create(file, 8).withCloseable { writer -> games.each { writer.append(it) } }
+            def archive = GameArchive.open(file)
+        then:
+            games.sum { it.moveCount } > 500
+            archive.gameCount == games.size()
+            archive.blockCount == 7
+            (0..<games.size()).every { archive.get(it) == games[it] }
+            archive.getBlock(6) == games.subList(48, 51)
+            archive.stream().collect(Collectors.toList()) == games
+            archive.stream().parallel().collect(Collectors.toList()) == games
+            archive.streamWithoutMoves().collect(Collectors.toList())*.moveCount == games*.moveCount
+            archive.streamWithoutMoves().allMatch { it.moves.empty }
+            archive.streamWithoutMoves().parallel().mapToLong { it.score }.sum() == games.sum { it.score }
+        cleanup:
+            archive?.close()
+            Files.deleteIfExists(file)
+    }
+
+    def "The archive takes a few bytes per game and about a byte per move" () {
+        given:
+            def file = Files.createTempFile("archive", ".bin")
+            def games = playedGames(200)
+        when:
+            GameArchiveWriter.create(file).withCloseable { writer -> games.each { writer.append(it) } }
+            def text = games.collect { "$it.dealId,$it.decks,$it.won,$it.lost,$it.score,$it.durationMillis,${it.moves.join(';')}\n" }.join()
+        then:
+            Files.size(file) < 8 * games.size() + games.sum { it.moveCount }
+            Files.size(file) * 5 < text.length()
+        cleanup:
+            Files.deleteIfExists(file)
+    }
+
+    def "A game with a move that is not part of the alphabet is rejected and not archived" () {
+        given:
+            def file = Files.createTempFile("archive", ".bin")
+            def writer = GameArchiveWriter.create(file, 4)
+            writer.append(new ArchivedGame(1, 1, false, true, 0, 10, ["C"]))
+        when:
+            writer.append(new ArchivedGame(2, 1, false, true, 0, 10, ["C", move]))
+        then:
+            thrown(IllegalArgumentException)
+            writer.gameCount == 1
+        when:
+            writer.close()
+        then:
+            GameArchive.open(file).withCloseable { it.stream().collect(Collectors.toList()) } == [new ArchivedGame(1, 1, false, true, 0, 10, ["C"])]
+        cleanup:
+            Files.deleteIfExists(file)
+        where:
+            move << ["M A SA", "M A1 B2", "M Z1 A", "M SM A", "M A100 B", "Q", "M O"]
+    }
+
+    def "An archive that was not closed can't be opened" () {
+        given:
+            def file = Files.createTempFile("archive", ".bin")
+            def writer = GameArchiveWriter.create(file, 2)
+            playedGames(5).each { writer.append(it) }
+        when:
+            GameArchive.open(file)
+        then:
+            thrown(IOException)
+        cleanup:
+            writer.close()
+            Files.deleteIfExists(file)
+    }
+}
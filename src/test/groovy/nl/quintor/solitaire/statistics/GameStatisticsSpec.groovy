@@ -0,0 +1,125 @@
+package nl.quintor.solitaire.statistics
+
+import nl.quintor.solitaire.TestUtil
+import nl.quintor.solitaire.game.GameSession
+import nl.quintor.solitaire.ui.UI
+import spock.lang.Specification
+
+import java.nio.file.Files
+
+
+class GameStatisticsSpec extends Specification {
+
+    def "Finished games update the statistics of their player and their deal" () {
+        given:
+            def statistics = GameStatistics.inMemory()
+        when:
+            statistics.record("alice", 1, 500, 60_000, 50, true)
+            statistics.record("alice", 2, 100, 120_000, 90, false)
+            statistics.record("bob", 1, 0, 30_000, 10, false)
+        then:
+            with(statistics.ofPlayer("alice")) {
+                games == 2
+                wins == 1
+                winRate == 0.5d
+                averageMoves == 70d
+                averageDurationMillis == 90_000
+                averageScore == 300d
+                scoreHistogram[Aggregate.bucketOf(500)] == 1
+                scoreHistogram[Aggregate.bucketOf(100)] == 1
+                scoreHistogram.sum() == 2
+            }
+            with(statistics.ofDeal(1)) {
+                games == 2
+                wins == 1
+                scoreHistogram[0] == 1
+            }
+            statistics.ofPlayer("carol").games == 0
+            statistics.ofPlayer("carol").toString() == "no games"
+            statistics.playerCount == 2
+            statistics.dealCount == 2
+    }
+
+    def "A score of #score is counted in bucket #bucket" () {
+        expect:
+            Aggregate.bucketOf(score) == bucket
+            score <= 0 || Aggregate.bucketLowerBound(bucket) <= score
+        where:
+            score          || bucket
+            -100           || 0
+            0              || 0
+            1              || 1
+            2              || 2
+            3              || 2
+            4              || 3
+            700            || 10
+            23_333         || 15
+            Long.MAX_VALUE || 15
+    }
+
+    def "Statistics survive saving and loading the columnar file" () {
+        given:
+            def file = Files.createTempFile("statistics", ".bin")
+            Files.delete(file)
+            def statistics = GameStatistics.open(file)
+            def random = new Random(11)
+            1000.times { statistics.record("p${random.nextInt(100)}", random.nextInt(300), random.nextInt(2000), random.nextInt(600_000), random.nextInt(200), random.nextBoolean()) }
+        when:
+            statistics.close()
+            def loaded = GameStatistics.open(file)
+        then:
+            loaded.playerCount == statistics.playerCount
+            loaded.dealCount == statistics.dealCount
+            (0..<100).every { loaded.ofPlayer("p$it") == statistics.ofPlayer("p$it") }
+            (0..<300).every { loaded.ofDeal(it) == statistics.ofDeal(it) }
+        when:
+            loaded.record("p0", 0, 10, 10, 1, true)
+            loaded.save()
+        then:
+            GameStatistics.open(file).ofPlayer("p0").games == statistics.ofPlayer("p0").games + 1
+            file.parent.toFile().list().findAll { it.startsWith(file.fileName.toString()) && it.endsWith(".tmp") }.empty
+        cleanup:
+            Files.deleteIfExists(file)
+    }
+
+    def "Statistics that have not been saved yet start empty" () {
+        given:
+            def file = Files.createTempFile("statistics", ".bin")
+            Files.delete(file)
+        expect:
+            GameStatistics.open(file).playerCount == 0
+            !Files.exists(file)
+    }
+
+    def "A file that is not a statistics file is refused" () {
+        given:
+            def file = Files.createTempFile("statistics", ".bin")
+            Files.write(file, [0, 0, 0, 42] as byte[])
+        when:
+            GameStatistics.open(file)
+        then:
+            thrown(IOException)
+        cleanup:
+            Files.deleteIfExists(file)
+    }
+
+    def "A session records its game and offers the stats move" () {
+        given:
+            def statistics = GameStatistics.inMemory()
+            def ui = Mock(UI)
+            def session = new GameSession(ui, TestUtil.createFixedNewGame())
+            session.recordTo(statistics, "alice")
+        when:
+            session.play("S")
+        then:
+            session.moves*.class*.simpleName == ["CycleStock", "MoveCard", "Revert", "Stats", "Help", "Quit"]
+            1 * ui.setMessage({ it.contains("Your games: no games") })
+        when:
+            session.recordTo(statistics, "alice")
+            session.play("Q")
+        then:
+            session.moves.size() == 6
+            statistics.ofPlayer("alice").games == 1
+            statistics.ofPlayer("alice").wins == 0
+    }
+}
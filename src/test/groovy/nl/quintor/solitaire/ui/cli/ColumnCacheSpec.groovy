@@ -0,0 +1,64 @@
+package nl.quintor.solitaire.ui.cli
+
+import nl.quintor.solitaire.TestUtil
+import nl.quintor.solitaire.models.card.Card
+import nl.quintor.solitaire.models.card.Rank
+import nl.quintor.solitaire.models.card.Suit
+import nl.quintor.solitaire.models.deck.Deck
+import nl.quintor.solitaire.models.deck.DeckType
+import spock.lang.Specification
+import spock.lang.Unroll
+
+
+class ColumnCacheSpec extends Specification {
+
+    @Unroll
+    def "The modification stamp of a deck should change when testing: #testCase" () {
+        given:
+            def deck = TestUtil.createTestDeck(DeckType.COLUMN, 5, 2)
+            def stamp = deck.modificationStamp
+        when:
+            mutation(deck)
+        then:
+            deck.modificationStamp != stamp
+        where:
+            mutation                                              || testCase
+            { Deck d -> d.add(new Card(Suit.HEARTS, Rank.KING)) } || "adding a card"
+            { Deck d -> d.remove(d.size() - 1) }                  || "removing a card"
+            { Deck d -> d.subList(3, d.size()).clear() }          || "removing cards through a sub list"
+            { Deck d -> d.set(0, new Card(Suit.HEARTS, Rank.KING)) } || "replacing a card"
+            { Deck d -> Collections.shuffle(d) }                  || "shuffling"
+            { Deck d -> d.sort(null) }                            || "sorting"
+            { Deck d -> d.setInvisibleCards(1) }                  || "setting the invisible cards"
+    }
+
+    def "A column is only rendered again when it changed" () {
+        given:
+            def cache = GameStateParser.createColumnCache()
+            def gameState = TestUtil.createFixedNewGame()
+            GameStateParser.parseGameState(gameState, cache)
+            assert cache.renderCount == 7
+        when: "the same state is rendered again"
+            GameStateParser.parseGameState(gameState, cache)
+        then:
+            cache.renderCount == 7
+        when: "a card is moved between two columns"
+            def columnA = gameState.columns.get("A")
+            gameState.columns.get("B").add(columnA.remove(0))
+            def result = GameStateParser.parseGameState(gameState, cache)
+        then:
+            cache.renderCount == 9
+            result == GameStateParser.parseGameState(gameState)
+    }
+
+    def "A different deck at the same position is rendered" () {
+        given:
+            def cache = new ColumnCache<String>({ Deck deck -> deck.toString() })
+            def first = TestUtil.createTestDeckWithCards([new Card(Suit.HEARTS, Rank.KING)])
+            def second = TestUtil.createTestDeckWithCards([new Card(Suit.HEARTS, Rank.KING)])
+        expect:
+            cache.get(0, first) == "[♥ K]"
+            cache.get(0, second) == "[♥ K]"
+            cache.renderCount == 2
+    }
+}
@@ -0,0 +1,74 @@
+package nl.quintor.solitaire.ui.cli
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+
+class DiffRendererSpec extends Specification {
+    static final String ESC = "\u001B["
+
+    static String render(DiffRenderer renderer, String frame) {
+        def frameBuffer = new FrameBuffer(16).putChars(frame)
+        def out = new FrameBuffer(16)
+        renderer.render(frameBuffer, out)
+        return new String(out.array(), 0, out.size(), "UTF-8")
+    }
+
+    def "The first frame clears the screen and is written completely" () {
+        given:
+            def renderer = new DiffRenderer()
+        expect:
+            render(renderer, "ab\ncd\n") == "${ESC}H${ESC}2J${ESC}1;1Hab${ESC}2;1Hcd${ESC}3;1H${ESC}J"
+    }
+
+    def "Rendering the same frame again only positions the cursor" () {
+        given:
+            def renderer = new DiffRenderer()
+            render(renderer, "ab\ncd\n")
+        expect:
+            render(renderer, "ab\ncd\n") == "${ESC}3;1H${ESC}J"
+    }
+
+    @Unroll
+    def "Rendering #nextFrame after #previousFrame should only write the changes when testing: #testCase" () {
+        given:
+            def renderer = new DiffRenderer()
+            render(renderer, previousFrame)
+        expect:
+            render(renderer, nextFrame) == expectedResult
+        where:
+            previousFrame   | nextFrame       || expectedResult                                       | testCase
+            "abcdef\n"      | "abXdef\n"      || "${ESC}1;3HX${ESC}2;1H${ESC}J"                       | "one changed cell"
+            "abcdef\n"      | "XbcdeY\n"      || "${ESC}1;1HX${ESC}1;6HY${ESC}2;1H${ESC}J"             | "two separate changed cells"
+            "abcdef\n"      | "aXYdef\n"      || "${ESC}1;2HXY${ESC}2;1H${ESC}J"                      | "a run of changed cells"
+            "abcdef\n"      | "abc\n"         || "${ESC}1;4H${ESC}K${ESC}2;1H${ESC}J"                 | "shorter line"
+            "abc\n"         | "abcdef\n"      || "${ESC}1;4Hdef${ESC}2;1H${ESC}J"                     | "longer line"
+            "a\n"           | "a\nb\n"        || "${ESC}2;1Hb${ESC}K${ESC}3;1H${ESC}J"                | "new row"
+            "a\nb\n"        | "a\n"           || "${ESC}2;1H${ESC}J"                                  | "removed row"
+            "H̲elp Q\n" | "H̲elp X\n" || "${ESC}1;6HX${ESC}2;1H${ESC}J"                     | "combining characters do not occupy a column"
+            "${ESC}31mab${ESC}0m\n" | "${ESC}31mac${ESC}0m\n" || "${ESC}1;1H${ESC}31mac${ESC}0m${ESC}K${ESC}2;1H${ESC}J" | "colored rows are rewritten completely"
+    }
+
+    def "After a reset the complete frame is written again" () {
+        given:
+            def renderer = new DiffRenderer()
+            render(renderer, "ab\n")
+        when:
+            renderer.reset()
+        then:
+            render(renderer, "ab\n") == "${ESC}H${ESC}2J${ESC}1;1Hab${ESC}2;1H${ESC}J"
+    }
+
+    def "A typical card move writes a small fraction of the bytes of a full redraw" () {
+        given:
+            def renderer = new DiffRenderer()
+            def board = (0..20).collect { row -> (0..6).collect { "♤ ${row % 9 + 2}    " }.join() }
+            def fullFrame = render(renderer, board.join("\n"))
+            board[3] = board[3].replaceFirst("♤ 5", "♥ 5")
+            board[4] = board[4].replaceFirst("♤ 6", "? ?")
+        when:
+            def diff = render(renderer, board.join("\n"))
+        then:
+            diff.getBytes("UTF-8").length * 10 < fullFrame.getBytes("UTF-8").length
+    }
+}
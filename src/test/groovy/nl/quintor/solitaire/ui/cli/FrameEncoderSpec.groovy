@@ -0,0 +1,57 @@
+package nl.quintor.solitaire.ui.cli
+
+import nl.quintor.solitaire.TestUtil
+import nl.quintor.solitaire.game.GameStateController
+import nl.quintor.solitaire.models.card.Card
+import nl.quintor.solitaire.models.card.Rank
+import nl.quintor.solitaire.models.card.Suit
+import nl.quintor.solitaire.models.deck.Deck
+import nl.quintor.solitaire.models.state.VirtualClock
+import spock.lang.Specification
+import spock.lang.Unroll
+
+
+class FrameEncoderSpec extends Specification {
+
+    static String encode(gameState) {
+        def buffer = new FrameBuffer(16)
+        new FrameEncoder(buffer).appendGameState(gameState)
+        return new String(buffer.array(), 0, buffer.size(), "UTF-8")
+    }
+
+    @Unroll
+    def "The encoded frame should equal the parsed game state when testing: #testCase" () {
+        expect:
+            encode(gameState) == GameStateParser.parseGameState(gameState)
+        where:
+            gameState                                          || testCase
+            TestUtil.createFixedNewGame()                      || "fixed new game"
+            TestUtil.createGame(4000L)                         || "new game with a long duration"
+            TestUtil.createGameWithEmptyStockAndWaste()        || "empty stock and waste"
+            longColumnGame()                                   || "columns of more than 10 rows"
+            GameStateController.init(new VirtualClock(), 5, 2) || "two decks"
+            GameStateController.init(new VirtualClock(), 5, 3) || "three decks"
+    }
+
+    def "Reusing the buffer for a second frame does not keep the first frame" () {
+        given:
+            def gameState = TestUtil.createFixedNewGame()
+            def buffer = new FrameBuffer(16)
+            def encoder = new FrameEncoder(buffer)
+            encoder.appendGameState(GameStateController.init())
+        when:
+            buffer.clear()
+            encoder.appendGameState(gameState)
+            encoder.appendLine("message")
+        then:
+            new String(buffer.array(), 0, buffer.size(), "UTF-8") == GameStateParser.parseGameState(gameState) + "message\n"
+    }
+
+    static longColumnGame() {
+        def result = TestUtil.createFixedNewGame()
+        def column = result.columns.get("G")
+        Deck.createDefaultDeck().findAll { it.suit == Suit.HEARTS && it.rank != Rank.ACE }.reverse().each { column.add(it) }
+        column.add(new Card(Suit.SPADES, Rank.TEN))
+        return result
+    }
+}
@@ -0,0 +1,514 @@
+package nl.quintor.solitaire.game;
+
+import nl.quintor.solitaire.game.moves.CycleStock;
+import nl.quintor.solitaire.game.moves.MoveCard;
+import nl.quintor.solitaire.game.moves.Revert;
+import nl.quintor.solitaire.game.moves.RevertibleMove;
+import nl.quintor.solitaire.game.moves.ex.MoveException;
+import nl.quintor.solitaire.models.card.Card;
+import nl.quintor.solitaire.models.deck.Deck;
+import nl.quintor.solitaire.models.deck.DeckType;
+import nl.quintor.solitaire.models.state.GameState;
+import nl.quintor.solitaire.models.state.VirtualClock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Randomized stress test of applying and reverting moves. Every sequence deals a seeded game and plays random actions:
+ * a legal card move, cycling the stock or a revert. After every action the invariants are checked:
+ *
+ * <ul>
+ *     <li>the decks hold the 52 cards of the deal, each exactly once
+ *     <li>every non-empty column has a face-up last card, the card counters of the GameState are correct, and the
+ *     stack piles and the face-up column cards are legal runs
+ *     <li>the score equals the score computed by the rules of this class, from the position before the action
+ *     <li>reverting the action restores the previous position exactly, and applying it again gives the same position
+ * </ul>
+ *
+ * At the end of every sequence replaying the remembered moves on the deal must give the same position and score.
+ * Sequences run in parallel on all processors. The first violation stops the run; its sequence is then shrunk to a
+ * minimal sequence that still violates an invariant, and reported as a reproducer. Run with:
+ *
+ * <pre>{@code
+ * mvn test-compile exec:java -Dexec.mainClass=nl.quintor.solitaire.game.ApplyRevertStress -Dexec.classpathScope=test -Dexec.args="<sequences> <steps>"
+ * }</pre>
+ */
+public class ApplyRevertStress {
+    private final static List<String> DESTINATIONS = Arrays.asList("SA", "SB", "SC", "SD", "A", "B", "C", "D", "E", "F", "G");
+
+    public static void main(String... args) throws InterruptedException {
+        long sequences = args.length > 0 ? Long.parseLong(args[0]) : 20_000;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        Report report = run(Runtime.getRuntime().availableProcessors(), 1, sequences, steps);
+        System.out.println(report);
+        if (report.getFailure() != null) System.exit(1);
+    }
+
+    /**
+     * Plays random sequences on seeded deals in parallel until all sequences are played or an invariant is violated.
+     *
+     * @param threads number of threads
+     * @param firstSeed seed of the first sequence; the seed is also the deal
+     * @param sequences number of sequences
+     * @param steps number of actions per sequence
+     * @return report of the run, with the shrunk reproducer of the first violation if there is one
+     * @throws InterruptedException if the thread is interrupted while waiting for the threads
+     * @throws IllegalStateException if a thread fails with an error, like running out of memory
+     */
+    public static Report run(int threads, long firstSeed, long sequences, int steps) throws InterruptedException {
+        AtomicLong nextSeed = new AtomicLong(firstSeed);
+        AtomicReference<Failure> failure = new AtomicReference<>();
+        LongAdder playedSteps = new LongAdder();
+        LongAdder playedSequences = new LongAdder();
+        List<Callable<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            workers.add(() -> {
+                long seed;
+                while (failure.get() == null && (seed = nextSeed.getAndIncrement()) < firstSeed + sequences) {
+                    Failure result = play(seed, steps, playedSteps);
+                    playedSequences.increment();
+                    if (result != null) failure.compareAndSet(null, result);
+                }
+                return null;
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        try {
+            for (Future<Void> worker : executor.invokeAll(workers)) {
+                try {
+                    worker.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("A worker failed outside of its sequences", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        long nanos = System.nanoTime() - start;
+        Failure first = failure.get();
+        if (first != null) {
+            long dealId = first.getDealId();
+            List<String> shrunk = shrink(first.getActions(), actions -> replay(dealId, actions) != null);
+            first = new Failure(dealId, shrunk, replay(dealId, shrunk));
+        }
+        return new Report(threads, playedSequences.sum(), playedSteps.sum(), nanos, first);
+    }
+
+    /**
+     * Plays one random sequence.
+     *
+     * @param seed seed of the actions and the deal
+     * @param steps maximum number of actions; fewer if no action is possible
+     * @param playedSteps counter of the played actions
+     * @return the violation with the actions up to and including the violating one, or null if there is none; an
+     * exception thrown while playing the sequence is a violation too
+     */
+    static Failure play(long seed, int steps, LongAdder playedSteps){
+        GameState gameState = GameStateController.init(new VirtualClock(), seed);
+        Random random = new Random(seed);
+        List<String> actions = new ArrayList<>(steps);
+        List<Long> scores = new ArrayList<>();
+        try {
+            for (int step = 0; step < steps; step++) {
+                String action = chooseAction(gameState, random);
+                if (action == null) break;
+                actions.add(action);
+                playedSteps.increment();
+                String violation = perform(gameState, action, scores);
+                if (violation != null) return new Failure(seed, actions, violation);
+            }
+            String violation = checkInvariants(gameState);
+            return violation == null ? null : new Failure(seed, actions, "at the end: " + violation);
+        } catch (RuntimeException e) {
+            return new Failure(seed, actions, "checking the actions threw " + e);
+        }
+    }
+
+    /**
+     * Replays actions on a deal. Actions that are not possible in the position they are replayed in are skipped, so
+     * any subsequence of a sequence can be replayed.
+     *
+     * @param dealId deal to play
+     * @param actions actions to replay
+     * @return the first violation, or null if the actions violate no invariant
+     */
+    static String replay(long dealId, List<String> actions){
+        GameState gameState = GameStateController.init(new VirtualClock(), dealId);
+        List<Long> scores = new ArrayList<>();
+        try {
+            for (String action : actions) {
+                String violation = perform(gameState, action, scores);
+                if (violation != null) return violation;
+            }
+            String violation = checkInvariants(gameState);
+            return violation == null ? null : "at the end: " + violation;
+        } catch (RuntimeException e) {
+            return "checking the actions threw " + e;
+        }
+    }
+
+    /**
+     * Shrinks a failing sequence by removing ever smaller chunks of actions for as long as the sequence keeps failing.
+     *
+     * @param actions failing sequence
+     * @param fails test that returns true if a sequence fails
+     * @return a sequence that fails, from which no single action can be removed without making it pass
+     */
+    static List<String> shrink(List<String> actions, Predicate<List<String>> fails){
+        List<String> current = new ArrayList<>(actions);
+        int chunk = Math.max(1, current.size() / 2);
+        while (true) {
+            boolean removed = false;
+            for (int start = 0; start < current.size(); ) {
+                List<String> candidate = new ArrayList<>(current.subList(0, start));
+                candidate.addAll(current.subList(Math.min(start + chunk, current.size()), current.size()));
+                if (fails.test(candidate)) {
+                    current = candidate;
+                    removed = true;
+                } else {
+                    start += chunk;
+                }
+            }
+            if (!removed) {
+                if (chunk == 1) return current;
+                chunk /= 2;
+            }
+        }
+    }
+
+    /**
+     * Chooses a random possible action: "R" to revert, "C" to cycle the stock or a card move like "M B1 A".
+     *
+     * @return the action, or null if no action is possible
+     */
+    private static String chooseAction(GameState gameState, Random random){
+        int roll = random.nextInt(10);
+        boolean canRevert = !gameState.getMoves().isEmpty();
+        boolean canCycle = !gameState.getStock().isEmpty() || !gameState.getWaste().isEmpty();
+        if (roll < 2 && canRevert) return "R";
+        if (roll < 4 && canCycle) return "C";
+        List<String> cardMoves = legalCardMoves(gameState);
+        if (!cardMoves.isEmpty()) return cardMoves.get(random.nextInt(cardMoves.size()));
+        return canCycle ? "C" : canRevert ? "R" : null;
+    }
+
+    /**
+     * Performs an action and checks the invariants, the revert of the action and applying it again.
+     *
+     * @param scores the score before every remembered move, updated with the action
+     * @return description of the violated invariant, or null if there is none or the action is not possible
+     */
+    private static String perform(GameState gameState, String action, List<Long> scores){
+        try {
+            if ("R".equals(action)) {
+                if (gameState.getMoves().isEmpty()) return null;
+                String before = describe(gameState);
+                String reverted = gameState.getMoves().get(gameState.getMoves().size() - 1).getPlayerInput();
+                new Revert().apply(gameState);
+                String after = describe(gameState);
+                long expectedScore = scores.remove(scores.size() - 1);
+                if (gameState.getBaseScore() != expectedScore) return "score " + gameState.getBaseScore() + " after reverting " + reverted + " instead of " + expectedScore;
+                String violation = checkPosition(gameState);
+                if (violation != null) return "after reverting " + reverted + ": " + violation;
+                apply(gameState, reverted);
+                if (!describe(gameState).equals(before)) return "applying reverted " + reverted + " again does not restore the position";
+                new Revert().apply(gameState);
+                if (!describe(gameState).equals(after)) return "reverting " + reverted + " a second time gives a different position";
+            } else {
+                if (!isPossible(gameState, action)) return null;
+                String before = describe(gameState);
+                long expectedScore = gameState.getBaseScore() + scoreOf(gameState, action);
+                scores.add(gameState.getBaseScore());
+                apply(gameState, action);
+                String after = describe(gameState);
+                if (gameState.getBaseScore() != expectedScore) return "score " + gameState.getBaseScore() + " after " + action + " instead of " + expectedScore;
+                String violation = checkPosition(gameState);
+                if (violation != null) return "after " + action + ": " + violation;
+                new Revert().apply(gameState);
+                if (!describe(gameState).equals(before)) return "reverting " + action + " does not restore the position";
+                apply(gameState, action);
+                if (!describe(gameState).equals(after)) return "applying " + action + " again after reverting it gives a different position";
+            }
+            return null;
+        } catch (MoveException e) {
+            return "legal action " + action + " was rejected: " + e.getMessage();
+        } catch (RuntimeException e) {
+            return action + " threw " + e;
+        }
+    }
+
+    private static void apply(GameState gameState, String action) throws MoveException{
+        if ("C".equals(action)) new CycleStock().apply(gameState);
+        else new MoveCard(action).apply(gameState);
+    }
+
+    /**
+     * Returns the points an action scores: 5 for a card from the stock to a column, 10 for a card from the stock or a
+     * column to a stack pile, 5 for turning a column card face-up, -15 for a card from a stack pile and -100 for
+     * turning the stock over.
+     */
+    private static long scoreOf(GameState gameState, String action){
+        if ("C".equals(action)) return gameState.getWaste().isEmpty() ? -100 : 0;
+        String[] input = action.split(" ");
+        Deck sourceDeck = getDeck(gameState, input[1]);
+        DeckType source = sourceDeck.getDeckType();
+        DeckType destination = getDeck(gameState, input[2]).getDeckType();
+        long score = 0;
+        if (source == DeckType.STOCK && destination == DeckType.COLUMN) score += 5;
+        if (source != DeckType.STACK && destination == DeckType.STACK) score += 10;
+        if (source == DeckType.STACK) score -= 15;
+        if (source == DeckType.COLUMN) {
+            int row = Integer.parseInt(input[1].substring(1));
+            if (row > 0 && row == sourceDeck.getInvisibleCards()) score += 5;
+        }
+        return score;
+    }
+
+    /**
+     * Checks all invariants of a position, including the replay of its moves, which takes time in proportion to the
+     * number of moves.
+     *
+     * @param gameState position to check
+     * @return description of the violated invariant, or null if there is none
+     */
+    static String checkInvariants(GameState gameState){
+        String violation = checkPosition(gameState);
+        if (violation != null) return violation;
+        GameState replayed = GameStateController.init(new VirtualClock(), gameState.getDealId());
+        for (RevertibleMove move : gameState.getMoves()) {
+            try {
+                apply(replayed, move.getPlayerInput());
+            } catch (MoveException e) {
+                return "the moves do not replay, " + move.getPlayerInput() + " is rejected: " + e.getMessage();
+            }
+        }
+        if (replayed.getBaseScore() != gameState.getBaseScore()) return "score " + gameState.getBaseScore() + ", replaying the moves gives " + replayed.getBaseScore();
+        if (!describe(replayed).equals(describe(gameState))) return "replaying the moves gives a different position";
+        return null;
+    }
+
+    /**
+     * Checks the invariants of the cards of a position.
+     */
+    private static String checkPosition(GameState gameState){
+        List<Deck> decks = new ArrayList<>();
+        decks.add(gameState.getStock());
+        decks.add(gameState.getWaste());
+        decks.addAll(gameState.getStackPiles().values());
+        decks.addAll(gameState.getColumns().values());
+        Set<Card> cards = new HashSet<>();
+        int count = 0;
+        for (Deck deck : decks) {
+            cards.addAll(deck);
+            count += deck.size();
+        }
+        if (count != 52 || cards.size() != 52) return count + " cards of which " + cards.size() + " unique";
+
+        int faceDown = 0;
+        for (Map.Entry<String, Deck> entry : gameState.getColumns().entrySet()) {
+            Deck column = entry.getValue();
+            if (column.isEmpty() ? column.getInvisibleCards() != 0 : column.getInvisibleCards() >= column.size()) {
+                return "column " + entry.getKey() + " has " + column.getInvisibleCards() + " face-down of " + column.size() + " cards";
+            }
+            faceDown += column.getInvisibleCards();
+            for (int i = column.getInvisibleCards() + 1; i < column.size(); i++) {
+                if (!CardMoveChecks.isLegalColumnMove(column.get(i - 1), column.get(i))) return "column " + entry.getKey() + " is not a run: " + column;
+            }
+        }
+        int foundation = 0;
+        for (Map.Entry<String, Deck> entry : gameState.getStackPiles().entrySet()) {
+            Deck stackPile = entry.getValue();
+            foundation += stackPile.size();
+            for (int i = 0; i < stackPile.size(); i++) {
+                if (!CardMoveChecks.isLegalStackMove(i == 0 ? null : stackPile.get(i - 1), stackPile.get(i))) return "stack pile " + entry.getKey() + " is not a run: " + stackPile;
+            }
+        }
+        int stock = gameState.getStock().size() + gameState.getWaste().size();
+        if (gameState.getFaceDownCards() != faceDown || gameState.getFoundationCards() != foundation || gameState.getStockCards() != stock) {
+            return "counters " + gameState.getFaceDownCards() + "/" + gameState.getFoundationCards() + "/" + gameState.getStockCards() +
+                " instead of " + faceDown + "/" + foundation + "/" + stock;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the legal card moves, using the same rules as {@link CardMoveChecks} without creating exceptions.
+     */
+    private static List<String> legalCardMoves(GameState gameState){
+        List<String> moves = new ArrayList<>();
+        addLegalCardMoves(gameState, "O", gameState.getStock(), gameState.getStock().size() - 1, moves);
+        gameState.getStackPiles().forEach((header, stackPile) -> addLegalCardMoves(gameState, header, stackPile, stackPile.size() - 1, moves));
+        gameState.getColumns().forEach((header, column) -> {
+            for (int row = column.getInvisibleCards(); row < column.size(); row++) addLegalCardMoves(gameState, header + row, column, row, moves);
+        });
+        return moves;
+    }
+
+    private static void addLegalCardMoves(GameState gameState, String source, Deck sourceDeck, int index, List<String> moves){
+        if (index < 0) return;
+        for (String destination : DESTINATIONS) {
+            if (isLegal(sourceDeck, index, getDeck(gameState, destination))) moves.add("M " + source + " " + destination);
+        }
+    }
+
+    private static boolean isPossible(GameState gameState, String action){
+        if ("C".equals(action)) return !gameState.getStock().isEmpty() || !gameState.getWaste().isEmpty();
+        String[] input = action.split(" ");
+        Deck sourceDeck = getDeck(gameState, input[1]);
+        boolean column = sourceDeck.getDeckType() == DeckType.COLUMN;
+        int index = column ? Integer.parseInt(input[1].substring(1)) : sourceDeck.size() - 1;
+        return index >= 0 && index < sourceDeck.size() && isLegal(sourceDeck, index, getDeck(gameState, input[2]));
+    }
+
+    private static boolean isLegal(Deck sourceDeck, int index, Deck destinationDeck){
+        if (sourceDeck == destinationDeck || index < sourceDeck.getInvisibleCards()) return false;
+        Card targetCard = destinationDeck.isEmpty() ? null : destinationDeck.get(destinationDeck.size() - 1);
+        if (destinationDeck.getDeckType() == DeckType.STACK) {
+            return index == sourceDeck.size() - 1 && CardMoveChecks.isLegalStackMove(targetCard, sourceDeck.get(index));
+        }
+        return CardMoveChecks.isLegalColumnMove(targetCard, sourceDeck.get(index));
+    }
+
+    private static Deck getDeck(GameState gameState, String locationToken){
+        if ("O".equals(locationToken)) return gameState.getStock();
+        if (locationToken.startsWith("S")) return gameState.getStackPiles().get(locationToken);
+        return gameState.getColumns().get(locationToken.substring(0, 1));
+    }
+
+    /**
+     * Describes a position: the cards of every deck, the face-down cards, the score, the stock cycles and the moves.
+     */
+    private static String describe(GameState gameState){
+        StringBuilder description = new StringBuilder();
+        description.append(gameState.getStock()).append(gameState.getWaste());
+        gameState.getStackPiles().forEach((header, stackPile) -> description.append(header).append(stackPile));
+        gameState.getColumns().forEach((header, column) -> description.append(header).append(column.getInvisibleCards()).append(column));
+        description.append(' ').append(gameState.getBaseScore()).append(' ').append(gameState.getStockCycles());
+        for (RevertibleMove move : gameState.getMoves()) description.append(',').append(move.getPlayerInput());
+        return description.toString();
+    }
+
+    /**
+     * A sequence of actions that violates an invariant.
+     */
+    public static final class Failure {
+        private final long dealId;
+        private final List<String> actions;
+        private final String violation;
+
+        Failure(long dealId, List<String> actions, String violation){
+            this.dealId = dealId;
+            this.actions = actions;
+            this.violation = violation;
+        }
+
+        /**
+         * Getter for dealId.
+         *
+         * @return deal, and seed, of the sequence
+         */
+        public long getDealId(){
+            return dealId;
+        }
+
+        /**
+         * Getter for actions.
+         *
+         * @return actions up to and including the violating one
+         */
+        public List<String> getActions(){
+            return actions;
+        }
+
+        /**
+         * Getter for violation.
+         *
+         * @return description of the violated invariant
+         */
+        public String getViolation(){
+            return violation;
+        }
+
+        @Override
+        public String toString(){
+            return "deal " + dealId + ", actions " + actions + ": " + violation;
+        }
+    }
+
+    /**
+     * Result of {@link #run(int, long, long, int)}.
+     */
+    public static final class Report {
+        private final int threads;
+        private final long sequences;
+        private final long steps;
+        private final long nanos;
+        private final Failure failure;
+
+        Report(int threads, long sequences, long steps, long nanos, Failure failure){
+            this.threads = threads;
+            this.sequences = sequences;
+            this.steps = steps;
+            this.nanos = nanos;
+            this.failure = failure;
+        }
+
+        /**
+         * Getter for sequences.
+         *
+         * @return number of played sequences
+         */
+        public long getSequences(){
+            return sequences;
+        }
+
+        /**
+         * Getter for steps.
+         *
+         * @return number of played actions
+         */
+        public long getSteps(){
+            return steps;
+        }
+
+        /**
+         * Returns the number of actions played per second, by all threads together.
+         *
+         * @return actions per second
+         */
+        public double getStepsPerSecond(){
+            return steps * 1e9 / Math.max(1, nanos);
+        }
+
+        /**
+         * Getter for failure.
+         *
+         * @return shrunk reproducer of the first violation, or null if no invariant was violated
+         */
+        public Failure getFailure(){
+            return failure;
+        }
+
+        @Override
+        public String toString(){
+            return String.format("%d sequences, %d steps in %.1f s on %d thread(s): %.0f steps/s, %s", sequences, steps,
+                nanos / 1e9, threads, getStepsPerSecond(), failure == null ? "no violations" : "violation " + failure);
+        }
+    }
+}
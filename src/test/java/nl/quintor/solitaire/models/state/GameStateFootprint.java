@@ -0,0 +1,176 @@
+package nl.quintor.solitaire.models.state;
+
+import nl.quintor.solitaire.agent.AgentUI;
+import nl.quintor.solitaire.agent.RandomAgent;
+import nl.quintor.solitaire.game.GameStateController;
+import nl.quintor.solitaire.models.card.Rank;
+import nl.quintor.solitaire.models.card.Suit;
+import nl.quintor.solitaire.models.deck.DeckType;
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Measures the memory footprint of a {@link GameState}: the bytes of all objects reachable from it, per field. The
+ * retained size of a field is the size of the objects that only that field reaches, so removing the field would free
+ * them; objects reached through several fields, such as the decks that the moves refer to, are counted as shared. Objects
+ * that are shared by all games, such as the enum constants and {@link GameClock#SYSTEM}, are not counted. Run with:
+ *
+ * <pre>{@code
+ * mvn test-compile exec:java -Dexec.mainClass=nl.quintor.solitaire.models.state.GameStateFootprint -Dexec.classpathScope=test -Dexec.args="0 50 200"
+ * }</pre>
+ *
+ * The arguments are the numbers of moves after which the footprint of a game is reported.
+ */
+public class GameStateFootprint {
+    private final static GraphLayout GLOBALS = GraphLayout.parseInstance(Suit.values(), Rank.values(), DeckType.values(), GameClock.SYSTEM);
+
+    public static void main(String... args){
+        String[] moves = args.length > 0 ? args : new String[]{"0", "50", "200"};
+        for (String count : moves) {
+            GameState gameState = play(Integer.parseInt(count));
+            System.out.println("After " + count + " moves: " + measure(gameState));
+            System.out.println(layout(roots(gameState, null)).toFootprint());
+        }
+    }
+
+    /**
+     * Deals game 1 and lets a {@link RandomAgent} play it for a number of moves.
+     *
+     * @param moves number of moves
+     * @return the game after the moves
+     */
+    public static GameState play(int moves){
+        GameState gameState = GameStateController.init(new VirtualClock(), 1);
+        if (moves > 0) AgentUI.play(new RandomAgent(1), gameState, moves);
+        return gameState;
+    }
+
+    /**
+     * Measures the footprint of a game.
+     *
+     * @param gameState game to measure
+     * @return footprint of the game
+     */
+    public static Footprint measure(GameState gameState){
+        long shell = ClassLayout.parseInstance(gameState).instanceSize();
+        long reachable = layout(roots(gameState, null)).totalSize();
+        Map<String, Long> components = new LinkedHashMap<>();
+        for (Field field : fields()) {
+            if (value(gameState, field) == null) continue;
+            components.put(field.getName(), reachable - layout(roots(gameState, field)).totalSize());
+        }
+        List<Map.Entry<String, Long>> sorted = new ArrayList<>(components.entrySet());
+        sorted.sort(Collections.reverseOrder(Map.Entry.comparingByValue()));
+        Map<String, Long> retained = new LinkedHashMap<>();
+        long owned = 0;
+        for (Map.Entry<String, Long> entry : sorted) {
+            retained.put(entry.getKey(), entry.getValue());
+            owned += entry.getValue();
+        }
+        return new Footprint(shell + reachable, shell, reachable - owned, retained);
+    }
+
+    private static GraphLayout layout(Object[] roots){
+        return roots.length == 0 ? new GraphLayout() : GraphLayout.parseInstance(roots).subtract(GLOBALS);
+    }
+
+    /**
+     * Returns the values of the reference fields of the game, except the excluded field.
+     */
+    private static Object[] roots(GameState gameState, Field excluded){
+        List<Object> roots = new ArrayList<>();
+        for (Field field : fields()) {
+            Object value = value(gameState, field);
+            if (!field.equals(excluded) && value != null) roots.add(value);
+        }
+        return roots.toArray();
+    }
+
+    private static List<Field> fields(){
+        List<Field> fields = new ArrayList<>();
+        for (Field field : GameState.class.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive()) continue;
+            field.setAccessible(true);
+            fields.add(field);
+        }
+        return fields;
+    }
+
+    private static Object value(GameState gameState, Field field){
+        try {
+            return field.get(gameState);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Footprint of a game, see {@link #measure(GameState)}.
+     */
+    public static final class Footprint {
+        private final long total;
+        private final long shell;
+        private final long shared;
+        private final Map<String, Long> retained;
+
+        Footprint(long total, long shell, long shared, Map<String, Long> retained){
+            this.total = total;
+            this.shell = shell;
+            this.shared = shared;
+            this.retained = retained;
+        }
+
+        /**
+         * Getter for total.
+         *
+         * @return bytes of the GameState and all objects reachable from it, except the objects shared by all games
+         */
+        public long getTotal(){
+            return total;
+        }
+
+        /**
+         * Getter for shell.
+         *
+         * @return bytes of the GameState object itself
+         */
+        public long getShell(){
+            return shell;
+        }
+
+        /**
+         * Getter for shared.
+         *
+         * @return bytes of the objects reachable through more than one field
+         */
+        public long getShared(){
+            return shared;
+        }
+
+        /**
+         * Getter for retained.
+         *
+         * @return retained bytes per field of GameState, largest first
+         */
+        public Map<String, Long> getRetained(){
+            return retained;
+        }
+
+        @Override
+        public String toString(){
+            StringBuilder result = new StringBuilder(String.format(Locale.ROOT, "%d bytes%n", total));
+            retained.forEach((field, bytes) -> result.append(String.format(Locale.ROOT, "  %-14s %8d%n", field, bytes)));
+            result.append(String.format(Locale.ROOT, "  %-14s %8d%n  %-14s %8d%n", "(shared)", shared, "(GameState)", shell));
+            return result.toString();
+        }
+    }
+}